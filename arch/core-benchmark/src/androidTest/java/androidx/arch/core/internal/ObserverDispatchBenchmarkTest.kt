@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.arch.core.internal
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+
+/**
+ * Compares dispatching an event to every observer of a registry backed by [SafeIterableMap],
+ * [FastSafeIterableMap] and [CopyOnWriteIterableMap], the way `LiveData` and
+ * `LifecycleRegistry` do, as well as the cost of registering and unregistering observers.
+ */
+@RunWith(Parameterized::class)
+class ObserverDispatchBenchmarkTest(private val observers: Int) {
+    private val keys = Array(observers) { Observer() }
+
+    private val safeMap = SafeIterableMap<Observer, Observer>().apply {
+        for (key in keys) putIfAbsent(key, key)
+    }
+    private val fastSafeMap = FastSafeIterableMap<Observer, Observer>().apply {
+        for (key in keys) putIfAbsent(key, key)
+    }
+    private val copyOnWriteMap = CopyOnWriteIterableMap<Observer, Observer>().apply {
+        for (key in keys) putIfAbsent(key, key)
+    }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test fun safeIterableMap_dispatch() {
+        benchmark.measureRepeated {
+            val iterator = safeMap.iteratorWithAdditions()
+            while (iterator.hasNext()) {
+                iterator.next().value.onChanged()
+            }
+        }
+    }
+
+    @Test fun fastSafeIterableMap_dispatch() {
+        benchmark.measureRepeated {
+            val iterator = fastSafeMap.iterator()
+            while (iterator.hasNext()) {
+                val entry = iterator.next()
+                if (fastSafeMap.contains(entry.key)) {
+                    entry.value.onChanged()
+                }
+            }
+        }
+    }
+
+    @Test fun copyOnWriteIterableMap_dispatchIterator() {
+        benchmark.measureRepeated {
+            val iterator = copyOnWriteMap.iterator()
+            while (iterator.hasNext()) {
+                iterator.next().value.onChanged()
+            }
+        }
+    }
+
+    @Test fun copyOnWriteIterableMap_dispatchSnapshot() {
+        benchmark.measureRepeated {
+            val snapshot = copyOnWriteMap.snapshot()
+            for (i in 0 until snapshot.size()) {
+                if (!snapshot.isRemoved(i)) {
+                    snapshot.valueAt(i).onChanged()
+                }
+            }
+        }
+    }
+
+    @Test fun safeIterableMap_registerUnregister() {
+        val map = SafeIterableMap<Observer, Observer>()
+        benchmark.measureRepeated {
+            for (key in keys) map.putIfAbsent(key, key)
+            for (key in keys) map.remove(key)
+        }
+    }
+
+    @Test fun fastSafeIterableMap_registerUnregister() {
+        val map = FastSafeIterableMap<Observer, Observer>()
+        benchmark.measureRepeated {
+            for (key in keys) map.putIfAbsent(key, key)
+            for (key in keys) map.remove(key)
+        }
+    }
+
+    @Test fun copyOnWriteIterableMap_registerUnregister() {
+        val map = CopyOnWriteIterableMap<Observer, Observer>()
+        benchmark.measureRepeated {
+            for (key in keys) map.putIfAbsent(key, key)
+            for (key in keys) map.remove(key)
+        }
+    }
+
+    class Observer {
+        var changes = 0
+
+        fun onChanged() {
+            changes++
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameters(name = "observers={0}")
+        fun parameters() = listOf(1, 10, 100, 1_000)
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.arch.core.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Insertion ordered map for observer registries, which supports modifications during iterations
+ * like {@link SafeIterableMap} but is safe to read from any thread.
+ *
+ * <p>Every modification publishes a new immutable {@link Snapshot} of the entries, so iterating
+ * never takes a lock and, when nothing is modified, never allocates:
+ * <pre>
+ * CopyOnWriteIterableMap.Snapshot&lt;K, V&gt; snapshot = map.snapshot();
+ * for (int i = 0; i &lt; snapshot.size(); i++) {
+ *     if (!snapshot.isRemoved(i)) {
+ *         dispatch(snapshot.valueAt(i));
+ *     }
+ * }
+ * </pre>
+ * As with {@link SafeIterableMap}, an iteration does not see entries added after it started,
+ * and {@link #iterator()} skips entries which are removed while it is in progress. Entries in a
+ * {@link Snapshot} report removals through {@link Snapshot#isRemoved(int)}.
+ *
+ * <p>Modifications copy the whole entry array, so this map suits registries which are iterated
+ * far more often than they change. Modifications are serialized with a lock and may be made
+ * from any thread.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public class CopyOnWriteIterableMap<K, V> implements Iterable<Map.Entry<K, V>> {
+    @SuppressWarnings("rawtypes")
+    private static final Snapshot EMPTY = new Snapshot<>(new Entry[0]);
+
+    private final Object mLock = new Object();
+    private final ConcurrentHashMap<K, Entry<K, V>> mIndex = new ConcurrentHashMap<>();
+    private volatile Snapshot<K, V> mSnapshot;
+
+    @SuppressWarnings("unchecked")
+    public CopyOnWriteIterableMap() {
+        mSnapshot = (Snapshot<K, V>) EMPTY;
+    }
+
+    /**
+     * If the specified key is not already associated
+     * with a value, associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param v   value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     * or {@code null} if there was no mapping for the key
+     */
+    @Nullable
+    public V putIfAbsent(@NonNull K key, @NonNull V v) {
+        synchronized (mLock) {
+            Entry<K, V> current = mIndex.get(key);
+            if (current != null) {
+                return current.mValue;
+            }
+            Entry<K, V> entry = new Entry<>(key, v);
+            Entry<K, V>[] entries = mSnapshot.mEntries;
+            Entry<K, V>[] newEntries = newArray(entries.length + 1);
+            System.arraycopy(entries, 0, newEntries, 0, entries.length);
+            newEntries[entries.length] = entry;
+            mIndex.put(key, entry);
+            mSnapshot = new Snapshot<>(newEntries);
+            return null;
+        }
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with the specified key,
+     * or {@code null} if there was no mapping for the key
+     */
+    @Nullable
+    public V remove(@NonNull K key) {
+        synchronized (mLock) {
+            Entry<K, V> removed = mIndex.remove(key);
+            if (removed == null) {
+                return null;
+            }
+            removed.mRemoved = true;
+            Entry<K, V>[] entries = mSnapshot.mEntries;
+            if (entries.length == 1) {
+                mSnapshot = emptySnapshot();
+                return removed.mValue;
+            }
+            Entry<K, V>[] newEntries = newArray(entries.length - 1);
+            int index = indexOf(entries, removed);
+            System.arraycopy(entries, 0, newEntries, 0, index);
+            System.arraycopy(entries, index + 1, newEntries, index, newEntries.length - index);
+            mSnapshot = new Snapshot<>(newEntries);
+            return removed.mValue;
+        }
+    }
+
+    /**
+     * Returns the value associated with the given key, or {@code null} if there is none.
+     */
+    @Nullable
+    public V get(@NonNull K key) {
+        Entry<K, V> entry = mIndex.get(key);
+        return entry != null ? entry.mValue : null;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the specified
+     * key.
+     */
+    public boolean contains(@NonNull K key) {
+        return mIndex.containsKey(key);
+    }
+
+    /**
+     * Return an entry added to prior to an entry associated with the given key.
+     *
+     * @param k the key
+     */
+    @Nullable
+    public Map.Entry<K, V> ceil(@NonNull K k) {
+        Entry<K, V> entry = mIndex.get(k);
+        if (entry == null) {
+            return null;
+        }
+        Entry<K, V>[] entries = mSnapshot.mEntries;
+        int index = indexOf(entries, entry);
+        return index > 0 ? entries[index - 1] : null;
+    }
+
+    /**
+     * @return the number of elements in this map
+     */
+    public int size() {
+        return mSnapshot.mEntries.length;
+    }
+
+    /**
+     * @return eldest added entry or null
+     */
+    @Nullable
+    public Map.Entry<K, V> eldest() {
+        Entry<K, V>[] entries = mSnapshot.mEntries;
+        return entries.length > 0 ? entries[0] : null;
+    }
+
+    /**
+     * @return newest added entry or null
+     */
+    @Nullable
+    public Map.Entry<K, V> newest() {
+        Entry<K, V>[] entries = mSnapshot.mEntries;
+        return entries.length > 0 ? entries[entries.length - 1] : null;
+    }
+
+    /**
+     * Returns the entries of this map at the time of the call, eldest first. The snapshot is
+     * never modified, and taking one does not allocate.
+     */
+    @NonNull
+    public Snapshot<K, V> snapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * @return an ascending iterator, which doesn't include new elements added during an
+     * iteration.
+     */
+    @NonNull
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new SnapshotIterator<>(mSnapshot.mEntries, false);
+    }
+
+    /**
+     * @return an descending iterator, which doesn't include new elements added during an
+     * iteration.
+     */
+    @NonNull
+    public Iterator<Map.Entry<K, V>> descendingIterator() {
+        return new SnapshotIterator<>(mSnapshot.mEntries, true);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CopyOnWriteIterableMap)) {
+            return false;
+        }
+        Entry<?, ?>[] entries = mSnapshot.mEntries;
+        Entry<?, ?>[] other = ((CopyOnWriteIterableMap<?, ?>) obj).mSnapshot.mEntries;
+        if (entries.length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < entries.length; i++) {
+            if (!entries[i].equals(other[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (Entry<K, V> entry : mSnapshot.mEntries) {
+            h += entry.hashCode();
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("[");
+        Entry<K, V>[] entries = mSnapshot.mEntries;
+        for (int i = 0; i < entries.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(entries[i].toString());
+        }
+        builder.append("]");
+        return builder.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Snapshot<K, V> emptySnapshot() {
+        return (Snapshot<K, V>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Entry<K, V>[] newArray(int size) {
+        return (Entry<K, V>[]) new Entry[size];
+    }
+
+    @SuppressWarnings("ReferenceEquality")
+    private static <K, V> int indexOf(Entry<K, V>[] entries, Entry<K, V> entry) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == entry) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * An immutable view of the entries of a {@link CopyOnWriteIterableMap} at one point in time,
+     * eldest first.
+     *
+     * @param <K> Key type
+     * @param <V> Value type
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public static final class Snapshot<K, V> {
+        final Entry<K, V>[] mEntries;
+
+        Snapshot(Entry<K, V>[] entries) {
+            mEntries = entries;
+        }
+
+        /**
+         * @return the number of entries in this snapshot
+         */
+        public int size() {
+            return mEntries.length;
+        }
+
+        /**
+         * @return the key of the entry at the given index
+         */
+        @NonNull
+        public K keyAt(int index) {
+            return mEntries[index].mKey;
+        }
+
+        /**
+         * @return the value of the entry at the given index
+         */
+        @NonNull
+        public V valueAt(int index) {
+            return mEntries[index].mValue;
+        }
+
+        /**
+         * @return {@code true} if the entry at the given index has been removed from the map
+         * since this snapshot was taken
+         */
+        public boolean isRemoved(int index) {
+            return mEntries[index].mRemoved;
+        }
+    }
+
+    private static class SnapshotIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Entry<K, V>[] mEntries;
+        private final boolean mDescending;
+        private int mPosition;
+        private Entry<K, V> mNext;
+
+        SnapshotIterator(Entry<K, V>[] entries, boolean descending) {
+            mEntries = entries;
+            mDescending = descending;
+            mPosition = descending ? entries.length - 1 : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            // Skip entries which were removed since the iteration started.
+            while (mNext == null && mPosition >= 0 && mPosition < mEntries.length) {
+                Entry<K, V> entry = mEntries[mPosition];
+                mPosition += mDescending ? -1 : 1;
+                if (!entry.mRemoved) {
+                    mNext = entry;
+                }
+            }
+            return mNext != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> result = mNext;
+            mNext = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+    }
+
+    static class Entry<K, V> implements Map.Entry<K, V> {
+        @NonNull
+        final K mKey;
+        @NonNull
+        final V mValue;
+        volatile boolean mRemoved;
+
+        Entry(@NonNull K key, @NonNull V value) {
+            mKey = key;
+            mValue = value;
+        }
+
+        @NonNull
+        @Override
+        public K getKey() {
+            return mKey;
+        }
+
+        @NonNull
+        @Override
+        public V getValue() {
+            return mValue;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("An entry modification is not supported");
+        }
+
+        @Override
+        public String toString() {
+            return mKey + "=" + mValue;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) obj;
+            return mKey.equals(entry.mKey) && mValue.equals(entry.mValue);
+        }
+
+        @Override
+        public int hashCode() {
+            return mKey.hashCode() ^ mValue.hashCode();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import androidx.arch.core.internal.CopyOnWriteIterableMap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(JUnit4.class)
+public class CopyOnWriteIterableMapTest {
+    @Test
+    public void testPutAndGet() {
+        CopyOnWriteIterableMap<Integer, Integer> map = new CopyOnWriteIterableMap<>();
+        assertThat(map.putIfAbsent(10, 20), nullValue());
+        assertThat(map.putIfAbsent(20, 40), nullValue());
+        assertThat(map.putIfAbsent(10, 30), is(20));
+        assertThat(map.get(10), is(20));
+        assertThat(map.get(30), nullValue());
+        assertThat(map.size(), is(2));
+        assertThat(map.eldest().getKey(), is(10));
+        assertThat(map.newest().getKey(), is(20));
+    }
+
+    @Test
+    public void testRemove() {
+        CopyOnWriteIterableMap<Integer, Integer> map = mapOf(1, 2, 3);
+        assertThat(map.remove(2), is(2));
+        assertThat(map.remove(2), nullValue());
+        assertThat(map.contains(2), is(false));
+        assertThat(collect(map.iterator()), is(Arrays.asList(1, 3)));
+        map.remove(1);
+        map.remove(3);
+        assertThat(map.size(), is(0));
+        assertThat(map.eldest(), nullValue());
+        assertThat(map.newest(), nullValue());
+    }
+
+    @Test
+    public void testCeil() {
+        CopyOnWriteIterableMap<Integer, Boolean> map = new CopyOnWriteIterableMap<>();
+        assertThat(map.ceil(1), nullValue());
+        map.putIfAbsent(1, false);
+        assertThat(map.ceil(1), nullValue());
+        map.putIfAbsent(2, false);
+        assertThat(map.ceil(2).getKey(), is(1));
+        map.remove(1);
+        assertThat(map.ceil(2), nullValue());
+    }
+
+    @Test
+    public void testDescendingIterator() {
+        CopyOnWriteIterableMap<Integer, Integer> map = mapOf(1, 2, 3);
+        assertThat(collect(map.descendingIterator()), is(Arrays.asList(3, 2, 1)));
+    }
+
+    @Test
+    public void testIteratorSkipsRemovedAndIgnoresAdded() {
+        CopyOnWriteIterableMap<Integer, Integer> map = mapOf(1, 2, 3, 4);
+        Iterator<Map.Entry<Integer, Integer>> iterator = map.iterator();
+        List<Integer> seen = new ArrayList<>();
+        while (iterator.hasNext()) {
+            int key = iterator.next().getKey();
+            seen.add(key);
+            if (key == 1) {
+                map.remove(3);
+                map.putIfAbsent(5, 5);
+            }
+        }
+        assertThat(seen, is(Arrays.asList(1, 2, 4)));
+        assertThat(collect(map.iterator()), is(Arrays.asList(1, 2, 4, 5)));
+    }
+
+    @Test
+    public void testSnapshotIsStable() {
+        CopyOnWriteIterableMap<Integer, Integer> map = mapOf(1, 2);
+        CopyOnWriteIterableMap.Snapshot<Integer, Integer> snapshot = map.snapshot();
+        assertThat(map.snapshot(), sameInstance(snapshot));
+
+        map.remove(1);
+        map.putIfAbsent(3, 3);
+        assertThat(snapshot.size(), is(2));
+        assertThat(snapshot.keyAt(0), is(1));
+        assertThat(snapshot.isRemoved(0), is(true));
+        assertThat(snapshot.valueAt(1), is(2));
+        assertThat(snapshot.isRemoved(1), is(false));
+        assertThat(map.snapshot().size(), is(2));
+    }
+
+    @Test
+    public void testEqualsAndToString() {
+        CopyOnWriteIterableMap<Integer, Integer> map = mapOf(1, 2);
+        assertThat(map.equals(mapOf(1, 2)), is(true));
+        assertThat(map.hashCode(), is(mapOf(1, 2).hashCode()));
+        assertThat(map.equals(mapOf(2, 1)), is(false));
+        assertThat(map.toString(), is("[1=1, 2=2]"));
+    }
+
+    @Test
+    public void testConcurrentReadsDuringWrites() throws InterruptedException {
+        final CopyOnWriteIterableMap<Integer, Integer> map = new CopyOnWriteIterableMap<>();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (done.getCount() > 0) {
+                    CopyOnWriteIterableMap.Snapshot<Integer, Integer> snapshot = map.snapshot();
+                    for (int i = 0; i < snapshot.size(); i++) {
+                        if (!snapshot.keyAt(i).equals(snapshot.valueAt(i))) {
+                            failed.set(true);
+                        }
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2000; i++) {
+            map.putIfAbsent(i, i);
+            if (i % 3 == 0) {
+                map.remove(i / 2);
+            }
+        }
+        done.countDown();
+        reader.join();
+        assertThat(failed.get(), is(false));
+    }
+
+    private static CopyOnWriteIterableMap<Integer, Integer> mapOf(Integer... keys) {
+        CopyOnWriteIterableMap<Integer, Integer> map = new CopyOnWriteIterableMap<>();
+        for (Integer key : keys) {
+            map.putIfAbsent(key, key);
+        }
+        return map;
+    }
+
+    private static List<Integer> collect(Iterator<Map.Entry<Integer, Integer>> iterator) {
+        List<Integer> keys = new ArrayList<>();
+        while (iterator.hasNext()) {
+            keys.add(iterator.next().getKey());
+        }
+        return keys;
+    }
+}
@@ -54,6 +54,13 @@ public class ArchTaskExecutor extends TaskExecutor {
         }
     };
 
+    @NonNull
+    private static final Executor[] sPriorityIOThreadExecutors = {
+            new PriorityIOThreadExecutor(PRIORITY_HIGH),
+            new PriorityIOThreadExecutor(PRIORITY_DEFAULT),
+            new PriorityIOThreadExecutor(PRIORITY_LOW)
+    };
+
     private ArchTaskExecutor() {
         mDefaultTaskExecutor = new DefaultTaskExecutor();
         mDelegate = mDefaultTaskExecutor;
@@ -96,6 +103,11 @@ public class ArchTaskExecutor extends TaskExecutor {
         mDelegate.executeOnDiskIO(runnable);
     }
 
+    @Override
+    public void executeOnDiskIO(@NonNull Runnable runnable, int priority) {
+        mDelegate.executeOnDiskIO(runnable, priority);
+    }
+
     @Override
     public void postToMainThread(Runnable runnable) {
         mDelegate.postToMainThread(runnable);
@@ -111,8 +123,35 @@ public class ArchTaskExecutor extends TaskExecutor {
         return sIOThreadExecutor;
     }
 
+    /**
+     * Returns an executor which runs tasks in the disk IO thread pool with the given priority.
+     *
+     * @param priority One of {@link #PRIORITY_HIGH}, {@link #PRIORITY_DEFAULT} or
+     *                 {@link #PRIORITY_LOW}.
+     */
+    @NonNull
+    public static Executor getIOThreadExecutor(int priority) {
+        if (priority < PRIORITY_HIGH || priority > PRIORITY_LOW) {
+            throw new IllegalArgumentException("Unknown priority " + priority);
+        }
+        return sPriorityIOThreadExecutors[priority];
+    }
+
     @Override
     public boolean isMainThread() {
         return mDelegate.isMainThread();
     }
+
+    private static class PriorityIOThreadExecutor implements Executor {
+        private final int mPriority;
+
+        PriorityIOThreadExecutor(int priority) {
+            mPriority = priority;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            getInstance().executeOnDiskIO(command, mPriority);
+        }
+    }
 }
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.arch.core.executor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TaskExecutor} whose disk IO pool runs queued tasks in priority order and records how
+ * long they wait and run.
+ * <p>
+ * Tasks submitted with {@link #PRIORITY_HIGH} are dequeued before tasks with
+ * {@link #PRIORITY_DEFAULT}, which are dequeued before tasks with {@link #PRIORITY_LOW}. Tasks of
+ * equal priority run in submission order.
+ * <p>
+ * The queue is bounded. When it is full, a task submitted from a background thread is run by
+ * the submitting thread, which slows down producers that outpace the pool. A task submitted from
+ * the main thread is always queued, so that disk IO never runs on the main thread.
+ * <p>
+ * Install it with {@link ArchTaskExecutor#setDelegate(TaskExecutor)}. Main thread tasks are
+ * forwarded to another {@link TaskExecutor}, a {@link DefaultTaskExecutor} unless one is given.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public class PriorityTaskExecutor extends TaskExecutor {
+    private static final int DEFAULT_THREAD_COUNT = 4;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int PRIORITY_COUNT = PRIORITY_LOW + 1;
+
+    private final TaskExecutor mMainThreadExecutor;
+    private final ThreadPoolExecutor mDiskIO;
+    private final int mQueueCapacity;
+    private final AtomicLong mSequence = new AtomicLong();
+
+    private final AtomicInteger mMaxQueueDepth = new AtomicInteger();
+    private final AtomicLong mCallerRunsCount = new AtomicLong();
+    private final AtomicLong[] mCompletedCount = newCounters();
+    private final AtomicLong[] mWaitTimeNanos = newCounters();
+    private final AtomicLong[] mRunTimeNanos = newCounters();
+    private final AtomicLong[] mMaxWaitTimeNanos = newCounters();
+
+    @Nullable
+    private volatile TaskListener mTaskListener;
+
+    public PriorityTaskExecutor() {
+        this(DEFAULT_THREAD_COUNT, DEFAULT_QUEUE_CAPACITY, new DefaultTaskExecutor());
+    }
+
+    /**
+     * @param threadCount        The number of disk IO threads.
+     * @param queueCapacity      The number of tasks that may wait for a disk IO thread before
+     *                           background submitters run their tasks themselves.
+     * @param mainThreadExecutor The executor which handles main thread tasks.
+     */
+    public PriorityTaskExecutor(int threadCount, int queueCapacity,
+            @NonNull TaskExecutor mainThreadExecutor) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be >= 1");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be >= 1");
+        }
+        mQueueCapacity = queueCapacity;
+        mMainThreadExecutor = mainThreadExecutor;
+        mDiskIO = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private static final String THREAD_NAME_STEM = "arch_disk_io_%d";
+
+                    private final AtomicInteger mThreadId = new AtomicInteger(0);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r);
+                        t.setName(String.format(THREAD_NAME_STEM, mThreadId.getAndIncrement()));
+                        return t;
+                    }
+                });
+    }
+
+    @Override
+    public void executeOnDiskIO(@NonNull Runnable runnable) {
+        executeOnDiskIO(runnable, PRIORITY_DEFAULT);
+    }
+
+    @Override
+    public void executeOnDiskIO(@NonNull Runnable runnable, int priority) {
+        if (priority < PRIORITY_HIGH || priority > PRIORITY_LOW) {
+            throw new IllegalArgumentException("Unknown priority " + priority);
+        }
+        PrioritizedTask task = new PrioritizedTask(runnable, priority,
+                mSequence.getAndIncrement(), System.nanoTime());
+        int depth = mDiskIO.getQueue().size();
+        if (depth >= mQueueCapacity && !mMainThreadExecutor.isMainThread()) {
+            mCallerRunsCount.incrementAndGet();
+            task.run();
+            return;
+        }
+        mDiskIO.execute(task);
+        updateMax(mMaxQueueDepth, depth + 1);
+    }
+
+    @Override
+    public void postToMainThread(@NonNull Runnable runnable) {
+        mMainThreadExecutor.postToMainThread(runnable);
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return mMainThreadExecutor.isMainThread();
+    }
+
+    /**
+     * Returns the number of disk IO tasks waiting for a thread.
+     */
+    public int getQueueDepth() {
+        return mDiskIO.getQueue().size();
+    }
+
+    /**
+     * Returns the largest number of disk IO tasks that have waited for a thread at once.
+     */
+    public int getMaxQueueDepth() {
+        return mMaxQueueDepth.get();
+    }
+
+    /**
+     * Returns the number of disk IO tasks which were run by the submitting thread because the
+     * queue was full.
+     */
+    public long getCallerRunsCount() {
+        return mCallerRunsCount.get();
+    }
+
+    /**
+     * Returns the number of disk IO tasks of the given priority which have finished running.
+     */
+    public long getCompletedTaskCount(int priority) {
+        return mCompletedCount[priority].get();
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, that finished disk IO tasks of the given priority
+     * waited between being submitted and starting to run.
+     */
+    public long getTotalWaitTimeNanos(int priority) {
+        return mWaitTimeNanos[priority].get();
+    }
+
+    /**
+     * Returns the longest time, in nanoseconds, that a finished disk IO task of the given
+     * priority waited between being submitted and starting to run.
+     */
+    public long getMaxWaitTimeNanos(int priority) {
+        return mMaxWaitTimeNanos[priority].get();
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, that finished disk IO tasks of the given priority
+     * spent running.
+     */
+    public long getTotalRunTimeNanos(int priority) {
+        return mRunTimeNanos[priority].get();
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    public void resetStats() {
+        mMaxQueueDepth.set(0);
+        mCallerRunsCount.set(0);
+        for (int i = 0; i < PRIORITY_COUNT; i++) {
+            mCompletedCount[i].set(0);
+            mWaitTimeNanos[i].set(0);
+            mRunTimeNanos[i].set(0);
+            mMaxWaitTimeNanos[i].set(0);
+        }
+    }
+
+    /**
+     * Sets a listener which is notified after every disk IO task finishes, on the thread which
+     * ran it. Tests can use it to wait for tasks and assert on their timings.
+     */
+    @VisibleForTesting
+    public void setTaskListener(@Nullable TaskListener listener) {
+        mTaskListener = listener;
+    }
+
+    /**
+     * Stops accepting disk IO tasks. Tasks which are already queued still run.
+     */
+    public void shutdown() {
+        mDiskIO.shutdown();
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void onTaskFinished(PrioritizedTask task, long waitNanos, long runNanos) {
+        final int priority = task.mPriority;
+        mCompletedCount[priority].incrementAndGet();
+        mWaitTimeNanos[priority].addAndGet(waitNanos);
+        mRunTimeNanos[priority].addAndGet(runNanos);
+        updateMax(mMaxWaitTimeNanos[priority], waitNanos);
+        TaskListener listener = mTaskListener;
+        if (listener != null) {
+            listener.onTaskFinished(priority, waitNanos, runNanos);
+        }
+    }
+
+    private static void updateMax(AtomicInteger max, int value) {
+        int current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    private static AtomicLong[] newCounters() {
+        AtomicLong[] counters = new AtomicLong[PRIORITY_COUNT];
+        for (int i = 0; i < PRIORITY_COUNT; i++) {
+            counters[i] = new AtomicLong();
+        }
+        return counters;
+    }
+
+    /**
+     * Receives the timings of every disk IO task run by a {@link PriorityTaskExecutor}.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public interface TaskListener {
+        /**
+         * Called after a disk IO task finishes, on the thread which ran it.
+         *
+         * @param priority  The priority the task was submitted with.
+         * @param waitNanos The time the task waited between being submitted and starting to run.
+         * @param runNanos  The time the task spent running.
+         */
+        void onTaskFinished(int priority, long waitNanos, long runNanos);
+    }
+
+    private class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        final Runnable mRunnable;
+        final int mPriority;
+        final long mSequence;
+        final long mSubmitTimeNanos;
+
+        PrioritizedTask(Runnable runnable, int priority, long sequence, long submitTimeNanos) {
+            mRunnable = runnable;
+            mPriority = priority;
+            mSequence = sequence;
+            mSubmitTimeNanos = submitTimeNanos;
+        }
+
+        @Override
+        public void run() {
+            final long start = System.nanoTime();
+            try {
+                mRunnable.run();
+            } finally {
+                onTaskFinished(this, start - mSubmitTimeNanos, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            if (mPriority != other.mPriority) {
+                return mPriority < other.mPriority ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+}
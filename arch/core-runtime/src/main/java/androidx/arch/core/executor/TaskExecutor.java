@@ -29,6 +29,22 @@ import androidx.annotation.RestrictTo;
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public abstract class TaskExecutor {
+    /**
+     * Priority for disk IO work whose result the user is waiting for, such as a query backing a
+     * {@code LiveData} that is about to be posted to the UI.
+     */
+    public static final int PRIORITY_HIGH = 0;
+
+    /**
+     * Priority used by {@link #executeOnDiskIO(Runnable)}.
+     */
+    public static final int PRIORITY_DEFAULT = 1;
+
+    /**
+     * Priority for disk IO work that nothing on screen is waiting for, such as cleanup.
+     */
+    public static final int PRIORITY_LOW = 2;
+
     /**
      * Executes the given task in the disk IO thread pool.
      *
@@ -36,6 +52,20 @@ public abstract class TaskExecutor {
      */
     public abstract void executeOnDiskIO(@NonNull Runnable runnable);
 
+    /**
+     * Executes the given task in the disk IO thread pool with the given priority.
+     * <p>
+     * Executors that do not support priorities run the task as
+     * {@link #executeOnDiskIO(Runnable)} does, which is the default behavior.
+     *
+     * @param runnable The runnable to run in the disk IO thread pool.
+     * @param priority One of {@link #PRIORITY_HIGH}, {@link #PRIORITY_DEFAULT} or
+     *                 {@link #PRIORITY_LOW}.
+     */
+    public void executeOnDiskIO(@NonNull Runnable runnable, int priority) {
+        executeOnDiskIO(runnable);
+    }
+
     /**
      * Posts the given task to the main thread.
      *
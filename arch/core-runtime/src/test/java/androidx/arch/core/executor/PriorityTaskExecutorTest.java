@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.arch.core.executor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class PriorityTaskExecutorTest {
+    private FakeMainThreadExecutor mMainThread;
+    private PriorityTaskExecutor mExecutor;
+
+    @Before
+    public void setup() {
+        mMainThread = new FakeMainThreadExecutor();
+        mExecutor = new PriorityTaskExecutor(1, 4, mMainThread);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdown();
+    }
+
+    @Test
+    public void runsQueuedTasksInPriorityOrder() throws InterruptedException {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        mExecutor.executeOnDiskIO(new Runnable() {
+            @Override
+            public void run() {
+                await(blocker);
+            }
+        });
+        waitForQueueDepth(0);
+
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        mExecutor.executeOnDiskIO(record(order, "low"), TaskExecutor.PRIORITY_LOW);
+        mExecutor.executeOnDiskIO(record(order, "default"));
+        mExecutor.executeOnDiskIO(record(order, "high 1"), TaskExecutor.PRIORITY_HIGH);
+        mExecutor.executeOnDiskIO(record(order, "high 2"), TaskExecutor.PRIORITY_HIGH);
+        assertThat(mExecutor.getQueueDepth(), is(4));
+
+        final CountDownLatch finished = new CountDownLatch(5);
+        mExecutor.setTaskListener(new PriorityTaskExecutor.TaskListener() {
+            @Override
+            public void onTaskFinished(int priority, long waitNanos, long runNanos) {
+                finished.countDown();
+            }
+        });
+        blocker.countDown();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+
+        assertThat(order, is(Arrays.asList("high 1", "high 2", "default", "low")));
+        assertThat(mExecutor.getMaxQueueDepth(), is(4));
+        assertThat(mExecutor.getCompletedTaskCount(TaskExecutor.PRIORITY_HIGH), is(2L));
+        assertThat(mExecutor.getCompletedTaskCount(TaskExecutor.PRIORITY_DEFAULT), is(2L));
+        assertThat(mExecutor.getCompletedTaskCount(TaskExecutor.PRIORITY_LOW), is(1L));
+        assertTrue(mExecutor.getMaxWaitTimeNanos(TaskExecutor.PRIORITY_LOW)
+                >= mExecutor.getMaxWaitTimeNanos(TaskExecutor.PRIORITY_HIGH));
+        assertTrue(mExecutor.getTotalRunTimeNanos(TaskExecutor.PRIORITY_DEFAULT) > 0);
+    }
+
+    @Test
+    public void fullQueueRunsBackgroundTasksOnCaller() throws InterruptedException {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        mExecutor.executeOnDiskIO(new Runnable() {
+            @Override
+            public void run() {
+                await(blocker);
+            }
+        });
+        waitForQueueDepth(0);
+        for (int i = 0; i < 4; i++) {
+            mExecutor.executeOnDiskIO(new NoOp());
+        }
+
+        final Thread[] ranOn = new Thread[1];
+        mExecutor.executeOnDiskIO(new Runnable() {
+            @Override
+            public void run() {
+                ranOn[0] = Thread.currentThread();
+            }
+        });
+        assertThat(ranOn[0], is(Thread.currentThread()));
+        assertThat(mExecutor.getCallerRunsCount(), is(1L));
+
+        mMainThread.mIsMainThread = true;
+        mExecutor.executeOnDiskIO(new NoOp());
+        assertThat(mExecutor.getCallerRunsCount(), is(1L));
+        assertThat(mExecutor.getQueueDepth(), is(5));
+        blocker.countDown();
+    }
+
+    @Test
+    public void resetStats() throws InterruptedException {
+        final CountDownLatch finished = new CountDownLatch(1);
+        mExecutor.setTaskListener(new PriorityTaskExecutor.TaskListener() {
+            @Override
+            public void onTaskFinished(int priority, long waitNanos, long runNanos) {
+                finished.countDown();
+            }
+        });
+        mExecutor.executeOnDiskIO(new NoOp(), TaskExecutor.PRIORITY_LOW);
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertThat(mExecutor.getCompletedTaskCount(TaskExecutor.PRIORITY_LOW), is(1L));
+
+        mExecutor.resetStats();
+        assertThat(mExecutor.getCompletedTaskCount(TaskExecutor.PRIORITY_LOW), is(0L));
+        assertThat(mExecutor.getTotalWaitTimeNanos(TaskExecutor.PRIORITY_LOW), is(0L));
+        assertThat(mExecutor.getMaxQueueDepth(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownPriority() {
+        mExecutor.executeOnDiskIO(new NoOp(), 7);
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while (mExecutor.getQueueDepth() != depth && System.currentTimeMillis() < end) {
+            Thread.sleep(1);
+        }
+        assertThat(mExecutor.getQueueDepth(), is(depth));
+    }
+
+    static Runnable record(final List<String> order, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+            }
+        };
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static class NoOp implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+
+    static class FakeMainThreadExecutor extends TaskExecutor {
+        volatile boolean mIsMainThread;
+
+        @Override
+        public void executeOnDiskIO(Runnable runnable) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void postToMainThread(Runnable runnable) {
+            runnable.run();
+        }
+
+        @Override
+        public boolean isMainThread() {
+            return mIsMainThread;
+        }
+    }
+}
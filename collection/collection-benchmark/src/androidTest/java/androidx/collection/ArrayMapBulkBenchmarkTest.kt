@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import kotlin.random.Random
+
+/**
+ * Measures the bulk paths of [ArrayMap] and [ArraySet]: merging two populated containers,
+ * removing many elements at once and building a container from unsorted input.
+ */
+@RunWith(Parameterized::class)
+class ArrayMapBulkBenchmarkTest(private val size: Int) {
+    // Despite the fixed seed, the algorithm which produces random values may vary across
+    // OS versions. Since we're not doing cross-device comparison this is acceptable.
+    private val random = Random(0)
+    private val keys = Array(size) { random.nextInt().toString() }
+    private val otherKeys = Array(size) { random.nextInt().toString() }
+
+    private val map = ArrayMap<String, String>().apply { for (key in keys) put(key, key) }
+    private val otherMap = ArrayMap<String, String>().apply {
+        for (key in otherKeys) put(key, key)
+    }
+    private val otherHashMap = HashMap<String, String>().apply {
+        for (key in otherKeys) put(key, key)
+    }
+    private val set = ArraySet<String>().apply { addAll(keys) }
+    private val otherSet = ArraySet<String>().apply { addAll(otherKeys) }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test fun arrayMap_putAllArrayMap() {
+        benchmark.measureRepeated {
+            val merged = runWithTimingDisabled { ArrayMap(map) }
+            merged.putAll(otherMap as SimpleArrayMap<String, String>)
+        }
+    }
+
+    @Test fun arrayMap_putAllHashMap() {
+        benchmark.measureRepeated {
+            val merged = runWithTimingDisabled { ArrayMap(map) }
+            merged.putAll(otherHashMap)
+        }
+    }
+
+    @Test fun arrayMap_removeAll() {
+        val remove = keys.filterIndexed { index, _ -> index % 2 == 0 }
+        benchmark.measureRepeated {
+            val copy = runWithTimingDisabled { ArrayMap(map) }
+            copy.removeAll(remove)
+        }
+    }
+
+    @Test fun arrayMap_builder() {
+        benchmark.measureRepeated {
+            val builder = ArrayMap.Builder<String, String>(size)
+            for (key in keys) {
+                builder.put(key, key)
+            }
+            builder.build()
+        }
+    }
+
+    @Test fun arraySet_addAllArraySet() {
+        benchmark.measureRepeated {
+            val merged = runWithTimingDisabled { ArraySet(set) }
+            merged.addAll(otherSet)
+        }
+    }
+
+    @Test fun arraySet_removeAllArraySet() {
+        benchmark.measureRepeated {
+            val copy = runWithTimingDisabled { ArraySet(set) }
+            copy.removeAll(set)
+        }
+    }
+
+    @Test fun arraySet_builder() {
+        benchmark.measureRepeated {
+            val builder = ArraySet.Builder<String>(size)
+            for (key in keys) {
+                builder.add(key)
+            }
+            builder.build()
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameters(name = "size={0}")
+        fun parameters() = listOf(100, 10_000)
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import kotlin.random.Random
+
+/**
+ * Measures the time for [threads] threads to each perform a fixed batch of mostly-read
+ * operations on a shared [LruCache] or [ConcurrentLruCache].
+ */
+@RunWith(Parameterized::class)
+class LruCacheContentionBenchmarkTest(private val threads: Int) {
+    private val executor = Executors.newFixedThreadPool(threads)
+    private val keys = Random(0).let { random -> IntArray(OPS_PER_THREAD) { random.nextInt(KEYS) } }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @After
+    fun tearDown() {
+        executor.shutdownNow()
+    }
+
+    @Test fun lruCache() {
+        val cache = LruCache<Int, String>(CACHE_SIZE)
+        repeat(KEYS) { cache.put(it, "value$it") }
+        runContended(cache::get, cache::put)
+    }
+
+    @Test fun concurrentLruCache() {
+        val cache = ConcurrentLruCache<Int, String>(CACHE_SIZE)
+        repeat(KEYS) { cache.put(it, "value$it") }
+        runContended(cache::get, cache::put)
+    }
+
+    private inline fun runContended(
+        crossinline get: (Int) -> String?,
+        crossinline put: (Int, String) -> String?
+    ) {
+        val tasks = List(threads) { offset ->
+            Callable {
+                for (i in keys.indices) {
+                    val key = keys[(i + offset * 31) % keys.size]
+                    if (i % WRITE_EVERY == 0) {
+                        put(key, "value$key")
+                    } else {
+                        get(key)
+                    }
+                }
+            }
+        }
+        benchmark.measureRepeated {
+            executor.invokeAll(tasks)
+        }
+    }
+
+    companion object {
+        private const val CACHE_SIZE = 512
+        private const val KEYS = 1_024
+        private const val OPS_PER_THREAD = 10_000
+        private const val WRITE_EVERY = 20
+
+        @JvmStatic
+        @Parameters(name = "threads={0}")
+        fun parameters() = listOf(1, 2, 4, 8)
+    }
+}
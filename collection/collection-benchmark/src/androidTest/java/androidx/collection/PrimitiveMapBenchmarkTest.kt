@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import kotlin.random.Random
+
+/**
+ * Compares the hash-based primitive maps against the binary-search based [SparseArrayCompat],
+ * [LongSparseArray] and [ArrayMap] when building, querying and draining maps of random keys.
+ */
+@RunWith(Parameterized::class)
+class PrimitiveMapBenchmarkTest(private val size: Int) {
+    // Despite the fixed seed, the algorithm which produces random values may vary across
+    // OS versions. Since we're not doing cross-device comparison this is acceptable.
+    private val keys = Random(0).let { random -> IntArray(size) { random.nextInt() } }
+    private val longKeys = LongArray(size) { keys[it].toLong() shl 16 }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test fun intIntMap_put() {
+        benchmark.measureRepeated {
+            val map = IntIntMap()
+            for (key in keys) {
+                map.put(key, key)
+            }
+        }
+    }
+
+    @Test fun intObjectMap_put() {
+        benchmark.measureRepeated {
+            val map = IntObjectMap<String>()
+            for (key in keys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test fun sparseArrayCompat_put() {
+        benchmark.measureRepeated {
+            val map = SparseArrayCompat<String>()
+            for (key in keys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test fun arrayMap_put() {
+        benchmark.measureRepeated {
+            val map = ArrayMap<Int, String>()
+            for (key in keys) {
+                map[key] = VALUE
+            }
+        }
+    }
+
+    @Test fun longLongMap_put() {
+        benchmark.measureRepeated {
+            val map = LongLongMap()
+            for (key in longKeys) {
+                map.put(key, key)
+            }
+        }
+    }
+
+    @Test fun longSparseArray_put() {
+        benchmark.measureRepeated {
+            val map = LongSparseArray<String>()
+            for (key in longKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test fun intIntMap_get() {
+        val map = IntIntMap()
+        keys.forEach { map.put(it, it) }
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test fun intObjectMap_get() {
+        val map = IntObjectMap<String>()
+        keys.forEach { map.put(it, VALUE) }
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test fun sparseArrayCompat_get() {
+        val map = SparseArrayCompat<String>()
+        keys.forEach { map.put(it, VALUE) }
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test fun arrayMap_get() {
+        val map = ArrayMap<Int, String>()
+        keys.forEach { map[it] = VALUE }
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map[key]
+            }
+        }
+    }
+
+    @Test fun longLongMap_get() {
+        val map = LongLongMap()
+        longKeys.forEach { map.put(it, it) }
+        benchmark.measureRepeated {
+            for (key in longKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test fun longSparseArray_get() {
+        val map = LongSparseArray<String>()
+        longKeys.forEach { map.put(it, VALUE) }
+        benchmark.measureRepeated {
+            for (key in longKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test fun intIntMap_putRemove() {
+        val map = IntIntMap(size)
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map.put(key, key)
+            }
+            for (key in keys) {
+                map.remove(key)
+            }
+        }
+    }
+
+    @Test fun sparseArrayCompat_putRemove() {
+        val map = SparseArrayCompat<String>(size)
+        benchmark.measureRepeated {
+            for (key in keys) {
+                map.put(key, VALUE)
+            }
+            for (key in keys) {
+                map.remove(key)
+            }
+            // Force the deferred compaction so each iteration starts from an empty array.
+            map.size()
+        }
+    }
+
+    companion object {
+        private const val VALUE = "value"
+
+        @JvmStatic
+        @Parameters(name = "size={0}")
+        fun parameters() = listOf(10, 1_000, 100_000)
+    }
+}
@@ -20,6 +20,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
@@ -54,6 +55,12 @@ import java.util.Set;
  * explicit call to set the capacity should turn off this aggressive shrinking behavior.</p>
  */
 public class ArrayMap<K, V> extends SimpleArrayMap<K, V> implements Map<K, V> {
+    /**
+     * Maps with at most this many mappings are added one by one by {@link #putAll(Map)}; larger
+     * ones are sorted and merged in bulk.
+     */
+    private static final int BULK_THRESHOLD = 8;
+
     @Nullable EntrySet mEntrySet;
     @Nullable KeySet mKeySet;
     @Nullable ValueCollection mValues;
@@ -97,11 +104,34 @@ public class ArrayMap<K, V> extends SimpleArrayMap<K, V> implements Map<K, V> {
      * @param map The map whose contents are to be retrieved.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public void putAll(@NonNull Map<? extends K, ? extends V> map) {
-        ensureCapacity(mSize + map.size());
-        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
-            put(entry.getKey(), entry.getValue());
+        if (map instanceof SimpleArrayMap) {
+            putAll((SimpleArrayMap<? extends K, ? extends V>) map);
+            return;
+        }
+        final int N = map.size();
+        if (N <= BULK_THRESHOLD) {
+            ensureCapacity(mSize + N);
+            for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+            return;
         }
+
+        // Sort the incoming mappings by hash once, then merge them in a single pass.
+        final int[] hashes = new int[N];
+        final Object[] array = new Object[N << 1];
+        int i = 0;
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            final K key = entry.getKey();
+            hashes[i] = key == null ? 0 : key.hashCode();
+            array[i << 1] = key;
+            array[(i << 1) + 1] = entry.getValue();
+            i++;
+        }
+        ContainerHelpers.sortByHash(hashes, array, i, 2);
+        putAllSorted(hashes, array, i);
     }
 
     /**
@@ -110,11 +140,23 @@ public class ArrayMap<K, V> extends SimpleArrayMap<K, V> implements Map<K, V> {
      * @return Returns true if any keys were removed from the array map, else false.
      */
     public boolean removeAll(@NonNull Collection<?> collection) {
-        int oldSize = mSize;
+        if (mSize == 0) {
+            return false;
+        }
+        final boolean[] remove = new boolean[mSize];
+        int count = 0;
         for (Object o : collection) {
-            remove(o);
+            final int index = indexOfKey(o);
+            if (index >= 0 && !remove[index]) {
+                remove[index] = true;
+                count++;
+            }
         }
-        return oldSize != mSize;
+        if (count == 0) {
+            return false;
+        }
+        removeMarked(remove, count);
+        return true;
     }
 
     /**
@@ -124,13 +166,20 @@ public class ArrayMap<K, V> extends SimpleArrayMap<K, V> implements Map<K, V> {
      * @return Returns true if any keys were removed from the array map, else false.
      */
     public boolean retainAll(@NonNull Collection<?> collection) {
-        int oldSize = mSize;
-        for (int i = mSize - 1; i >= 0; i--) {
+        final int N = mSize;
+        final boolean[] remove = new boolean[N];
+        int count = 0;
+        for (int i = 0; i < N; i++) {
             if (!collection.contains(keyAt(i))) {
-                removeAt(i);
+                remove[i] = true;
+                count++;
             }
         }
-        return oldSize != mSize;
+        if (count == 0) {
+            return false;
+        }
+        removeMarked(remove, count);
+        return true;
     }
 
     /**
@@ -616,6 +665,65 @@ public class ArrayMap<K, V> extends SimpleArrayMap<K, V> implements Map<K, V> {
         }
     }
 
+    /**
+     * Collects mappings for a new {@link ArrayMap} and sorts them once when {@link #build()} is
+     * called, instead of shifting the arrays on every insertion as {@link ArrayMap#put} does.
+     * Building a map of n mappings this way costs O(n log n) rather than O(n<sup>2</sup>).
+     *
+     * @param <K> The type of keys in the built map.
+     * @param <V> The type of values in the built map.
+     */
+    public static final class Builder<K, V> {
+        private int[] mHashes;
+        private Object[] mArray;
+        private int mSize;
+
+        /**
+         * Creates a builder with room for {@code expectedSize} mappings before it needs to grow.
+         */
+        public Builder(int expectedSize) {
+            if (expectedSize < 0) {
+                throw new IllegalArgumentException("expectedSize < 0");
+            }
+            mHashes = new int[expectedSize];
+            mArray = new Object[expectedSize << 1];
+        }
+
+        /**
+         * Adds a mapping from {@code key} to {@code value} to the map being built. If the same
+         * key is put more than once, the last value put wins.
+         */
+        @NonNull
+        public Builder<K, V> put(@Nullable K key, @Nullable V value) {
+            if (mSize == mHashes.length) {
+                final int n = Math.max(4, mSize + (mSize >> 1));
+                mHashes = Arrays.copyOf(mHashes, n);
+                mArray = Arrays.copyOf(mArray, n << 1);
+            }
+            mHashes[mSize] = key == null ? 0 : key.hashCode();
+            mArray[mSize << 1] = key;
+            mArray[(mSize << 1) + 1] = value;
+            mSize++;
+            return this;
+        }
+
+        /**
+         * Returns a new map holding every mapping put so far, and empties this builder so it can
+         * be reused.
+         */
+        @NonNull
+        public ArrayMap<K, V> build() {
+            final ArrayMap<K, V> map = new ArrayMap<>();
+            if (mSize > 0) {
+                ContainerHelpers.sortByHash(mHashes, mArray, mSize, 2);
+                map.putAllSorted(mHashes, mArray, mSize);
+                Arrays.fill(mArray, 0, mSize << 1, null);
+                mSize = 0;
+            }
+            return map;
+        }
+    }
+
     @SuppressWarnings("unchecked")
     <T> T[] toArrayHelper(T[] array, int offset) {
         final int N  = mSize;
@@ -20,6 +20,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
@@ -56,6 +57,12 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
      */
     private static final int BASE_SIZE = 4;
 
+    /**
+     * Collections with at most this many values are added one by one by
+     * {@link #addAll(Collection)}; larger ones are sorted and merged in bulk.
+     */
+    private static final int BULK_THRESHOLD = 8;
+
     /**
      * Maximum number of entries to have in array caches.
      */
@@ -476,8 +483,8 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
      */
     public void addAll(@NonNull ArraySet<? extends E> array) {
         final int N = array.mSize;
-        ensureCapacity(mSize + N);
         if (mSize == 0) {
+            ensureCapacity(N);
             if (N > 0) {
                 System.arraycopy(array.mHashes, 0, mHashes, 0, N);
                 System.arraycopy(array.mArray, 0, mArray, 0, N);
@@ -486,11 +493,34 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
                 }
                 mSize = N;
             }
-        } else {
-            for (int i = 0; i < N; i++) {
-                add(array.valueAt(i));
-            }
+        } else if (N > 0) {
+            // Both sets are sorted by hash, so merge them in one pass rather than shifting the
+            // arrays on every individual add.
+            addAllSorted(array.mHashes, array.mArray, N);
+        }
+    }
+
+    /**
+     * Merges {@code size} values, sorted by ascending hash, into this set in a single pass.
+     */
+    private void addAllSorted(int[] hashes, Object[] array, int size) {
+        final int oSize = mSize;
+        final int[] ohashes = mHashes;
+        final Object[] oarray = mArray;
+        allocArrays(oSize + size);
+
+        if (oSize != mSize) {
+            throw new ConcurrentModificationException();
+        }
+
+        final int nSize = ContainerHelpers.mergeByHash(ohashes, oarray, oSize,
+                hashes, array, size, mHashes, mArray, 1);
+        freeArrays(ohashes, oarray, oSize);
+
+        if (oSize != mSize) {
+            throw new ConcurrentModificationException();
         }
+        mSize = nSize;
     }
 
     /**
@@ -573,19 +603,86 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
      * @param array The array whose contents are to be removed.
      */
     public boolean removeAll(@NonNull ArraySet<? extends E> array) {
-        // TODO: If array is sufficiently large, a marking approach might be beneficial. In a first
-        //       pass, use the property that the sets are sorted by hash to make this linear passes
-        //       (except for hash collisions, which means worst case still n*m), then do one
-        //       collection pass into a new array. This avoids binary searches and excessive memcpy.
+        // Both sets are sorted by hash, so mark the values to remove in one linear pass (except
+        // for hash collisions, which still compare every pair sharing a hash), then compact the
+        // survivors in a second pass. This avoids binary searches and repeated memcpy.
+        final int oSize = mSize;
         final int N = array.mSize;
+        if (oSize == 0 || N == 0) {
+            return false;
+        }
+        final int[] otherHashes = array.mHashes;
+        final Object[] otherArray = array.mArray;
+        final boolean[] remove = new boolean[oSize];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < oSize && j < N; i++) {
+            final int hash = mHashes[i];
+            while (j < N && otherHashes[j] < hash) {
+                j++;
+            }
+            for (int k = j; k < N && otherHashes[k] == hash; k++) {
+                if (ContainerHelpers.equal(mArray[i], otherArray[k])) {
+                    remove[i] = true;
+                    count++;
+                    break;
+                }
+            }
+        }
+        if (count == 0) {
+            return false;
+        }
+        removeMarked(remove, count);
+        return true;
+    }
 
-        // Note: ArraySet does not make thread-safety guarantees. So instead of OR-ing together all
-        //       the single results, compare size before and after.
-        final int originalSize = mSize;
-        for (int i = 0; i < N; i++) {
-            remove(array.valueAt(i));
+    /**
+     * Removes the values at every index for which {@code remove} is true, compacting the arrays
+     * in a single pass.
+     *
+     * @param count The number of true elements in {@code remove}.
+     */
+    private void removeMarked(boolean[] remove, int count) {
+        final int oSize = mSize;
+        final int nSize = oSize - count;
+        if (nSize <= 0) {
+            clear();
+            return;
+        }
+
+        final int[] ohashes = mHashes;
+        final Object[] oarray = mArray;
+        final boolean shrink = mHashes.length > (BASE_SIZE * 2) && nSize < mHashes.length / 3;
+        if (shrink) {
+            // Shrunk enough to reduce size of arrays, in the same way as removeAt().
+            allocArrays(nSize > (BASE_SIZE * 2) ? (nSize + (nSize >> 1)) : (BASE_SIZE * 2));
+            if (oSize != mSize) {
+                throw new ConcurrentModificationException();
+            }
         }
-        return originalSize != mSize;
+
+        final int[] hashes = mHashes;
+        final Object[] array = mArray;
+        int out = 0;
+        for (int i = 0; i < oSize; i++) {
+            if (!remove[i]) {
+                hashes[out] = ohashes[i];
+                array[out] = oarray[i];
+                out++;
+            }
+        }
+
+        if (shrink) {
+            freeArrays(ohashes, oarray, oSize);
+        } else {
+            for (int i = nSize; i < oSize; i++) {
+                array[i] = null;
+            }
+        }
+        if (oSize != mSize) {
+            throw new ConcurrentModificationException();
+        }
+        mSize = nSize;
     }
 
     /**
@@ -748,13 +845,35 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
      * @param collection The collection whose contents are to be retrieved.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public boolean addAll(@NonNull Collection<? extends E> collection) {
-        ensureCapacity(mSize + collection.size());
-        boolean added = false;
+        final int oSize = mSize;
+        if (collection instanceof ArraySet) {
+            addAll((ArraySet<? extends E>) collection);
+            return oSize != mSize;
+        }
+        final int N = collection.size();
+        if (N <= BULK_THRESHOLD) {
+            ensureCapacity(oSize + N);
+            boolean added = false;
+            for (E value : collection) {
+                added |= add(value);
+            }
+            return added;
+        }
+
+        // Sort the incoming values by hash once, then merge them in a single pass.
+        final int[] hashes = new int[N];
+        final Object[] array = new Object[N];
+        int i = 0;
         for (E value : collection) {
-            added |= add(value);
+            hashes[i] = value == null ? 0 : value.hashCode();
+            array[i] = value;
+            i++;
         }
-        return added;
+        ContainerHelpers.sortByHash(hashes, array, i, 1);
+        addAllSorted(hashes, array, i);
+        return oSize != mSize;
     }
 
     /**
@@ -763,12 +882,28 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
      * @return Returns true if any values were removed from the array set, else false.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public boolean removeAll(@NonNull Collection<?> collection) {
-        boolean removed = false;
+        if (collection instanceof ArraySet) {
+            return removeAll((ArraySet<? extends E>) collection);
+        }
+        if (mSize == 0) {
+            return false;
+        }
+        final boolean[] remove = new boolean[mSize];
+        int count = 0;
         for (Object value : collection) {
-            removed |= remove(value);
+            final int index = indexOf(value);
+            if (index >= 0 && !remove[index]) {
+                remove[index] = true;
+                count++;
+            }
+        }
+        if (count == 0) {
+            return false;
         }
-        return removed;
+        removeMarked(remove, count);
+        return true;
     }
 
     /**
@@ -779,13 +914,76 @@ public final class ArraySet<E> implements Collection<E>, Set<E> {
      */
     @Override
     public boolean retainAll(@NonNull Collection<?> collection) {
-        boolean removed = false;
-        for (int i = mSize - 1; i >= 0; i--) {
+        final int N = mSize;
+        final boolean[] remove = new boolean[N];
+        int count = 0;
+        for (int i = 0; i < N; i++) {
             if (!collection.contains(mArray[i])) {
-                removeAt(i);
-                removed = true;
+                remove[i] = true;
+                count++;
+            }
+        }
+        if (count == 0) {
+            return false;
+        }
+        removeMarked(remove, count);
+        return true;
+    }
+
+    /**
+     * Collects values for a new {@link ArraySet} and sorts them once when {@link #build()} is
+     * called, instead of shifting the arrays on every insertion as {@link ArraySet#add(Object)}
+     * does. Building a set of n values this way costs O(n log n) rather than O(n<sup>2</sup>).
+     *
+     * @param <E> The type of values in the built set.
+     */
+    public static final class Builder<E> {
+        private int[] mHashes;
+        private Object[] mArray;
+        private int mSize;
+
+        /**
+         * Creates a builder with room for {@code expectedSize} values before it needs to grow.
+         */
+        public Builder(int expectedSize) {
+            if (expectedSize < 0) {
+                throw new IllegalArgumentException("expectedSize < 0");
+            }
+            mHashes = new int[expectedSize];
+            mArray = new Object[expectedSize];
+        }
+
+        /**
+         * Adds {@code value} to the set being built. Duplicate values are collapsed when the set
+         * is built.
+         */
+        @NonNull
+        public Builder<E> add(@Nullable E value) {
+            if (mSize == mHashes.length) {
+                final int n = Math.max(BASE_SIZE, mSize + (mSize >> 1));
+                mHashes = Arrays.copyOf(mHashes, n);
+                mArray = Arrays.copyOf(mArray, n);
+            }
+            mHashes[mSize] = value == null ? 0 : value.hashCode();
+            mArray[mSize] = value;
+            mSize++;
+            return this;
+        }
+
+        /**
+         * Returns a new set holding every value added so far, and empties this builder so it can
+         * be reused.
+         */
+        @NonNull
+        public ArraySet<E> build() {
+            final ArraySet<E> set = new ArraySet<>();
+            if (mSize > 0) {
+                ContainerHelpers.sortByHash(mHashes, mArray, mSize, 1);
+                set.addAllSorted(mHashes, mArray, mSize);
+                Arrays.fill(mArray, 0, mSize, null);
+                mSize = 0;
             }
+            return set;
         }
-        return removed;
     }
 }
@@ -0,0 +1,590 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A cache with the same contract as {@link LruCache} which is designed to be read from many
+ * threads at once.
+ *
+ * <p>Entries are spread over a number of segments according to the hash of their key. Reads
+ * never take a lock: they look the key up in a concurrent map and stamp the entry with
+ * {@link System#nanoTime()}, which orders accesses across segments without a counter shared by
+ * all of them. Writes lock only the segment they touch. When the cache grows beyond its maximum
+ * size every segment offers the least recently accessed of a few sampled entries, and the oldest
+ * of those candidates is evicted, so eviction order approximates LRU rather than following it
+ * exactly. A cache in which no segment holds more than eight entries evicts in exact LRU order.
+ *
+ * <p>{@link #sizeOf} is called once when an entry is added and the result is remembered, so
+ * removal never needs to recompute it.
+ */
+public class ConcurrentLruCache<K, V> {
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    private static final int MAX_SEGMENTS = 1 << 16;
+    private static final int SAMPLE_SIZE = 8;
+
+    private final Segment<K, V>[] mSegments;
+    private final int mSegmentMask;
+    private final AtomicInteger mSize = new AtomicInteger();
+    private volatile int mMaxSize;
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     */
+    public ConcurrentLruCache(int maxSize) {
+        this(maxSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     * @param concurrencyLevel the estimated number of concurrently writing threads. The cache is
+     *     split into this many segments, rounded up to a power of two.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentLruCache(int maxSize, int concurrencyLevel) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrencyLevel <= 0");
+        }
+        mMaxSize = maxSize;
+
+        int segmentCount = 1;
+        while (segmentCount < concurrencyLevel && segmentCount < MAX_SEGMENTS) {
+            segmentCount <<= 1;
+        }
+        mSegments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            mSegments[i] = new Segment<>(i);
+        }
+        mSegmentMask = segmentCount - 1;
+    }
+
+    /**
+     * Sets the size of the cache.
+     *
+     * @param maxSize The new maximum size.
+     */
+    public void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. If a value was returned, it is marked as
+     * recently accessed. This returns null if a value is not cached and cannot
+     * be created.
+     */
+    @Nullable
+    public final V get(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        final Segment<K, V> segment = segmentFor(key);
+        Node<K, V> node = segment.mMap.get(key);
+        if (node != null) {
+            node.mAccessTime = segment.stamp();
+            segment.mHitCount.incrementAndGet();
+            return node.mValue;
+        }
+        segment.mMissCount.incrementAndGet();
+
+        /*
+         * Attempt to create a value. This may take a long time, and the map
+         * may be different when create() returns. If a conflicting value was
+         * added to the map while create() was working, we leave that value in
+         * the map and release the created value.
+         */
+
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        final int size = safeSizeOf(key, createdValue);
+        final Node<K, V> mapNode;
+        synchronized (segment) {
+            segment.mCreateCount++;
+            mapNode = segment.mMap.get(key);
+            if (mapNode == null) {
+                segment.add(new Node<>(key, createdValue, size, segment.stamp()));
+                mSize.addAndGet(size);
+            }
+        }
+
+        if (mapNode != null) {
+            entryRemoved(false, key, createdValue, mapNode.mValue);
+            return mapNode.mValue;
+        } else {
+            trimToSize(mMaxSize);
+            return createdValue;
+        }
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. The value is marked as recently
+     * accessed.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V put(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+
+        final int size = safeSizeOf(key, value);
+        final Segment<K, V> segment = segmentFor(key);
+        final Node<K, V> previous;
+        synchronized (segment) {
+            segment.mPutCount++;
+            previous = segment.mMap.get(key);
+            final Node<K, V> node = new Node<>(key, value, size, segment.stamp());
+            if (previous != null) {
+                segment.replace(previous, node);
+                mSize.addAndGet(size - previous.mSize);
+            } else {
+                segment.add(node);
+                mSize.addAndGet(size);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous.mValue, value);
+        }
+
+        trimToSize(mMaxSize);
+        return previous != null ? previous.mValue : null;
+    }
+
+    /**
+     * Remove approximately least recently used entries until the total of
+     * remaining entries is at or below the requested size.
+     *
+     * @param maxSize the maximum size of the cache before returning. May be -1
+     *            to evict even 0-sized elements.
+     */
+    public void trimToSize(int maxSize) {
+        final Segment<K, V>[] segments = mSegments;
+        while (mSize.get() > maxSize || (maxSize < 0 && !isEmpty())) {
+            Segment<K, V> victimSegment = null;
+            Node<K, V> victim = null;
+            for (Segment<K, V> segment : segments) {
+                final Node<K, V> candidate;
+                synchronized (segment) {
+                    candidate = segment.sampleVictim();
+                }
+                if (candidate != null && Segment.older(victim, candidate) == candidate) {
+                    victimSegment = segment;
+                    victim = candidate;
+                }
+            }
+
+            if (victim == null) {
+                // The segments are sampled one at a time, so they may all have looked empty
+                // while entries were added to the ones already sampled. Those writers trim the
+                // cache themselves once they're done.
+                break;
+            }
+
+            synchronized (victimSegment) {
+                // Another thread may have removed or replaced the candidate since it was
+                // sampled, in which case we sample again.
+                if (victimSegment.mMap.get(victim.mKey) != victim) {
+                    continue;
+                }
+                victimSegment.remove(victim);
+                mSize.addAndGet(-victim.mSize);
+                victimSegment.mEvictionCount++;
+            }
+
+            entryRemoved(true, victim.mKey, victim.mValue, null);
+        }
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V remove(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        final Segment<K, V> segment = segmentFor(key);
+        final Node<K, V> previous;
+        synchronized (segment) {
+            previous = segment.mMap.get(key);
+            if (previous != null) {
+                segment.remove(previous);
+                mSize.addAndGet(-previous.mSize);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous.mValue, null);
+            return previous.mValue;
+        }
+        return null;
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. This method is
+     * invoked when a value is evicted to make space, removed by a call to
+     * {@link #remove}, or replaced by a call to {@link #put}. The default
+     * implementation does nothing.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * @param evicted true if the entry is being removed to make space, false
+     *     if the removal was caused by a {@link #put} or {@link #remove}.
+     * @param newValue the new value for {@code key}, if it exists. If non-null,
+     *     this removal was caused by a {@link #put}. Otherwise it was caused by
+     *     an eviction or a {@link #remove}.
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue,
+            @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * <p>If a value for {@code key} exists in the cache when this method
+     * returns, the created value will be released with {@link #entryRemoved}
+     * and discarded. This can occur when multiple threads request the same key
+     * at the same time (causing multiple values to be created), or when one
+     * thread calls {@link #put} while another is creating a value for the same
+     * key.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    private int safeSizeOf(K key, V value) {
+        int result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the entry for {@code key} and {@code value} in
+     * user-defined units.  The default implementation returns 1 so that size
+     * is the number of entries and max size is the maximum number of entries.
+     *
+     * <p>This method is called once when an entry is added to the cache and
+     * without synchronization.
+     */
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(-1); // -1 will evict 0-sized elements
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the number
+     * of entries in the cache. For all other caches, this returns the sum of
+     * the sizes of the entries in this cache.
+     */
+    public final int size() {
+        return mSize.get();
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the maximum
+     * number of entries in the cache. For all other caches, this returns the
+     * maximum sum of the sizes of the entries in this cache.
+     */
+    public final int maxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value that was
+     * already present in the cache.
+     */
+    public final int hitCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            count += segment.mHitCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null or required a new
+     * value to be created.
+     */
+    public final int missCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            count += segment.mMissCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #create(Object)} returned a value.
+     */
+    public final int createCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                count += segment.mCreateCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #put} was called.
+     */
+    public final int putCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                count += segment.mPutCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        int count = 0;
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                count += segment.mEvictionCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache, ordered approximately
+     * from least recently accessed to most recently accessed.
+     */
+    @NonNull
+    public final Map<K, V> snapshot() {
+        List<Node<K, V>> nodes = new ArrayList<>(mSize.get());
+        for (Segment<K, V> segment : mSegments) {
+            synchronized (segment) {
+                for (int i = 0; i < segment.mCount; i++) {
+                    nodes.add(segment.mNodes[i]);
+                }
+            }
+        }
+        Collections.sort(nodes, new Comparator<Node<K, V>>() {
+            @Override
+            public int compare(Node<K, V> a, Node<K, V> b) {
+                long accessA = a.mAccessTime;
+                long accessB = b.mAccessTime;
+                return accessA < accessB ? -1 : (accessA == accessB ? 0 : 1);
+            }
+        });
+        Map<K, V> result = new LinkedHashMap<>();
+        for (Node<K, V> node : nodes) {
+            result.put(node.mKey, node.mValue);
+        }
+        return result;
+    }
+
+    @Override
+    public final String toString() {
+        int hitCount = hitCount();
+        int missCount = missCount();
+        int accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format(Locale.US,
+                "ConcurrentLruCache[maxSize=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                mMaxSize, hitCount, missCount, hitPercent);
+    }
+
+    private boolean isEmpty() {
+        for (Segment<K, V> segment : mSegments) {
+            if (!segment.mMap.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        return mSegments[ContainerHelpers.hash(key.hashCode()) & mSegmentMask];
+    }
+
+    private static final class Node<K, V> {
+        final K mKey;
+        final V mValue;
+        final int mSize;
+        // Written without synchronization by readers; lost updates only make eviction less
+        // precise.
+        long mAccessTime;
+        // Position in the owning segment's mNodes, guarded by the segment.
+        int mIndex;
+
+        Node(K key, V value, int size, long accessTime) {
+            mKey = key;
+            mValue = value;
+            mSize = size;
+            mAccessTime = accessTime;
+        }
+    }
+
+    private static final class Segment<K, V> {
+        final ConcurrentHashMap<K, Node<K, V>> mMap = new ConcurrentHashMap<>();
+        final AtomicInteger mHitCount = new AtomicInteger();
+        final AtomicInteger mMissCount = new AtomicInteger();
+        // Written without synchronization by readers, see Node.mAccessTime.
+        long mLastStamp;
+
+        // The fields below are guarded by this segment.
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node<K, V>[] mNodes = new Node[4];
+        int mCount;
+        int mRandom;
+        int mPutCount;
+        int mCreateCount;
+        int mEvictionCount;
+
+        Segment(int seed) {
+            mRandom = 0x2545F491 ^ (seed * 0x9E3779B9);
+            if (mRandom == 0) {
+                mRandom = 1;
+            }
+        }
+
+        /**
+         * Returns the current {@link System#nanoTime()}, or the previous stamp of this segment
+         * plus one when the clock hasn't moved since, so that accesses within a segment are
+         * always ordered.
+         */
+        long stamp() {
+            long now = System.nanoTime();
+            long last = mLastStamp;
+            if (now <= last) {
+                now = last + 1;
+            }
+            mLastStamp = now;
+            return now;
+        }
+
+        void add(Node<K, V> node) {
+            if (mCount == mNodes.length) {
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                Node<K, V>[] nodes = new Node[mCount * 2];
+                System.arraycopy(mNodes, 0, nodes, 0, mCount);
+                mNodes = nodes;
+            }
+            node.mIndex = mCount;
+            mNodes[mCount++] = node;
+            mMap.put(node.mKey, node);
+        }
+
+        void replace(Node<K, V> previous, Node<K, V> node) {
+            node.mIndex = previous.mIndex;
+            mNodes[node.mIndex] = node;
+            mMap.put(node.mKey, node);
+        }
+
+        void remove(Node<K, V> node) {
+            mMap.remove(node.mKey);
+            final int last = --mCount;
+            if (node.mIndex != last) {
+                final Node<K, V> moved = mNodes[last];
+                moved.mIndex = node.mIndex;
+                mNodes[node.mIndex] = moved;
+            }
+            mNodes[last] = null;
+        }
+
+        /**
+         * Returns the least recently accessed of up to SAMPLE_SIZE entries, or null if
+         * this segment is empty.
+         */
+        @Nullable
+        Node<K, V> sampleVictim() {
+            if (mCount == 0) {
+                return null;
+            }
+            Node<K, V> victim = null;
+            if (mCount <= SAMPLE_SIZE) {
+                for (int i = 0; i < mCount; i++) {
+                    victim = older(victim, mNodes[i]);
+                }
+            } else {
+                for (int i = 0; i < SAMPLE_SIZE; i++) {
+                    victim = older(victim, mNodes[nextRandom(mCount)]);
+                }
+            }
+            return victim;
+        }
+
+        private int nextRandom(int bound) {
+            // xorshift32; only ever called with the segment lock held.
+            int x = mRandom;
+            x ^= x << 13;
+            x ^= x >>> 17;
+            x ^= x << 5;
+            mRandom = x;
+            return (int) (((x & 0xFFFFFFFFL) * bound) >>> 32);
+        }
+
+        static <K, V> Node<K, V> older(@Nullable Node<K, V> a, Node<K, V> b) {
+            return a == null || b.mAccessTime < a.mAccessTime ? b : a;
+        }
+    }
+}
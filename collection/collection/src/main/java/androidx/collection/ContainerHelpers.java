@@ -16,9 +16,12 @@
 
 package androidx.collection;
 
+import java.util.Arrays;
+
 class ContainerHelpers {
     static final int[] EMPTY_INTS = new int[0];
     static final long[] EMPTY_LONGS = new long[0];
+    static final float[] EMPTY_FLOATS = new float[0];
     static final Object[] EMPTY_OBJECTS = new Object[0];
 
     public static int idealIntArraySize(int need) {
@@ -80,6 +83,108 @@ class ContainerHelpers {
         return ~lo;  // value not present
     }
 
+    /**
+     * Sorts {@code size} entries by ascending hash. Each entry is {@code stride} consecutive
+     * objects in {@code array}, the first of which is the key, and its hash is the matching
+     * element of {@code hashes}. Entries with equal hashes keep their relative order.
+     */
+    static void sortByHash(int[] hashes, Object[] array, int size, int stride) {
+        final long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) hashes[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        final Object[] unsorted = Arrays.copyOf(array, size * stride);
+        for (int i = 0; i < size; i++) {
+            final int from = (int) order[i];
+            hashes[i] = (int) (order[i] >> 32);
+            System.arraycopy(unsorted, from * stride, array, i * stride, stride);
+        }
+    }
+
+    /**
+     * Merges two runs of entries sorted by hash into {@code dstHashes} and {@code dstArray},
+     * which must not be either of the inputs and must have room for {@code aSize + bSize}
+     * entries. Each entry is {@code stride} consecutive objects, the first of which is the key.
+     * Keys of {@code a} must be distinct. When a key of {@code b} is already present, the
+     * remaining objects of its entry replace the existing ones, so a map's value is overwritten
+     * while a set keeps its element.
+     *
+     * @return the number of entries written.
+     */
+    static int mergeByHash(int[] aHashes, Object[] aArray, int aSize,
+            int[] bHashes, Object[] bArray, int bSize,
+            int[] dstHashes, Object[] dstArray, int stride) {
+        int i = 0;
+        int j = 0;
+        int out = 0;
+        while (i < aSize || j < bSize) {
+            final int hash;
+            if (j >= bSize || (i < aSize && aHashes[i] <= bHashes[j])) {
+                hash = aHashes[i];
+            } else {
+                hash = bHashes[j];
+            }
+
+            // Copy every entry with this hash from a, then fold in b's entries one by one.
+            final int runStart = out;
+            while (i < aSize && aHashes[i] == hash) {
+                dstHashes[out] = hash;
+                System.arraycopy(aArray, i * stride, dstArray, out * stride, stride);
+                i++;
+                out++;
+            }
+            while (j < bSize && bHashes[j] == hash) {
+                final Object key = bArray[j * stride];
+                int existing = -1;
+                for (int k = runStart; k < out; k++) {
+                    if (equal(key, dstArray[k * stride])) {
+                        existing = k;
+                        break;
+                    }
+                }
+                if (existing >= 0) {
+                    System.arraycopy(bArray, j * stride + 1, dstArray, existing * stride + 1,
+                            stride - 1);
+                } else {
+                    dstHashes[out] = hash;
+                    System.arraycopy(bArray, j * stride, dstArray, out * stride, stride);
+                    out++;
+                }
+                j++;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the smallest power of two hash table size able to hold {@code need} entries without
+     * exceeding a load factor of 3/4.
+     */
+    static int idealHashTableSize(int need) {
+        int size = 4;
+        while (size - (size >>> 2) < need) {
+            size <<= 1;
+            if (size <= 0) {
+                throw new IllegalStateException("Max hash table capacity exceeded");
+            }
+        }
+        return size;
+    }
+
+    // Scrambles the bits of a key so that sequential keys spread across a power of two table.
+    static int hash(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        final int folded = (int) (h ^ (h >>> 32));
+        return folded ^ (folded >>> 16);
+    }
+
     private ContainerHelpers() {
     }
 }
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * DirectLongList is a growable list of primitive {@code long} values stored in a direct
+ * {@link ByteBuffer}, in native byte order. The values live outside of the garbage collected
+ * heap, so a large list neither adds to the work of the collector nor needs to be copied before
+ * it is handed to native code or an NIO channel.
+ *
+ * <p>{@link #asByteBuffer()} and {@link #asLongBuffer()} return read-only views over the current
+ * contents without copying them; for example {@code channel.write(list.asByteBuffer())} writes
+ * the values directly from the list's storage. A view shares storage with the list until the
+ * list grows, after which it no longer reflects changes. Views do not track later additions.</p>
+ *
+ * <p>Growing the list allocates a new direct buffer and copies the values into it, so callers
+ * who know the eventual size should pass it to {@link #DirectLongList(int)} or
+ * {@link #ensureCapacity(int)}. Use {@link LongList} for small lists, for which the cost of
+ * allocating direct memory outweighs the benefits.</p>
+ *
+ * <p>This structure is <b>NOT</b> thread-safe.</p>
+ */
+public final class DirectLongList {
+    private static final int BYTES = 8;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private ByteBuffer mBuffer;
+    private int mSize;
+
+    /**
+     * Creates a new empty DirectLongList with a default capacity.
+     */
+    public DirectLongList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new empty DirectLongList that will not require any additional memory allocation
+     * to store the specified number of values.
+     */
+    public DirectLongList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        if (initialCapacity > Integer.MAX_VALUE / BYTES) {
+            throw new IllegalArgumentException("initialCapacity too large");
+        }
+        mBuffer = allocate(initialCapacity);
+    }
+
+    /**
+     * Appends {@code value} to the end of the list.
+     */
+    public void add(long value) {
+        if (mSize == capacity()) {
+            grow(mSize + 1);
+        }
+        mBuffer.putLong(mSize * BYTES, value);
+        mSize++;
+    }
+
+    /**
+     * Appends all of {@code values} to the end of the list.
+     */
+    public void addAll(@NonNull long[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Appends {@code count} values of {@code values}, starting at {@code offset}, to the end of
+     * the list.
+     */
+    public void addAll(@NonNull long[] values, int offset, int count) {
+        if (offset < 0 || count < 0 || offset > values.length - count) {
+            throw new ArrayIndexOutOfBoundsException(offset + count);
+        }
+        ensureCapacity(mSize + count);
+        tail().put(values, offset, count);
+        mSize += count;
+    }
+
+    /**
+     * Appends the remaining values of {@code values} to the end of the list, advancing its
+     * position to its limit.
+     */
+    public void addAll(@NonNull LongBuffer values) {
+        final int count = values.remaining();
+        ensureCapacity(mSize + count);
+        tail().put(values);
+        mSize += count;
+    }
+
+    /**
+     * Returns the value at {@code index}.
+     */
+    public long get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mBuffer.getLong(index * BYTES);
+    }
+
+    /**
+     * Replaces the value at {@code index} with {@code value}.
+     *
+     * @return the value previously at {@code index}.
+     */
+    public long set(int index, long value) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final long old = mBuffer.getLong(index * BYTES);
+        mBuffer.putLong(index * BYTES, value);
+        return old;
+    }
+
+    /**
+     * Returns the number of values in the list.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Returns the number of values the list can hold before it needs to allocate a larger
+     * buffer.
+     */
+    public int capacity() {
+        return mBuffer.capacity() / BYTES;
+    }
+
+    /**
+     * Removes all values from the list. The buffer is retained.
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * Ensure the list has enough capacity to hold {@code minimumCapacity} values without
+     * reallocating.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (capacity() < minimumCapacity) {
+            grow(minimumCapacity);
+        }
+    }
+
+    /**
+     * Replaces the buffer with one exactly large enough for the current size of the list.
+     */
+    public void trimToSize() {
+        if (capacity() > mSize) {
+            resize(mSize);
+        }
+    }
+
+    /**
+     * Returns a new array containing the values of the list.
+     */
+    @NonNull
+    public long[] toArray() {
+        final long[] result = new long[mSize];
+        asLongBuffer().get(result);
+        return result;
+    }
+
+    /**
+     * Returns a read-only view of the bytes of the values in the list, in native byte order. The
+     * view's position is zero and its limit is {@code size() * 8}. No values are copied.
+     */
+    @NonNull
+    public ByteBuffer asByteBuffer() {
+        final ByteBuffer view = mBuffer.asReadOnlyBuffer();
+        view.limit(mSize * BYTES);
+        return view.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns a read-only view of the values in the list. The view's position is zero and its
+     * limit is {@code size()}. No values are copied.
+     */
+    @NonNull
+    public LongBuffer asLongBuffer() {
+        return asByteBuffer().asLongBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its values.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "[]";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 8);
+        buffer.append('[');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mBuffer.getLong(i * BYTES));
+        }
+        buffer.append(']');
+        return buffer.toString();
+    }
+
+    // Returns a writable view of the unused capacity following the last value.
+    private LongBuffer tail() {
+        final ByteBuffer view = mBuffer.duplicate();
+        view.position(mSize * BYTES);
+        return view.order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    private void grow(int minimumCapacity) {
+        final int capacity = capacity();
+        int n = Math.max(minimumCapacity, capacity < 4 ? 4 : capacity + (capacity >> 1));
+        if (n > Integer.MAX_VALUE / BYTES || n < 0) {
+            if (minimumCapacity > Integer.MAX_VALUE / BYTES || minimumCapacity < 0) {
+                throw new OutOfMemoryError("Max capacity exceeded");
+            }
+            n = Integer.MAX_VALUE / BYTES;
+        }
+        resize(n);
+    }
+
+    private void resize(int capacity) {
+        final ByteBuffer buffer = allocate(capacity);
+        final ByteBuffer values = mBuffer.duplicate();
+        values.limit(mSize * BYTES);
+        buffer.put(values);
+        buffer.clear();
+        mBuffer = buffer;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * BYTES).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * FloatList is a growable array of primitive {@code float} values. Unlike a
+ * {@code List<Float>}, values are stored unboxed in a single array, so no object is allocated
+ * per element.
+ *
+ * <p>Values are compared by their bit patterns, as {@link Float#equals(Object)} does, so
+ * {@code NaN} is found by {@link #indexOf(float)} while {@code 0f} and {@code -0f} are
+ * distinct.</p>
+ *
+ * <p>The backing array grows by half its size when full and never shrinks on its own; call
+ * {@link #trimToSize()} to release unused capacity. For large buffers which should stay outside
+ * of the garbage collected heap, see {@link DirectFloatList}.</p>
+ *
+ * <p>This structure is <b>NOT</b> thread-safe.</p>
+ */
+public class FloatList {
+    private float[] mValues;
+    private int mSize;
+
+    /**
+     * Creates a new empty FloatList.
+     */
+    public FloatList() {
+        this(0);
+    }
+
+    /**
+     * Creates a new empty FloatList that will not require any additional memory allocation to
+     * store the specified number of values.
+     */
+    public FloatList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        mValues = initialCapacity == 0 ? ContainerHelpers.EMPTY_FLOATS : new float[initialCapacity];
+    }
+
+    /**
+     * Creates a new FloatList containing the values of {@code other}.
+     */
+    public FloatList(@NonNull FloatList other) {
+        mValues = Arrays.copyOf(other.mValues, other.mSize);
+        mSize = other.mSize;
+    }
+
+    /**
+     * Appends {@code value} to the end of the list.
+     */
+    public void add(float value) {
+        if (mSize == mValues.length) {
+            grow(mSize + 1);
+        }
+        mValues[mSize++] = value;
+    }
+
+    /**
+     * Inserts {@code value} at {@code index}, shifting the value currently at that index and all
+     * later values one position to the right.
+     */
+    public void add(int index, float value) {
+        if (index < 0 || index > mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        if (mSize == mValues.length) {
+            grow(mSize + 1);
+        }
+        System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+        mValues[index] = value;
+        mSize++;
+    }
+
+    /**
+     * Appends all of {@code values} to the end of the list.
+     */
+    public void addAll(@NonNull float[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Appends {@code count} values of {@code values}, starting at {@code offset}, to the end of
+     * the list.
+     */
+    public void addAll(@NonNull float[] values, int offset, int count) {
+        if (offset < 0 || count < 0 || offset > values.length - count) {
+            throw new ArrayIndexOutOfBoundsException(offset + count);
+        }
+        ensureCapacity(mSize + count);
+        System.arraycopy(values, offset, mValues, mSize, count);
+        mSize += count;
+    }
+
+    /**
+     * Appends all of the values of {@code other} to the end of the list.
+     */
+    public void addAll(@NonNull FloatList other) {
+        addAll(other.mValues, 0, other.mSize);
+    }
+
+    /**
+     * Returns the value at {@code index}.
+     */
+    public float get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mValues[index];
+    }
+
+    /**
+     * Replaces the value at {@code index} with {@code value}.
+     *
+     * @return the value previously at {@code index}.
+     */
+    public float set(int index, float value) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final float old = mValues[index];
+        mValues[index] = value;
+        return old;
+    }
+
+    /**
+     * Removes the value at {@code index}, shifting all later values one position to the left.
+     *
+     * @return the removed value.
+     */
+    public float removeAt(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final float old = mValues[index];
+        System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+        mSize--;
+        return old;
+    }
+
+    /**
+     * Removes the values from {@code fromIndex}, inclusive, to {@code toIndex}, exclusive.
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > mSize || fromIndex > toIndex) {
+            throw new ArrayIndexOutOfBoundsException(fromIndex < 0 ? fromIndex : toIndex);
+        }
+        System.arraycopy(mValues, toIndex, mValues, fromIndex, mSize - toIndex);
+        mSize -= toIndex - fromIndex;
+    }
+
+    /**
+     * Returns the index of the first occurrence of {@code value}, or -1 if the list does not
+     * contain it.
+     */
+    public int indexOf(float value) {
+        for (int i = 0; i < mSize; i++) {
+            if (Float.floatToIntBits(mValues[i]) == Float.floatToIntBits(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of {@code value}, or -1 if the list does not
+     * contain it.
+     */
+    public int lastIndexOf(float value) {
+        for (int i = mSize - 1; i >= 0; i--) {
+            if (Float.floatToIntBits(mValues[i]) == Float.floatToIntBits(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true if the list contains {@code value}. */
+    public boolean contains(float value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the number of values in the list.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Removes all values from the list. The capacity is retained.
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * Ensure the list has enough capacity to hold {@code minimumCapacity} values without
+     * reallocating.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mValues.length < minimumCapacity) {
+            grow(minimumCapacity);
+        }
+    }
+
+    /**
+     * Shrinks the backing array to the current size of the list.
+     */
+    public void trimToSize() {
+        if (mValues.length > mSize) {
+            mValues = mSize == 0 ? ContainerHelpers.EMPTY_FLOATS : Arrays.copyOf(mValues, mSize);
+        }
+    }
+
+    /**
+     * Sorts the values of the list into ascending order.
+     */
+    public void sort() {
+        Arrays.sort(mValues, 0, mSize);
+    }
+
+    /**
+     * Returns a new array containing the values of the list.
+     */
+    @NonNull
+    public float[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof FloatList)) {
+            return false;
+        }
+        FloatList other = (FloatList) object;
+        if (mSize != other.mSize) {
+            return false;
+        }
+        for (int i = 0; i < mSize; i++) {
+            if (Float.floatToIntBits(mValues[i]) != Float.floatToIntBits(other.mValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < mSize; i++) {
+            result = 31 * result + Float.floatToIntBits(mValues[i]);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its values.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "[]";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 8);
+        buffer.append('[');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mValues[i]);
+        }
+        buffer.append(']');
+        return buffer.toString();
+    }
+
+    private void grow(int minimumCapacity) {
+        final int n = Math.max(minimumCapacity,
+                mValues.length < 4 ? 4 : mValues.length + (mValues.length >> 1));
+        mValues = Arrays.copyOf(mValues, n);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A count-min sketch estimating how often keys were recently accessed, used by
+ * {@link TinyLfuCache} to decide whether a new entry is worth admitting.
+ *
+ * <p>Each key maps to four 4-bit counters spread across an array of longs holding sixteen
+ * counters each. The table has one long per tracked key, so the sketch costs eight bytes per
+ * key. The estimated frequency of a key is the minimum of its counters. Once the number of
+ * recorded accesses reaches ten times the number of tracked keys every counter is halved, so
+ * that the sketch reflects recent popularity rather than all history.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_TABLE_SIZE = 1 << 24;
+
+    private long[] mTable = ContainerHelpers.EMPTY_LONGS;
+    private int mCounterMask;
+    private int mSampleSize;
+    private int mAdditions;
+
+    /**
+     * Sizes the sketch to track about {@code maximumSize} distinct keys. Growing the sketch
+     * discards all recorded frequencies.
+     */
+    void ensureCapacity(int maximumSize) {
+        int tableSize = Math.max(1, Math.min(MAX_TABLE_SIZE,
+                Integer.highestOneBit(Math.max(maximumSize, 1) - 1) << 1));
+        if (tableSize <= mTable.length) {
+            return;
+        }
+        mTable = new long[tableSize];
+        mCounterMask = (tableSize << 4) - 1;
+        mSampleSize = Math.max(10, 10 * Math.min(maximumSize, MAX_TABLE_SIZE));
+        mAdditions = 0;
+    }
+
+    /** Returns the estimated number of recent accesses to {@code key}, between 0 and 15. */
+    int frequency(@NonNull Object key) {
+        final int hash = ContainerHelpers.hash(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final int counter = counterIndex(hash, i);
+            final int shift = (counter & 15) << 2;
+            final int count = (int) ((mTable[counter >>> 4] >>> shift) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /** Records an access to {@code key}. */
+    void increment(@NonNull Object key) {
+        final int hash = ContainerHelpers.hash(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            final int counter = counterIndex(hash, i);
+            final int word = counter >>> 4;
+            final int shift = (counter & 15) << 2;
+            if (((mTable[word] >>> shift) & 0xF) != 0xF) {
+                mTable[word] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++mAdditions >= mSampleSize) {
+            reset();
+        }
+    }
+
+    /** Forgets all recorded accesses. */
+    void clear() {
+        Arrays.fill(mTable, 0L);
+        mAdditions = 0;
+    }
+
+    private void reset() {
+        final long[] table = mTable;
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        mAdditions >>>= 1;
+    }
+
+    private int counterIndex(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & mCounterMask;
+    }
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * IntIntMap maps integers to integers using a hash table. Unlike {@link SparseArrayCompat}, whose
+ * puts and removes shift array contents and are therefore O(n), lookups, insertions and removals
+ * take expected constant time regardless of how many mappings are stored. Neither keys nor values
+ * are boxed and no entry object is allocated per mapping.
+ *
+ * <p>Mappings are stored densely in a pair of parallel arrays which are indexed through an
+ * open-addressing table using linear probing. Removals back-shift the probe sequence rather than
+ * leaving tombstones, so lookup cost does not degrade after heavy churn.</p>
+ *
+ * <p>It is possible to iterate over the items in this container using {@link #keyAt(int)} and
+ * {@link #valueAt(int)} with indices from <code>0</code> to <code>size() - 1</code>. The order of
+ * the mappings is unspecified. Removing a mapping moves the last mapping into the removed slot,
+ * so iterating in descending index order is safe while calling {@link #removeAt(int)}.</p>
+ */
+public class IntIntMap {
+    private int[] mKeys;
+    private int[] mValues;
+    private int mSize;
+
+    // Each slot holds (index + 1) of a mapping in mKeys/mValues, or 0 if the slot is empty.
+    private int[] mTable;
+
+    /**
+     * Creates a new IntIntMap containing no mappings.
+     */
+    public IntIntMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a new IntIntMap containing no mappings that will not require any additional memory
+     * allocation to store the specified number of mappings.
+     */
+    public IntIntMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        if (initialCapacity == 0) {
+            mKeys = ContainerHelpers.EMPTY_INTS;
+            mValues = ContainerHelpers.EMPTY_INTS;
+        } else {
+            mKeys = new int[initialCapacity];
+            mValues = new int[initialCapacity];
+        }
+        mTable = new int[ContainerHelpers.idealHashTableSize(initialCapacity)];
+    }
+
+    /**
+     * Copies all of the mappings of {@code other} into a new map.
+     */
+    public IntIntMap(@NonNull IntIntMap other) {
+        mKeys = other.mKeys.clone();
+        mValues = other.mValues.clone();
+        mTable = other.mTable.clone();
+        mSize = other.mSize;
+    }
+
+    /**
+     * Gets the value mapped from the specified key, or <code>0</code> if no such mapping has
+     * been made.
+     */
+    public int get(int key) {
+        return get(key, 0);
+    }
+
+    /**
+     * Gets the value mapped from the specified key, or the specified value if no such mapping
+     * has been made.
+     */
+    public int get(int key, int valueIfKeyNotFound) {
+        final int index = indexOfKey(key);
+        return index >= 0 ? mValues[index] : valueIfKeyNotFound;
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value, replacing the previous
+     * mapping from the specified key if there was one.
+     */
+    public void put(int key, int value) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(key) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (mKeys[entry - 1] == key) {
+                mValues[entry - 1] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (mSize >= mKeys.length) {
+            growEntries(mSize + 1);
+        }
+        final int index = mSize;
+        mKeys[index] = key;
+        mValues[index] = value;
+        mSize = index + 1;
+
+        if (table.length - (table.length >>> 2) < mSize) {
+            rehash(ContainerHelpers.idealHashTableSize(mSize));
+        } else {
+            table[slot] = index + 1;
+        }
+    }
+
+    /**
+     * Copies all of the mappings from {@code other} to this map. The effect of this call is
+     * equivalent to that of calling {@link #put(int, int)} on this map once for each mapping
+     * in {@code other}.
+     */
+    public void putAll(@NonNull IntIntMap other) {
+        ensureCapacity(mSize + other.mSize);
+        for (int i = 0; i < other.mSize; i++) {
+            put(other.mKeys[i], other.mValues[i]);
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the value mapped from {@code key}, treating an absent mapping as
+     * <code>0</code>, and returns the new value.
+     */
+    public int increment(int key, int delta) {
+        final int index = indexOfKey(key);
+        if (index >= 0) {
+            return mValues[index] += delta;
+        }
+        put(key, delta);
+        return delta;
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     *
+     * @return true if a mapping was removed.
+     */
+    public boolean remove(int key) {
+        final int index = indexOfKey(key);
+        if (index >= 0) {
+            removeAt(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the mapping at the specified index. The last mapping is moved into the vacated
+     * index.
+     */
+    public void removeAt(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        deleteSlot(slotOf(index));
+
+        final int last = mSize - 1;
+        if (index != last) {
+            mTable[slotOf(last)] = index + 1;
+            mKeys[index] = mKeys[last];
+            mValues[index] = mValues[last];
+        }
+        mSize = last;
+    }
+
+    /**
+     * Returns the number of key-value mappings that this map currently stores.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns the key from the
+     * <code>index</code>th key-value mapping that this map stores.
+     */
+    public int keyAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mKeys[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns the value from the
+     * <code>index</code>th key-value mapping that this map stores.
+     */
+    public int valueAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mValues[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, sets a new value for the
+     * <code>index</code>th key-value mapping that this map stores.
+     */
+    public void setValueAt(int index, int value) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        mValues[index] = value;
+    }
+
+    /**
+     * Returns the index for which {@link #keyAt} would return the specified key, or a negative
+     * number if the specified key is not mapped.
+     */
+    public int indexOfKey(int key) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(key) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (mKeys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns an index for which {@link #valueAt} would return the specified value, or a
+     * negative number if no keys map to the specified value.
+     * <p>Beware that this is a linear search, unlike lookups by key, and that multiple keys can
+     * map to the same value and this will find only one of them.
+     */
+    public int indexOfValue(int value) {
+        for (int i = 0; i < mSize; i++) {
+            if (mValues[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true if the specified key is mapped. */
+    public boolean containsKey(int key) {
+        return indexOfKey(key) >= 0;
+    }
+
+    /** Returns true if the specified value is mapped from any key. */
+    public boolean containsValue(int value) {
+        return indexOfValue(value) >= 0;
+    }
+
+    /**
+     * Ensure the map has enough capacity to hold {@code minimumCapacity} mappings without
+     * reallocating.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mKeys.length < minimumCapacity) {
+            growEntries(minimumCapacity);
+        }
+        final int tableSize = ContainerHelpers.idealHashTableSize(minimumCapacity);
+        if (mTable.length < tableSize) {
+            rehash(tableSize);
+        }
+    }
+
+    /**
+     * Removes all key-value mappings from this map.
+     */
+    public void clear() {
+        if (mSize != 0) {
+            Arrays.fill(mTable, 0);
+            mSize = 0;
+        }
+    }
+
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof IntIntMap)) {
+            return false;
+        }
+        IntIntMap other = (IntIntMap) object;
+        if (mSize != other.mSize) {
+            return false;
+        }
+        for (int i = 0; i < mSize; i++) {
+            final int index = other.indexOfKey(mKeys[i]);
+            if (index < 0 || other.mValues[index] != mValues[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int i = 0; i < mSize; i++) {
+            result += mKeys[i] ^ mValues[i];
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 16);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mKeys[i]);
+            buffer.append('=');
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    private void growEntries(int minimumCapacity) {
+        int n = Math.max(minimumCapacity, mKeys.length < 4 ? 4 : mKeys.length * 2);
+        int[] nkeys = new int[n];
+        int[] nvalues = new int[n];
+        System.arraycopy(mKeys, 0, nkeys, 0, mSize);
+        System.arraycopy(mValues, 0, nvalues, 0, mSize);
+        mKeys = nkeys;
+        mValues = nvalues;
+    }
+
+    private void rehash(int tableSize) {
+        final int[] table = new int[tableSize];
+        final int mask = tableSize - 1;
+        for (int i = 0; i < mSize; i++) {
+            int slot = ContainerHelpers.hash(mKeys[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        mTable = table;
+    }
+
+    // Returns the table slot referencing the mapping at index, which must exist.
+    private int slotOf(int index) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(mKeys[index]) & mask;
+        while (table[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Empties a table slot, moving later entries of the probe sequence back to fill the gap.
+    private void deleteSlot(int gap) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            final int entry = table[slot];
+            if (entry == 0) {
+                break;
+            }
+            final int ideal = ContainerHelpers.hash(mKeys[entry - 1]) & mask;
+            // Move the entry unless its ideal slot lies cyclically within (gap, slot].
+            if (((slot - ideal) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = entry;
+                gap = slot;
+            }
+        }
+        table[gap] = 0;
+    }
+}
@@ -0,0 +1,444 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * IntObjectMap maps integers to Objects using a hash table. Unlike {@link SparseArrayCompat},
+ * whose puts and removes shift array contents and are therefore O(n), lookups, insertions and
+ * removals take expected constant time regardless of how many mappings are stored. Keys are not
+ * boxed and no entry object is allocated per mapping.
+ *
+ * <p>Mappings are stored densely in a pair of parallel arrays which are indexed through an
+ * open-addressing table using linear probing. Removals back-shift the probe sequence rather than
+ * leaving tombstones, so lookup cost does not degrade after heavy churn.</p>
+ *
+ * <p>It is possible to iterate over the items in this container using {@link #keyAt(int)} and
+ * {@link #valueAt(int)} with indices from <code>0</code> to <code>size() - 1</code>. The order of
+ * the mappings is unspecified. Removing a mapping moves the last mapping into the removed slot,
+ * so iterating in descending index order is safe while calling {@link #removeAt(int)}.</p>
+ */
+public class IntObjectMap<E> {
+    private int[] mKeys;
+    private Object[] mValues;
+    private int mSize;
+
+    // Each slot holds (index + 1) of a mapping in mKeys/mValues, or 0 if the slot is empty.
+    private int[] mTable;
+
+    /**
+     * Creates a new IntObjectMap containing no mappings.
+     */
+    public IntObjectMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a new IntObjectMap containing no mappings that will not require any additional memory
+     * allocation to store the specified number of mappings.
+     */
+    public IntObjectMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        if (initialCapacity == 0) {
+            mKeys = ContainerHelpers.EMPTY_INTS;
+            mValues = ContainerHelpers.EMPTY_OBJECTS;
+        } else {
+            mKeys = new int[initialCapacity];
+            mValues = new Object[initialCapacity];
+        }
+        mTable = new int[ContainerHelpers.idealHashTableSize(initialCapacity)];
+    }
+
+    /**
+     * Copies all of the mappings of {@code other} into a new map.
+     */
+    public IntObjectMap(@NonNull IntObjectMap<? extends E> other) {
+        mKeys = other.mKeys.clone();
+        mValues = other.mValues.clone();
+        mTable = other.mTable.clone();
+        mSize = other.mSize;
+    }
+
+    /**
+     * Gets the Object mapped from the specified key, or <code>null</code> if no such mapping has
+     * been made.
+     */
+    @Nullable
+    @SuppressWarnings("NullAway") // See SparseArrayCompat.get(int).
+    public E get(int key) {
+        return get(key, null);
+    }
+
+    /**
+     * Gets the Object mapped from the specified key, or the specified Object if no such mapping
+     * has been made.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int key, E valueIfKeyNotFound) {
+        final int index = indexOfKey(key);
+        return index >= 0 ? (E) mValues[index] : valueIfKeyNotFound;
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value, replacing the previous
+     * mapping from the specified key if there was one.
+     *
+     * @return the previous value mapped from {@code key}, or null if there was none.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public E put(int key, E value) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(key) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (mKeys[entry - 1] == key) {
+                final E old = (E) mValues[entry - 1];
+                mValues[entry - 1] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (mSize >= mKeys.length) {
+            growEntries(mSize + 1);
+        }
+        final int index = mSize;
+        mKeys[index] = key;
+        mValues[index] = value;
+        mSize = index + 1;
+
+        if (table.length - (table.length >>> 2) < mSize) {
+            rehash(ContainerHelpers.idealHashTableSize(mSize));
+        } else {
+            table[slot] = index + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Copies all of the mappings from {@code other} to this map. The effect of this call is
+     * equivalent to that of calling {@link #put(int, Object)} on this map once for each mapping
+     * in {@code other}.
+     */
+    public void putAll(@NonNull IntObjectMap<? extends E> other) {
+        ensureCapacity(mSize + other.mSize);
+        for (int i = 0; i < other.mSize; i++) {
+            put(other.mKeys[i], other.valueAt(i));
+        }
+    }
+
+    /**
+     * Add a new value to the map only if the key does not already have a value or it is
+     * mapped to {@code null}.
+     * @param key The key under which to store the value.
+     * @param value The value to store for the given key.
+     * @return Returns the value that was stored for the given key, or null if there
+     * was no such key.
+     */
+    @Nullable
+    public E putIfAbsent(int key, E value) {
+        E mapValue = get(key);
+        if (mapValue == null) {
+            put(key, value);
+        }
+        return mapValue;
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     *
+     * @return the value that was mapped from {@code key}, or null if there was none.
+     */
+    @Nullable
+    public E remove(int key) {
+        final int index = indexOfKey(key);
+        if (index >= 0) {
+            return removeAt(index);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the mapping at the specified index. The last mapping is moved into the vacated
+     * index.
+     *
+     * @return the value that was stored at {@code index}.
+     */
+    @SuppressWarnings("unchecked")
+    public E removeAt(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final E old = (E) mValues[index];
+        deleteSlot(slotOf(index));
+
+        final int last = mSize - 1;
+        if (index != last) {
+            mTable[slotOf(last)] = index + 1;
+            mKeys[index] = mKeys[last];
+            mValues[index] = mValues[last];
+        }
+        mValues[last] = null;
+        mSize = last;
+        return old;
+    }
+
+    /**
+     * Returns the number of key-value mappings that this map currently stores.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns the key from the
+     * <code>index</code>th key-value mapping that this map stores.
+     */
+    public int keyAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mKeys[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns the value from the
+     * <code>index</code>th key-value mapping that this map stores.
+     */
+    @SuppressWarnings("unchecked")
+    public E valueAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return (E) mValues[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, sets a new value for the
+     * <code>index</code>th key-value mapping that this map stores.
+     */
+    public void setValueAt(int index, E value) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        mValues[index] = value;
+    }
+
+    /**
+     * Returns the index for which {@link #keyAt} would return the specified key, or a negative
+     * number if the specified key is not mapped.
+     */
+    public int indexOfKey(int key) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(key) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (mKeys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns an index for which {@link #valueAt} would return the specified value, or a
+     * negative number if no keys map to the specified value.
+     * <p>Beware that this is a linear search, unlike lookups by key, and that multiple keys can
+     * map to the same value and this will find only one of them.
+     * <p>Note also that, like {@link SparseArrayCompat#indexOfValue}, this method compares values
+     * using {@code ==} rather than {@code equals}.
+     */
+    public int indexOfValue(E value) {
+        for (int i = 0; i < mSize; i++) {
+            if (mValues[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true if the specified key is mapped. */
+    public boolean containsKey(int key) {
+        return indexOfKey(key) >= 0;
+    }
+
+    /** Returns true if the specified value is mapped from any key. */
+    public boolean containsValue(E value) {
+        return indexOfValue(value) >= 0;
+    }
+
+    /**
+     * Ensure the map has enough capacity to hold {@code minimumCapacity} mappings without
+     * reallocating.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mKeys.length < minimumCapacity) {
+            growEntries(minimumCapacity);
+        }
+        final int tableSize = ContainerHelpers.idealHashTableSize(minimumCapacity);
+        if (mTable.length < tableSize) {
+            rehash(tableSize);
+        }
+    }
+
+    /**
+     * Removes all key-value mappings from this map.
+     */
+    public void clear() {
+        if (mSize != 0) {
+            Arrays.fill(mTable, 0);
+            Arrays.fill(mValues, 0, mSize, null);
+            mSize = 0;
+        }
+    }
+
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof IntObjectMap)) {
+            return false;
+        }
+        IntObjectMap<?> other = (IntObjectMap<?>) object;
+        if (mSize != other.mSize) {
+            return false;
+        }
+        for (int i = 0; i < mSize; i++) {
+            final int index = other.indexOfKey(mKeys[i]);
+            if (index < 0 || !ContainerHelpers.equal(mValues[i], other.mValues[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int i = 0; i < mSize; i++) {
+            final Object value = mValues[i];
+            result += mKeys[i] ^ (value == null ? 0 : value.hashCode());
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings. If
+     * this map contains itself as a value, the string "(this Map)"
+     * will appear in its place.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 28);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mKeys[i]);
+            buffer.append('=');
+            Object value = mValues[i];
+            if (value != this) {
+                buffer.append(value);
+            } else {
+                buffer.append("(this Map)");
+            }
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    private void growEntries(int minimumCapacity) {
+        int n = Math.max(minimumCapacity, mKeys.length < 4 ? 4 : mKeys.length * 2);
+        int[] nkeys = new int[n];
+        Object[] nvalues = new Object[n];
+        System.arraycopy(mKeys, 0, nkeys, 0, mSize);
+        System.arraycopy(mValues, 0, nvalues, 0, mSize);
+        mKeys = nkeys;
+        mValues = nvalues;
+    }
+
+    private void rehash(int tableSize) {
+        final int[] table = new int[tableSize];
+        final int mask = tableSize - 1;
+        for (int i = 0; i < mSize; i++) {
+            int slot = ContainerHelpers.hash(mKeys[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        mTable = table;
+    }
+
+    // Returns the table slot referencing the mapping at index, which must exist.
+    private int slotOf(int index) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(mKeys[index]) & mask;
+        while (table[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Empties a table slot, moving later entries of the probe sequence back to fill the gap.
+    private void deleteSlot(int gap) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            final int entry = table[slot];
+            if (entry == 0) {
+                break;
+            }
+            final int ideal = ContainerHelpers.hash(mKeys[entry - 1]) & mask;
+            // Move the entry unless its ideal slot lies cyclically within (gap, slot].
+            if (((slot - ideal) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = entry;
+                gap = slot;
+            }
+        }
+        table[gap] = 0;
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * LongList is a growable array of primitive {@code long} values. Unlike a
+ * {@code List<Long>}, values are stored unboxed in a single array, so no object is allocated
+ * per element.
+ *
+ * <p>The backing array grows by half its size when full and never shrinks on its own; call
+ * {@link #trimToSize()} to release unused capacity. For large buffers which should stay outside
+ * of the garbage collected heap, see {@link DirectLongList}.</p>
+ *
+ * <p>This structure is <b>NOT</b> thread-safe.</p>
+ */
+public class LongList {
+    private long[] mValues;
+    private int mSize;
+
+    /**
+     * Creates a new empty LongList.
+     */
+    public LongList() {
+        this(0);
+    }
+
+    /**
+     * Creates a new empty LongList that will not require any additional memory allocation to
+     * store the specified number of values.
+     */
+    public LongList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        mValues = initialCapacity == 0 ? ContainerHelpers.EMPTY_LONGS : new long[initialCapacity];
+    }
+
+    /**
+     * Creates a new LongList containing the values of {@code other}.
+     */
+    public LongList(@NonNull LongList other) {
+        mValues = Arrays.copyOf(other.mValues, other.mSize);
+        mSize = other.mSize;
+    }
+
+    /**
+     * Appends {@code value} to the end of the list.
+     */
+    public void add(long value) {
+        if (mSize == mValues.length) {
+            grow(mSize + 1);
+        }
+        mValues[mSize++] = value;
+    }
+
+    /**
+     * Inserts {@code value} at {@code index}, shifting the value currently at that index and all
+     * later values one position to the right.
+     */
+    public void add(int index, long value) {
+        if (index < 0 || index > mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        if (mSize == mValues.length) {
+            grow(mSize + 1);
+        }
+        System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+        mValues[index] = value;
+        mSize++;
+    }
+
+    /**
+     * Appends all of {@code values} to the end of the list.
+     */
+    public void addAll(@NonNull long[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Appends {@code count} values of {@code values}, starting at {@code offset}, to the end of
+     * the list.
+     */
+    public void addAll(@NonNull long[] values, int offset, int count) {
+        if (offset < 0 || count < 0 || offset > values.length - count) {
+            throw new ArrayIndexOutOfBoundsException(offset + count);
+        }
+        ensureCapacity(mSize + count);
+        System.arraycopy(values, offset, mValues, mSize, count);
+        mSize += count;
+    }
+
+    /**
+     * Appends all of the values of {@code other} to the end of the list.
+     */
+    public void addAll(@NonNull LongList other) {
+        addAll(other.mValues, 0, other.mSize);
+    }
+
+    /**
+     * Returns the value at {@code index}.
+     */
+    public long get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mValues[index];
+    }
+
+    /**
+     * Replaces the value at {@code index} with {@code value}.
+     *
+     * @return the value previously at {@code index}.
+     */
+    public long set(int index, long value) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final long old = mValues[index];
+        mValues[index] = value;
+        return old;
+    }
+
+    /**
+     * Removes the value at {@code index}, shifting all later values one position to the left.
+     *
+     * @return the removed value.
+     */
+    public long removeAt(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final long old = mValues[index];
+        System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+        mSize--;
+        return old;
+    }
+
+    /**
+     * Removes the values from {@code fromIndex}, inclusive, to {@code toIndex}, exclusive.
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > mSize || fromIndex > toIndex) {
+            throw new ArrayIndexOutOfBoundsException(fromIndex < 0 ? fromIndex : toIndex);
+        }
+        System.arraycopy(mValues, toIndex, mValues, fromIndex, mSize - toIndex);
+        mSize -= toIndex - fromIndex;
+    }
+
+    /**
+     * Returns the index of the first occurrence of {@code value}, or -1 if the list does not
+     * contain it.
+     */
+    public int indexOf(long value) {
+        for (int i = 0; i < mSize; i++) {
+            if (mValues[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of {@code value}, or -1 if the list does not
+     * contain it.
+     */
+    public int lastIndexOf(long value) {
+        for (int i = mSize - 1; i >= 0; i--) {
+            if (mValues[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true if the list contains {@code value}. */
+    public boolean contains(long value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the number of values in the list.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Removes all values from the list. The capacity is retained.
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * Ensure the list has enough capacity to hold {@code minimumCapacity} values without
+     * reallocating.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mValues.length < minimumCapacity) {
+            grow(minimumCapacity);
+        }
+    }
+
+    /**
+     * Shrinks the backing array to the current size of the list.
+     */
+    public void trimToSize() {
+        if (mValues.length > mSize) {
+            mValues = mSize == 0 ? ContainerHelpers.EMPTY_LONGS : Arrays.copyOf(mValues, mSize);
+        }
+    }
+
+    /**
+     * Sorts the values of the list into ascending order.
+     */
+    public void sort() {
+        Arrays.sort(mValues, 0, mSize);
+    }
+
+    /**
+     * Returns a new array containing the values of the list.
+     */
+    @NonNull
+    public long[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof LongList)) {
+            return false;
+        }
+        LongList other = (LongList) object;
+        if (mSize != other.mSize) {
+            return false;
+        }
+        for (int i = 0; i < mSize; i++) {
+            if (mValues[i] != other.mValues[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < mSize; i++) {
+            result = 31 * result + (int) (mValues[i] ^ (mValues[i] >>> 32));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its values.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "[]";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 8);
+        buffer.append('[');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mValues[i]);
+        }
+        buffer.append(']');
+        return buffer.toString();
+    }
+
+    private void grow(int minimumCapacity) {
+        final int n = Math.max(minimumCapacity,
+                mValues.length < 4 ? 4 : mValues.length + (mValues.length >> 1));
+        mValues = Arrays.copyOf(mValues, n);
+    }
+}
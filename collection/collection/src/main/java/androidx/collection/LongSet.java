@@ -0,0 +1,331 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * LongSet is a set of longs backed by a hash table. Additions, lookups and removals take
+ * expected constant time and values are never boxed.
+ *
+ * <p>Values are stored densely in an array which is indexed through an open-addressing table
+ * using linear probing, in the same way as {@link LongLongMap}.</p>
+ *
+ * <p>It is possible to iterate over the values in this container using {@link #valueAt(int)}
+ * with indices from <code>0</code> to <code>size() - 1</code>. The order of the values is
+ * unspecified. Removing a value moves the last value into the removed slot, so iterating in
+ * descending index order is safe while calling {@link #removeAt(int)}.</p>
+ */
+public class LongSet {
+    private long[] mValues;
+    private int mSize;
+
+    // Each slot holds (index + 1) of a value in mValues, or 0 if the slot is empty.
+    private int[] mTable;
+
+    /**
+     * Creates a new empty LongSet.
+     */
+    public LongSet() {
+        this(0);
+    }
+
+    /**
+     * Creates a new empty LongSet that will not require any additional memory allocation to store
+     * the specified number of values.
+     */
+    public LongSet(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        mValues = initialCapacity == 0 ? ContainerHelpers.EMPTY_LONGS : new long[initialCapacity];
+        mTable = new int[ContainerHelpers.idealHashTableSize(initialCapacity)];
+    }
+
+    /**
+     * Copies all of the values of {@code other} into a new set.
+     */
+    public LongSet(@NonNull LongSet other) {
+        mValues = other.mValues.clone();
+        mTable = other.mTable.clone();
+        mSize = other.mSize;
+    }
+
+    /**
+     * Adds the specified value to the set.
+     *
+     * @return true if this set did not already contain the value.
+     */
+    public boolean add(long value) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(value) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (mValues[entry - 1] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (mSize >= mValues.length) {
+            growValues(mSize + 1);
+        }
+        final int index = mSize;
+        mValues[index] = value;
+        mSize = index + 1;
+
+        if (table.length - (table.length >>> 2) < mSize) {
+            rehash(ContainerHelpers.idealHashTableSize(mSize));
+        } else {
+            table[slot] = index + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Adds all of the values in {@code other} to this set.
+     *
+     * @return true if this set changed.
+     */
+    public boolean addAll(@NonNull LongSet other) {
+        ensureCapacity(mSize + other.mSize);
+        boolean changed = false;
+        for (int i = 0; i < other.mSize; i++) {
+            changed |= add(other.mValues[i]);
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the specified value from the set.
+     *
+     * @return true if the value was present.
+     */
+    public boolean remove(long value) {
+        final int index = indexOf(value);
+        if (index >= 0) {
+            removeAt(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the value at the specified index. The last value is moved into the vacated index.
+     */
+    public void removeAt(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        deleteSlot(slotOf(index));
+
+        final int last = mSize - 1;
+        if (index != last) {
+            mTable[slotOf(last)] = index + 1;
+            mValues[index] = mValues[last];
+        }
+        mSize = last;
+    }
+
+    /** Returns true if the specified value is in the set. */
+    public boolean contains(long value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the index for which {@link #valueAt} would return the specified value, or a
+     * negative number if the value is not in the set.
+     */
+    public int indexOf(long value) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(value) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (mValues[entry - 1] == value) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns the value at that index.
+     */
+    public long valueAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return mValues[index];
+    }
+
+    /**
+     * Returns the number of values in this set.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Ensure the set has enough capacity to hold {@code minimumCapacity} values without
+     * reallocating.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (mValues.length < minimumCapacity) {
+            growValues(minimumCapacity);
+        }
+        final int tableSize = ContainerHelpers.idealHashTableSize(minimumCapacity);
+        if (mTable.length < tableSize) {
+            rehash(tableSize);
+        }
+    }
+
+    /**
+     * Removes all values from this set.
+     */
+    public void clear() {
+        if (mSize != 0) {
+            Arrays.fill(mTable, 0);
+            mSize = 0;
+        }
+    }
+
+    /**
+     * Returns a new array containing the values of this set, in index order.
+     */
+    @NonNull
+    public long[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof LongSet)) {
+            return false;
+        }
+        LongSet other = (LongSet) object;
+        if (mSize != other.mSize) {
+            return false;
+        }
+        for (int i = 0; i < mSize; i++) {
+            if (!other.contains(mValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int i = 0; i < mSize; i++) {
+            result += (int) (mValues[i] ^ (mValues[i] >>> 32));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its values.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 12);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    private void growValues(int minimumCapacity) {
+        int n = Math.max(minimumCapacity, mValues.length < 4 ? 4 : mValues.length * 2);
+        long[] nvalues = new long[n];
+        System.arraycopy(mValues, 0, nvalues, 0, mSize);
+        mValues = nvalues;
+    }
+
+    private void rehash(int tableSize) {
+        final int[] table = new int[tableSize];
+        final int mask = tableSize - 1;
+        for (int i = 0; i < mSize; i++) {
+            int slot = ContainerHelpers.hash(mValues[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        mTable = table;
+    }
+
+    // Returns the table slot referencing the value at index, which must exist.
+    private int slotOf(int index) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(mValues[index]) & mask;
+        while (table[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Empties a table slot, moving later entries of the probe sequence back to fill the gap.
+    private void deleteSlot(int gap) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            final int entry = table[slot];
+            if (entry == 0) {
+                break;
+            }
+            final int ideal = ContainerHelpers.hash(mValues[entry - 1]) & mask;
+            // Move the entry unless its ideal slot lies cyclically within (gap, slot].
+            if (((slot - ideal) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = entry;
+                gap = slot;
+            }
+        }
+        table[gap] = 0;
+    }
+}
@@ -501,18 +501,42 @@ public class SimpleArrayMap<K, V> {
      */
     public void putAll(@NonNull SimpleArrayMap<? extends K, ? extends V> array) {
         final int N = array.mSize;
-        ensureCapacity(mSize + N);
         if (mSize == 0) {
+            ensureCapacity(N);
             if (N > 0) {
                 System.arraycopy(array.mHashes, 0, mHashes, 0, N);
                 System.arraycopy(array.mArray, 0, mArray, 0, N<<1);
                 mSize = N;
             }
-        } else {
-            for (int i=0; i<N; i++) {
-                put(array.keyAt(i), array.valueAt(i));
-            }
+        } else if (N > 0) {
+            // Both maps are sorted by hash, so merge them in one pass rather than shifting the
+            // arrays on every individual put.
+            putAllSorted(array.mHashes, array.mArray, N);
+        }
+    }
+
+    /**
+     * Merges {@code size} mappings, sorted by ascending hash and laid out like {@link #mArray},
+     * into this map in a single pass. Later mappings for a key replace earlier ones.
+     */
+    void putAllSorted(int[] hashes, Object[] array, int size) {
+        final int osize = mSize;
+        final int[] ohashes = mHashes;
+        final Object[] oarray = mArray;
+        allocArrays(osize + size);
+
+        if (CONCURRENT_MODIFICATION_EXCEPTIONS && osize != mSize) {
+            throw new ConcurrentModificationException();
         }
+
+        final int nsize = ContainerHelpers.mergeByHash(ohashes, oarray, osize,
+                hashes, array, size, mHashes, mArray, 2);
+        freeArrays(ohashes, oarray, osize);
+
+        if (CONCURRENT_MODIFICATION_EXCEPTIONS && osize != mSize) {
+            throw new ConcurrentModificationException();
+        }
+        mSize = nsize;
     }
 
     /**
@@ -628,6 +652,56 @@ public class SimpleArrayMap<K, V> {
         return (V)old;
     }
 
+    /**
+     * Removes the mappings at every index for which {@code remove} is true, compacting the arrays
+     * in a single pass.
+     *
+     * @param count The number of true elements in {@code remove}.
+     */
+    void removeMarked(boolean[] remove, int count) {
+        final int osize = mSize;
+        final int nsize = osize - count;
+        if (nsize <= 0) {
+            clear();
+            return;
+        }
+
+        final int[] ohashes = mHashes;
+        final Object[] oarray = mArray;
+        final boolean shrink = mHashes.length > (BASE_SIZE*2) && nsize < mHashes.length/3;
+        if (shrink) {
+            // Shrunk enough to reduce size of arrays, in the same way as removeAt().
+            allocArrays(nsize > (BASE_SIZE*2) ? (nsize + (nsize>>1)) : (BASE_SIZE*2));
+            if (CONCURRENT_MODIFICATION_EXCEPTIONS && osize != mSize) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        final int[] hashes = mHashes;
+        final Object[] array = mArray;
+        int out = 0;
+        for (int i = 0; i < osize; i++) {
+            if (!remove[i]) {
+                hashes[out] = ohashes[i];
+                array[out<<1] = oarray[i<<1];
+                array[(out<<1)+1] = oarray[(i<<1)+1];
+                out++;
+            }
+        }
+
+        if (shrink) {
+            freeArrays(ohashes, oarray, osize);
+        } else {
+            for (int i = nsize << 1; i < osize << 1; i++) {
+                array[i] = null;
+            }
+        }
+        if (CONCURRENT_MODIFICATION_EXCEPTIONS && osize != mSize) {
+            throw new ConcurrentModificationException();
+        }
+        mSize = nsize;
+    }
+
     /**
      * Replace the mapping for {@code key} only if it is already mapped to a value.
      * @param key The key of the mapping to replace.
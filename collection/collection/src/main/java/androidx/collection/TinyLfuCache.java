@@ -0,0 +1,536 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A cache with the same contract as {@link LruCache} which uses the Window-TinyLFU policy to
+ * decide which entries to keep.
+ *
+ * <p>New entries first enter a small LRU admission window, sized at 1% of the cache. Entries
+ * leaving the window only enter the main region if they have been accessed more often recently
+ * than the entry the main region would have to evict in exchange; otherwise the newcomer itself
+ * is evicted. Access frequencies are estimated by a compact count-min sketch that also counts
+ * accesses to keys which are not cached. The main region is a segmented LRU in which entries
+ * hit a second time are protected from eviction. As a result a single pass over a large number
+ * of keys, each used once, cannot flush a frequently used working set out of the cache, which
+ * would happen with {@link LruCache}.
+ */
+public class TinyLfuCache<K, V> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final HashMap<K, Node<K, V>> mMap = new HashMap<>();
+    private final FrequencySketch mSketch = new FrequencySketch();
+
+    // Circular doubly linked lists ordered from least to most recently used, one per region.
+    private final Node<K, V> mWindow = Node.sentinel();
+    private final Node<K, V> mProbation = Node.sentinel();
+    private final Node<K, V> mProtected = Node.sentinel();
+
+    /** Size of this cache in units. Not necessarily the number of elements. */
+    private int mSize;
+    private int mWindowSize;
+    private int mProtectedSize;
+    private int mMaxSize;
+    private int mMaxWindowSize;
+    private int mMaxProtectedSize;
+
+    private int mPutCount;
+    private int mCreateCount;
+    private int mEvictionCount;
+    private int mHitCount;
+    private int mMissCount;
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     */
+    public TinyLfuCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        setMaxSize(maxSize);
+        mSketch.ensureCapacity(Math.min(maxSize, 16));
+    }
+
+    /**
+     * Sets the size of the cache.
+     *
+     * @param maxSize The new maximum size.
+     */
+    public void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+
+        synchronized (this) {
+            setMaxSize(maxSize);
+        }
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. This returns null if a value is not cached
+     * and cannot be created.
+     */
+    @Nullable
+    public final V get(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        synchronized (this) {
+            mSketch.increment(key);
+            Node<K, V> node = mMap.get(key);
+            if (node != null) {
+                onHit(node);
+                mHitCount++;
+                return node.mValue;
+            }
+            mMissCount++;
+        }
+
+        /*
+         * Attempt to create a value. This may take a long time, and the map
+         * may be different when create() returns. If a conflicting value was
+         * added to the map while create() was working, we leave that value in
+         * the map and release the created value.
+         */
+
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        Node<K, V> mapNode;
+        synchronized (this) {
+            mCreateCount++;
+            mapNode = mMap.get(key);
+            if (mapNode == null) {
+                add(key, createdValue);
+            }
+        }
+
+        if (mapNode != null) {
+            entryRemoved(false, key, createdValue, mapNode.mValue);
+            return mapNode.mValue;
+        } else {
+            trimToSize(mMaxSize);
+            return createdValue;
+        }
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. A new key enters the admission
+     * window; a replaced value keeps the position of the value it replaces.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V put(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+
+        V previous = null;
+        synchronized (this) {
+            mPutCount++;
+            mSketch.increment(key);
+            Node<K, V> node = mMap.get(key);
+            if (node != null) {
+                previous = node.mValue;
+                final int size = safeSizeOf(key, value);
+                adjustSize(node, size - node.mSize);
+                node.mValue = value;
+                node.mSize = size;
+                onHit(node);
+            } else {
+                add(key, value);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, value);
+        }
+
+        trimToSize(mMaxSize);
+        return previous;
+    }
+
+    /**
+     * Evict entries until the total of remaining entries is at or below the
+     * requested size. Entries leaving the admission window compete with the
+     * least recently used entry of the main region, and the one that was less
+     * frequently used recently is evicted.
+     *
+     * @param maxSize the maximum size of the cache before returning. May be -1
+     *            to evict even 0-sized elements.
+     */
+    public void trimToSize(int maxSize) {
+        List<Node<K, V>> evicted = new ArrayList<>();
+        synchronized (this) {
+            // Entries overflowing the window are appended to probation as admission candidates.
+            Node<K, V> candidate = null;
+            while (mWindowSize > mMaxWindowSize && mWindow.mNext != mWindow) {
+                Node<K, V> node = mWindow.mNext;
+                unlink(node);
+                mWindowSize -= node.mSize;
+                node.mQueue = PROBATION;
+                linkLast(mProbation, node);
+                if (candidate == null) {
+                    candidate = node;
+                }
+            }
+
+            while (mSize > maxSize) {
+                if (mMap.isEmpty()) {
+                    if (mSize != 0) {
+                        throw new IllegalStateException(getClass().getName()
+                                + ".sizeOf() is reporting inconsistent results!");
+                    }
+                    break;
+                }
+
+                Node<K, V> victim = mProbation.mNext;
+                if (victim == candidate || victim == mProbation) {
+                    victim = mProtected.mNext != mProtected ? mProtected.mNext : null;
+                }
+                if (victim == null && mWindow.mNext != mWindow) {
+                    victim = mWindow.mNext;
+                }
+
+                Node<K, V> toEvict;
+                if (candidate == null) {
+                    toEvict = victim;
+                } else if (victim != null
+                        && mSketch.frequency(candidate.mKey) > mSketch.frequency(victim.mKey)) {
+                    toEvict = victim;
+                } else {
+                    toEvict = candidate;
+                    candidate = candidate.mNext != mProbation ? candidate.mNext : null;
+                }
+
+                remove(toEvict);
+                mEvictionCount++;
+                evicted.add(toEvict);
+            }
+        }
+
+        for (int i = 0, size = evicted.size(); i < size; i++) {
+            Node<K, V> node = evicted.get(i);
+            entryRemoved(true, node.mKey, node.mValue, null);
+        }
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V remove(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        V previous = null;
+        synchronized (this) {
+            Node<K, V> node = mMap.get(key);
+            if (node != null) {
+                previous = node.mValue;
+                remove(node);
+            }
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, null);
+        }
+
+        return previous;
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. This method is
+     * invoked when a value is evicted to make space, removed by a call to
+     * {@link #remove}, or replaced by a call to {@link #put}. The default
+     * implementation does nothing.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * @param evicted true if the entry is being removed to make space, false
+     *     if the removal was caused by a {@link #put} or {@link #remove}.
+     * @param newValue the new value for {@code key}, if it exists. If non-null,
+     *     this removal was caused by a {@link #put}. Otherwise it was caused by
+     *     an eviction or a {@link #remove}.
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue,
+            @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * <p>If a value for {@code key} exists in the cache when this method
+     * returns, the created value will be released with {@link #entryRemoved}
+     * and discarded.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    private int safeSizeOf(K key, V value) {
+        int result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the entry for {@code key} and {@code value} in
+     * user-defined units.  The default implementation returns 1 so that size
+     * is the number of entries and max size is the maximum number of entries.
+     *
+     * <p>An entry's size must not change while it is in the cache.
+     */
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(-1); // -1 will evict 0-sized elements
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the number
+     * of entries in the cache. For all other caches, this returns the sum of
+     * the sizes of the entries in this cache.
+     */
+    public final int size() {
+        synchronized (this) {
+            return mSize;
+        }
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the maximum
+     * number of entries in the cache. For all other caches, this returns the
+     * maximum sum of the sizes of the entries in this cache.
+     */
+    public final int maxSize() {
+        synchronized (this) {
+            return mMaxSize;
+        }
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value that was
+     * already present in the cache.
+     */
+    public final int hitCount() {
+        synchronized (this) {
+            return mHitCount;
+        }
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null or required a new
+     * value to be created.
+     */
+    public final int missCount() {
+        synchronized (this) {
+            return mMissCount;
+        }
+    }
+
+    /**
+     * Returns the number of times {@link #create(Object)} returned a value.
+     */
+    public final int createCount() {
+        synchronized (this) {
+            return mCreateCount;
+        }
+    }
+
+    /**
+     * Returns the number of times {@link #put} was called.
+     */
+    public final int putCount() {
+        synchronized (this) {
+            return mPutCount;
+        }
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        synchronized (this) {
+            return mEvictionCount;
+        }
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache. Entries of the main
+     * region come first, from the least to the most recently used probationary
+     * entry followed by the protected entries in the same order, and the
+     * entries of the admission window come last.
+     */
+    @NonNull
+    public final Map<K, V> snapshot() {
+        synchronized (this) {
+            Map<K, V> result = new LinkedHashMap<>(mMap.size());
+            copyInto(result, mProbation);
+            copyInto(result, mProtected);
+            copyInto(result, mWindow);
+            return result;
+        }
+    }
+
+    @Override
+    public final String toString() {
+        synchronized (this) {
+            int accesses = mHitCount + mMissCount;
+            int hitPercent = accesses != 0 ? (100 * mHitCount / accesses) : 0;
+            return String.format(Locale.US,
+                    "TinyLfuCache[maxSize=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                    mMaxSize, mHitCount, mMissCount, hitPercent);
+        }
+    }
+
+    private void setMaxSize(int maxSize) {
+        mMaxSize = maxSize;
+        mMaxWindowSize = Math.max(1, maxSize / 100);
+        mMaxProtectedSize = (int) ((maxSize - (long) mMaxWindowSize) * 4 / 5);
+    }
+
+    private void add(K key, V value) {
+        Node<K, V> node = new Node<>(key, value, safeSizeOf(key, value));
+        mMap.put(key, node);
+        mSketch.ensureCapacity(mMap.size());
+        node.mQueue = WINDOW;
+        linkLast(mWindow, node);
+        mWindowSize += node.mSize;
+        mSize += node.mSize;
+    }
+
+    private void remove(Node<K, V> node) {
+        mMap.remove(node.mKey);
+        unlink(node);
+        adjustSize(node, -node.mSize);
+    }
+
+    private void adjustSize(Node<K, V> node, int delta) {
+        mSize += delta;
+        if (node.mQueue == WINDOW) {
+            mWindowSize += delta;
+        } else if (node.mQueue == PROTECTED) {
+            mProtectedSize += delta;
+        }
+    }
+
+    private void onHit(Node<K, V> node) {
+        unlink(node);
+        switch (node.mQueue) {
+            case WINDOW:
+                linkLast(mWindow, node);
+                break;
+            case PROBATION:
+                node.mQueue = PROTECTED;
+                mProtectedSize += node.mSize;
+                linkLast(mProtected, node);
+                // Demote the least recently used protected entries to make room.
+                while (mProtectedSize > mMaxProtectedSize && mProtected.mNext != node) {
+                    Node<K, V> demoted = mProtected.mNext;
+                    unlink(demoted);
+                    mProtectedSize -= demoted.mSize;
+                    demoted.mQueue = PROBATION;
+                    linkLast(mProbation, demoted);
+                }
+                break;
+            default:
+                linkLast(mProtected, node);
+                break;
+        }
+    }
+
+    private static <K, V> void copyInto(Map<K, V> map, Node<K, V> queue) {
+        for (Node<K, V> node = queue.mNext; node != queue; node = node.mNext) {
+            map.put(node.mKey, node.mValue);
+        }
+    }
+
+    private static <K, V> void linkLast(Node<K, V> queue, Node<K, V> node) {
+        node.mPrev = queue.mPrev;
+        node.mNext = queue;
+        queue.mPrev.mNext = node;
+        queue.mPrev = node;
+    }
+
+    private static <K, V> void unlink(Node<K, V> node) {
+        node.mPrev.mNext = node.mNext;
+        node.mNext.mPrev = node.mPrev;
+        node.mPrev = null;
+        node.mNext = null;
+    }
+
+    private static final class Node<K, V> {
+        final K mKey;
+        V mValue;
+        int mSize;
+        int mQueue;
+        Node<K, V> mPrev;
+        Node<K, V> mNext;
+
+        @SuppressWarnings("NullAway") // Only sentinels have no key and value.
+        static <K, V> Node<K, V> sentinel() {
+            Node<K, V> sentinel = new Node<>(null, null, 0);
+            sentinel.mPrev = sentinel;
+            sentinel.mNext = sentinel;
+            return sentinel;
+        }
+
+        Node(K key, V value, int size) {
+            mKey = key;
+            mValue = value;
+            mSize = size;
+        }
+    }
+}
@@ -32,16 +32,51 @@
  *         prevents boxing compared to a traditional {@link java.util.Map}.
  *     </li>
  *     <li>
+ *         <b>{@link androidx.collection.IntIntMap} / {@link androidx.collection.IntObjectMap} /
+ *         {@link androidx.collection.LongLongMap} / {@link androidx.collection.IntSet} /
+ *         {@link androidx.collection.LongSet}</b>
+ *         <p>
+ *         Hash-based maps and sets of primitive keys and values which avoid both boxing and the
+ *         linear insertion cost of the binary-searched containers, suited for large data sets.
+ *     </li>
+ *     <li>
  *         <b>{@link androidx.collection.LruCache}</b>
  *         <p>
  *         A map-like cache which keeps frequently-used entries and automatically evicts others.
  *     </li>
  *     <li>
+ *         <b>{@link androidx.collection.ConcurrentLruCache}</b>
+ *         <p>
+ *         A variant of {@code LruCache} with lock-free reads and striped writes, for caches
+ *         shared by many threads.
+ *     </li>
+ *     <li>
+ *         <b>{@link androidx.collection.TinyLfuCache}</b>
+ *         <p>
+ *         A variant of {@code LruCache} which only admits new entries that are used more
+ *         frequently than the ones they would replace, so that scans do not flush the cache.
+ *     </li>
+ *     <li>
  *         <b>{@link androidx.collection.CircularArray} /
  *         {@link androidx.collection.CircularIntArray}</b>
  *         <p>
  *         List-like structures which can efficiently prepend and append elements.
  *     </li>
+ *     <li>
+ *         <b>{@link androidx.collection.IntList} / {@link androidx.collection.LongList} /
+ *         {@link androidx.collection.FloatList}</b>
+ *         <p>
+ *         Growable lists of primitive values which avoid boxing.
+ *     </li>
+ *     <li>
+ *         <b>{@link androidx.collection.DirectIntList} /
+ *         {@link androidx.collection.DirectLongList} /
+ *         {@link androidx.collection.DirectFloatList}</b>
+ *         <p>
+ *         Growable lists of primitive values stored in a direct {@link java.nio.ByteBuffer}
+ *         outside of the garbage collected heap, which can be viewed as NIO buffers without
+ *         copying.
+ *     </li>
  * </ul>
  */
 package androidx.collection;
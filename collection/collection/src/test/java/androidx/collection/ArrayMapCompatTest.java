@@ -15,6 +15,7 @@
  */
 package androidx.collection;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -25,6 +26,7 @@ import org.junit.runners.JUnit4;
 
 import java.util.AbstractMap;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -122,4 +124,88 @@ public class ArrayMapCompatTest {
         } catch (NoSuchElementException expected) {
         }
     }
+
+    @Test
+    public void putAllMergesLargeMap() {
+        ArrayMap<Object, Integer> map = new ArrayMap<>();
+        Map<Object, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100; i += 2) {
+            map.put(new Collider(i), i);
+            expected.put(new Collider(i), i);
+        }
+        map.put(null, -1);
+        expected.put(null, -1);
+
+        Map<Object, Integer> other = new HashMap<>();
+        for (int i = 0; i < 100; i += 3) {
+            other.put(new Collider(i), -i);
+        }
+        other.put(null, -2);
+        map.putAll(other);
+        expected.putAll(other);
+
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void removeAllAndRetainAll() {
+        ArrayMap<Object, Integer> map = new ArrayMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(new Collider(i), i);
+        }
+        map.put(null, -1);
+
+        assertTrue(map.removeAll(Arrays.asList(new Collider(3), new Collider(3), null, "absent")));
+        assertEquals(99, map.size());
+        assertFalse(map.containsKey(new Collider(3)));
+        assertFalse(map.containsKey(null));
+        assertFalse(map.removeAll(Arrays.asList("absent")));
+
+        Set<Object> keep = new HashSet<>();
+        for (int i = 0; i < 100; i += 10) {
+            keep.add(new Collider(i));
+        }
+        assertTrue(map.retainAll(keep));
+        assertEquals(keep, map.keySet());
+        assertFalse(map.retainAll(keep));
+    }
+
+    @Test
+    public void builderKeepsLastValueForDuplicateKeys() {
+        ArrayMap.Builder<Object, Integer> builder = new ArrayMap.Builder<>(4);
+        Map<Object, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            builder.put(new Collider(i % 20), i);
+            expected.put(new Collider(i % 20), i);
+        }
+        builder.put(null, 1).put(null, 2);
+        expected.put(null, 2);
+
+        assertEquals(expected, builder.build());
+        assertTrue(builder.build().isEmpty());
+    }
+
+    /** A key whose hash code collides with those of many other keys. */
+    static final class Collider {
+        private final int mValue;
+
+        Collider(int value) {
+            mValue = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Collider && ((Collider) o).mValue == mValue;
+        }
+
+        @Override
+        public int hashCode() {
+            return mValue / 4;
+        }
+
+        @Override
+        public String toString() {
+            return "Collider(" + mValue + ")";
+        }
+    }
 }
@@ -24,8 +24,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 @RunWith(JUnit4.class)
 public class ArraySetCompatTest {
@@ -45,4 +48,82 @@ public class ArraySetCompatTest {
         } catch (NoSuchElementException expected) {
         }
     }
+
+    @Test
+    public void addAllMergesLargeCollections() {
+        ArraySet<Object> set = new ArraySet<>();
+        Set<Object> expected = new HashSet<>();
+        for (int i = 0; i < 100; i += 2) {
+            set.add(new ArrayMapCompatTest.Collider(i));
+            expected.add(new ArrayMapCompatTest.Collider(i));
+        }
+
+        ArraySet<Object> other = new ArraySet<>();
+        for (int i = 0; i < 100; i += 3) {
+            other.add(new ArrayMapCompatTest.Collider(i));
+        }
+        other.add(null);
+        set.addAll(other);
+        expected.addAll(other);
+        assertEquals(expected, set);
+
+        Set<Object> more = new HashSet<>();
+        for (int i = 0; i < 150; i += 5) {
+            more.add(new ArrayMapCompatTest.Collider(i));
+        }
+        assertTrue(set.addAll(more));
+        expected.addAll(more);
+        assertEquals(expected, set);
+        assertFalse(set.addAll(more));
+    }
+
+    @Test
+    public void removeAllAndRetainAll() {
+        ArraySet<Object> set = new ArraySet<>();
+        for (int i = 0; i < 100; i++) {
+            set.add(new ArrayMapCompatTest.Collider(i));
+        }
+        set.add(null);
+
+        ArraySet<Object> remove = new ArraySet<>();
+        remove.add(null);
+        remove.add("absent");
+        for (int i = 0; i < 100; i += 3) {
+            remove.add(new ArrayMapCompatTest.Collider(i));
+        }
+        assertTrue(set.removeAll(remove));
+        assertEquals(66, set.size());
+        assertFalse(set.contains(null));
+        assertFalse(set.contains(new ArrayMapCompatTest.Collider(3)));
+        assertTrue(set.contains(new ArrayMapCompatTest.Collider(4)));
+        assertFalse(set.removeAll(remove));
+
+        assertTrue(set.removeAll(Arrays.asList(new ArrayMapCompatTest.Collider(4), "absent")));
+        assertEquals(65, set.size());
+
+        Set<Object> keep = new HashSet<>();
+        for (int i = 1; i < 100; i += 9) {
+            if (i % 3 != 0) {
+                keep.add(new ArrayMapCompatTest.Collider(i));
+            }
+        }
+        assertTrue(set.retainAll(keep));
+        assertEquals(keep, set);
+        assertFalse(set.retainAll(keep));
+    }
+
+    @Test
+    public void builderCollapsesDuplicates() {
+        ArraySet.Builder<Object> builder = new ArraySet.Builder<>(0);
+        Set<Object> expected = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            builder.add(new ArrayMapCompatTest.Collider(i % 20));
+            expected.add(new ArrayMapCompatTest.Collider(i % 20));
+        }
+        builder.add(null).add(null);
+        expected.add(null);
+
+        assertEquals(expected, builder.build());
+        assertTrue(builder.build().isEmpty());
+    }
 }
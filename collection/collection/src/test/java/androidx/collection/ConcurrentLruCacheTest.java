@@ -0,0 +1,263 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class ConcurrentLruCacheTest {
+
+    @Test
+    public void testConstructorDoesNotAllowZeroCacheSize() {
+        try {
+            new ConcurrentLruCache<String, String>(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testCannotPutNullValue() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        try {
+            cache.put("a", null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3, 1);
+        assertNull(cache.put("a", "A"));
+        assertNull(cache.put("b", "B"));
+        assertEquals("A", cache.put("a", "A2"));
+        assertEquals("A2", cache.get("a"));
+        assertNull(cache.get("c"));
+        assertEquals(3, cache.putCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(0, cache.evictionCount());
+        assertEquals(2, cache.size());
+        assertEquals("ConcurrentLruCache[maxSize=3,hits=1,misses=1,hitRate=50%]",
+                cache.toString());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedWithSingleSegment() {
+        List<String> log = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = newRemovalLogCache(log);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.get("a");
+        assertEquals(Collections.<String>emptyList(), log);
+        cache.put("d", "D");
+        assertEquals(Arrays.asList("b=B"), log);
+        assertSnapshot(cache, "c", "C", "a", "A", "d", "D");
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedAcrossSegments() {
+        final List<String> log = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(4, 4) {
+            @Override protected void entryRemoved(
+                    boolean evicted, String key, String oldValue, String newValue) {
+                log.add(key);
+            }
+        };
+        cache.put("hot", "HOT");
+        List<String> expectedLog = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            assertEquals("HOT", cache.get("hot"));
+            cache.put("k" + i, "v" + i);
+            if (i >= 3) {
+                expectedLog.add("k" + (i - 3));
+            }
+        }
+        assertEquals(expectedLog, log);
+        assertSnapshot(cache, "k17", "v17", "k18", "v18", "hot", "HOT", "k19", "v19");
+        assertEquals(17, cache.evictionCount());
+    }
+
+    @Test
+    public void testPutCallsEntryRemoved() {
+        List<String> log = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = newRemovalLogCache(log);
+        cache.put("a", "A");
+        cache.put("a", "A2");
+        assertEquals(Arrays.asList("a=A>A2"), log);
+    }
+
+    @Test
+    public void testCreateOnCacheMiss() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3) {
+            @Override protected String create(String key) {
+                return "created-" + key;
+            }
+        };
+        assertEquals("created-aa", cache.get("aa"));
+        assertEquals("created-aa", cache.get("aa"));
+        assertEquals(1, cache.createCount());
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    public void testCreateWithConcurrentPut() {
+        final List<String> log = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3) {
+            @Override protected String create(String key) {
+                put(key, "B");
+                return "A";
+            }
+            @Override protected void entryRemoved(
+                    boolean evicted, String key, String oldValue, String newValue) {
+                log.add(key + "=" + oldValue + ">" + newValue);
+            }
+        };
+        assertEquals("B", cache.get("a"));
+        assertEquals(Arrays.asList("a=A>B"), log);
+    }
+
+    @Test
+    public void testSizeOfIsRememberedForRemoval() {
+        final AtomicInteger sizeOfCalls = new AtomicInteger();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override protected int sizeOf(String key, String value) {
+                sizeOfCalls.incrementAndGet();
+                return value.length();
+            }
+        };
+        cache.put("a", "AAAA");
+        cache.put("b", "BBBB");
+        assertEquals(8, cache.size());
+        cache.remove("a");
+        assertEquals(4, cache.size());
+        assertEquals(2, sizeOfCalls.get());
+    }
+
+    @Test
+    public void testEvictAllEvictsSizeZeroElements() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override protected int sizeOf(String key, String value) {
+                return 0;
+            }
+        };
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertTrue(cache.snapshot().isEmpty());
+    }
+
+    @Test
+    public void testEntryRemovedIsCalledWithoutSynchronization() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3) {
+            @Override protected void entryRemoved(
+                    boolean evicted, String key, String oldValue, String newValue) {
+                assertFalse(Thread.holdsLock(this));
+            }
+        };
+        cache.put("a", "A");
+        cache.put("a", "A2");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.put("d", "D");
+        cache.remove("a");
+        cache.evictAll();
+    }
+
+    @Test
+    public void consistentMultithreadedAccess() throws InterruptedException {
+        final int maxSize = 100;
+        final ConcurrentLruCache<Integer, Integer> cache =
+                new ConcurrentLruCache<Integer, Integer>(maxSize) {
+                    @Override
+                    protected Integer create(Integer key) {
+                        return key;
+                    }
+                };
+        final AtomicInteger failures = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 20000; i++) {
+                        int key = random.nextInt(500);
+                        if (i % 10 == 0) {
+                            cache.put(key, key);
+                        } else if (i % 37 == 0) {
+                            cache.remove(key);
+                        } else if (cache.get(key) != key) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertTrue(cache.size() <= maxSize);
+        assertEquals(cache.size(), cache.snapshot().size());
+    }
+
+    private ConcurrentLruCache<String, String> newRemovalLogCache(final List<String> log) {
+        return new ConcurrentLruCache<String, String>(3, 1) {
+            @Override protected void entryRemoved(
+                    boolean evicted, String key, String oldValue, String newValue) {
+                String message = evicted
+                        ? (key + "=" + oldValue)
+                        : (key + "=" + oldValue + ">" + newValue);
+                log.add(message);
+            }
+        };
+    }
+
+    private <T> void assertSnapshot(ConcurrentLruCache<T, T> cache, T... keysAndValues) {
+        List<T> actualKeysAndValues = new ArrayList<T>();
+        for (Map.Entry<T, T> entry : cache.snapshot().entrySet()) {
+            actualKeysAndValues.add(entry.getKey());
+            actualKeysAndValues.add(entry.getValue());
+        }
+        // assert using lists because order is important for LRUs
+        assertEquals(Arrays.asList(keysAndValues), actualKeysAndValues);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+@RunWith(JUnit4.class)
+public class DirectFloatListTest {
+    @Test
+    public void addGrowsList() {
+        DirectFloatList list = new DirectFloatList(0);
+        for (int i = 0; i < 1000; i++) {
+            list.add(i / 4f);
+        }
+        assertEquals(1000, list.size());
+        assertTrue(list.capacity() >= 1000);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i / 4f, list.get(i), 0f);
+        }
+    }
+
+    @Test
+    public void addAllAppendsArraysAndBuffers() {
+        DirectFloatList list = new DirectFloatList(2);
+        list.add(0);
+        list.addAll(new float[] {9, 1, 2.5f, 9}, 1, 2);
+        FloatBuffer source = FloatBuffer.wrap(new float[] {3, 4, 5});
+        list.addAll(source);
+        assertFalse(source.hasRemaining());
+        assertArrayEquals(new float[] {0, 1, 2.5f, 3, 4, 5}, list.toArray(), 0f);
+    }
+
+    @Test
+    public void setReturnsOldValue() {
+        DirectFloatList list = new DirectFloatList();
+        list.add(1);
+        assertEquals(1f, list.set(0, 2), 0f);
+        assertEquals(2f, list.get(0), 0f);
+        try {
+            list.set(1, 0f);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void viewsShareStorageWithoutCopying() {
+        DirectFloatList list = new DirectFloatList(4);
+        list.addAll(new float[] {1, 2, 3});
+        ByteBuffer bytes = list.asByteBuffer();
+        FloatBuffer floats = list.asFloatBuffer();
+        assertTrue(bytes.isDirect());
+        assertTrue(bytes.isReadOnly());
+        assertEquals(ByteOrder.nativeOrder(), bytes.order());
+        assertEquals(0, bytes.position());
+        assertEquals(12, bytes.limit());
+        assertEquals(3, floats.remaining());
+        assertEquals(2f, bytes.getFloat(4), 0f);
+
+        list.set(1, 7);
+        assertEquals(7f, floats.get(1), 0f);
+        try {
+            bytes.putFloat(0, 0f);
+            fail();
+        } catch (ReadOnlyBufferException expected) {
+        }
+    }
+
+    @Test
+    public void byteBufferCanBeWrittenToChannel() throws IOException {
+        DirectFloatList list = new DirectFloatList();
+        list.addAll(new float[] {1, 2});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        ByteBuffer view = list.asByteBuffer();
+        while (view.hasRemaining()) {
+            channel.write(view);
+        }
+        FloatBuffer written = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        assertEquals(2, written.remaining());
+        assertEquals(1f, written.get(0), 0f);
+        assertEquals(2f, written.get(1), 0f);
+    }
+
+    @Test
+    public void clearAndTrimToSize() {
+        DirectFloatList list = new DirectFloatList(100);
+        list.addAll(new float[] {1, 2, 3});
+        list.trimToSize();
+        assertEquals(3, list.capacity());
+        list.add(4);
+        assertArrayEquals(new float[] {1, 2, 3, 4}, list.toArray(), 0f);
+        assertEquals("[1.0, 2.0, 3.0, 4.0]", list.toString());
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.asByteBuffer().remaining());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+@RunWith(JUnit4.class)
+public class DirectIntListTest {
+    @Test
+    public void addGrowsList() {
+        DirectIntList list = new DirectIntList(0);
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        assertEquals(1000, list.size());
+        assertTrue(list.capacity() >= 1000);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, list.get(i));
+        }
+    }
+
+    @Test
+    public void addAllAppendsArraysAndBuffers() {
+        DirectIntList list = new DirectIntList(2);
+        list.add(0);
+        list.addAll(new int[] {9, 1, 2, 9}, 1, 2);
+        IntBuffer source = IntBuffer.wrap(new int[] {3, 4, 5});
+        list.addAll(source);
+        assertFalse(source.hasRemaining());
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5}, list.toArray());
+    }
+
+    @Test
+    public void setReturnsOldValue() {
+        DirectIntList list = new DirectIntList();
+        list.add(1);
+        assertEquals(1, list.set(0, 2));
+        assertEquals(2, list.get(0));
+        try {
+            list.set(1, 0);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void viewsShareStorageWithoutCopying() {
+        DirectIntList list = new DirectIntList(4);
+        list.addAll(new int[] {1, 2, 3});
+        ByteBuffer bytes = list.asByteBuffer();
+        IntBuffer ints = list.asIntBuffer();
+        assertTrue(bytes.isDirect());
+        assertTrue(bytes.isReadOnly());
+        assertEquals(ByteOrder.nativeOrder(), bytes.order());
+        assertEquals(0, bytes.position());
+        assertEquals(12, bytes.limit());
+        assertEquals(3, ints.remaining());
+        assertEquals(2, bytes.getInt(4));
+
+        list.set(1, 7);
+        assertEquals(7, ints.get(1));
+        try {
+            bytes.putInt(0, 0);
+            fail();
+        } catch (ReadOnlyBufferException expected) {
+        }
+    }
+
+    @Test
+    public void byteBufferCanBeWrittenToChannel() throws IOException {
+        DirectIntList list = new DirectIntList();
+        list.addAll(new int[] {1, 2});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        ByteBuffer view = list.asByteBuffer();
+        while (view.hasRemaining()) {
+            channel.write(view);
+        }
+        IntBuffer written = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        assertEquals(2, written.remaining());
+        assertEquals(1, written.get(0));
+        assertEquals(2, written.get(1));
+    }
+
+    @Test
+    public void clearAndTrimToSize() {
+        DirectIntList list = new DirectIntList(100);
+        list.addAll(new int[] {1, 2, 3});
+        list.trimToSize();
+        assertEquals(3, list.capacity());
+        list.add(4);
+        assertArrayEquals(new int[] {1, 2, 3, 4}, list.toArray());
+        assertEquals("[1, 2, 3, 4]", list.toString());
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.asByteBuffer().remaining());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+@RunWith(JUnit4.class)
+public class DirectLongListTest {
+    @Test
+    public void addGrowsList() {
+        DirectLongList list = new DirectLongList(0);
+        for (int i = 0; i < 1000; i++) {
+            list.add(i * 1000000000L);
+        }
+        assertEquals(1000, list.size());
+        assertTrue(list.capacity() >= 1000);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 1000000000L, list.get(i));
+        }
+    }
+
+    @Test
+    public void addAllAppendsArraysAndBuffers() {
+        DirectLongList list = new DirectLongList(2);
+        list.add(0);
+        list.addAll(new long[] {9, 1, 2, 9}, 1, 2);
+        LongBuffer source = LongBuffer.wrap(new long[] {3, 4, 5});
+        list.addAll(source);
+        assertFalse(source.hasRemaining());
+        assertArrayEquals(new long[] {0, 1, 2, 3, 4, 5}, list.toArray());
+    }
+
+    @Test
+    public void setReturnsOldValue() {
+        DirectLongList list = new DirectLongList();
+        list.add(1);
+        assertEquals(1L, list.set(0, 2));
+        assertEquals(2L, list.get(0));
+        try {
+            list.set(1, 0);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void viewsShareStorageWithoutCopying() {
+        DirectLongList list = new DirectLongList(4);
+        list.addAll(new long[] {1, 2, 3});
+        ByteBuffer bytes = list.asByteBuffer();
+        LongBuffer longs = list.asLongBuffer();
+        assertTrue(bytes.isDirect());
+        assertTrue(bytes.isReadOnly());
+        assertEquals(ByteOrder.nativeOrder(), bytes.order());
+        assertEquals(0, bytes.position());
+        assertEquals(24, bytes.limit());
+        assertEquals(3, longs.remaining());
+        assertEquals(2L, bytes.getLong(8));
+
+        list.set(1, 7);
+        assertEquals(7L, longs.get(1));
+        try {
+            bytes.putLong(0, 0);
+            fail();
+        } catch (ReadOnlyBufferException expected) {
+        }
+    }
+
+    @Test
+    public void byteBufferCanBeWrittenToChannel() throws IOException {
+        DirectLongList list = new DirectLongList();
+        list.addAll(new long[] {1, 2});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        ByteBuffer view = list.asByteBuffer();
+        while (view.hasRemaining()) {
+            channel.write(view);
+        }
+        LongBuffer written = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.nativeOrder())
+                .asLongBuffer();
+        assertEquals(2, written.remaining());
+        assertEquals(1L, written.get(0));
+        assertEquals(2L, written.get(1));
+    }
+
+    @Test
+    public void clearAndTrimToSize() {
+        DirectLongList list = new DirectLongList(100);
+        list.addAll(new long[] {1, 2, 3});
+        list.trimToSize();
+        assertEquals(3, list.capacity());
+        list.add(4);
+        assertArrayEquals(new long[] {1, 2, 3, 4}, list.toArray());
+        assertEquals("[1, 2, 3, 4]", list.toString());
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.asByteBuffer().remaining());
+    }
+}
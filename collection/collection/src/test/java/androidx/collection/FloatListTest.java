@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FloatListTest {
+    @Test
+    public void addAndGet() {
+        FloatList list = new FloatList();
+        for (int i = 0; i < 100; i++) {
+            list.add(i / 2f);
+        }
+        assertEquals(100, list.size());
+        assertEquals(49.5f, list.get(99), 0f);
+        assertEquals(49.5f, list.removeAt(99), 0f);
+        assertEquals(99, list.size());
+    }
+
+    @Test
+    public void comparesByBitPattern() {
+        FloatList list = new FloatList();
+        list.addAll(new float[] {0f, Float.NaN});
+        assertEquals(1, list.indexOf(Float.NaN));
+        assertEquals(-1, list.indexOf(-0f));
+
+        FloatList other = new FloatList(list);
+        assertEquals(list, other);
+        assertEquals(list.hashCode(), other.hashCode());
+        other.set(0, -0f);
+        assertNotEquals(list, other);
+    }
+
+    @Test
+    public void sort() {
+        FloatList list = new FloatList();
+        list.addAll(new float[] {3f, -1f, 2.5f});
+        list.sort();
+        assertArrayEquals(new float[] {-1f, 2.5f, 3f}, list.toArray(), 0f);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IntListTest {
+    @Test
+    public void addGrowsList() {
+        IntList list = new IntList();
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+        assertEquals(100, list.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, list.get(i));
+        }
+    }
+
+    @Test
+    public void addAtIndexShiftsValues() {
+        IntList list = new IntList();
+        list.addAll(new int[] {1, 3});
+        list.add(1, 2);
+        list.add(0, 0);
+        list.add(4, 4);
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, list.toArray());
+    }
+
+    @Test
+    public void addAllCopiesRange() {
+        IntList list = new IntList(1);
+        list.addAll(new int[] {1, 2, 3, 4}, 1, 2);
+        IntList other = new IntList(list);
+        other.addAll(list);
+        assertArrayEquals(new int[] {2, 3, 2, 3}, other.toArray());
+    }
+
+    @Test
+    public void addAllRejectsBadRange() {
+        IntList list = new IntList();
+        try {
+            list.addAll(new int[] {1, 2}, 1, 2);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    public void setReturnsOldValue() {
+        IntList list = new IntList();
+        list.add(1);
+        assertEquals(1, list.set(0, 2));
+        assertEquals(2, list.get(0));
+    }
+
+    @Test
+    public void removeAtAndRemoveRange() {
+        IntList list = new IntList();
+        list.addAll(new int[] {0, 1, 2, 3, 4, 5});
+        assertEquals(2, list.removeAt(2));
+        list.removeRange(1, 3);
+        assertArrayEquals(new int[] {0, 4, 5}, list.toArray());
+        list.removeRange(0, 3);
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    public void getOutOfBoundsThrows() {
+        IntList list = new IntList(10);
+        list.add(1);
+        try {
+            list.get(1);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void searchAndSort() {
+        IntList list = new IntList();
+        list.addAll(new int[] {3, 1, 2, 1});
+        assertEquals(1, list.indexOf(1));
+        assertEquals(3, list.lastIndexOf(1));
+        assertFalse(list.contains(4));
+        list.sort();
+        assertArrayEquals(new int[] {1, 1, 2, 3}, list.toArray());
+    }
+
+    @Test
+    public void clearAndTrimToSize() {
+        IntList list = new IntList(100);
+        list.addAll(new int[] {1, 2, 3});
+        list.trimToSize();
+        list.add(4);
+        assertArrayEquals(new int[] {1, 2, 3, 4}, list.toArray());
+        list.clear();
+        list.trimToSize();
+        assertEquals(0, list.size());
+        list.add(5);
+        assertEquals(5, list.get(0));
+    }
+
+    @Test
+    public void equalsHashCodeAndToString() {
+        IntList a = new IntList();
+        IntList b = new IntList(10);
+        a.addAll(new int[] {1, 2});
+        b.addAll(new int[] {1, 2});
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        b.add(3);
+        assertNotEquals(a, b);
+        assertEquals("[1, 2, 3]", b.toString());
+        assertEquals("[]", new IntList().toString());
+    }
+}
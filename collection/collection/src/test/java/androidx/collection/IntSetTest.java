@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+@RunWith(JUnit4.class)
+public class IntSetTest {
+    @Test
+    public void addReportsChange() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(1));
+        assertFalse(set.add(1));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void removeReportsPresence() {
+        IntSet set = new IntSet();
+        set.add(1);
+        assertTrue(set.remove(1));
+        assertFalse(set.remove(1));
+        assertFalse(set.contains(1));
+    }
+
+    @Test
+    public void addAllMergesSets() {
+        IntSet a = new IntSet();
+        a.add(1);
+        a.add(2);
+        IntSet b = new IntSet();
+        b.add(2);
+        b.add(3);
+        assertTrue(a.addAll(b));
+        assertFalse(a.addAll(b));
+        int[] values = a.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(new int[] { 1, 2, 3 }, values);
+    }
+
+    @Test
+    public void manyValuesSurviveRemovals() {
+        IntSet set = new IntSet();
+        for (int i = 0; i < 10_000; i++) {
+            set.add(i * 16);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            set.remove(i * 16);
+        }
+        assertEquals(5_000, set.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i % 2 != 0, set.contains(i * 16));
+        }
+    }
+}
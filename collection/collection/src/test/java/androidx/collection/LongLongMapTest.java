@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongLongMapTest {
+    @Test
+    public void getReturnsDefaultWhenAbsent() {
+        LongLongMap map = new LongLongMap();
+        assertEquals(0L, map.get(1L));
+        assertEquals(-1L, map.get(1L, -1L));
+    }
+
+    @Test
+    public void keysDifferingOnlyInHighBitsAreDistinct() {
+        LongLongMap map = new LongLongMap();
+        map.put(1L, 1L);
+        map.put(1L | (1L << 32), 2L);
+        map.put(1L | (1L << 63), 3L);
+        assertEquals(3, map.size());
+        assertEquals(1L, map.get(1L));
+        assertEquals(2L, map.get(1L | (1L << 32)));
+        assertEquals(3L, map.get(1L | (1L << 63)));
+    }
+
+    @Test
+    public void removeReportsPresence() {
+        LongLongMap map = new LongLongMap();
+        map.put(Long.MAX_VALUE, 1L);
+        assertTrue(map.remove(Long.MAX_VALUE));
+        assertFalse(map.remove(Long.MAX_VALUE));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        Random random = new Random(0);
+        LongLongMap map = new LongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5_000) * 0x100000001L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                long value = random.nextLong();
+                map.put(key, value);
+                expected.put(key, value);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().longValue(), map.get(entry.getKey(), -1L));
+        }
+    }
+}
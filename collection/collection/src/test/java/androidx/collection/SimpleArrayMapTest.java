@@ -318,4 +318,30 @@ public class SimpleArrayMapTest {
             }
         }
     }
+
+    @Test
+    public void putAllMergesSortedMaps() {
+        SimpleArrayMap<String, Integer> map = new SimpleArrayMap<>();
+        SimpleArrayMap<String, Integer> other = new SimpleArrayMap<>();
+        HashMap<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i += 2) {
+            map.put("key " + i, i);
+            expected.put("key " + i, i);
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            other.put("key " + i, -i);
+            expected.put("key " + i, -i);
+        }
+        other.put(null, 0);
+        expected.put(null, 0);
+
+        map.putAll(other);
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(expected.get(map.keyAt(i)), map.valueAt(i));
+            if (i > 0) {
+                assertTrue(map.mHashes[i - 1] <= map.mHashes[i]);
+            }
+        }
+    }
 }
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class TinyLfuCacheTest {
+    private static final int CACHE_SIZE = 500;
+    private static final int TRACE_LENGTH = 200_000;
+
+    @Test
+    public void testConstructorDoesNotAllowZeroCacheSize() {
+        try {
+            new TinyLfuCache<String, String>(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testPutAndGet() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(3);
+        assertNull(cache.put("a", "A"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("A", cache.put("a", "A2"));
+        assertEquals("A2", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(2, cache.putCount());
+        assertEquals("TinyLfuCache[maxSize=3,hits=2,misses=1,hitRate=66%]", cache.toString());
+    }
+
+    @Test
+    public void testSizeNeverExceedsMaxSize() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(10);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i % 37, i);
+            assertTrue(cache.size() <= 10);
+        }
+        assertEquals(cache.size(), cache.snapshot().size());
+    }
+
+    @Test
+    public void testFrequentEntrySurvivesScan() {
+        List<String> log = new ArrayList<>();
+        TinyLfuCache<String, String> cache = newRemovalLogCache(log, 3);
+        cache.put("hot", "H");
+        for (int i = 0; i < 5; i++) {
+            cache.get("hot");
+        }
+        for (int i = 0; i < 20; i++) {
+            cache.put("scan" + i, "S");
+        }
+        assertEquals("H", cache.get("hot"));
+        assertFalse(log.contains("hot=H"));
+    }
+
+    @Test
+    public void testRemoveCallsEntryRemoved() {
+        List<String> log = new ArrayList<>();
+        TinyLfuCache<String, String> cache = newRemovalLogCache(log, 3);
+        cache.put("a", "A");
+        cache.put("a", "A2");
+        cache.remove("a");
+        assertEquals(Arrays.asList("a=A>A2", "a=A2>null"), log);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEvictAll() {
+        List<String> log = new ArrayList<>();
+        TinyLfuCache<String, String> cache = newRemovalLogCache(log, 3);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertEquals(2, log.size());
+        assertEquals(2, cache.evictionCount());
+    }
+
+    @Test
+    public void testCreateOnCacheMiss() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<String, String>(3) {
+            @Override protected String create(String key) {
+                return "created-" + key;
+            }
+        };
+        assertEquals("created-aa", cache.get("aa"));
+        assertEquals(1, cache.createCount());
+        assertEquals("created-aa", cache.get("aa"));
+        assertEquals(1, cache.createCount());
+    }
+
+    /** A hot working set interrupted by long runs of keys which are each accessed once. */
+    @Test
+    public void traceWithScansFavorsTinyLfu() {
+        Random random = new Random(0);
+        int[] trace = new int[TRACE_LENGTH];
+        int scanKey = Integer.MAX_VALUE / 2;
+        for (int i = 0; i < trace.length; i++) {
+            if ((i / 5_000) % 4 == 3) {
+                trace[i] = scanKey++;
+            } else {
+                trace[i] = skewed(random, 2_000);
+            }
+        }
+        double lru = replay(new LruPolicy(CACHE_SIZE), trace);
+        double tinyLfu = replay(new TinyLfuPolicy(CACHE_SIZE), trace);
+        assertTrue("LRU " + lru + " vs TinyLFU " + tinyLfu, tinyLfu > lru + 0.03);
+    }
+
+    /** A skewed popularity distribution over a key space larger than the cache. */
+    @Test
+    public void skewedTraceFavorsTinyLfu() {
+        Random random = new Random(0);
+        int[] trace = new int[TRACE_LENGTH];
+        for (int i = 0; i < trace.length; i++) {
+            trace[i] = skewed(random, 5_000);
+        }
+        double lru = replay(new LruPolicy(CACHE_SIZE), trace);
+        double tinyLfu = replay(new TinyLfuPolicy(CACHE_SIZE), trace);
+        assertTrue("LRU " + lru + " vs TinyLFU " + tinyLfu, tinyLfu > lru + 0.05);
+    }
+
+    /** A sliding window of keys, which is the best case for LRU. */
+    @Test
+    public void recencyTraceIsCloseToLru() {
+        Random random = new Random(0);
+        int[] trace = new int[TRACE_LENGTH];
+        for (int i = 0; i < trace.length; i++) {
+            trace[i] = i / 10 + random.nextInt(300);
+        }
+        double lru = replay(new LruPolicy(CACHE_SIZE), trace);
+        double tinyLfu = replay(new TinyLfuPolicy(CACHE_SIZE), trace);
+        assertTrue("LRU " + lru + " vs TinyLFU " + tinyLfu, tinyLfu > lru - 0.1);
+    }
+
+    /** Returns a key in {@code [0, keys)} where low keys are much more popular. */
+    private static int skewed(Random random, int keys) {
+        double u = random.nextDouble();
+        return (int) (u * u * u * keys);
+    }
+
+    /** Returns the hit rate of a read-through cache serving {@code trace}. */
+    private static double replay(Policy policy, int[] trace) {
+        int hits = 0;
+        for (int key : trace) {
+            if (policy.access(key)) {
+                hits++;
+            }
+        }
+        return (double) hits / trace.length;
+    }
+
+    private interface Policy {
+        /** Returns true on a hit, otherwise caches the key and returns false. */
+        boolean access(Integer key);
+    }
+
+    private static final class LruPolicy implements Policy {
+        private final LruCache<Integer, Integer> mCache;
+
+        LruPolicy(int maxSize) {
+            mCache = new LruCache<>(maxSize);
+        }
+
+        @Override
+        public boolean access(Integer key) {
+            if (mCache.get(key) != null) {
+                return true;
+            }
+            mCache.put(key, key);
+            return false;
+        }
+    }
+
+    private static final class TinyLfuPolicy implements Policy {
+        private final TinyLfuCache<Integer, Integer> mCache;
+
+        TinyLfuPolicy(int maxSize) {
+            mCache = new TinyLfuCache<>(maxSize);
+        }
+
+        @Override
+        public boolean access(Integer key) {
+            if (mCache.get(key) != null) {
+                return true;
+            }
+            mCache.put(key, key);
+            return false;
+        }
+    }
+
+    private TinyLfuCache<String, String> newRemovalLogCache(final List<String> log, int maxSize) {
+        return new TinyLfuCache<String, String>(maxSize) {
+            @Override protected void entryRemoved(
+                    boolean evicted, String key, String oldValue, String newValue) {
+                String message = evicted
+                        ? (key + "=" + oldValue)
+                        : (key + "=" + oldValue + ">" + newValue);
+                log.add(message);
+            }
+        };
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.database.Cursor
+import android.os.Build
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.room.paging.KeysetDataSource
+import androidx.room.paging.LimitOffsetDataSource
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Measures loading one page of [PAGE_SIZE] rows which starts [depth] rows into a table of
+ * [SAMPLE_SIZE] rows, with [LimitOffsetDataSource] and with [KeysetDataSource].
+ *
+ * The offset based source has to step over every row before the page, so it slows down with
+ * depth, while the keyset based source seeks to the page through the primary key.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+@Suppress("DEPRECATION")
+class PagingBenchmark(private val keyset: Boolean, private val depth: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = ApplicationProvider.getApplicationContext() as android.content.Context
+
+    private lateinit var db: TestDatabase
+
+    @Before
+    fun setup() {
+        for (postfix in arrayOf("", "-wal", "-shm")) {
+            val dbFile = context.getDatabasePath(DB_NAME + postfix)
+            if (dbFile.exists()) {
+                assertTrue(dbFile.delete())
+            }
+        }
+        db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .build()
+        db.getUserDao().insert(List(SAMPLE_SIZE) { User(it, "name$it", it % 100) })
+    }
+
+    @After
+    fun teardown() {
+        db.close()
+    }
+
+    @Test
+    fun loadPage() {
+        val query = SimpleSQLiteQuery("SELECT * FROM User")
+        if (keyset) {
+            val dataSource = object : KeysetDataSource<Int, User>(
+                db, query, "id", false, false, false, "User"
+            ) {
+                override fun convertRows(cursor: Cursor) = toUsers(cursor)
+                override fun getKey(item: User) = item.id
+            }
+            benchmarkRule.measureRepeated {
+                // The page starts after the last row of the previous page.
+                assertEquals(PAGE_SIZE, dataSource.loadAfter(depth - 1, PAGE_SIZE).size)
+            }
+        } else {
+            val dataSource = object : LimitOffsetDataSource<User>(db, query, false, "User") {
+                override fun convertRows(cursor: Cursor) = toUsers(cursor)
+            }
+            benchmarkRule.measureRepeated {
+                assertEquals(PAGE_SIZE, dataSource.loadRange(depth, PAGE_SIZE).size)
+            }
+        }
+    }
+
+    private fun toUsers(cursor: Cursor): List<User> {
+        val idIndex = cursor.getColumnIndexOrThrow("id")
+        val nameIndex = cursor.getColumnIndexOrThrow("name")
+        val ageIndex = cursor.getColumnIndexOrThrow("age")
+        val users = ArrayList<User>(cursor.count)
+        while (cursor.moveToNext()) {
+            users.add(
+                User(cursor.getInt(idIndex), cursor.getString(nameIndex), cursor.getInt(ageIndex))
+            )
+        }
+        return users
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "keyset={0}, depth={1}")
+        fun data() = arrayOf(false, true).flatMap { keyset ->
+            arrayOf(0, 10_000, 50_000, SAMPLE_SIZE - PAGE_SIZE).map { depth ->
+                arrayOf(keyset, depth)
+            }
+        }
+
+        private const val DB_NAME = "paging-benchmark-test"
+        private const val SAMPLE_SIZE = 100_000
+        private const val PAGE_SIZE = 50
+    }
+
+    @Database(entities = [User::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getUserDao(): UserDao
+    }
+
+    @Entity
+    data class User(@PrimaryKey val id: Int, val name: String, val age: Int)
+
+    @Dao
+    interface UserDao {
+        @Insert
+        fun insert(users: List<User>)
+    }
+}
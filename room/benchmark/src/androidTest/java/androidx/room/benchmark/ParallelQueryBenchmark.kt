@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.os.Build
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Measures the time for [threads] threads to each run a read-only `@Query` [QUERIES_PER_THREAD]
+ * times in parallel on a database in write-ahead logging mode, with and without separate read
+ * connections.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+class ParallelQueryBenchmark(private val readConnections: Int, private val threads: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = ApplicationProvider.getApplicationContext() as android.content.Context
+
+    private lateinit var db: TestDatabase
+    private lateinit var executor: ExecutorService
+
+    @Before
+    fun setup() {
+        for (postfix in arrayOf("", "-wal", "-shm")) {
+            val dbFile = context.getDatabasePath(DB_NAME + postfix)
+            if (dbFile.exists()) {
+                assertTrue(dbFile.delete())
+            }
+        }
+        db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .openHelperFactory(FrameworkSQLiteOpenHelperFactory(readConnections))
+            .build()
+        db.getUserDao().insert(List(SAMPLE_SIZE) { User(it, "name$it", it % 100) })
+        executor = Executors.newFixedThreadPool(threads)
+    }
+
+    @After
+    fun teardown() {
+        executor.shutdown()
+        db.close()
+    }
+
+    @Test
+    fun parallelQuery() {
+        val dao = db.getUserDao()
+        val task = Callable {
+            repeat(QUERIES_PER_THREAD) {
+                assertEquals(SAMPLE_SIZE / 100, dao.getUsersByAge(42).size)
+            }
+        }
+        val tasks = List(threads) { task }
+        benchmarkRule.measureRepeated {
+            for (future in executor.invokeAll(tasks)) {
+                future.get()
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "readConnections={0}, threads={1}")
+        fun data() = arrayOf(0, 4).flatMap { readConnections ->
+            arrayOf(1, 2, 4, 8).map { threads ->
+                arrayOf(readConnections, threads)
+            }
+        }
+
+        private const val DB_NAME = "parallel-query-benchmark-test"
+        private const val SAMPLE_SIZE = 10_000
+        private const val QUERIES_PER_THREAD = 10
+    }
+
+    @Database(entities = [User::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getUserDao(): UserDao
+    }
+
+    @Entity
+    data class User(@PrimaryKey val id: Int, val name: String, val age: Int)
+
+    @Dao
+    interface UserDao {
+        @Insert
+        fun insert(users: List<User>)
+
+        @Query("SELECT * FROM User WHERE age = :age")
+        fun getUsersByAge(age: Int): List<User>
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.os.Build
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.room.RoomSQLiteQuery
+import androidx.room.RoomSQLiteQueryPool
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures the time for [threads] threads of the query executor to each run a primary key
+ * `@Query` [QUERIES_PER_THREAD] times in parallel, with a [RoomSQLiteQueryPool] of [stripes]
+ * stripes. Short queries make the time spent acquiring and releasing the pooled
+ * [RoomSQLiteQuery] stand out.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+class QueryPoolBenchmark(private val stripes: Int, private val threads: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = ApplicationProvider.getApplicationContext() as android.content.Context
+
+    private lateinit var db: TestDatabase
+    private lateinit var executor: ExecutorService
+    private lateinit var pool: RoomSQLiteQueryPool
+    private lateinit var defaultPool: RoomSQLiteQueryPool
+
+    @Before
+    fun setup() {
+        for (postfix in arrayOf("", "-wal", "-shm")) {
+            val dbFile = context.getDatabasePath(DB_NAME + postfix)
+            if (dbFile.exists()) {
+                assertTrue(dbFile.delete())
+            }
+        }
+        executor = Executors.newFixedThreadPool(threads)
+        db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .setQueryExecutor(executor)
+            .build()
+        db.getUserDao().insert(List(SAMPLE_SIZE) { User(it, "name$it", it % 100) })
+        defaultPool = RoomSQLiteQuery.getPool()
+        pool = RoomSQLiteQueryPool(stripes, POOL_LIMIT, DESIRED_POOL_SIZE)
+        RoomSQLiteQuery.setPool(pool)
+    }
+
+    @After
+    fun teardown() {
+        Log.d(
+            TAG,
+            "stripes=$stripes, threads=$threads: ${pool.hitCount} hits, " +
+                "${pool.missCount} misses out of ${pool.acquireCount} acquires"
+        )
+        RoomSQLiteQuery.setPool(defaultPool)
+        executor.shutdown()
+        db.close()
+    }
+
+    @Test
+    fun parallelQuery() {
+        val dao = db.getUserDao()
+        benchmarkRule.measureRepeated {
+            val done = CountDownLatch(threads)
+            repeat(threads) { thread ->
+                db.queryExecutor.execute {
+                    try {
+                        repeat(QUERIES_PER_THREAD) {
+                            val id = (thread * QUERIES_PER_THREAD + it) % SAMPLE_SIZE
+                            assertEquals(id, dao.getUser(id).id)
+                        }
+                    } finally {
+                        done.countDown()
+                    }
+                }
+            }
+            assertTrue(done.await(1, TimeUnit.MINUTES))
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "stripes={0}, threads={1}")
+        fun data() = arrayOf(1, 8).flatMap { stripes ->
+            arrayOf(1, 2, 4, 8).map { threads ->
+                arrayOf(stripes, threads)
+            }
+        }
+
+        private const val TAG = "QueryPoolBenchmark"
+        private const val DB_NAME = "query-pool-benchmark-test"
+        private const val SAMPLE_SIZE = 1_000
+        private const val QUERIES_PER_THREAD = 100
+        // The sizes of RoomSQLiteQuery's own pool.
+        private const val POOL_LIMIT = 15
+        private const val DESIRED_POOL_SIZE = 10
+    }
+
+    @Database(entities = [User::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getUserDao(): UserDao
+    }
+
+    @Entity
+    data class User(@PrimaryKey val id: Int, val name: String, val age: Int)
+
+    @Dao
+    interface UserDao {
+        @Insert
+        fun insert(users: List<User>)
+
+        @Query("SELECT * FROM User WHERE id = :id")
+        fun getUser(id: Int): User
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.os.Build
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.RawQuery
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.sqlite.db.SupportSQLiteQuery
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures reading [SAMPLE_SIZE] entities with a `@Query`, whose column indices are resolved
+ * when the query is compiled, and with a `@RawQuery`, whose column indices are only known at
+ * runtime.
+ *
+ * It runs both in room-benchmark, where the `@RawQuery` looks up the indices for each row, and
+ * in room-benchmark-resolve-indices, which is compiled with `room.resolveColumnIndicesOnce` so
+ * that the `@RawQuery` looks them up once per query. Compare the `rawQuery` results of the two
+ * modules to measure the option.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+class EntityReadBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = ApplicationProvider.getApplicationContext() as android.content.Context
+
+    private lateinit var db: TestDatabase
+
+    @Before
+    fun setup() {
+        for (postfix in arrayOf("", "-wal", "-shm")) {
+            val dbFile = context.getDatabasePath(DB_NAME + postfix)
+            if (dbFile.exists()) {
+                assertTrue(dbFile.delete())
+            }
+        }
+        db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .build()
+        db.getUserDao().insert(List(SAMPLE_SIZE) { User(it, "name$it", it % 100) })
+    }
+
+    @After
+    fun teardown() {
+        db.close()
+    }
+
+    @Test
+    fun query() {
+        val dao = db.getUserDao()
+        benchmarkRule.measureRepeated {
+            assertEquals(SAMPLE_SIZE, dao.getUsers().size)
+        }
+    }
+
+    @Test
+    fun rawQuery() {
+        val dao = db.getUserDao()
+        val query = SimpleSQLiteQuery("SELECT * FROM User")
+        benchmarkRule.measureRepeated {
+            assertEquals(SAMPLE_SIZE, dao.getUsers(query).size)
+        }
+    }
+
+    companion object {
+        private const val DB_NAME = "entity-read-benchmark-test"
+        private const val SAMPLE_SIZE = 100_000
+    }
+
+    @Database(entities = [User::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getUserDao(): UserDao
+    }
+
+    @Entity
+    data class User(@PrimaryKey val id: Int, val name: String, val age: Int)
+
+    @Dao
+    interface UserDao {
+        @Insert
+        fun insert(users: List<User>)
+
+        @Query("SELECT * FROM User")
+        fun getUsers(): List<User>
+
+        @RawQuery
+        fun getUsers(query: SupportSQLiteQuery): List<User>
+    }
+}
@@ -175,7 +175,8 @@ class Context private constructor(
 
     enum class BooleanProcessorOptions(val argName: String, private val defaultValue: Boolean) {
         INCREMENTAL("room.incremental", true),
-        EXPAND_PROJECTION("room.expandProjection", false);
+        EXPAND_PROJECTION("room.expandProjection", false),
+        RESOLVE_COLUMN_INDICES_ONCE("room.resolveColumnIndicesOnce", false);
 
         /**
          * Returns the value of this option passed through the [XProcessingEnv]. If the value
@@ -459,10 +459,12 @@ class TypeAdapterStore private constructor(
                 val asElement = typeMirror.asTypeElement()
                 if (asElement.isEntityElement()) {
                     return EntityRowAdapter(
-                        EntityProcessor(
+                        entity = EntityProcessor(
                             context = context,
                             element = asElement.asTypeElement()
-                        ).process()
+                        ).process(),
+                        resolveIndicesOnce = Context.BooleanProcessorOptions
+                            .RESOLVE_COLUMN_INDICES_ONCE.getValue(context.processingEnv)
                     )
                 }
             }
@@ -18,19 +18,64 @@ package androidx.room.solver.query.result
 
 import androidx.room.ext.L
 import androidx.room.ext.N
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.S
+import androidx.room.ext.T
 import androidx.room.solver.CodeGenScope
 import androidx.room.vo.Entity
+import androidx.room.vo.FieldWithIndex
 import androidx.room.writer.EntityCursorConverterWriter
+import androidx.room.writer.FieldReadWriteWriter
+import capitalize
 import com.squareup.javapoet.MethodSpec
+import com.squareup.javapoet.TypeName
+import stripNonJava
+import java.util.Locale
 
-class EntityRowAdapter(val entity: Entity) : RowAdapter(entity.type) {
+/**
+ * Reads an entity from a cursor whose columns are not known at compile time.
+ *
+ * By default each row is read by a shared converter method, which looks up the index of every
+ * column again for each row. When [resolveIndicesOnce] is set, the indices are looked up once
+ * when the cursor is ready and the rows are read inline instead.
+ */
+class EntityRowAdapter(
+    val entity: Entity,
+    private val resolveIndicesOnce: Boolean = false
+) : RowAdapter(entity.type) {
     lateinit var methodSpec: MethodSpec
+    private lateinit var fieldsWithIndices: List<FieldWithIndex>
+
     override fun onCursorReady(cursorVarName: String, scope: CodeGenScope) {
-        methodSpec = scope.writer.getOrCreateMethod(EntityCursorConverterWriter(entity))
+        if (!resolveIndicesOnce) {
+            methodSpec = scope.writer.getOrCreateMethod(EntityCursorConverterWriter(entity))
+            return
+        }
+        fieldsWithIndices = entity.fields.map {
+            val indexVar = scope.getTmpVar(
+                "_cursorIndexOf${it.name.stripNonJava().capitalize(Locale.US)}"
+            )
+            scope.builder().addStatement(
+                "final $T $L = $T.getColumnIndex($L, $S)",
+                TypeName.INT, indexVar, RoomTypeNames.CURSOR_UTIL, cursorVarName, it.columnName
+            )
+            FieldWithIndex(field = it, indexVar = indexVar, alwaysExists = false)
+        }
     }
 
     override fun convert(outVarName: String, cursorVarName: String, scope: CodeGenScope) {
-        scope.builder()
-            .addStatement("$L = $N($L)", outVarName, methodSpec, cursorVarName)
+        if (!resolveIndicesOnce) {
+            scope.builder()
+                .addStatement("$L = $N($L)", outVarName, methodSpec, cursorVarName)
+            return
+        }
+        FieldReadWriteWriter.readFromCursor(
+            outVar = outVarName,
+            outPojo = entity,
+            cursorVar = cursorVarName,
+            fieldsWithIndices = fieldsWithIndices,
+            relationCollectors = emptyList(), // no relationship for entities
+            scope = scope
+        )
     }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query
+
+import androidx.room.processor.BaseEntityParserTest
+import androidx.room.solver.query.result.EntityRowAdapter
+import androidx.room.solver.query.result.ListQueryResultAdapter
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import testCodeGenScope
+
+@RunWith(JUnit4::class)
+class EntityRowAdapterTest : BaseEntityParserTest() {
+    @Test
+    fun resolveIndicesOnce() {
+        singleEntity(
+            """
+                @PrimaryKey
+                private int id;
+                String name;
+                public int getId() { return id; }
+                public void setId(int id) { this.id = id; }
+                """
+        ) { entity, _ ->
+            val cursorUtil = "androidx.room.util.CursorUtil"
+            val list = "java.util.List<foo.bar.MyEntity>"
+            val arrayList = "java.util.ArrayList<foo.bar.MyEntity>"
+            val scope = testCodeGenScope()
+            ListQueryResultAdapter(EntityRowAdapter(entity, resolveIndicesOnce = true))
+                .convert("_result", "_cursor", scope)
+            assertThat(
+                scope.generate().toString().trim(),
+                `is`(
+                    """
+                    final int _cursorIndexOfId = $cursorUtil.getColumnIndex(_cursor, "id");
+                    final int _cursorIndexOfName = $cursorUtil.getColumnIndex(_cursor, "name");
+                    final $list _result = new $arrayList(_cursor.getCount());
+                    while(_cursor.moveToNext()) {
+                      final foo.bar.MyEntity _item;
+                      _item = new foo.bar.MyEntity();
+                      if (_cursorIndexOfId != -1) {
+                        final int _tmpId;
+                        _tmpId = _cursor.getInt(_cursorIndexOfId);
+                        _item.setId(_tmpId);
+                      }
+                      if (_cursorIndexOfName != -1) {
+                        _item.name = _cursor.getString(_cursorIndexOfName);
+                      }
+                      _result.add(_item);
+                    }
+                    """.trimIndent()
+                )
+            )
+        }.compilesWithoutError()
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.paging;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import static java.util.Arrays.asList;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.paging.ItemKeyedDataSource;
+import androidx.room.integration.testapp.test.TestDatabaseTest;
+import androidx.room.integration.testapp.test.TestUtil;
+import androidx.room.integration.testapp.vo.User;
+import androidx.room.paging.KeysetDataSource;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+@SuppressWarnings("deprecation")
+public class KeysetDataSourceTest extends TestDatabaseTest {
+
+    @After
+    public void teardown() {
+        mUserDao.deleteEverything();
+    }
+
+    private KeysetDataSource<Integer, Integer> loadUserIds(boolean descending,
+            boolean countItems) {
+        return new KeysetDataSource<Integer, Integer>(mDatabase,
+                new SimpleSQLiteQuery("SELECT * FROM User"), "mId", descending, countItems,
+                false, "User") {
+            @Override
+            protected List<Integer> convertRows(Cursor cursor) {
+                List<Integer> ids = new ArrayList<>(cursor.getCount());
+                int index = cursor.getColumnIndexOrThrow("mId");
+                while (cursor.moveToNext()) {
+                    ids.add(cursor.getInt(index));
+                }
+                return ids;
+            }
+
+            @NonNull
+            @Override
+            public Integer getKey(@NonNull Integer item) {
+                return item;
+            }
+        };
+    }
+
+    @Test
+    public void emptyPage() {
+        KeysetDataSource<Integer, Integer> dataSource = loadUserIds(false, true);
+        assertThat(dataSource.countItems(), is(0));
+        assertThat(dataSource.loadAfter(0, 10), is(Collections.<Integer>emptyList()));
+    }
+
+    @Test
+    public void loadAfter() {
+        createUsers(10);
+        KeysetDataSource<Integer, Integer> dataSource = loadUserIds(false, true);
+        assertThat(dataSource.loadAfter(3, 2), is(asList(4, 5)));
+        assertThat(dataSource.loadAfter(8, 5), is(asList(9)));
+    }
+
+    @Test
+    public void loadBefore() {
+        createUsers(10);
+        KeysetDataSource<Integer, Integer> dataSource = loadUserIds(false, true);
+        assertThat(dataSource.loadBefore(5, 2), is(asList(3, 4)));
+        assertThat(dataSource.loadBefore(1, 5), is(asList(0)));
+    }
+
+    @Test
+    public void descending() {
+        createUsers(10);
+        KeysetDataSource<Integer, Integer> dataSource = loadUserIds(true, true);
+        assertThat(dataSource.loadAfter(5, 2), is(asList(4, 3)));
+        assertThat(dataSource.loadBefore(5, 2), is(asList(7, 6)));
+    }
+
+    @Test
+    public void loadInitialAroundKeyWithCount() {
+        createUsers(10);
+        KeysetDataSource<Integer, Integer> dataSource = loadUserIds(false, true);
+        InitialResult result = loadInitial(dataSource, 6, 4);
+        assertThat(result.mData, is(asList(4, 5, 6, 7)));
+        assertThat(result.mPosition, is(4));
+        assertThat(result.mTotalCount, is(10));
+    }
+
+    @Test
+    public void loadInitialWithoutCount() {
+        createUsers(10);
+        KeysetDataSource<Integer, Integer> dataSource = loadUserIds(false, false);
+        InitialResult result = loadInitial(dataSource, null, 3);
+        assertThat(result.mData, is(asList(0, 1, 2)));
+        assertThat(result.mPosition, is(-1));
+        assertThat(result.mTotalCount, is(-1));
+    }
+
+    private static InitialResult loadInitial(KeysetDataSource<Integer, Integer> dataSource,
+            Integer key, int loadSize) {
+        final InitialResult result = new InitialResult();
+        dataSource.loadInitial(
+                new ItemKeyedDataSource.LoadInitialParams<>(key, loadSize, true),
+                new ItemKeyedDataSource.LoadInitialCallback<Integer>() {
+                    @Override
+                    public void onResult(@NonNull List<? extends Integer> data, int position,
+                            int totalCount) {
+                        result.mData = new ArrayList<>(data);
+                        result.mPosition = position;
+                        result.mTotalCount = totalCount;
+                    }
+
+                    @Override
+                    public void onResult(@NonNull List<? extends Integer> data) {
+                        result.mData = new ArrayList<>(data);
+                    }
+                });
+        return result;
+    }
+
+    private void createUsers(int count) {
+        for (int i = 0; i < count; i++) {
+            mUserDao.insert(TestUtil.createUser(i));
+        }
+    }
+
+    private static class InitialResult {
+        List<Integer> mData;
+        int mPosition = -1;
+        int mTotalCount = -1;
+    }
+}
@@ -55,12 +55,18 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.reactivex.Flowable;
 import io.reactivex.Observable;
@@ -185,6 +191,66 @@ public class InvalidationTrackerTest {
         assertThat(observer.get(), is(new Item(1, "v3")));
     }
 
+    @Test
+    public void rowObserver() throws TimeoutException, InterruptedException {
+        mDb.getItemDao().insert(new Item(1, "v1"));
+        final Set<Long> changedRowIds = Collections.synchronizedSet(new HashSet<Long>());
+        final Set<String> invalidatedTables = Collections.synchronizedSet(new HashSet<String>());
+        mDb.getInvalidationTracker().addObserver(new InvalidationTracker.RowObserver("Item") {
+            @Override
+            public void onRowsChanged(@NonNull Map<String, Set<Long>> rowIds) {
+                changedRowIds.addAll(rowIds.get("Item"));
+            }
+
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidatedTables.addAll(tables);
+            }
+        });
+
+        mDb.getItemDao().insert(new Item(2, "v1"));
+        // Replacing the row deletes it and inserts it again.
+        mDb.getItemDao().insert(new Item(1, "v2"));
+        drain();
+        assertThat(changedRowIds, is((Set<Long>) new HashSet<>(Arrays.asList(1L, 2L))));
+        assertThat(invalidatedTables.isEmpty(), is(true));
+
+        changedRowIds.clear();
+        mDb.getItemDao().insert(new Item(3, "v1"));
+        drain();
+        assertThat(changedRowIds, is((Set<Long>) Collections.singleton(3L)));
+    }
+
+    @Test
+    public void invalidationWindow() throws TimeoutException, InterruptedException {
+        InvalidationTestDatabase db = Room.inMemoryDatabaseBuilder(
+                ApplicationProvider.getApplicationContext(),
+                InvalidationTestDatabase.class)
+                .setInvalidationWindow(1, TimeUnit.SECONDS)
+                .build();
+        final InvalidationTracker tracker = db.getInvalidationTracker();
+        final AtomicInteger notifications = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        tracker.addObserver(new InvalidationTracker.Observer("Item") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                notifications.incrementAndGet();
+                latch.countDown();
+            }
+        });
+
+        for (int i = 0; i < 10; i++) {
+            db.getItemDao().insert(new Item(i, "v1"));
+        }
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        drain();
+        assertThat(notifications.get(), is(1));
+        assertThat(tracker.getRefreshRequestCount(), is(10L));
+        assertThat(tracker.getRefreshCount(), is(1L));
+        assertThat(tracker.getObserverNotificationCount(), is(1L));
+        db.close();
+    }
+
     private void drain() throws TimeoutException, InterruptedException {
         mExecutorRule.drainTasks(1, TimeUnit.MINUTES);
     }
@@ -470,6 +470,68 @@ public class PrepackageTest {
         database.close();
     }
 
+    @Test
+    public void createFromGzipFile() throws IOException {
+        Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase("products_external.db");
+        File dataDbFile = new File(ContextCompat.getDataDir(context), "products_external.db.gz");
+        context.deleteDatabase(dataDbFile.getAbsolutePath());
+
+        InputStream toCopyInput = context.getAssets().open("databases/products_v1.db");
+        final OutputStream output = new GZIPOutputStream(new FileOutputStream(dataDbFile));
+        copyStream(toCopyInput, output);
+
+        // The compressed file is recognized and decompressed by Room.
+        ProductsDatabase database = Room.databaseBuilder(
+                context, ProductsDatabase.class, "products_external.db")
+                .createFromFile(dataDbFile)
+                .build();
+
+        ProductDao dao = database.getProductDao();
+        assertThat(dao.countProducts(), is(2));
+
+        database.close();
+    }
+
+    @Test
+    public void createFromSqlInputStream() throws IOException {
+        Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase("products_seeded.db");
+        File scriptFile = new File(ContextCompat.getDataDir(context), "products_seed.sql.gz");
+        scriptFile.delete();
+
+        final OutputStream output = new GZIPOutputStream(new FileOutputStream(scriptFile));
+        try {
+            output.write(("PRAGMA foreign_keys=OFF;\n"
+                    + "BEGIN TRANSACTION;\n"
+                    + "INSERT INTO products VALUES(1,'Mofongo');\n"
+                    + "-- A comment; with a semicolon\n"
+                    + "INSERT INTO products VALUES(2,'Arroz; con gandules');\n"
+                    + "INSERT INTO products VALUES(3,'Tostones');\n"
+                    + "COMMIT;\n").getBytes("UTF-8"));
+        } finally {
+            output.close();
+        }
+
+        ProductsDatabase database = Room.databaseBuilder(
+                context, ProductsDatabase.class, "products_seeded.db")
+                .createFromSqlInputStream(() -> new FileInputStream(scriptFile))
+                .build();
+
+        ProductDao dao = database.getProductDao();
+        assertThat(dao.countProducts(), is(3));
+
+        database.close();
+
+        // The script only runs when the database is created.
+        database = Room.databaseBuilder(
+                context, ProductsDatabase.class, "products_seeded.db")
+                .createFromSqlInputStream(() -> new FileInputStream(scriptFile))
+                .build();
+        assertThat(database.getProductDao().countProducts(), is(3));
+        database.close();
+    }
+
     @Test
     public void openDataDirDatabase() throws IOException {
         Context context = ApplicationProvider.getApplicationContext();
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class AutoClosingRoomOpenHelperTest {
+    private static final String DB_NAME = "auto_closing_test.db";
+    private static final long TIMEOUT_MS = 10;
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+    private final AtomicInteger mOpenCount = new AtomicInteger();
+    private final ReentrantReadWriteLock mCloseLock = new ReentrantReadWriteLock();
+    private volatile CountDownLatch mClosed = new CountDownLatch(1);
+    private AutoCloser mAutoCloser;
+    private AutoClosingRoomOpenHelper mOpenHelper;
+
+    @Before
+    public void setUp() {
+        mContext.deleteDatabase(DB_NAME);
+        mAutoCloser = new AutoCloser(TIMEOUT_MS, TimeUnit.MILLISECONDS, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        mAutoCloser.setAutoCloseCallback(mCloseLock.writeLock(), new Runnable() {
+            @Override
+            public void run() {
+                mClosed.countDown();
+            }
+        });
+        mOpenHelper = new AutoClosingRoomOpenHelperFactory(
+                new FrameworkSQLiteOpenHelperFactory(), mAutoCloser).create(
+                SupportSQLiteOpenHelper.Configuration.builder(mContext)
+                        .name(DB_NAME)
+                        .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                            @Override
+                            public void onCreate(SupportSQLiteDatabase db) {
+                                db.execSQL("CREATE TABLE foo (id INTEGER PRIMARY KEY)");
+                            }
+
+                            @Override
+                            public void onOpen(SupportSQLiteDatabase db) {
+                                mOpenCount.incrementAndGet();
+                            }
+
+                            @Override
+                            public void onUpgrade(SupportSQLiteDatabase db, int oldVersion,
+                                    int newVersion) {
+                            }
+                        }).build());
+    }
+
+    @After
+    public void tearDown() {
+        mOpenHelper.close();
+        mContext.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void closesWhenIdleAndReopensOnNextAccess() throws InterruptedException {
+        SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        db.execSQL("INSERT INTO foo VALUES (1)");
+        assertThat(mAutoCloser.getRefCountForTest(), is(0));
+
+        awaitAutoClose();
+        assertThat(db.isOpen(), is(false));
+
+        Cursor cursor = db.query("SELECT COUNT(*) FROM foo");
+        try {
+            assertThat(cursor.moveToFirst(), is(true));
+            assertThat(cursor.getInt(0), is(1));
+        } finally {
+            cursor.close();
+        }
+        assertThat(mOpenCount.get(), is(2));
+    }
+
+    @Test
+    public void openCursorKeepsDatabaseOpen() throws InterruptedException {
+        SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        Cursor cursor = db.query("SELECT * FROM foo");
+        assertThat(mAutoCloser.getRefCountForTest(), is(1));
+
+        assertThat(mClosed.await(TIMEOUT_MS * 10, TimeUnit.MILLISECONDS), is(false));
+        assertThat(db.isOpen(), is(true));
+
+        cursor.close();
+        assertThat(mAutoCloser.getRefCountForTest(), is(0));
+        awaitAutoClose();
+    }
+
+    @Test
+    public void transactionKeepsDatabaseOpen() throws InterruptedException {
+        SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            assertThat(mClosed.await(TIMEOUT_MS * 10, TimeUnit.MILLISECONDS), is(false));
+            db.execSQL("INSERT INTO foo VALUES (1)");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        assertThat(mAutoCloser.getRefCountForTest(), is(0));
+        awaitAutoClose();
+    }
+
+    @Test
+    public void heldCloseLockDelaysClose() throws InterruptedException {
+        SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        mCloseLock.readLock().lock();
+        try {
+            assertThat(mClosed.await(TIMEOUT_MS * 10, TimeUnit.MILLISECONDS), is(false));
+            assertThat(db.isOpen(), is(true));
+        } finally {
+            mCloseLock.readLock().unlock();
+        }
+        awaitAutoClose();
+    }
+
+    @Test
+    public void statementSurvivesReopen() throws InterruptedException {
+        SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        SupportSQLiteStatement insert = db.compileStatement("INSERT INTO foo VALUES (?)");
+        insert.bindLong(1, 1);
+        insert.executeInsert();
+
+        awaitAutoClose();
+
+        insert.bindLong(1, 2);
+        insert.executeInsert();
+        SupportSQLiteStatement count = db.compileStatement("SELECT COUNT(*) FROM foo");
+        assertThat(count.simpleQueryForLong(), is(2L));
+    }
+
+    @Test
+    public void accessAfterManualCloseThrows() {
+        SupportSQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        mOpenHelper.close();
+        assertThat(mAutoCloser.isActive(), is(false));
+        try {
+            db.query("SELECT * FROM foo");
+            fail("query should have thrown");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private void awaitAutoClose() throws InterruptedException {
+        assertThat(mClosed.await(1, TimeUnit.SECONDS), is(true));
+        mClosed = new CountDownLatch(1);
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class MultiRowStatementTest {
+    private final List<String> mCompiledQueries = new ArrayList<>();
+    private SupportSQLiteOpenHelper mOpenHelper;
+    private SupportSQLiteDatabase mSqliteDb;
+    private RoomDatabase mDb;
+
+    @Before
+    public void setup() {
+        mOpenHelper = new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(
+                        ApplicationProvider.getApplicationContext())
+                        .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                            @Override
+                            public void onCreate(SupportSQLiteDatabase db) {
+                                db.execSQL("CREATE TABLE Item (id INTEGER PRIMARY KEY, name TEXT)");
+                                db.execSQL("CREATE TABLE Pair (a INTEGER, b INTEGER,"
+                                        + " PRIMARY KEY (a, b))");
+                            }
+
+                            @Override
+                            public void onUpgrade(SupportSQLiteDatabase db, int oldVersion,
+                                    int newVersion) {
+                            }
+                        }).build());
+        mSqliteDb = mOpenHelper.getWritableDatabase();
+        mDb = mock(RoomDatabase.class);
+        when(mDb.compileStatement(anyString())).thenAnswer(
+                new Answer<SupportSQLiteStatement>() {
+                    @Override
+                    public SupportSQLiteStatement answer(InvocationOnMock invocation) {
+                        String sql = invocation.getArgument(0);
+                        mCompiledQueries.add(sql);
+                        return mSqliteDb.compileStatement(sql);
+                    }
+                });
+    }
+
+    @After
+    public void teardown() {
+        mOpenHelper.close();
+    }
+
+    @Test
+    public void insertChunksByBindArgumentLimit() {
+        // 2 arguments per row allow 499 rows per statement.
+        ItemInsertionAdapter adapter = new ItemInsertionAdapter(mDb);
+        adapter.insert(createItems(1, 1000));
+
+        assertThat(count("Item"), is(1000L));
+        assertThat(nameOf(1), is("name1"));
+        assertThat(nameOf(499), is("name499"));
+        assertThat(nameOf(500), is("name500"));
+        assertThat(nameOf(1000), is("name1000"));
+        // One statement of 499 rows, reused, and one for the 2 remaining rows.
+        assertThat(mCompiledQueries.size(), is(2));
+        assertThat(argCount(mCompiledQueries.get(0)), is(998));
+        assertThat(argCount(mCompiledQueries.get(1)), is(4));
+    }
+
+    @Test
+    public void insertCachesStatements() {
+        ItemInsertionAdapter adapter = new ItemInsertionAdapter(mDb);
+        adapter.insert(createItems(1, 10));
+        adapter.insert(createItems(11, 10));
+        adapter.insert(createItems(21, 3));
+
+        assertThat(count("Item"), is(23L));
+        assertThat(mCompiledQueries.size(), is(2));
+    }
+
+    @Test
+    public void insertSingleItemList() {
+        ItemInsertionAdapter adapter = new ItemInsertionAdapter(mDb);
+        adapter.insert(createItems(1, 1));
+
+        assertThat(count("Item"), is(1L));
+        assertThat(mCompiledQueries.size(), is(1));
+        assertThat(argCount(mCompiledQueries.get(0)), is(2));
+    }
+
+    @Test
+    public void insertArray() {
+        ItemInsertionAdapter adapter = new ItemInsertionAdapter(mDb);
+        adapter.insert(createItems(1, 5).toArray(new Item[0]));
+
+        assertThat(count("Item"), is(5L));
+        assertThat(nameOf(5), is("name5"));
+    }
+
+    @Test
+    public void deleteByKeyUsesInClause() {
+        new ItemInsertionAdapter(mDb).insert(createItems(1, 1500));
+        mCompiledQueries.clear();
+
+        List<Item> toDelete = createItems(1, 1200);
+        toDelete.add(new Item(5000, "missing"));
+        int deleted = new ItemDeletionAdapter(mDb).handleMultiple(toDelete);
+
+        assertThat(deleted, is(1200));
+        assertThat(count("Item"), is(300L));
+        assertThat(mCompiledQueries.size(), is(2));
+        assertThat(mCompiledQueries.get(0).contains("IN ("), is(true));
+        assertThat(argCount(mCompiledQueries.get(0)), is(RoomDatabase.MAX_BIND_PARAMETER_CNT));
+        assertThat(argCount(mCompiledQueries.get(1)), is(202));
+    }
+
+    @Test
+    public void deleteByCompositeKeyHandlesEachRow() {
+        mSqliteDb.execSQL("INSERT INTO Pair VALUES (1, 1), (1, 2), (2, 1)");
+        EntityDeletionOrUpdateAdapter<long[]> adapter =
+                new EntityDeletionOrUpdateAdapter<long[]>(mDb) {
+                    @Override
+                    protected String createQuery() {
+                        return "DELETE FROM `Pair` WHERE `a` = ? AND `b` = ?";
+                    }
+
+                    @Override
+                    protected void bind(SupportSQLiteStatement statement, long[] entity) {
+                        statement.bindLong(1, entity[0]);
+                        statement.bindLong(2, entity[1]);
+                    }
+                };
+        int deleted = adapter.handleMultiple(new long[][]{{1, 2}, {2, 1}, {3, 3}});
+
+        assertThat(deleted, is(2));
+        assertThat(count("Pair"), is(1L));
+        assertThat(mCompiledQueries.size(), is(1));
+    }
+
+    private static List<Item> createItems(int start, int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int i = start; i < start + count; i++) {
+            items.add(new Item(i, "name" + i));
+        }
+        return items;
+    }
+
+    private long count(String table) {
+        Cursor cursor = mSqliteDb.query("SELECT COUNT(*) FROM " + table);
+        try {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private String nameOf(long id) {
+        Cursor cursor = mSqliteDb.query("SELECT name FROM Item WHERE id = ?", new Object[]{id});
+        try {
+            cursor.moveToFirst();
+            return cursor.getString(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static int argCount(String sql) {
+        int count = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static class Item {
+        final long mId;
+        final String mName;
+
+        Item(long id, String name) {
+            mId = id;
+            mName = name;
+        }
+    }
+
+    static class ItemInsertionAdapter extends EntityInsertionAdapter<Item> {
+        ItemInsertionAdapter(RoomDatabase database) {
+            super(database);
+        }
+
+        @Override
+        protected String createQuery() {
+            // As generated for an auto-generated key, so ids must start at 1.
+            return "INSERT OR ABORT INTO `Item` (`id`,`name`) VALUES (nullif(?, 0),?)";
+        }
+
+        @Override
+        protected void bind(SupportSQLiteStatement statement, Item entity) {
+            statement.bindLong(1, entity.mId);
+            statement.bindString(2, entity.mName);
+        }
+    }
+
+    static class ItemDeletionAdapter extends EntityDeletionOrUpdateAdapter<Item> {
+        ItemDeletionAdapter(RoomDatabase database) {
+            super(database);
+        }
+
+        @Override
+        protected String createQuery() {
+            return "DELETE FROM `Item` WHERE `id` = ?";
+        }
+
+        @Override
+        protected void bind(SupportSQLiteStatement statement, Item entity) {
+            statement.bindLong(1, entity.mId);
+        }
+    }
+}
@@ -0,0 +1,987 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.CharArrayBuffer;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.DataSetObserver;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.util.Pair;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.arch.core.util.Function;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A SupportSQLiteOpenHelper that has autoclose enabled for database connections.
+ */
+final class AutoClosingRoomOpenHelper implements SupportSQLiteOpenHelper, DelegatingOpenHelper {
+    @NonNull
+    private final SupportSQLiteOpenHelper mDelegateOpenHelper;
+
+    @NonNull
+    private final AutoClosingSupportSQLiteDatabase mAutoClosingDb;
+
+    @NonNull
+    private final AutoCloser mAutoCloser;
+
+    AutoClosingRoomOpenHelper(@NonNull SupportSQLiteOpenHelper supportSQLiteOpenHelper,
+            @NonNull AutoCloser autoCloser) {
+        mDelegateOpenHelper = supportSQLiteOpenHelper;
+        mAutoCloser = autoCloser;
+        autoCloser.init(mDelegateOpenHelper);
+        mAutoClosingDb = new AutoClosingSupportSQLiteDatabase(mAutoCloser);
+    }
+
+    @Nullable
+    @Override
+    public String getDatabaseName() {
+        return mDelegateOpenHelper.getDatabaseName();
+    }
+
+    @Override
+    @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+    public void setWriteAheadLoggingEnabled(boolean enabled) {
+        mDelegateOpenHelper.setWriteAheadLoggingEnabled(enabled);
+    }
+
+    @Override
+    public SupportSQLiteDatabase getWritableDatabase() {
+        // Note we don't differentiate between writable db and readable db
+        // We try to open the db so the open callbacks run
+        mAutoClosingDb.pokeOpen();
+        return mAutoClosingDb;
+    }
+
+    @Override
+    public SupportSQLiteDatabase getReadableDatabase() {
+        // Note we don't differentiate between writable db and readable db
+        // We try to open the db so the open callbacks run
+        mAutoClosingDb.pokeOpen();
+        return mAutoClosingDb;
+    }
+
+    @Override
+    public void close() {
+        try {
+            mAutoClosingDb.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * package protected to pass it to invalidation tracker...
+     */
+    @NonNull
+    AutoCloser getAutoCloser() {
+        return this.mAutoCloser;
+    }
+
+    @Override
+    @NonNull
+    public SupportSQLiteOpenHelper getDelegate() {
+        return mDelegateOpenHelper;
+    }
+
+    /**
+     * SupportSQLiteDatabase that also keeps refcounts and autocloses the database
+     */
+    static final class AutoClosingSupportSQLiteDatabase implements SupportSQLiteDatabase {
+        @NonNull
+        private final AutoCloser mAutoCloser;
+
+        AutoClosingSupportSQLiteDatabase(@NonNull AutoCloser autoCloser) {
+            mAutoCloser = autoCloser;
+        }
+
+        void pokeOpen() {
+            mAutoCloser.executeRefCountingFunction(new Function<SupportSQLiteDatabase, Object>() {
+                @Override
+                public Object apply(SupportSQLiteDatabase db) {
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public SupportSQLiteStatement compileStatement(String sql) {
+            return new AutoClosingSupportSqliteStatement(sql, mAutoCloser);
+        }
+
+        @Override
+        public void beginTransaction() {
+            SupportSQLiteDatabase db = mAutoCloser.incrementCountAndEnsureDbIsOpen();
+            try {
+                db.beginTransaction();
+            } catch (Throwable t) {
+                mAutoCloser.decrementCountAndScheduleClose();
+                throw t;
+            }
+        }
+
+        @Override
+        public void beginTransactionNonExclusive() {
+            SupportSQLiteDatabase db = mAutoCloser.incrementCountAndEnsureDbIsOpen();
+            try {
+                db.beginTransactionNonExclusive();
+            } catch (Throwable t) {
+                mAutoCloser.decrementCountAndScheduleClose();
+                throw t;
+            }
+        }
+
+        @Override
+        public void beginTransactionWithListener(SQLiteTransactionListener transactionListener) {
+            SupportSQLiteDatabase db = mAutoCloser.incrementCountAndEnsureDbIsOpen();
+            try {
+                db.beginTransactionWithListener(transactionListener);
+            } catch (Throwable t) {
+                mAutoCloser.decrementCountAndScheduleClose();
+                throw t;
+            }
+        }
+
+        @Override
+        public void beginTransactionWithListenerNonExclusive(
+                SQLiteTransactionListener transactionListener) {
+            SupportSQLiteDatabase db = mAutoCloser.incrementCountAndEnsureDbIsOpen();
+            try {
+                db.beginTransactionWithListenerNonExclusive(transactionListener);
+            } catch (Throwable t) {
+                mAutoCloser.decrementCountAndScheduleClose();
+                throw t;
+            }
+        }
+
+        @Override
+        public void endTransaction() {
+            if (mAutoCloser.getDelegateDatabase() == null) {
+                // This should never happen.
+                throw new IllegalStateException("End transaction called but delegateDb is null");
+            }
+
+            try {
+                mAutoCloser.getDelegateDatabase().endTransaction();
+            } finally {
+                mAutoCloser.decrementCountAndScheduleClose();
+            }
+        }
+
+        @Override
+        public void setTransactionSuccessful() {
+            SupportSQLiteDatabase delegate = mAutoCloser.getDelegateDatabase();
+
+            if (delegate == null) {
+                // This should never happen.
+                throw new IllegalStateException("setTransactionSuccessful called but delegateDb "
+                        + "is null");
+            }
+
+            delegate.setTransactionSuccessful();
+        }
+
+        // We don't need to do any auto closing operations here. If db is closed, then we are
+        // not in a transaction.
+        @Override
+        public boolean inTransaction() {
+            if (mAutoCloser.getDelegateDatabase() == null) {
+                return false;
+            }
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Boolean>() {
+                        @Override
+                        public Boolean apply(SupportSQLiteDatabase db) {
+                            return db.inTransaction();
+                        }
+                    });
+        }
+
+        @Override
+        public boolean isDbLockedByCurrentThread() {
+            if (mAutoCloser.getDelegateDatabase() == null) {
+                return false;
+            }
+
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Boolean>() {
+                        @Override
+                        public Boolean apply(SupportSQLiteDatabase db) {
+                            return db.isDbLockedByCurrentThread();
+                        }
+                    });
+        }
+
+        @Override
+        public boolean yieldIfContendedSafely() {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Boolean>() {
+                        @Override
+                        public Boolean apply(SupportSQLiteDatabase db) {
+                            return db.yieldIfContendedSafely();
+                        }
+                    });
+        }
+
+        @Override
+        public boolean yieldIfContendedSafely(final long sleepAfterYieldDelay) {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Boolean>() {
+                        @Override
+                        public Boolean apply(SupportSQLiteDatabase db) {
+                            return db.yieldIfContendedSafely(sleepAfterYieldDelay);
+                        }
+                    });
+        }
+
+        @Override
+        public int getVersion() {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Integer>() {
+                        @Override
+                        public Integer apply(SupportSQLiteDatabase db) {
+                            return db.getVersion();
+                        }
+                    });
+        }
+
+        @Override
+        public void setVersion(final int version) {
+            mAutoCloser.executeRefCountingFunction(new Function<SupportSQLiteDatabase, Object>() {
+                @Override
+                public Object apply(SupportSQLiteDatabase db) {
+                    db.setVersion(version);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public long getMaximumSize() {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Long>() {
+                        @Override
+                        public Long apply(SupportSQLiteDatabase db) {
+                            return db.getMaximumSize();
+                        }
+                    });
+        }
+
+        @Override
+        public long setMaximumSize(final long numBytes) {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Long>() {
+                        @Override
+                        public Long apply(SupportSQLiteDatabase db) {
+                            return db.setMaximumSize(numBytes);
+                        }
+                    });
+        }
+
+        @Override
+        public long getPageSize() {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Long>() {
+                        @Override
+                        public Long apply(SupportSQLiteDatabase db) {
+                            return db.getPageSize();
+                        }
+                    });
+        }
+
+        @Override
+        public void setPageSize(final long numBytes) {
+            mAutoCloser.executeRefCountingFunction(new Function<SupportSQLiteDatabase, Object>() {
+                @Override
+                public Object apply(SupportSQLiteDatabase db) {
+                    db.setPageSize(numBytes);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public Cursor query(String query) {
+            Cursor result;
+            try {
+                SupportSQLiteDatabase db = mAutoCloser.incrementCountAndEnsureDbIsOpen();
+                result = db.query(query);
+            } catch (Throwable throwable) {
+                mAutoCloser.decrementCountAndScheduleClose();
+                throw throwable;
+            }
+
+            return new KeepAliveCursor(result, mAutoCloser);
+        }
+
+        @Override
+        public Cursor query(String query, Object[] bindArgs) {
+            Cursor result;
+            try {
+                SupportSQLiteDatabase db = mAutoCloser.incrementCountAndEnsureDbIsOpen();
+                result = db.query(query, bindArgs);
+            } catch (Throwable throwable) {
+                mAutoCloser.decrementCountAndScheduleClose();
+                throw throwable;
+            }
+
+            return new KeepAliveCursor(result, mAutoCloser);
+        }
+
+        @Override
+        public Cursor query(SupportSQLiteQuery query) {
+            Cursor result;
+            try {
+                SupportSQLiteDatabase db = mAutoCloser.incrementCountAndEnsureDbIsOpen();
+                result = db.query(query);
+            } catch (Throwable throwable) {
+                mAutoCloser.decrementCountAndScheduleClose();
+                throw throwable;
+            }
+
+            return new KeepAliveCursor(result, mAutoCloser);
+        }
+
+        @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+        @Override
+        public Cursor query(SupportSQLiteQuery query, CancellationSignal cancellationSignal) {
+            Cursor result;
+            try {
+                SupportSQLiteDatabase db = mAutoCloser.incrementCountAndEnsureDbIsOpen();
+                result = db.query(query, cancellationSignal);
+            } catch (Throwable throwable) {
+                mAutoCloser.decrementCountAndScheduleClose();
+                throw throwable;
+            }
+
+            return new KeepAliveCursor(result, mAutoCloser);
+        }
+
+        @Override
+        public long insert(final String table, final int conflictAlgorithm,
+                final ContentValues values) throws SQLException {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Long>() {
+                        @Override
+                        public Long apply(SupportSQLiteDatabase db) {
+                            return db.insert(table, conflictAlgorithm, values);
+                        }
+                    });
+        }
+
+        @Override
+        public int delete(final String table, final String whereClause,
+                final Object[] whereArgs) {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Integer>() {
+                        @Override
+                        public Integer apply(SupportSQLiteDatabase db) {
+                            return db.delete(table, whereClause, whereArgs);
+                        }
+                    });
+        }
+
+        @Override
+        public int update(final String table, final int conflictAlgorithm,
+                final ContentValues values, final String whereClause, final Object[] whereArgs) {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Integer>() {
+                        @Override
+                        public Integer apply(SupportSQLiteDatabase db) {
+                            return db.update(table, conflictAlgorithm, values, whereClause,
+                                    whereArgs);
+                        }
+                    });
+        }
+
+        @Override
+        public void execSQL(final String sql) throws SQLException {
+            mAutoCloser.executeRefCountingFunction(new Function<SupportSQLiteDatabase, Object>() {
+                @Override
+                public Object apply(SupportSQLiteDatabase db) {
+                    db.execSQL(sql);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public void execSQL(final String sql, final Object[] bindArgs) throws SQLException {
+            mAutoCloser.executeRefCountingFunction(new Function<SupportSQLiteDatabase, Object>() {
+                @Override
+                public Object apply(SupportSQLiteDatabase db) {
+                    db.execSQL(sql, bindArgs);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Boolean>() {
+                        @Override
+                        public Boolean apply(SupportSQLiteDatabase db) {
+                            return db.isReadOnly();
+                        }
+                    });
+        }
+
+        @Override
+        public boolean isOpen() {
+            // Get the db without incrementing the reference cause we don't want to open
+            // the db for an isOpen call.
+            SupportSQLiteDatabase localDelegate = mAutoCloser.getDelegateDatabase();
+
+            if (localDelegate == null) {
+                return false;
+            }
+            return localDelegate.isOpen();
+        }
+
+        @Override
+        public boolean needUpgrade(final int newVersion) {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Boolean>() {
+                        @Override
+                        public Boolean apply(SupportSQLiteDatabase db) {
+                            return db.needUpgrade(newVersion);
+                        }
+                    });
+        }
+
+        @Override
+        public String getPath() {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, String>() {
+                        @Override
+                        public String apply(SupportSQLiteDatabase db) {
+                            return db.getPath();
+                        }
+                    });
+        }
+
+        @Override
+        public void setLocale(final Locale locale) {
+            mAutoCloser.executeRefCountingFunction(new Function<SupportSQLiteDatabase, Object>() {
+                @Override
+                public Object apply(SupportSQLiteDatabase db) {
+                    db.setLocale(locale);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public void setMaxSqlCacheSize(final int cacheSize) {
+            mAutoCloser.executeRefCountingFunction(new Function<SupportSQLiteDatabase, Object>() {
+                @Override
+                public Object apply(SupportSQLiteDatabase db) {
+                    db.setMaxSqlCacheSize(cacheSize);
+                    return null;
+                }
+            });
+        }
+
+        @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+        @Override
+        public void setForeignKeyConstraintsEnabled(final boolean enable) {
+            mAutoCloser.executeRefCountingFunction(new Function<SupportSQLiteDatabase, Object>() {
+                @Override
+                public Object apply(SupportSQLiteDatabase db) {
+                    db.setForeignKeyConstraintsEnabled(enable);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public boolean enableWriteAheadLogging() {
+            throw new UnsupportedOperationException("Enable/disable write ahead logging on the "
+                    + "OpenHelper instead of on the database directly.");
+        }
+
+        @Override
+        public void disableWriteAheadLogging() {
+            throw new UnsupportedOperationException("Enable/disable write ahead logging on the "
+                    + "OpenHelper instead of on the database directly.");
+        }
+
+        @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+        @Override
+        public boolean isWriteAheadLoggingEnabled() {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Boolean>() {
+                        @Override
+                        public Boolean apply(SupportSQLiteDatabase db) {
+                            return db.isWriteAheadLoggingEnabled();
+                        }
+                    });
+        }
+
+        @Override
+        public List<Pair<String, String>> getAttachedDbs() {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, List<Pair<String, String>>>() {
+                        @Override
+                        public List<Pair<String, String>> apply(SupportSQLiteDatabase db) {
+                            return db.getAttachedDbs();
+                        }
+                    });
+        }
+
+        @Override
+        public boolean isDatabaseIntegrityOk() {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, Boolean>() {
+                        @Override
+                        public Boolean apply(SupportSQLiteDatabase db) {
+                            return db.isDatabaseIntegrityOk();
+                        }
+                    });
+        }
+
+        @Override
+        public void close() throws IOException {
+            mAutoCloser.closeDatabaseIfOpen();
+        }
+    }
+
+    /**
+     * We need to keep the db alive until the cursor is closed, so we can't decrement our
+     * reference count until the cursor is closed. The underlying database will not close until
+     * this cursor is closed.
+     */
+    private static final class KeepAliveCursor implements Cursor {
+        private final Cursor mDelegate;
+        private final AutoCloser mAutoCloser;
+
+        KeepAliveCursor(Cursor delegate, AutoCloser autoCloser) {
+            mDelegate = delegate;
+            mAutoCloser = autoCloser;
+        }
+
+        // close is the only important/changed method here:
+        @Override
+        public void close() {
+            mDelegate.close();
+            mAutoCloser.decrementCountAndScheduleClose();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return mDelegate.isClosed();
+        }
+
+        @Override
+        public int getCount() {
+            return mDelegate.getCount();
+        }
+
+        @Override
+        public int getPosition() {
+            return mDelegate.getPosition();
+        }
+
+        @Override
+        public boolean move(int offset) {
+            return mDelegate.move(offset);
+        }
+
+        @Override
+        public boolean moveToPosition(int position) {
+            return mDelegate.moveToPosition(position);
+        }
+
+        @Override
+        public boolean moveToFirst() {
+            return mDelegate.moveToFirst();
+        }
+
+        @Override
+        public boolean moveToLast() {
+            return mDelegate.moveToLast();
+        }
+
+        @Override
+        public boolean moveToNext() {
+            return mDelegate.moveToNext();
+        }
+
+        @Override
+        public boolean moveToPrevious() {
+            return mDelegate.moveToPrevious();
+        }
+
+        @Override
+        public boolean isFirst() {
+            return mDelegate.isFirst();
+        }
+
+        @Override
+        public boolean isLast() {
+            return mDelegate.isLast();
+        }
+
+        @Override
+        public boolean isBeforeFirst() {
+            return mDelegate.isBeforeFirst();
+        }
+
+        @Override
+        public boolean isAfterLast() {
+            return mDelegate.isAfterLast();
+        }
+
+        @Override
+        public int getColumnIndex(String columnName) {
+            return mDelegate.getColumnIndex(columnName);
+        }
+
+        @Override
+        public int getColumnIndexOrThrow(String columnName) throws IllegalArgumentException {
+            return mDelegate.getColumnIndexOrThrow(columnName);
+        }
+
+        @Override
+        public String getColumnName(int columnIndex) {
+            return mDelegate.getColumnName(columnIndex);
+        }
+
+        @Override
+        public String[] getColumnNames() {
+            return mDelegate.getColumnNames();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return mDelegate.getColumnCount();
+        }
+
+        @Override
+        public byte[] getBlob(int columnIndex) {
+            return mDelegate.getBlob(columnIndex);
+        }
+
+        @Override
+        public String getString(int columnIndex) {
+            return mDelegate.getString(columnIndex);
+        }
+
+        @Override
+        public void copyStringToBuffer(int columnIndex, CharArrayBuffer buffer) {
+            mDelegate.copyStringToBuffer(columnIndex, buffer);
+        }
+
+        @Override
+        public short getShort(int columnIndex) {
+            return mDelegate.getShort(columnIndex);
+        }
+
+        @Override
+        public int getInt(int columnIndex) {
+            return mDelegate.getInt(columnIndex);
+        }
+
+        @Override
+        public long getLong(int columnIndex) {
+            return mDelegate.getLong(columnIndex);
+        }
+
+        @Override
+        public float getFloat(int columnIndex) {
+            return mDelegate.getFloat(columnIndex);
+        }
+
+        @Override
+        public double getDouble(int columnIndex) {
+            return mDelegate.getDouble(columnIndex);
+        }
+
+        @Override
+        public int getType(int columnIndex) {
+            return mDelegate.getType(columnIndex);
+        }
+
+        @Override
+        public boolean isNull(int columnIndex) {
+            return mDelegate.isNull(columnIndex);
+        }
+
+        /**
+         * @deprecated see Cursor.deactivate
+         */
+        @Override
+        @Deprecated
+        public void deactivate() {
+            mDelegate.deactivate();
+        }
+
+        /**
+         * @deprecated see Cursor.requery
+         */
+        @Override
+        @Deprecated
+        public boolean requery() {
+            return mDelegate.requery();
+        }
+
+        @Override
+        public void registerContentObserver(ContentObserver observer) {
+            mDelegate.registerContentObserver(observer);
+        }
+
+        @Override
+        public void unregisterContentObserver(ContentObserver observer) {
+            mDelegate.unregisterContentObserver(observer);
+        }
+
+        @Override
+        public void registerDataSetObserver(DataSetObserver observer) {
+            mDelegate.registerDataSetObserver(observer);
+        }
+
+        @Override
+        public void unregisterDataSetObserver(DataSetObserver observer) {
+            mDelegate.unregisterDataSetObserver(observer);
+        }
+
+        @Override
+        public void setNotificationUri(ContentResolver cr, Uri uri) {
+            mDelegate.setNotificationUri(cr, uri);
+        }
+
+        @RequiresApi(api = Build.VERSION_CODES.Q)
+        @Override
+        public void setNotificationUris(@NonNull ContentResolver cr,
+                @NonNull List<Uri> uris) {
+            mDelegate.setNotificationUris(cr, uris);
+        }
+
+        @RequiresApi(api = Build.VERSION_CODES.KITKAT)
+        @Override
+        public Uri getNotificationUri() {
+            return mDelegate.getNotificationUri();
+        }
+
+        @RequiresApi(api = Build.VERSION_CODES.Q)
+        @Nullable
+        @Override
+        public List<Uri> getNotificationUris() {
+            return mDelegate.getNotificationUris();
+        }
+
+        @Override
+        public boolean getWantsAllOnMoveCalls() {
+            return mDelegate.getWantsAllOnMoveCalls();
+        }
+
+        @RequiresApi(api = Build.VERSION_CODES.M)
+        @Override
+        public void setExtras(Bundle extras) {
+            mDelegate.setExtras(extras);
+        }
+
+        @Override
+        public Bundle getExtras() {
+            return mDelegate.getExtras();
+        }
+
+        @Override
+        public Bundle respond(Bundle extras) {
+            return mDelegate.respond(extras);
+        }
+    }
+
+    /**
+     * We can't close our db while a compiled statement is open, and a statement compiled against
+     * a db can't be used once that db is closed.
+     * <p>
+     * So this statement only records the bindings, and each execution compiles the sql against
+     * the currently open db while holding a reference, replays the bindings, runs the delegate
+     * statement and closes it.
+     */
+    private static class AutoClosingSupportSqliteStatement implements SupportSQLiteStatement {
+        private final String mSql;
+        private final ArrayList<Object> mBinds = new ArrayList<>();
+        private final AutoCloser mAutoCloser;
+
+        AutoClosingSupportSqliteStatement(String sql, AutoCloser autoCloser) {
+            mSql = sql;
+            mAutoCloser = autoCloser;
+        }
+
+        private void doBinds(SupportSQLiteStatement supportSQLiteStatement) {
+            // Replay the binds
+            for (int i = 0; i < mBinds.size(); i++) {
+                int bindIndex = i + 1; // Bind indices are 1 based so we +1
+                Object value = mBinds.get(i);
+                if (value == null) {
+                    supportSQLiteStatement.bindNull(bindIndex);
+                } else if (value instanceof Long) {
+                    supportSQLiteStatement.bindLong(bindIndex, (Long) value);
+                } else if (value instanceof Double) {
+                    supportSQLiteStatement.bindDouble(bindIndex, (Double) value);
+                } else if (value instanceof String) {
+                    supportSQLiteStatement.bindString(bindIndex, (String) value);
+                } else if (value instanceof byte[]) {
+                    supportSQLiteStatement.bindBlob(bindIndex, (byte[]) value);
+                }
+            }
+        }
+
+        private <T> T executeSqliteStatementWithRefCount(
+                final Function<SupportSQLiteStatement, T> func) {
+            return mAutoCloser.executeRefCountingFunction(
+                    new Function<SupportSQLiteDatabase, T>() {
+                        @Override
+                        public T apply(SupportSQLiteDatabase db) {
+                            SupportSQLiteStatement statement = db.compileStatement(mSql);
+                            try {
+                                doBinds(statement);
+                                return func.apply(statement);
+                            } finally {
+                                try {
+                                    statement.close();
+                                } catch (IOException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        }
+                    });
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Nothing to do here since we re-compile the statement each time.
+        }
+
+        @Override
+        public void execute() {
+            executeSqliteStatementWithRefCount(new Function<SupportSQLiteStatement, Object>() {
+                @Override
+                public Object apply(SupportSQLiteStatement statement) {
+                    statement.execute();
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            return executeSqliteStatementWithRefCount(
+                    new Function<SupportSQLiteStatement, Integer>() {
+                        @Override
+                        public Integer apply(SupportSQLiteStatement statement) {
+                            return statement.executeUpdateDelete();
+                        }
+                    });
+        }
+
+        @Override
+        public long executeInsert() {
+            return executeSqliteStatementWithRefCount(
+                    new Function<SupportSQLiteStatement, Long>() {
+                        @Override
+                        public Long apply(SupportSQLiteStatement statement) {
+                            return statement.executeInsert();
+                        }
+                    });
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            return executeSqliteStatementWithRefCount(
+                    new Function<SupportSQLiteStatement, Long>() {
+                        @Override
+                        public Long apply(SupportSQLiteStatement statement) {
+                            return statement.simpleQueryForLong();
+                        }
+                    });
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            return executeSqliteStatementWithRefCount(
+                    new Function<SupportSQLiteStatement, String>() {
+                        @Override
+                        public String apply(SupportSQLiteStatement statement) {
+                            return statement.simpleQueryForString();
+                        }
+                    });
+        }
+
+        private void saveBinds(int bindIndex, Object value) {
+            int index = bindIndex - 1;
+            if (index >= mBinds.size()) {
+                // Add null entries to the list until we have the desired # of indices
+                for (int i = mBinds.size(); i <= index; i++) {
+                    mBinds.add(null);
+                }
+            }
+            mBinds.set(index, value);
+        }
+
+        @Override
+        public void bindNull(int index) {
+            saveBinds(index, null);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            saveBinds(index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            saveBinds(index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            saveBinds(index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            saveBinds(index, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mBinds.clear();
+        }
+    }
+}
@@ -16,13 +16,24 @@
 
 package androidx.room;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+
 /**
  * Implementations of this class knows how to delete or update a particular entity.
  * <p>
  * This is an internal library class and all of its implementations are auto-generated.
+ * <p>
+ * Deleting several entities by a single column primary key uses
+ * {@code DELETE ... WHERE key IN (...)} statements, each binding up to
+ * {@link RoomDatabase#MAX_BIND_PARAMETER_CNT} keys, instead of executing the single row
+ * statement once per entity. Updates and deletes by a composite primary key still handle one row
+ * at a time.
  *
  * @param <T> The type parameter of the entity to be deleted
  * @hide
@@ -30,6 +41,11 @@ import androidx.sqlite.db.SupportSQLiteStatement;
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 @SuppressWarnings({"WeakerAccess", "unused"})
 public abstract class EntityDeletionOrUpdateAdapter<T> extends SharedSQLiteStatement {
+    private final RoomDatabase mDatabase;
+    private volatile boolean mMultiRowStatementsCreated;
+    @Nullable
+    private MultiRowStatementCache mMultiRowStatements;
+
     /**
      * Creates a DeletionOrUpdateAdapter that can delete or update the entity type T on the given
      * database.
@@ -38,6 +54,7 @@ public abstract class EntityDeletionOrUpdateAdapter<T> extends SharedSQLiteState
      */
     public EntityDeletionOrUpdateAdapter(RoomDatabase database) {
         super(database);
+        mDatabase = database;
     }
 
     /**
@@ -80,6 +97,9 @@ public abstract class EntityDeletionOrUpdateAdapter<T> extends SharedSQLiteState
      * @return The number of affected rows
      */
     public final int handleMultiple(Iterable<? extends T> entities) {
+        if (entities instanceof Collection) {
+            return handleAll(entities.iterator(), ((Collection<?>) entities).size());
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             int total = 0;
@@ -100,16 +120,83 @@ public abstract class EntityDeletionOrUpdateAdapter<T> extends SharedSQLiteState
      * @return The number of affected rows
      */
     public final int handleMultiple(T[] entities) {
-        final SupportSQLiteStatement stmt = acquire();
-        try {
-            int total = 0;
-            for (T entity : entities) {
-                bind(stmt, entity);
+        return handleAll(Arrays.asList(entities).iterator(), entities.length);
+    }
+
+    /**
+     * Handles count entities with as few multi-row statements as possible.
+     */
+    private int handleAll(Iterator<? extends T> entities, int count) {
+        final MultiRowStatementCache multiRowStatements = getMultiRowStatements();
+        if (multiRowStatements == null || count < 2) {
+            final SupportSQLiteStatement stmt = acquire();
+            try {
+                int total = 0;
+                while (entities.hasNext()) {
+                    bind(stmt, entities.next());
+                    total += stmt.executeUpdateDelete();
+                }
+                return total;
+            } finally {
+                release(stmt);
+            }
+        }
+        final OffsetBindingStatement offsetStmt = new OffsetBindingStatement();
+        int total = 0;
+        int remaining = count;
+        while (remaining > 0) {
+            final int rows = Math.min(remaining, multiRowStatements.getMaxRows());
+            final SupportSQLiteStatement stmt = multiRowStatements.acquire(rows);
+            try {
+                for (int row = 0; row < rows; row++) {
+                    offsetStmt.bindTo(stmt, row);
+                    bind(offsetStmt, entities.next());
+                }
                 total += stmt.executeUpdateDelete();
+            } finally {
+                multiRowStatements.release(stmt);
             }
-            return total;
-        } finally {
-            release(stmt);
+            remaining -= rows;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the cache of multi-row delete statements, or null if the query is not a delete by
+     * a single column.
+     */
+    @Nullable
+    private MultiRowStatementCache getMultiRowStatements() {
+        if (mMultiRowStatementsCreated) {
+            return mMultiRowStatements;
+        }
+        synchronized (this) {
+            if (!mMultiRowStatementsCreated) {
+                mMultiRowStatements = createMultiRowStatements();
+                mMultiRowStatementsCreated = true;
+            }
+            return mMultiRowStatements;
         }
     }
+
+    @Nullable
+    private MultiRowStatementCache createMultiRowStatements() {
+        final String query = createQuery();
+        if (!query.startsWith("DELETE FROM ") || !query.contains(" WHERE ")
+                || !query.endsWith(" = ?") || query.indexOf('?') != query.length() - 1) {
+            return null;
+        }
+        final String prefix = query.substring(0, query.length() - " = ?".length()) + " IN (";
+        return new MultiRowStatementCache(mDatabase, RoomDatabase.MAX_BIND_PARAMETER_CNT) {
+            @Override
+            protected String createQuery(int rows) {
+                StringBuilder builder = new StringBuilder(prefix.length() + rows * 2);
+                builder.append(prefix).append('?');
+                for (int i = 1; i < rows; i++) {
+                    builder.append(",?");
+                }
+                return builder.append(')').toString();
+            }
+        };
+    }
 }
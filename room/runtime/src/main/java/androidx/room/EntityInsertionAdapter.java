@@ -16,17 +16,28 @@
 
 package androidx.room;
 
+import android.os.Build;
+
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 /**
  * Implementations of this class knows how to insert a particular entity.
  * <p>
  * This is an internal library class and all of its implementations are auto-generated.
+ * <p>
+ * Inserting several entities without returning their row ids uses multi-row
+ * {@code INSERT ... VALUES (...), (...)} statements, each binding up to
+ * {@link RoomDatabase#MAX_BIND_PARAMETER_CNT} arguments, instead of executing the single row
+ * statement once per entity. Methods returning row ids still insert one row at a time, since a
+ * multi-row insert only returns the row id of the last row.
  *
  * @param <T> The type parameter of the entity to be inserted
  * @hide
@@ -34,6 +45,16 @@ import java.util.List;
 @SuppressWarnings({"WeakerAccess", "unused"})
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
+    // SQLite versions before 3.8.8 run a multi-row VALUES clause as a compound SELECT, which
+    // may not have more than 500 terms.
+    private static final int MAX_ROWS_PER_INSERT = 500;
+
+    private final RoomDatabase mDatabase;
+    private volatile boolean mMultiRowStatementsCreated;
+    @Nullable
+    private MultiRowStatementCache mMultiRowStatements;
+    private int mArgsPerRow;
+
     /**
      * Creates an InsertionAdapter that can insert the entity type T into the given database.
      *
@@ -41,6 +62,7 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      */
     public EntityInsertionAdapter(RoomDatabase database) {
         super(database);
+        mDatabase = database;
     }
 
     /**
@@ -73,15 +95,7 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(T[] entities) {
-        final SupportSQLiteStatement stmt = acquire();
-        try {
-            for (T entity : entities) {
-                bind(stmt, entity);
-                stmt.executeInsert();
-            }
-        } finally {
-            release(stmt);
-        }
+        insertAll(Arrays.asList(entities).iterator(), entities.length);
     }
 
     /**
@@ -90,6 +104,10 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(Iterable<? extends T> entities) {
+        if (entities instanceof Collection) {
+            insertAll(entities.iterator(), ((Collection<?>) entities).size());
+            return;
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             for (T entity : entities) {
@@ -248,4 +266,99 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
             release(stmt);
         }
     }
+
+    /**
+     * Inserts count entities with as few multi-row statements as possible.
+     */
+    private void insertAll(Iterator<? extends T> entities, int count) {
+        final MultiRowStatementCache multiRowStatements = getMultiRowStatements();
+        if (multiRowStatements == null || count < 2) {
+            final SupportSQLiteStatement stmt = acquire();
+            try {
+                while (entities.hasNext()) {
+                    bind(stmt, entities.next());
+                    stmt.executeInsert();
+                }
+            } finally {
+                release(stmt);
+            }
+            return;
+        }
+        final OffsetBindingStatement offsetStmt = new OffsetBindingStatement();
+        int remaining = count;
+        while (remaining > 0) {
+            final int rows = Math.min(remaining, multiRowStatements.getMaxRows());
+            final SupportSQLiteStatement stmt = multiRowStatements.acquire(rows);
+            try {
+                for (int row = 0; row < rows; row++) {
+                    offsetStmt.bindTo(stmt, row * mArgsPerRow);
+                    bind(offsetStmt, entities.next());
+                }
+                stmt.executeInsert();
+            } finally {
+                multiRowStatements.release(stmt);
+            }
+            remaining -= rows;
+        }
+    }
+
+    /**
+     * Returns the cache of multi-row insert statements, or null if the insert query cannot be
+     * repeated for several rows.
+     */
+    @Nullable
+    private MultiRowStatementCache getMultiRowStatements() {
+        if (mMultiRowStatementsCreated) {
+            return mMultiRowStatements;
+        }
+        synchronized (this) {
+            if (!mMultiRowStatementsCreated) {
+                mMultiRowStatements = createMultiRowStatements();
+                mMultiRowStatementsCreated = true;
+            }
+            return mMultiRowStatements;
+        }
+    }
+
+    @Nullable
+    private MultiRowStatementCache createMultiRowStatements() {
+        // Multi-row VALUES clauses require SQLite 3.7.11.
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return null;
+        }
+        final String query = createQuery();
+        final int valuesIndex = query.lastIndexOf(" VALUES (");
+        if (valuesIndex < 0 || !query.endsWith(")")) {
+            return null;
+        }
+        final String prefix = query.substring(0, valuesIndex + " VALUES ".length());
+        final String row = query.substring(prefix.length());
+        int argsPerRow = 0;
+        for (int i = 0; i < row.length(); i++) {
+            if (row.charAt(i) == '?') {
+                argsPerRow++;
+            }
+        }
+        if (argsPerRow == 0) {
+            return null;
+        }
+        final int maxRows = Math.min(RoomDatabase.MAX_BIND_PARAMETER_CNT / argsPerRow,
+                MAX_ROWS_PER_INSERT);
+        if (maxRows < 2) {
+            return null;
+        }
+        mArgsPerRow = argsPerRow;
+        return new MultiRowStatementCache(mDatabase, maxRows) {
+            @Override
+            protected String createQuery(int rows) {
+                StringBuilder builder = new StringBuilder(
+                        prefix.length() + (row.length() + 1) * rows);
+                builder.append(prefix).append(row);
+                for (int i = 1; i < rows; i++) {
+                    builder.append(',').append(row);
+                }
+                return builder.toString();
+            }
+        };
+    }
 }
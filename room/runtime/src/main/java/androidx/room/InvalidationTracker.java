@@ -21,6 +21,8 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteException;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -44,6 +46,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -56,11 +59,16 @@ import java.util.concurrent.locks.Lock;
 // * ObservedTableTracker tracks list of tables we should be watching (e.g. adding triggers for).
 // * Before each beginTransaction, RoomDatabase invokes InvalidationTracker to sync trigger states.
 // * After each endTransaction, RoomDatabase invokes InvalidationTracker to refresh invalidated
-// tables.
+// tables. With an invalidation window, the refresh is delayed by the window so that it covers
+// every transaction which ends in the meantime.
 // * Each update (write operation) on one of the observed tables triggers an update into the
 // memory table table, flipping the invalidated flag ON.
 // * When multi-instance invalidation is turned on, MultiInstanceInvalidationClient will be created.
 // It works as an Observer, and notifies other instances of table invalidation.
+// * Tables observed by a RowObserver get a second set of triggers, which also insert the rowid of
+// each changed row into another memory table. The refresh reads and clears it together with the
+// invalidated flags. If a table was already invalidated when its row triggers were added, a row
+// with a NULL rowid marks the changed rows of the table as unknown.
 public class InvalidationTracker {
 
     private static final String[] TRIGGERS = new String[]{"UPDATE", "DELETE", "INSERT"};
@@ -83,6 +91,22 @@ public class InvalidationTracker {
     static final String SELECT_UPDATED_TABLES_SQL = "SELECT * FROM " + UPDATE_TABLE_NAME
             + " WHERE " + INVALIDATED_COLUMN_NAME + " = 1;";
 
+    private static final String ROW_UPDATE_TABLE_NAME = "room_row_modification_log";
+
+    private static final String ROW_ID_COLUMN_NAME = "row_id";
+
+    private static final String CREATE_ROW_TRACKING_TABLE_SQL = "CREATE TEMP TABLE "
+            + ROW_UPDATE_TABLE_NAME + "(" + TABLE_ID_COLUMN_NAME + " INTEGER NOT NULL, "
+            + ROW_ID_COLUMN_NAME + " INTEGER, "
+            + "PRIMARY KEY(" + TABLE_ID_COLUMN_NAME + ", " + ROW_ID_COLUMN_NAME + "))";
+
+    @VisibleForTesting
+    static final String RESET_CHANGED_ROWS_SQL = "DELETE FROM " + ROW_UPDATE_TABLE_NAME;
+
+    @VisibleForTesting
+    static final String SELECT_CHANGED_ROWS_SQL = "SELECT " + TABLE_ID_COLUMN_NAME + ", "
+            + ROW_ID_COLUMN_NAME + " FROM " + ROW_UPDATE_TABLE_NAME + ";";
+
     @NonNull
     final HashMap<String, Integer> mTableIdLookup;
     final String[] mTableNames;
@@ -95,13 +119,33 @@ public class InvalidationTracker {
 
     AtomicBoolean mPendingRefresh = new AtomicBoolean(false);
 
+    private long mInvalidationWindowMs = 0;
+
+    @Nullable
+    private Handler mHandler;
+
+    private final AtomicLong mRefreshRequestCount = new AtomicLong();
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final AtomicLong mRefreshCount = new AtomicLong();
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final AtomicLong mObserverNotificationCount = new AtomicLong();
+
     private volatile boolean mInitialized = false;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     volatile SupportSQLiteStatement mCleanupStatement;
 
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    volatile SupportSQLiteStatement mRowCleanupStatement;
+
     private ObservedTableTracker mObservedTableTracker;
 
+    // Tracks the tables observed by RowObservers, which also need the row triggers.
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    ObservedTableTracker mRowObservedTableTracker;
+
     private final InvalidationLiveDataContainer mInvalidationLiveDataContainer;
 
     // should be accessed with synchronization only.
@@ -134,6 +178,7 @@ public class InvalidationTracker {
             Map<String, Set<String>> viewTables, String... tableNames) {
         mDatabase = database;
         mObservedTableTracker = new ObservedTableTracker(tableNames.length);
+        mRowObservedTableTracker = new ObservedTableTracker(tableNames.length);
         mTableIdLookup = new HashMap<>();
         mViewTables = viewTables;
         mInvalidationLiveDataContainer = new InvalidationLiveDataContainer(mDatabase);
@@ -177,12 +222,43 @@ public class InvalidationTracker {
             database.execSQL("PRAGMA temp_store = MEMORY;");
             database.execSQL("PRAGMA recursive_triggers='ON';");
             database.execSQL(CREATE_TRACKING_TABLE_SQL);
+            database.execSQL(CREATE_ROW_TRACKING_TABLE_SQL);
             syncTriggers(database);
             mCleanupStatement = database.compileStatement(RESET_UPDATED_TABLES_SQL);
+            mRowCleanupStatement = database.compileStatement(RESET_CHANGED_ROWS_SQL);
             mInitialized = true;
         }
     }
 
+    /**
+     * Called by the {@link AutoCloser} right before it closes the database, while holding the
+     * close lock exclusively.
+     * <p>
+     * The tracking table and triggers are TEMP, so they are dropped with the connection. Marking
+     * the tracker uninitialized makes {@link #internalInit(SupportSQLiteDatabase)} recreate them
+     * and the triggers of all observed tables when the database is reopened.
+     */
+    void onAutoCloseCallback() {
+        synchronized (this) {
+            mInitialized = false;
+            mObservedTableTracker.resetTriggerState();
+            mRowObservedTableTracker.resetTriggerState();
+        }
+    }
+
+    /**
+     * Delays every refresh by the given window, so that the invalidations of all transactions
+     * which end within it are reported together. Called by {@link RoomDatabase.Builder}.
+     *
+     * @param windowMs The invalidation window in milliseconds, or 0 to refresh right away.
+     */
+    void setInvalidationWindow(long windowMs) {
+        mInvalidationWindowMs = windowMs;
+        if (windowMs > 0 && mHandler == null) {
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+    }
+
     void startMultiInstanceInvalidation(Context context, String name) {
         mMultiInstanceInvalidationClient = new MultiInstanceInvalidationClient(context, name, this,
                 mDatabase.getQueryExecutor());
@@ -205,6 +281,23 @@ public class InvalidationTracker {
                 .append("`");
     }
 
+    private static void appendRowTriggerName(StringBuilder builder, String tableName,
+            String triggerType) {
+        builder.append("`")
+                .append("room_row_modification_trigger_")
+                .append(tableName)
+                .append("_")
+                .append(triggerType)
+                .append("`");
+    }
+
+    private static void appendInsertChangedRow(StringBuilder builder, int tableId,
+            String rowId) {
+        builder.append(" INSERT OR IGNORE INTO ")
+                .append(ROW_UPDATE_TABLE_NAME)
+                .append(" VALUES(").append(tableId).append(", ").append(rowId).append(");");
+    }
+
     private void stopTrackingTable(SupportSQLiteDatabase writableDb, int tableId) {
         final String tableName = mTableNames[tableId];
         StringBuilder stringBuilder = new StringBuilder();
@@ -239,6 +332,48 @@ public class InvalidationTracker {
         }
     }
 
+    private void stopTrackingRows(SupportSQLiteDatabase writableDb, int tableId) {
+        final String tableName = mTableNames[tableId];
+        StringBuilder stringBuilder = new StringBuilder();
+        for (String trigger : TRIGGERS) {
+            stringBuilder.setLength(0);
+            stringBuilder.append("DROP TRIGGER IF EXISTS ");
+            appendRowTriggerName(stringBuilder, tableName, trigger);
+            writableDb.execSQL(stringBuilder.toString());
+        }
+        writableDb.execSQL("DELETE FROM " + ROW_UPDATE_TABLE_NAME
+                + " WHERE " + TABLE_ID_COLUMN_NAME + " = " + tableId);
+    }
+
+    private void startTrackingRows(SupportSQLiteDatabase writableDb, int tableId) {
+        // Changes made before the row triggers existed were not recorded, so if the table is
+        // already invalidated, mark its changed rows as unknown.
+        writableDb.execSQL("INSERT INTO " + ROW_UPDATE_TABLE_NAME
+                + " SELECT " + TABLE_ID_COLUMN_NAME + ", NULL FROM " + UPDATE_TABLE_NAME
+                + " WHERE " + TABLE_ID_COLUMN_NAME + " = " + tableId
+                + " AND " + INVALIDATED_COLUMN_NAME + " = 1");
+        final String tableName = mTableNames[tableId];
+        StringBuilder stringBuilder = new StringBuilder();
+        for (String trigger : TRIGGERS) {
+            stringBuilder.setLength(0);
+            stringBuilder.append("CREATE TEMP TRIGGER IF NOT EXISTS ");
+            appendRowTriggerName(stringBuilder, tableName, trigger);
+            stringBuilder.append(" AFTER ")
+                    .append(trigger)
+                    .append(" ON `")
+                    .append(tableName)
+                    .append("` BEGIN");
+            if (!"INSERT".equals(trigger)) {
+                appendInsertChangedRow(stringBuilder, tableId, "OLD.rowid");
+            }
+            if (!"DELETE".equals(trigger)) {
+                appendInsertChangedRow(stringBuilder, tableId, "NEW.rowid");
+            }
+            stringBuilder.append(" END");
+            writableDb.execSQL(stringBuilder.toString());
+        }
+    }
+
     /**
      * Adds the given observer to the observers list and it will be notified if any table it
      * observes changes.
@@ -251,6 +386,9 @@ public class InvalidationTracker {
      * If one of the tables in the Observer does not exist in the database, this method throws an
      * {@link IllegalArgumentException}.
      * <p>
+     * If the observer is a {@link RowObserver}, the rowids of the changed rows of its tables are
+     * recorded until it is removed.
+     * <p>
      * This method should be called on a background/worker thread as it performs database
      * operations.
      *
@@ -275,8 +413,14 @@ public class InvalidationTracker {
         synchronized (mObserverMap) {
             currentObserver = mObserverMap.putIfAbsent(observer, wrapper);
         }
-        if (currentObserver == null && mObservedTableTracker.onAdded(tableIds)) {
-            syncTriggers();
+        if (currentObserver == null) {
+            boolean needTriggerSync = mObservedTableTracker.onAdded(tableIds);
+            if (wrapper.mTracksRows) {
+                needTriggerSync |= mRowObservedTableTracker.onAdded(tableIds);
+            }
+            if (needTriggerSync) {
+                syncTriggers();
+            }
         }
     }
 
@@ -349,8 +493,14 @@ public class InvalidationTracker {
         synchronized (mObserverMap) {
             wrapper = mObserverMap.remove(observer);
         }
-        if (wrapper != null && mObservedTableTracker.onRemoved(wrapper.mTableIds)) {
-            syncTriggers();
+        if (wrapper != null) {
+            boolean needTriggerSync = mObservedTableTracker.onRemoved(wrapper.mTableIds);
+            if (wrapper.mTracksRows) {
+                needTriggerSync |= mRowObservedTableTracker.onRemoved(wrapper.mTableIds);
+            }
+            if (needTriggerSync) {
+                syncTriggers();
+            }
         }
     }
 
@@ -376,6 +526,7 @@ public class InvalidationTracker {
         public void run() {
             final Lock closeLock = mDatabase.getCloseLock();
             Set<Integer> invalidatedTableIds = null;
+            Map<Integer, Set<Long>> changedRowIds = Collections.emptyMap();
             closeLock.lock();
             try {
 
@@ -395,6 +546,8 @@ public class InvalidationTracker {
                     return;
                 }
 
+                mRefreshCount.incrementAndGet();
+
                 if (mDatabase.mWriteAheadLoggingEnabled) {
                     // This transaction has to be on the underlying DB rather than the RoomDatabase
                     // in order to avoid a recursive loop after endTransaction.
@@ -402,12 +555,14 @@ public class InvalidationTracker {
                     db.beginTransactionNonExclusive();
                     try {
                         invalidatedTableIds = checkUpdatedTable();
+                        changedRowIds = checkChangedRows(invalidatedTableIds);
                         db.setTransactionSuccessful();
                     } finally {
                         db.endTransaction();
                     }
                 } else {
                     invalidatedTableIds = checkUpdatedTable();
+                    changedRowIds = checkChangedRows(invalidatedTableIds);
                 }
             } catch (IllegalStateException | SQLiteException exception) {
                 // may happen if db is closed. just log.
@@ -417,11 +572,16 @@ public class InvalidationTracker {
                 closeLock.unlock();
             }
             if (invalidatedTableIds != null && !invalidatedTableIds.isEmpty()) {
+                int notified = 0;
                 synchronized (mObserverMap) {
                     for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
-                        entry.getValue().notifyByTableInvalidStatus(invalidatedTableIds);
+                        if (entry.getValue().notifyByTableInvalidStatus(invalidatedTableIds,
+                                changedRowIds)) {
+                            notified++;
+                        }
                     }
                 }
+                mObserverNotificationCount.addAndGet(notified);
             }
         }
 
@@ -442,6 +602,50 @@ public class InvalidationTracker {
             }
             return invalidatedTableIds;
         }
+
+        /**
+         * Returns the rowids of the changed rows of the invalidated tables which have row
+         * triggers, leaving out the tables whose changed rows are unknown.
+         */
+        private Map<Integer, Set<Long>> checkChangedRows(Set<Integer> invalidatedTableIds) {
+            if (!mRowObservedTableTracker.hasTriggers(invalidatedTableIds)) {
+                return Collections.emptyMap();
+            }
+            HashMap<Integer, Set<Long>> changedRowIds = new HashMap<>();
+            HashSet<Integer> unknownTableIds = new HashSet<>();
+            Cursor cursor = mDatabase.query(new SimpleSQLiteQuery(SELECT_CHANGED_ROWS_SQL));
+            //noinspection TryFinallyCanBeTryWithResources
+            try {
+                while (cursor.moveToNext()) {
+                    final int tableId = cursor.getInt(0);
+                    if (cursor.isNull(1)) {
+                        unknownTableIds.add(tableId);
+                        continue;
+                    }
+                    Set<Long> rowIds = changedRowIds.get(tableId);
+                    if (rowIds == null) {
+                        rowIds = new HashSet<>();
+                        changedRowIds.put(tableId, rowIds);
+                    }
+                    rowIds.add(cursor.getLong(1));
+                }
+            } finally {
+                cursor.close();
+            }
+            mRowCleanupStatement.executeUpdateDelete();
+            changedRowIds.keySet().removeAll(unknownTableIds);
+            for (Map.Entry<Integer, Set<Long>> entry : changedRowIds.entrySet()) {
+                entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+            }
+            return changedRowIds;
+        }
+    };
+
+    private final Runnable mExecuteRefresh = new Runnable() {
+        @Override
+        public void run() {
+            mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+        }
     };
 
     /**
@@ -450,15 +654,54 @@ public class InvalidationTracker {
      * This method is automatically called when {@link RoomDatabase#endTransaction()} is called but
      * if you have another connection to the database or directly use {@link
      * SupportSQLiteDatabase}, you may need to call this manually.
+     * <p>
+     * Calls made before the task runs are merged into it. If an invalidation window is set with
+     * {@link RoomDatabase.Builder#setInvalidationWindow(long, java.util.concurrent.TimeUnit)},
+     * the task only runs once the window has passed.
      */
     @SuppressWarnings("WeakerAccess")
     public void refreshVersionsAsync() {
+        mRefreshRequestCount.incrementAndGet();
         // TODO we should consider doing this sync instead of async.
         if (mPendingRefresh.compareAndSet(false, true)) {
-            mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+            if (mInvalidationWindowMs > 0) {
+                mHandler.postDelayed(mExecuteRefresh, mInvalidationWindowMs);
+            } else {
+                mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+            }
         }
     }
 
+    /**
+     * Returns the number of times a refresh of the updated tables was requested, usually because
+     * a transaction ended.
+     *
+     * @return The number of calls to {@link #refreshVersionsAsync()}.
+     */
+    public long getRefreshRequestCount() {
+        return mRefreshRequestCount.get();
+    }
+
+    /**
+     * Returns the number of times the updated tables were read, which is less than the number of
+     * requests when several requests were merged into one refresh.
+     *
+     * @return The number of refreshes which checked the updated tables.
+     */
+    public long getRefreshCount() {
+        return mRefreshCount.get();
+    }
+
+    /**
+     * Returns the number of times a refresh notified an {@link Observer}. An observer notified of
+     * several tables at once, or of both changed rows and invalidated tables, counts once.
+     *
+     * @return The number of observer notifications made by refreshes.
+     */
+    public long getObserverNotificationCount() {
+        return mObserverNotificationCount.get();
+    }
+
     /**
      * Check versions for tables, and run observers synchronously if tables have been updated.
      *
@@ -507,27 +750,48 @@ public class InvalidationTracker {
                     // there is a potential race condition where another mSyncTriggers runnable
                     // can start running right after we get the tables list to sync.
                     final int[] tablesToSync = mObservedTableTracker.getTablesToSync();
-                    if (tablesToSync == null) {
+                    final int[] rowTablesToSync = mRowObservedTableTracker.getTablesToSync();
+                    if (tablesToSync == null && rowTablesToSync == null) {
                         return;
                     }
-                    final int limit = tablesToSync.length;
                     beginTransactionInternal(database);
                     try {
-                        for (int tableId = 0; tableId < limit; tableId++) {
-                            switch (tablesToSync[tableId]) {
-                                case ObservedTableTracker.ADD:
-                                    startTrackingTable(database, tableId);
-                                    break;
-                                case ObservedTableTracker.REMOVE:
-                                    stopTrackingTable(database, tableId);
-                                    break;
+                        if (tablesToSync != null) {
+                            final int limit = tablesToSync.length;
+                            for (int tableId = 0; tableId < limit; tableId++) {
+                                switch (tablesToSync[tableId]) {
+                                    case ObservedTableTracker.ADD:
+                                        startTrackingTable(database, tableId);
+                                        break;
+                                    case ObservedTableTracker.REMOVE:
+                                        stopTrackingTable(database, tableId);
+                                        break;
+                                }
+                            }
+                        }
+                        if (rowTablesToSync != null) {
+                            final int limit = rowTablesToSync.length;
+                            for (int tableId = 0; tableId < limit; tableId++) {
+                                switch (rowTablesToSync[tableId]) {
+                                    case ObservedTableTracker.ADD:
+                                        startTrackingRows(database, tableId);
+                                        break;
+                                    case ObservedTableTracker.REMOVE:
+                                        stopTrackingRows(database, tableId);
+                                        break;
+                                }
                             }
                         }
                         database.setTransactionSuccessful();
                     } finally {
                         database.endTransaction();
                     }
-                    mObservedTableTracker.onSyncCompleted();
+                    if (tablesToSync != null) {
+                        mObservedTableTracker.onSyncCompleted();
+                    }
+                    if (rowTablesToSync != null) {
+                        mRowObservedTableTracker.onSyncCompleted();
+                    }
                 } finally {
                     closeLock.unlock();
                 }
@@ -608,10 +872,12 @@ public class InvalidationTracker {
         final int[] mTableIds;
         private final String[] mTableNames;
         final Observer mObserver;
+        final boolean mTracksRows;
         private final Set<String> mSingleTableSet;
 
         ObserverWrapper(Observer observer, int[] tableIds, String[] tableNames) {
             mObserver = observer;
+            mTracksRows = observer instanceof RowObserver;
             mTableIds = tableIds;
             mTableNames = tableNames;
             if (tableIds.length == 1) {
@@ -628,8 +894,15 @@ public class InvalidationTracker {
          * based on the given invalid status set.
          *
          * @param invalidatedTablesIds The table ids of the tables that are invalidated.
+         * @param changedRowIds        The rowids of the changed rows by table id, for the
+         *                             invalidated tables whose changed rows are known.
+         * @return true if the observer was notified.
          */
-        void notifyByTableInvalidStatus(Set<Integer> invalidatedTablesIds) {
+        boolean notifyByTableInvalidStatus(Set<Integer> invalidatedTablesIds,
+                Map<Integer, Set<Long>> changedRowIds) {
+            if (mTracksRows) {
+                return notifyRowObserver(invalidatedTablesIds, changedRowIds);
+            }
             Set<String> invalidatedTables = null;
             final int size = mTableIds.length;
             for (int index = 0; index < size; index++) {
@@ -646,9 +919,43 @@ public class InvalidationTracker {
                     }
                 }
             }
+            if (invalidatedTables != null) {
+                mObserver.onInvalidated(invalidatedTables);
+                return true;
+            }
+            return false;
+        }
+
+        private boolean notifyRowObserver(Set<Integer> invalidatedTablesIds,
+                Map<Integer, Set<Long>> changedRowIds) {
+            Map<String, Set<Long>> changedRows = null;
+            Set<String> invalidatedTables = null;
+            final int size = mTableIds.length;
+            for (int index = 0; index < size; index++) {
+                final int tableId = mTableIds[index];
+                if (!invalidatedTablesIds.contains(tableId)) {
+                    continue;
+                }
+                final Set<Long> rowIds = changedRowIds.get(tableId);
+                if (rowIds != null) {
+                    if (changedRows == null) {
+                        changedRows = new HashMap<>(size);
+                    }
+                    changedRows.put(mTableNames[index], rowIds);
+                } else {
+                    if (invalidatedTables == null) {
+                        invalidatedTables = new HashSet<>(size);
+                    }
+                    invalidatedTables.add(mTableNames[index]);
+                }
+            }
+            if (changedRows != null) {
+                ((RowObserver) mObserver).onRowsChanged(changedRows);
+            }
             if (invalidatedTables != null) {
                 mObserver.onInvalidated(invalidatedTables);
             }
+            return changedRows != null || invalidatedTables != null;
         }
 
         /**
@@ -729,6 +1036,51 @@ public class InvalidationTracker {
         }
     }
 
+    /**
+     * An observer that is told which rows of the observed tables changed.
+     * <p>
+     * While a row observer is added, triggers record the rowid of every row inserted, updated or
+     * deleted in its tables, which makes writes to those tables slower. When the changed rows of a
+     * table are known, {@link #onRowsChanged(Map)} is called with their rowids, for example so
+     * that the observer can skip a refresh which none of the changes can affect. Otherwise,
+     * {@link #onInvalidated(Set)} is called with the table, as for other observers. This happens
+     * when the table was changed before the observer was added and the changes were not
+     * reported yet, or when the invalidation comes from
+     * {@link RoomDatabase.Builder#enableMultiInstanceInvalidation() another instance}.
+     * <p>
+     * A rowid may be reported even though its row did not change, e.g. when a transaction
+     * inserts and then deletes it.
+     */
+    public abstract static class RowObserver extends Observer {
+        /**
+         * Observes the rows of the given list of tables and views.
+         *
+         * @param firstTable The name of the table or view.
+         * @param rest       More names of tables or views.
+         */
+        protected RowObserver(@NonNull String firstTable, String... rest) {
+            super(firstTable, rest);
+        }
+
+        /**
+         * Observes the rows of the given list of tables and views.
+         *
+         * @param tables The list of tables or views to observe for changes.
+         */
+        public RowObserver(@NonNull String[] tables) {
+            super(tables);
+        }
+
+        /**
+         * Called when rows of the observed tables are inserted, updated or deleted in the
+         * database.
+         *
+         * @param rowIds The rowids of the changed rows, by table. This will be names of underlying
+         *               tables when you are observing views.
+         */
+        public abstract void onRowsChanged(@NonNull Map<String, Set<Long>> rowIds);
+    }
+
     /**
      * Keeps a list of tables we should observe. Invalidation tracker lazily syncs this list w/
      * triggers in the database.
@@ -829,6 +1181,31 @@ public class InvalidationTracker {
             }
         }
 
+        /**
+         * @return true if any of the given tables had triggers at the last sync.
+         */
+        boolean hasTriggers(Set<Integer> tableIds) {
+            synchronized (this) {
+                for (int tableId : tableIds) {
+                    if (mTriggerStates[tableId]) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+
+        /**
+         * Forgets the trigger state of every table so that the next getTablesToSync adds the
+         * triggers of all observed tables again, e.g. after the database is closed and reopened.
+         */
+        void resetTriggerState() {
+            synchronized (this) {
+                Arrays.fill(mTriggerStates, false);
+                mNeedsSync = true;
+            }
+        }
+
         /**
          * if getTablesToSync returned non-null, the called should call onSyncCompleted once it
          * is done.
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Compiles and caches statements which apply the same operation to several rows at once, such
+ * as a multi-row {@code INSERT ... VALUES (...), (...)}.
+ * <p>
+ * Splitting a large operation into statements of at most {@link #getMaxRows()} rows leaves at
+ * most one smaller statement, for the remaining rows. So like {@link SharedSQLiteStatement}, one
+ * statement of the maximum size and one of the most recent smaller size are kept, and a one off
+ * statement is compiled when a cached one is in use.
+ */
+abstract class MultiRowStatementCache {
+    private final RoomDatabase mDatabase;
+    private final int mMaxRows;
+
+    private final AtomicBoolean mFullLock = new AtomicBoolean(false);
+    private volatile SupportSQLiteStatement mFullStmt;
+
+    private final AtomicBoolean mPartialLock = new AtomicBoolean(false);
+    private volatile SupportSQLiteStatement mPartialStmt;
+    private int mPartialRows;
+
+    /**
+     * @param database The database to create the statements in.
+     * @param maxRows  The largest number of rows a statement may operate on.
+     */
+    MultiRowStatementCache(RoomDatabase database, int maxRows) {
+        mDatabase = database;
+        mMaxRows = maxRows;
+    }
+
+    /**
+     * Create the query for the given number of rows.
+     *
+     * @param rows The number of rows, at most {@link #getMaxRows()}.
+     * @return The SQL query to prepare.
+     */
+    protected abstract String createQuery(int rows);
+
+    /**
+     * Returns the largest number of rows a statement may operate on.
+     */
+    int getMaxRows() {
+        return mMaxRows;
+    }
+
+    /**
+     * Call this to get a statement for the given number of rows. Must call
+     * {@link #release(SupportSQLiteStatement)} once done.
+     */
+    SupportSQLiteStatement acquire(int rows) {
+        mDatabase.assertNotMainThread();
+        if (rows == mMaxRows) {
+            if (!mFullLock.compareAndSet(false, true)) {
+                return createNewStatement(rows);
+            }
+            if (mFullStmt == null) {
+                mFullStmt = createNewStatement(rows);
+            }
+            return mFullStmt;
+        }
+        if (!mPartialLock.compareAndSet(false, true)) {
+            return createNewStatement(rows);
+        }
+        if (mPartialStmt == null || mPartialRows != rows) {
+            if (mPartialStmt != null) {
+                close(mPartialStmt);
+            }
+            mPartialStmt = createNewStatement(rows);
+            mPartialRows = rows;
+        }
+        return mPartialStmt;
+    }
+
+    /**
+     * Must call this when statement will not be used anymore.
+     *
+     * @param statement The statement that was returned from acquire.
+     */
+    void release(SupportSQLiteStatement statement) {
+        if (statement == mFullStmt) {
+            mFullLock.set(false);
+        } else if (statement == mPartialStmt) {
+            mPartialLock.set(false);
+        } else {
+            close(statement);
+        }
+    }
+
+    private SupportSQLiteStatement createNewStatement(int rows) {
+        return mDatabase.compileStatement(createQuery(rows));
+    }
+
+    private static void close(SupportSQLiteStatement statement) {
+        try {
+            statement.close();
+        } catch (IOException e) {
+            // SQLiteStatement#close does not throw.
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+/**
+ * A SupportSQLiteStatement which shifts the index of every argument bound to it by an offset
+ * before binding it to another statement.
+ * <p>
+ * It lets the generated code which binds one entity to indices starting at 1 bind several
+ * entities to a multi-row statement. It only binds, executing it throws.
+ */
+final class OffsetBindingStatement implements SupportSQLiteStatement {
+    private SupportSQLiteStatement mDelegate;
+    private int mOffset;
+
+    /**
+     * Sets the statement to bind to and the offset to add to the indices bound to it.
+     */
+    void bindTo(SupportSQLiteStatement delegate, int offset) {
+        mDelegate = delegate;
+        mOffset = offset;
+    }
+
+    @Override
+    public void bindNull(int index) {
+        mDelegate.bindNull(index + mOffset);
+    }
+
+    @Override
+    public void bindLong(int index, long value) {
+        mDelegate.bindLong(index + mOffset, value);
+    }
+
+    @Override
+    public void bindDouble(int index, double value) {
+        mDelegate.bindDouble(index + mOffset, value);
+    }
+
+    @Override
+    public void bindString(int index, String value) {
+        mDelegate.bindString(index + mOffset, value);
+    }
+
+    @Override
+    public void bindBlob(int index, byte[] value) {
+        mDelegate.bindBlob(index + mOffset, value);
+    }
+
+    @Override
+    public void clearBindings() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void execute() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int executeUpdateDelete() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long executeInsert() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long simpleQueryForLong() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String simpleQueryForString() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+    }
+}
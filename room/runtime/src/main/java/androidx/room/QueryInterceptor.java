@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Times the statements run through a {@link QueryInterceptorOpenHelper} and reports the ones
+ * which are at least as slow as the threshold to a {@link RoomDatabase.QueryCallback}.
+ * <p>
+ * The callback is invoked on its own executor, so a slow callback never delays the query.
+ */
+final class QueryInterceptor {
+    @NonNull
+    private final RoomDatabase.QueryCallback mQueryCallback;
+
+    @NonNull
+    private final Executor mQueryCallbackExecutor;
+
+    private final long mSlowQueryThresholdNanos;
+
+    QueryInterceptor(@NonNull RoomDatabase.QueryCallback queryCallback,
+            @NonNull Executor queryCallbackExecutor, long slowQueryThresholdNanos) {
+        mQueryCallback = queryCallback;
+        mQueryCallbackExecutor = queryCallbackExecutor;
+        mSlowQueryThresholdNanos = slowQueryThresholdNanos;
+    }
+
+    /**
+     * Returns true if a statement which took the given time should be reported. Callers check
+     * this before copying the bind arguments, so that fast statements allocate nothing.
+     */
+    boolean shouldReport(long executionTimeNanos) {
+        return executionTimeNanos >= mSlowQueryThresholdNanos;
+    }
+
+    /**
+     * Reports a finished statement to the callback on the callback executor.
+     *
+     * @param sql                The SQL of the statement.
+     * @param bindArgs           A copy of the bind arguments, which must not be modified
+     *                           afterwards.
+     * @param executionTimeNanos The time the statement took to run.
+     * @param rowCount           The number of rows returned or changed, or -1 if unknown.
+     */
+    void report(@NonNull final String sql, @NonNull List<Object> bindArgs,
+            final long executionTimeNanos, final int rowCount) {
+        final List<Object> args = Collections.unmodifiableList(bindArgs);
+        mQueryCallbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mQueryCallback.onQuery(sql, args, executionTimeNanos, rowCount);
+            }
+        });
+    }
+
+    /**
+     * Reports a finished statement without bind arguments if it was slow enough.
+     */
+    void reportIfSlow(@NonNull String sql, long startNanos, int rowCount) {
+        final long executionTimeNanos = System.nanoTime() - startNanos;
+        if (shouldReport(executionTimeNanos)) {
+            report(sql, Collections.<Object>emptyList(), executionTimeNanos, rowCount);
+        }
+    }
+}
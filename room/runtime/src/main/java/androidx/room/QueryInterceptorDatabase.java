@@ -0,0 +1,312 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.os.Build;
+import android.os.CancellationSignal;
+import android.util.Pair;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A SupportSQLiteDatabase which times the statements it runs and reports them to a
+ * {@link QueryInterceptor}.
+ * <p>
+ * Queries are reported with the number of rows they return. Since a cursor only runs its query
+ * when it is first moved, the query is run by counting the rows before the cursor is returned,
+ * which the first move would have done anyway. Transactions are reported as the pseudo
+ * statements {@code BEGIN EXCLUSIVE TRANSACTION}, {@code BEGIN IMMEDIATE TRANSACTION} and
+ * {@code END TRANSACTION}, the latter timing the commit or rollback. The
+ * {@link ContentValues} based insert, update and delete methods are not reported.
+ */
+final class QueryInterceptorDatabase implements SupportSQLiteDatabase {
+    @NonNull
+    private final SupportSQLiteDatabase mDelegate;
+
+    @NonNull
+    private final QueryInterceptor mQueryInterceptor;
+
+    QueryInterceptorDatabase(@NonNull SupportSQLiteDatabase delegate,
+            @NonNull QueryInterceptor queryInterceptor) {
+        mDelegate = delegate;
+        mQueryInterceptor = queryInterceptor;
+    }
+
+    @Override
+    public SupportSQLiteStatement compileStatement(String sql) {
+        return new QueryInterceptorStatement(mDelegate.compileStatement(sql), sql,
+                mQueryInterceptor);
+    }
+
+    @Override
+    public void beginTransaction() {
+        final long start = System.nanoTime();
+        mDelegate.beginTransaction();
+        mQueryInterceptor.reportIfSlow("BEGIN EXCLUSIVE TRANSACTION", start, -1);
+    }
+
+    @Override
+    public void beginTransactionNonExclusive() {
+        final long start = System.nanoTime();
+        mDelegate.beginTransactionNonExclusive();
+        mQueryInterceptor.reportIfSlow("BEGIN IMMEDIATE TRANSACTION", start, -1);
+    }
+
+    @Override
+    public void beginTransactionWithListener(SQLiteTransactionListener transactionListener) {
+        final long start = System.nanoTime();
+        mDelegate.beginTransactionWithListener(transactionListener);
+        mQueryInterceptor.reportIfSlow("BEGIN EXCLUSIVE TRANSACTION", start, -1);
+    }
+
+    @Override
+    public void beginTransactionWithListenerNonExclusive(
+            SQLiteTransactionListener transactionListener) {
+        final long start = System.nanoTime();
+        mDelegate.beginTransactionWithListenerNonExclusive(transactionListener);
+        mQueryInterceptor.reportIfSlow("BEGIN IMMEDIATE TRANSACTION", start, -1);
+    }
+
+    @Override
+    public void endTransaction() {
+        final long start = System.nanoTime();
+        mDelegate.endTransaction();
+        mQueryInterceptor.reportIfSlow("END TRANSACTION", start, -1);
+    }
+
+    @Override
+    public void setTransactionSuccessful() {
+        mDelegate.setTransactionSuccessful();
+    }
+
+    @Override
+    public boolean inTransaction() {
+        return mDelegate.inTransaction();
+    }
+
+    @Override
+    public boolean isDbLockedByCurrentThread() {
+        return mDelegate.isDbLockedByCurrentThread();
+    }
+
+    @Override
+    public boolean yieldIfContendedSafely() {
+        return mDelegate.yieldIfContendedSafely();
+    }
+
+    @Override
+    public boolean yieldIfContendedSafely(long sleepAfterYieldDelay) {
+        return mDelegate.yieldIfContendedSafely(sleepAfterYieldDelay);
+    }
+
+    @Override
+    public int getVersion() {
+        return mDelegate.getVersion();
+    }
+
+    @Override
+    public void setVersion(int version) {
+        mDelegate.setVersion(version);
+    }
+
+    @Override
+    public long getMaximumSize() {
+        return mDelegate.getMaximumSize();
+    }
+
+    @Override
+    public long setMaximumSize(long numBytes) {
+        return mDelegate.setMaximumSize(numBytes);
+    }
+
+    @Override
+    public long getPageSize() {
+        return mDelegate.getPageSize();
+    }
+
+    @Override
+    public void setPageSize(long numBytes) {
+        mDelegate.setPageSize(numBytes);
+    }
+
+    @Override
+    public Cursor query(String query) {
+        final long start = System.nanoTime();
+        Cursor cursor = mDelegate.query(query);
+        mQueryInterceptor.reportIfSlow(query, start, cursor.getCount());
+        return cursor;
+    }
+
+    @Override
+    public Cursor query(String query, Object[] bindArgs) {
+        final long start = System.nanoTime();
+        Cursor cursor = mDelegate.query(query, bindArgs);
+        reportIfSlow(query, bindArgs, start, cursor.getCount());
+        return cursor;
+    }
+
+    @Override
+    public Cursor query(SupportSQLiteQuery query) {
+        final long start = System.nanoTime();
+        Cursor cursor = mDelegate.query(query);
+        reportIfSlow(query, start, cursor.getCount());
+        return cursor;
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+    @Override
+    public Cursor query(SupportSQLiteQuery query, CancellationSignal cancellationSignal) {
+        final long start = System.nanoTime();
+        Cursor cursor = mDelegate.query(query, cancellationSignal);
+        reportIfSlow(query, start, cursor.getCount());
+        return cursor;
+    }
+
+    @Override
+    public long insert(String table, int conflictAlgorithm, ContentValues values)
+            throws SQLException {
+        return mDelegate.insert(table, conflictAlgorithm, values);
+    }
+
+    @Override
+    public int delete(String table, String whereClause, Object[] whereArgs) {
+        return mDelegate.delete(table, whereClause, whereArgs);
+    }
+
+    @Override
+    public int update(String table, int conflictAlgorithm, ContentValues values,
+            String whereClause, Object[] whereArgs) {
+        return mDelegate.update(table, conflictAlgorithm, values, whereClause, whereArgs);
+    }
+
+    @Override
+    public void execSQL(String sql) throws SQLException {
+        final long start = System.nanoTime();
+        mDelegate.execSQL(sql);
+        mQueryInterceptor.reportIfSlow(sql, start, -1);
+    }
+
+    @Override
+    public void execSQL(String sql, Object[] bindArgs) throws SQLException {
+        final long start = System.nanoTime();
+        mDelegate.execSQL(sql, bindArgs);
+        reportIfSlow(sql, bindArgs, start, -1);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return mDelegate.isReadOnly();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return mDelegate.isOpen();
+    }
+
+    @Override
+    public boolean needUpgrade(int newVersion) {
+        return mDelegate.needUpgrade(newVersion);
+    }
+
+    @Override
+    public String getPath() {
+        return mDelegate.getPath();
+    }
+
+    @Override
+    public void setLocale(Locale locale) {
+        mDelegate.setLocale(locale);
+    }
+
+    @Override
+    public void setMaxSqlCacheSize(int cacheSize) {
+        mDelegate.setMaxSqlCacheSize(cacheSize);
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+    @Override
+    public void setForeignKeyConstraintsEnabled(boolean enable) {
+        mDelegate.setForeignKeyConstraintsEnabled(enable);
+    }
+
+    @Override
+    public boolean enableWriteAheadLogging() {
+        return mDelegate.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void disableWriteAheadLogging() {
+        mDelegate.disableWriteAheadLogging();
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+    @Override
+    public boolean isWriteAheadLoggingEnabled() {
+        return mDelegate.isWriteAheadLoggingEnabled();
+    }
+
+    @Override
+    public List<Pair<String, String>> getAttachedDbs() {
+        return mDelegate.getAttachedDbs();
+    }
+
+    @Override
+    public boolean isDatabaseIntegrityOk() {
+        return mDelegate.isDatabaseIntegrityOk();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mDelegate.close();
+    }
+
+    private void reportIfSlow(String sql, @Nullable Object[] bindArgs, long startNanos,
+            int rowCount) {
+        final long executionTimeNanos = System.nanoTime() - startNanos;
+        if (mQueryInterceptor.shouldReport(executionTimeNanos)) {
+            List<Object> args = bindArgs == null ? new ArrayList<Object>()
+                    : new ArrayList<Object>(Arrays.asList(bindArgs));
+            mQueryInterceptor.report(sql, args, executionTimeNanos, rowCount);
+        }
+    }
+
+    private void reportIfSlow(SupportSQLiteQuery query, long startNanos, int rowCount) {
+        final long executionTimeNanos = System.nanoTime() - startNanos;
+        if (mQueryInterceptor.shouldReport(executionTimeNanos)) {
+            // Binding again only records the arguments, the query has already run.
+            QueryInterceptorProgram program = new QueryInterceptorProgram(query.getArgCount());
+            query.bindTo(program);
+            mQueryInterceptor.report(query.getSql(), program.getBindArgs(), executionTimeNanos,
+                    rowCount);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+/**
+ * A SupportSQLiteOpenHelper whose databases report the statements they run to a
+ * {@link RoomDatabase.QueryCallback}.
+ * <p>
+ * Statements run by the open helper callbacks while the database is created, migrated or opened
+ * are not reported, since those callbacks receive the delegate's database.
+ */
+final class QueryInterceptorOpenHelper implements SupportSQLiteOpenHelper, DelegatingOpenHelper {
+    @NonNull
+    private final SupportSQLiteOpenHelper mDelegateOpenHelper;
+
+    @NonNull
+    private final QueryInterceptor mQueryInterceptor;
+
+    QueryInterceptorOpenHelper(@NonNull SupportSQLiteOpenHelper supportSQLiteOpenHelper,
+            @NonNull QueryInterceptor queryInterceptor) {
+        mDelegateOpenHelper = supportSQLiteOpenHelper;
+        mQueryInterceptor = queryInterceptor;
+    }
+
+    @Nullable
+    @Override
+    public String getDatabaseName() {
+        return mDelegateOpenHelper.getDatabaseName();
+    }
+
+    @Override
+    @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+    public void setWriteAheadLoggingEnabled(boolean enabled) {
+        mDelegateOpenHelper.setWriteAheadLoggingEnabled(enabled);
+    }
+
+    @Override
+    public SupportSQLiteDatabase getWritableDatabase() {
+        return new QueryInterceptorDatabase(mDelegateOpenHelper.getWritableDatabase(),
+                mQueryInterceptor);
+    }
+
+    @Override
+    public SupportSQLiteDatabase getReadableDatabase() {
+        return new QueryInterceptorDatabase(mDelegateOpenHelper.getReadableDatabase(),
+                mQueryInterceptor);
+    }
+
+    @Override
+    public void close() {
+        mDelegateOpenHelper.close();
+    }
+
+    @Override
+    @NonNull
+    public SupportSQLiteOpenHelper getDelegate() {
+        return mDelegateOpenHelper;
+    }
+}
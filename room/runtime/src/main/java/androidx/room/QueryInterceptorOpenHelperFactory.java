@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+/**
+ * Factory class for QueryInterceptorOpenHelper
+ */
+final class QueryInterceptorOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+    @NonNull
+    private final SupportSQLiteOpenHelper.Factory mDelegate;
+
+    @NonNull
+    private final QueryInterceptor mQueryInterceptor;
+
+    QueryInterceptorOpenHelperFactory(
+            @NonNull SupportSQLiteOpenHelper.Factory factory,
+            @NonNull QueryInterceptor queryInterceptor) {
+        mDelegate = factory;
+        mQueryInterceptor = queryInterceptor;
+    }
+
+    /**
+     * @return QueryInterceptorOpenHelper instances.
+     */
+    @Override
+    @NonNull
+    public QueryInterceptorOpenHelper create(
+            @NonNull SupportSQLiteOpenHelper.Configuration configuration) {
+        return new QueryInterceptorOpenHelper(mDelegate.create(configuration), mQueryInterceptor);
+    }
+}
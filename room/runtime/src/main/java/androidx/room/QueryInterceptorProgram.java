@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteProgram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A SupportSQLiteProgram which only records the arguments bound to it, so that they can be
+ * reported to a {@link RoomDatabase.QueryCallback}.
+ */
+final class QueryInterceptorProgram implements SupportSQLiteProgram {
+    private final List<Object> mBindArgs;
+
+    QueryInterceptorProgram() {
+        mBindArgs = new ArrayList<>();
+    }
+
+    QueryInterceptorProgram(int argCount) {
+        mBindArgs = new ArrayList<>(argCount);
+    }
+
+    @Override
+    public void bindNull(int index) {
+        saveArgsToCache(index, null);
+    }
+
+    @Override
+    public void bindLong(int index, long value) {
+        saveArgsToCache(index, value);
+    }
+
+    @Override
+    public void bindDouble(int index, double value) {
+        saveArgsToCache(index, value);
+    }
+
+    @Override
+    public void bindString(int index, String value) {
+        saveArgsToCache(index, value);
+    }
+
+    @Override
+    public void bindBlob(int index, byte[] value) {
+        saveArgsToCache(index, value);
+    }
+
+    @Override
+    public void clearBindings() {
+        mBindArgs.clear();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Returns the recorded arguments, in bind index order. Indices which were never bound are
+     * reported as null.
+     */
+    @NonNull
+    List<Object> getBindArgs() {
+        return mBindArgs;
+    }
+
+    private void saveArgsToCache(int bindIndex, Object value) {
+        int index = bindIndex - 1;
+        if (index >= mBindArgs.size()) {
+            // Add null entries to the list until we have the desired # of indices
+            for (int i = mBindArgs.size(); i <= index; i++) {
+                mBindArgs.add(null);
+            }
+        }
+        mBindArgs.set(index, value);
+    }
+}
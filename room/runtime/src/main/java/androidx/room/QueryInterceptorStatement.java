@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * A SupportSQLiteStatement which records its bind arguments and reports each execution to a
+ * {@link QueryInterceptor}.
+ * <p>
+ * Updates and deletes are reported with the number of rows they changed, inserts with 1 or 0
+ * depending on whether a row was inserted, and simple queries with 1.
+ */
+final class QueryInterceptorStatement implements SupportSQLiteStatement {
+    @NonNull
+    private final SupportSQLiteStatement mDelegate;
+
+    @NonNull
+    private final String mSql;
+
+    @NonNull
+    private final QueryInterceptor mQueryInterceptor;
+
+    private final QueryInterceptorProgram mBindArgs = new QueryInterceptorProgram();
+
+    QueryInterceptorStatement(@NonNull SupportSQLiteStatement delegate, @NonNull String sql,
+            @NonNull QueryInterceptor queryInterceptor) {
+        mDelegate = delegate;
+        mSql = sql;
+        mQueryInterceptor = queryInterceptor;
+    }
+
+    @Override
+    public void execute() {
+        final long start = System.nanoTime();
+        mDelegate.execute();
+        reportIfSlow(start, -1);
+    }
+
+    @Override
+    public int executeUpdateDelete() {
+        final long start = System.nanoTime();
+        int result = mDelegate.executeUpdateDelete();
+        reportIfSlow(start, result);
+        return result;
+    }
+
+    @Override
+    public long executeInsert() {
+        final long start = System.nanoTime();
+        long result = mDelegate.executeInsert();
+        reportIfSlow(start, result == -1 ? 0 : 1);
+        return result;
+    }
+
+    @Override
+    public long simpleQueryForLong() {
+        final long start = System.nanoTime();
+        long result = mDelegate.simpleQueryForLong();
+        reportIfSlow(start, 1);
+        return result;
+    }
+
+    @Override
+    public String simpleQueryForString() {
+        final long start = System.nanoTime();
+        String result = mDelegate.simpleQueryForString();
+        reportIfSlow(start, 1);
+        return result;
+    }
+
+    @Override
+    public void bindNull(int index) {
+        mBindArgs.bindNull(index);
+        mDelegate.bindNull(index);
+    }
+
+    @Override
+    public void bindLong(int index, long value) {
+        mBindArgs.bindLong(index, value);
+        mDelegate.bindLong(index, value);
+    }
+
+    @Override
+    public void bindDouble(int index, double value) {
+        mBindArgs.bindDouble(index, value);
+        mDelegate.bindDouble(index, value);
+    }
+
+    @Override
+    public void bindString(int index, String value) {
+        mBindArgs.bindString(index, value);
+        mDelegate.bindString(index, value);
+    }
+
+    @Override
+    public void bindBlob(int index, byte[] value) {
+        mBindArgs.bindBlob(index, value);
+        mDelegate.bindBlob(index, value);
+    }
+
+    @Override
+    public void clearBindings() {
+        mBindArgs.clearBindings();
+        mDelegate.clearBindings();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mDelegate.close();
+    }
+
+    private void reportIfSlow(long startNanos, int rowCount) {
+        final long executionTimeNanos = System.nanoTime() - startNanos;
+        if (mQueryInterceptor.shouldReport(executionTimeNanos)) {
+            // The statement may be rebound and executed again before the callback runs.
+            mQueryInterceptor.report(mSql, new ArrayList<>(mBindArgs.getBindArgs()),
+                    executionTimeNanos, rowCount);
+        }
+    }
+}
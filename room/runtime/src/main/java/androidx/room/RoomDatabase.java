@@ -26,6 +26,7 @@ import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.CallSuper;
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
@@ -33,6 +34,7 @@ import androidx.annotation.RestrictTo;
 import androidx.annotation.WorkerThread;
 import androidx.arch.core.executor.ArchTaskExecutor;
 import androidx.room.migration.Migration;
+import androidx.room.util.DBUtil;
 import androidx.room.util.SneakyThrow;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteDatabase;
@@ -54,6 +56,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -89,6 +92,13 @@ public abstract class RoomDatabase {
     private boolean mAllowMainThreadQueries;
     boolean mWriteAheadLoggingEnabled;
 
+    /**
+     * Closes the database after it has been idle for the timeout set with
+     * {@link Builder#setAutoCloseTimeout(long, TimeUnit)}, or null if it is not enabled.
+     */
+    @Nullable
+    private AutoCloser mAutoCloser;
+
     /**
      * @hide
      */
@@ -179,10 +189,24 @@ public abstract class RoomDatabase {
     @CallSuper
     public void init(@NonNull DatabaseConfiguration configuration) {
         mOpenHelper = createOpenHelper(configuration);
-        if (mOpenHelper instanceof SQLiteCopyOpenHelper) {
-            SQLiteCopyOpenHelper copyOpenHelper = (SQLiteCopyOpenHelper) mOpenHelper;
+        SQLiteCopyOpenHelper copyOpenHelper = unwrapOpenHelper(SQLiteCopyOpenHelper.class,
+                mOpenHelper);
+        if (copyOpenHelper != null) {
             copyOpenHelper.setDatabaseConfiguration(configuration);
         }
+        AutoClosingRoomOpenHelper autoClosingRoomOpenHelper = unwrapOpenHelper(
+                AutoClosingRoomOpenHelper.class, mOpenHelper);
+        if (autoClosingRoomOpenHelper != null) {
+            mAutoCloser = autoClosingRoomOpenHelper.getAutoCloser();
+            // Triggers and the tracking table are TEMP, so they are lost when the database is
+            // closed and have to be recreated when it is reopened.
+            mAutoCloser.setAutoCloseCallback(mCloseLock.writeLock(), new Runnable() {
+                @Override
+                public void run() {
+                    mInvalidationTracker.onAutoCloseCallback();
+                }
+            });
+        }
         boolean wal = false;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             wal = configuration.journalMode == JournalMode.WRITE_AHEAD_LOGGING;
@@ -238,6 +262,30 @@ public abstract class RoomDatabase {
         }
     }
 
+    /**
+     * Unwraps (delegating) open helpers until it finds clazz, otherwise returns null.
+     *
+     * @param clazz      the open helper type to search for
+     * @param openHelper the open helper to search through
+     * @param <T>        the type of clazz
+     * @return the instance of clazz, otherwise null
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static <T> T unwrapOpenHelper(@NonNull Class<T> clazz,
+            @NonNull SupportSQLiteOpenHelper openHelper) {
+        while (true) {
+            if (clazz.isInstance(openHelper)) {
+                return (T) openHelper;
+            }
+            if (openHelper instanceof DelegatingOpenHelper) {
+                openHelper = ((DelegatingOpenHelper) openHelper).getDelegate();
+            } else {
+                return null;
+            }
+        }
+    }
+
     /**
      * Returns the SQLite open helper used by this database.
      *
@@ -305,6 +353,11 @@ public abstract class RoomDatabase {
      * @return true if the database connection is open, false otherwise.
      */
     public boolean isOpen() {
+        // We need to special case for the auto closing database because mDatabase is the
+        // underlying database and not the wrapped database.
+        if (mAutoCloser != null) {
+            return mAutoCloser.isActive();
+        }
         final SupportSQLiteDatabase db = mDatabase;
         return db != null && db.isOpen();
     }
@@ -371,7 +424,7 @@ public abstract class RoomDatabase {
      */
     @NonNull
     public Cursor query(@NonNull String query, @Nullable Object[] args) {
-        return mOpenHelper.getWritableDatabase().query(new SimpleSQLiteQuery(query, args));
+        return getDatabaseForQuery(query).query(new SimpleSQLiteQuery(query, args));
     }
 
     /**
@@ -387,6 +440,13 @@ public abstract class RoomDatabase {
 
     /**
      * Wrapper for {@link SupportSQLiteDatabase#query(SupportSQLiteQuery)}.
+     * <p>
+     * When write-ahead logging is enabled, a {@code SELECT} that is not part of a transaction,
+     * and that doesn't call connection-scoped functions such as {@code last_insert_rowid()}, runs
+     * on {@link SupportSQLiteOpenHelper#getReadableDatabase()}, which may be a separate
+     * read-only connection if the open helper factory provides one (for example a
+     * {@link FrameworkSQLiteOpenHelperFactory} created with read connections). Such queries
+     * cannot see TEMP tables; run them within a transaction to use the read-write connection.
      *
      * @param query The Query which includes the SQL and a bind callback for bind arguments.
      * @param signal The cancellation signal to be attached to the query.
@@ -396,11 +456,28 @@ public abstract class RoomDatabase {
     public Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal signal) {
         assertNotMainThread();
         assertNotSuspendingTransaction();
+        final SupportSQLiteDatabase database = getDatabaseForQuery(query.getSql());
         if (signal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-            return mOpenHelper.getWritableDatabase().query(query, signal);
+            return database.query(query, signal);
         } else {
-            return mOpenHelper.getWritableDatabase().query(query);
+            return database.query(query);
+        }
+    }
+
+    /**
+     * Returns the database a query should run on. In write-ahead logging mode, reads outside of
+     * a transaction do not need to see uncommitted changes, so they can use a read connection
+     * and run in parallel with other reads and with the writer. Everything else, including the
+     * InvalidationTracker's read of its TEMP table, which happens within a transaction in this
+     * mode, uses the read-write connection.
+     */
+    private SupportSQLiteDatabase getDatabaseForQuery(@NonNull String sql) {
+        final SupportSQLiteDatabase writableDatabase = mOpenHelper.getWritableDatabase();
+        if (mWriteAheadLoggingEnabled && DBUtil.isReadOnlyQuery(sql)
+                && !writableDatabase.inTransaction()) {
+            return mOpenHelper.getReadableDatabase();
         }
+        return writableDatabase;
     }
 
     /**
@@ -647,6 +724,16 @@ public abstract class RoomDatabase {
         private String mCopyFromAssetPath;
         private File mCopyFromFile;
         private Callable<InputStream> mCopyFromInputStream;
+        private String mSqlScriptAssetPath;
+        private Callable<InputStream> mSqlScriptInputStream;
+
+        private long mAutoCloseTimeout = -1L;
+        private TimeUnit mAutoCloseTimeUnit;
+
+        private QueryCallback mQueryCallback;
+        private Executor mQueryCallbackExecutor;
+        private long mInvalidationWindowMs = 0;
+        private long mSlowQueryThresholdNanos;
 
         Builder(@NonNull Context context, @NonNull Class<T> klass, @Nullable String name) {
             mContext = context;
@@ -666,6 +753,9 @@ public abstract class RoomDatabase {
          * the "assets/" folder of your application. For example, the path for a file located in
          * "assets/databases/products.db" would be "databases/products.db".
          * <p>
+         * A gzip compressed pre-packaged database is decompressed while it is copied, so the
+         * compressed file can be shipped instead.
+         * <p>
          * The pre-packaged database schema will be validated. It might be best to create your
          * pre-packaged database schema utilizing the exported schema files generated when
          * {@link Database#exportSchema()} is enabled.
@@ -692,6 +782,9 @@ public abstract class RoomDatabase {
          * the "assets/" folder of your application. For example, the path for a file located in
          * "assets/databases/products.db" would be "databases/products.db".
          * <p>
+         * A gzip compressed pre-packaged database is decompressed while it is copied, so the
+         * compressed file can be shipped instead.
+         * <p>
          * The pre-packaged database schema will be validated. It might be best to create your
          * pre-packaged database schema utilizing the exported schema files generated when
          * {@link Database#exportSchema()} is enabled.
@@ -721,6 +814,9 @@ public abstract class RoomDatabase {
          * app database folder and then opens it. The given file must be accessible and the right
          * permissions must be granted for Room to copy the file.
          * <p>
+         * A gzip compressed pre-packaged database is decompressed while it is copied, so the
+         * compressed file can be shipped instead.
+         * <p>
          * The pre-packaged database schema will be validated. It might be best to create your
          * pre-packaged database schema utilizing the exported schema files generated when
          * {@link Database#exportSchema()} is enabled.
@@ -747,6 +843,9 @@ public abstract class RoomDatabase {
          * app database folder and then opens it. The given file must be accessible and the right
          * permissions must be granted for Room to copy the file.
          * <p>
+         * A gzip compressed pre-packaged database is decompressed while it is copied, so the
+         * compressed file can be shipped instead.
+         * <p>
          * The pre-packaged database schema will be validated. It might be best to create your
          * pre-packaged database schema utilizing the exported schema files generated when
          * {@link Database#exportSchema()} is enabled.
@@ -779,6 +878,9 @@ public abstract class RoomDatabase {
          * pre-packaged database, instead it copies it into the internal app database folder, and
          * then open it. The {@link InputStream} will be closed once Room is done consuming it.
          * <p>
+         * A gzip compressed pre-packaged database is decompressed while it is copied, so the
+         * compressed file can be shipped instead.
+         * <p>
          * The pre-packaged database schema will be validated. It might be best to create your
          * pre-packaged database schema utilizing the exported schema files generated when
          * {@link Database#exportSchema()} is enabled.
@@ -813,6 +915,9 @@ public abstract class RoomDatabase {
          * pre-packaged database, instead it copies it into the internal app database folder, and
          * then open it. The {@link InputStream} will be closed once Room is done consuming it.
          * <p>
+         * A gzip compressed pre-packaged database is decompressed while it is copied, so the
+         * compressed file can be shipped instead.
+         * <p>
          * The pre-packaged database schema will be validated. It might be best to create your
          * pre-packaged database schema utilizing the exported schema files generated when
          * {@link Database#exportSchema()} is enabled.
@@ -842,6 +947,67 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Configures Room to seed the database with a SQL script from the application 'assets/'
+         * folder when it is created, or recreated by a destructive migration.
+         * <p>
+         * Unlike {@link #createFromAsset(String)}, the database is created by Room as usual and the
+         * statements of the script are then run on it, in the same transaction, one at a time
+         * while it is read. This is useful for shipping seed data as a dump of the rows to insert,
+         * such as the output of the sqlite3 {@code .dump --data-only} command, instead of a full
+         * database file. Statements creating the tables Room creates must not be part of the
+         * script. A gzip compressed script is decompressed as it is read.
+         * The script is not run again when an existing database is migrated with a
+         * {@link Migration}, which has to insert any seed data it needs itself.
+         * <p>
+         * This method is supported for an in memory database {@link Builder}, but cannot be
+         * combined with {@link #createFromAsset(String)}, {@link #createFromFile(File)} or
+         * {@link #createFromInputStream(Callable)}.
+         *
+         * @param scriptFilePath The file path within the 'assets/' directory of where the SQL
+         *                       script is located.
+         *
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        @SuppressLint("BuilderSetStyle") // To keep naming consistency.
+        public Builder<T> createFromSqlAsset(@NonNull String scriptFilePath) {
+            mSqlScriptAssetPath = scriptFilePath;
+            return this;
+        }
+
+        /**
+         * Configures Room to seed the database with a SQL script read from an
+         * {@link InputStream} when it is created, or recreated by a destructive migration.
+         * <p>
+         * Unlike {@link #createFromInputStream(Callable)}, the database is created by Room as usual
+         * and the statements of the script are then run on it, in the same transaction, one at a
+         * time while it is read. This is useful for shipping seed data as a dump of the rows to
+         * insert, such as the output of the sqlite3 {@code .dump --data-only} command, instead of
+         * a full database file. Statements creating the tables Room creates must not be part of
+         * the script. A gzip compressed script is decompressed as it is read. The
+         * {@link InputStream} will be closed once Room is done consuming it.
+         * The script is not run again when an existing database is migrated with a
+         * {@link Migration}, which has to insert any seed data it needs itself.
+         * <p>
+         * This method is supported for an in memory database {@link Builder}, but cannot be
+         * combined with {@link #createFromAsset(String)}, {@link #createFromFile(File)} or
+         * {@link #createFromInputStream(Callable)}.
+         *
+         * @param inputStreamCallable A callable that returns an InputStream from which to read
+         *                            the script. The callable is only invoked when the database
+         *                            is created or destructively migrated.
+         *
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        @SuppressLint("BuilderSetStyle") // To keep naming consistency.
+        public Builder<T> createFromSqlInputStream(
+                @NonNull Callable<InputStream> inputStreamCallable) {
+            mSqlScriptInputStream = inputStreamCallable;
+            return this;
+        }
+
         /**
          * Sets the database factory. If not set, it defaults to
          * {@link FrameworkSQLiteOpenHelperFactory}.
@@ -1107,6 +1273,115 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Enables auto-closing for the database to free up unused resources. The underlying
+         * database will be closed once the specified {@code autoCloseTimeout} has elapsed since
+         * its last usage. The database will be automatically re-opened the next time it is
+         * accessed.
+         * <p>
+         * Auto-closing is not compatible with in-memory databases since the data will be lost
+         * when the database is auto-closed.
+         * <p>
+         * Also, temp tables and temp triggers will be cleared each time the database is
+         * auto-closed. If you need to use them, please include them in your
+         * {@link RoomDatabase.Callback#onOpen(SupportSQLiteDatabase)} callback. The
+         * {@link InvalidationTracker} recreates its own tracking table and triggers on reopen.
+         * <p>
+         * The database is closed on the executor set with {@link #setQueryExecutor(Executor)},
+         * and never while a query, cursor, statement or transaction is in use.
+         *
+         * @param autoCloseTimeout  the amount of time after the last usage before closing the
+         *                          database. Must be greater than or equal to zero.
+         * @param autoCloseTimeUnit the time unit for autoCloseTimeout.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        @SuppressWarnings("MissingGetterMatchingBuilder")
+        public Builder<T> setAutoCloseTimeout(
+                @IntRange(from = 0) long autoCloseTimeout, @NonNull TimeUnit autoCloseTimeUnit) {
+            if (autoCloseTimeout < 0) {
+                throw new IllegalArgumentException("autoCloseTimeout must be >= 0");
+            }
+            mAutoCloseTimeout = autoCloseTimeout;
+            mAutoCloseTimeUnit = autoCloseTimeUnit;
+            return this;
+        }
+
+        /**
+         * Sets a {@link QueryCallback} which is invoked for every SQL statement the database
+         * runs, with its bind arguments, execution time and the number of rows it returned or
+         * changed. This includes raw queries and the statements which begin and end
+         * transactions.
+         * <p>
+         * The callback is invoked on the given executor, so it does not delay the query.
+         * Statements run while the database is created, migrated or opened are not reported.
+         * Without a callback the database is not instrumented at all.
+         *
+         * @param queryCallback The query callback.
+         * @param executor      The executor on which the query callback will be invoked.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        @SuppressWarnings("MissingGetterMatchingBuilder")
+        public Builder<T> setQueryCallback(@NonNull QueryCallback queryCallback,
+                @NonNull Executor executor) {
+            return setQueryCallback(queryCallback, executor, 0, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Sets a {@link QueryCallback} which is invoked for every SQL statement that takes at
+         * least {@code slowQueryThreshold} to run. Faster statements are not reported and cost
+         * no more than reading the clock twice.
+         *
+         * @param queryCallback      The query callback.
+         * @param executor           The executor on which the query callback will be invoked.
+         * @param slowQueryThreshold The minimum execution time of a reported statement. Must be
+         *                           greater than or equal to zero.
+         * @param timeUnit           The time unit for slowQueryThreshold.
+         * @return This {@link Builder} instance.
+         * @see #setQueryCallback(QueryCallback, Executor)
+         */
+        @NonNull
+        @SuppressWarnings("MissingGetterMatchingBuilder")
+        public Builder<T> setQueryCallback(@NonNull QueryCallback queryCallback,
+                @NonNull Executor executor, @IntRange(from = 0) long slowQueryThreshold,
+                @NonNull TimeUnit timeUnit) {
+            if (slowQueryThreshold < 0) {
+                throw new IllegalArgumentException("slowQueryThreshold must be >= 0");
+            }
+            mQueryCallback = queryCallback;
+            mQueryCallbackExecutor = executor;
+            mSlowQueryThresholdNanos = timeUnit.toNanos(slowQueryThreshold);
+            return this;
+        }
+
+        /**
+         * Sets a window in which the {@link InvalidationTracker} merges table invalidations.
+         * <p>
+         * By default, the tracker checks which tables changed right after each transaction ends
+         * and notifies the observers of those tables, e.g. to re-run the queries of
+         * {@link androidx.lifecycle.LiveData LiveData} results. With a window, the check is
+         * delayed until the window has passed since the first transaction which ended after the
+         * last check. Changes made by all the transactions ending within the window then cause a
+         * single notification per observer. This saves work when many small transactions are
+         * run in a row, at the cost of notifying observers up to one window later.
+         *
+         * @param window   The invalidation window. Must be greater than or equal to zero, where
+         *                 zero, the default, checks right away.
+         * @param timeUnit The time unit for window.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        @SuppressWarnings("MissingGetterMatchingBuilder")
+        public Builder<T> setInvalidationWindow(@IntRange(from = 0) long window,
+                @NonNull TimeUnit timeUnit) {
+            if (window < 0) {
+                throw new IllegalArgumentException("window must be >= 0");
+            }
+            mInvalidationWindowMs = timeUnit.toMillis(window);
+            return this;
+        }
+
         /**
          * Creates the databases and initializes it.
          * <p>
@@ -1173,6 +1448,43 @@ public abstract class RoomDatabase {
                 mFactory = new SQLiteCopyOpenHelperFactory(mCopyFromAssetPath, mCopyFromFile,
                         mCopyFromInputStream, mFactory);
             }
+
+            if (mSqlScriptAssetPath != null || mSqlScriptInputStream != null) {
+                if (mSqlScriptAssetPath != null && mSqlScriptInputStream != null) {
+                    throw new IllegalArgumentException("Both createFromSqlAsset() and "
+                            + "createFromSqlInputStream() were called on this Builder, but the "
+                            + "database can only be seeded using one of them.");
+                }
+                if (mCopyFromAssetPath != null
+                        || mCopyFromFile != null
+                        || mCopyFromInputStream != null) {
+                    throw new IllegalArgumentException("A SQL script to seed the database cannot "
+                            + "be combined with createFromAsset(), createFromInputStream() or "
+                            + "createFromFile().");
+                }
+                if (mCallbacks == null) {
+                    mCallbacks = new ArrayList<>();
+                }
+                // Seed the database before any other callback sees it.
+                mCallbacks.add(0, new SqlScriptCallback(mContext, mSqlScriptAssetPath,
+                        mSqlScriptInputStream));
+            }
+
+            if (mAutoCloseTimeout >= 0) {
+                if (mName == null) {
+                    throw new IllegalArgumentException("Cannot create auto-closing database for "
+                            + "an in-memory database.");
+                }
+                AutoCloser autoCloser = new AutoCloser(mAutoCloseTimeout, mAutoCloseTimeUnit,
+                        mQueryExecutor);
+                mFactory = new AutoClosingRoomOpenHelperFactory(mFactory, autoCloser);
+            }
+
+            if (mQueryCallback != null) {
+                mFactory = new QueryInterceptorOpenHelperFactory(mFactory,
+                        new QueryInterceptor(mQueryCallback, mQueryCallbackExecutor,
+                                mSlowQueryThresholdNanos));
+            }
             DatabaseConfiguration configuration =
                     new DatabaseConfiguration(
                             mContext,
@@ -1195,6 +1507,9 @@ public abstract class RoomDatabase {
                             mTypeConverters);
             T db = Room.getGeneratedImplementation(mDatabaseClass, DB_IMPL_SUFFIX);
             db.init(configuration);
+            if (mInvalidationWindowMs > 0) {
+                db.getInvalidationTracker().setInvalidationWindow(mInvalidationWindowMs);
+            }
             return db;
         }
     }
@@ -1326,6 +1641,28 @@ public abstract class RoomDatabase {
         }
     }
 
+    /**
+     * Callback for {@link Builder#setQueryCallback(QueryCallback, Executor)}.
+     */
+    public interface QueryCallback {
+
+        /**
+         * Called when a SQL statement has been run.
+         * <p>
+         * Transactions are reported as the pseudo statements
+         * {@code BEGIN EXCLUSIVE TRANSACTION}, {@code BEGIN IMMEDIATE TRANSACTION} and
+         * {@code END TRANSACTION}.
+         *
+         * @param sqlQuery           The SQL statement.
+         * @param bindArgs           The arguments bound to the statement, in index order.
+         * @param executionTimeNanos The time the statement took to run, in nanoseconds.
+         * @param rowCount           The number of rows returned by a query or changed by an
+         *                           insert, update or delete, or -1 for other statements.
+         */
+        void onQuery(@NonNull String sqlQuery, @NonNull List<Object> bindArgs,
+                long executionTimeNanos, int rowCount);
+    }
+
     /**
      * Callback for {@link Builder#createFromAsset(String)}, {@link Builder#createFromFile(File)}
      * and {@link Builder#createFromInputStream(Callable)}
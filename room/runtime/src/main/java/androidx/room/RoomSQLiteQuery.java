@@ -17,6 +17,7 @@
 package androidx.room;
 
 import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.sqlite.db.SupportSQLiteProgram;
@@ -25,15 +26,13 @@ import androidx.sqlite.db.SupportSQLiteQuery;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * This class is used as an intermediate place to keep binding arguments so that we can run
  * Cursor queries with correct types rather than passing everything as a string.
  * <p>
  * Because it is relatively a big object, they are pooled and must be released after each use.
+ * The pool is shared by the whole process, see {@link RoomSQLiteQueryPool}.
  *
  * @hide
  */
@@ -42,13 +41,19 @@ import java.util.TreeMap;
 public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram {
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    // Maximum number of queries we'll keep cached.
+    // Maximum number of queries we'll keep cached, per pool stripe.
     static final int POOL_LIMIT = 15;
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    // Once we hit POOL_LIMIT, we'll bring the pool size back to the desired number. We always
+    // Once we hit POOL_LIMIT, we'll bring the stripe size back to the desired number. We always
     // clear the bigger queries (# of arguments).
     static final int DESIRED_POOL_SIZE = 10;
+    private static volatile RoomSQLiteQueryPool sPool = new RoomSQLiteQueryPool();
+    // The pool the query is released to.
+    private final RoomSQLiteQueryPool mPool;
+    // The stripe of mPool the query was acquired from, and is released to. Volatile since the
+    // query may be released on another thread, such as the finalizer.
+    volatile int mStripeIndex;
     private volatile String mQuery;
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
@@ -73,11 +78,6 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
     @VisibleForTesting
     int mArgCount;
 
-
-    @SuppressWarnings("WeakerAccess")
-    @VisibleForTesting
-    static final TreeMap<Integer, RoomSQLiteQuery> sQueryPool = new TreeMap<>();
-
     /**
      * Copies the given SupportSQLiteQuery and converts it into RoomSQLiteQuery.
      *
@@ -138,22 +138,30 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public static RoomSQLiteQuery acquire(String query, int argumentCount) {
-        synchronized (sQueryPool) {
-            final Map.Entry<Integer, RoomSQLiteQuery> entry =
-                    sQueryPool.ceilingEntry(argumentCount);
-            if (entry != null) {
-                sQueryPool.remove(entry.getKey());
-                final RoomSQLiteQuery sqliteQuery = entry.getValue();
-                sqliteQuery.init(query, argumentCount);
-                return sqliteQuery;
-            }
-        }
-        RoomSQLiteQuery sqLiteQuery = new RoomSQLiteQuery(argumentCount);
-        sqLiteQuery.init(query, argumentCount);
-        return sqLiteQuery;
+        return sPool.acquire(query, argumentCount);
+    }
+
+    /**
+     * Returns the pool which {@link #acquire(String, int)} takes queries from.
+     */
+    @NonNull
+    public static RoomSQLiteQueryPool getPool() {
+        return sPool;
     }
 
-    private RoomSQLiteQuery(int capacity) {
+    /**
+     * Replaces the pool which {@link #acquire(String, int)} takes queries from, for example with
+     * one which has more stripes for a process running many queries in parallel. Queries
+     * acquired before are still released to the pool they came from.
+     *
+     * @param pool The new pool.
+     */
+    public static void setPool(@NonNull RoomSQLiteQueryPool pool) {
+        sPool = pool;
+    }
+
+    RoomSQLiteQuery(RoomSQLiteQueryPool pool, int capacity) {
+        mPool = pool;
         mCapacity = capacity;
         // because, 1 based indices... we don't want to offsets everything with 1 all the time.
         int limit = capacity + 1;
@@ -179,21 +187,7 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public void release() {
-        synchronized (sQueryPool) {
-            sQueryPool.put(mCapacity, this);
-            prunePoolLocked();
-        }
-    }
-
-    private static void prunePoolLocked() {
-        if (sQueryPool.size() > POOL_LIMIT) {
-            int toBeRemoved = sQueryPool.size() - DESIRED_POOL_SIZE;
-            final Iterator<Integer> iterator = sQueryPool.descendingKeySet().iterator();
-            while (toBeRemoved-- > 0) {
-                iterator.next();
-                iterator.remove();
-            }
-        }
+        mPool.release(this);
     }
 
     @Override
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A pool of released {@link RoomSQLiteQuery} instances, split into stripes so that threads
+ * acquiring and releasing queries in parallel rarely contend for the same lock.
+ * <p>
+ * A thread always acquires from the same stripe, picked by its id. A query is released to the
+ * stripe it was acquired from, even when another thread releases it, such as the finalizer or
+ * the executor which ran the query, so that it's reused by the thread which needs it. Each stripe
+ * keeps at most one query per capacity, and once it holds more than {@code stripeLimit} queries,
+ * it drops the largest ones until {@code desiredStripeSize} remain.
+ * <p>
+ * The pool counts how many queries were acquired and how many of those were reused from the
+ * pool (hits) or had to be allocated (misses). The counters are kept per stripe and summed when
+ * read, so counting does not add contention.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public final class RoomSQLiteQueryPool {
+    private static final int MAX_DEFAULT_STRIPE_COUNT = 8;
+
+    private final Stripe[] mStripes;
+    private final int mStripeLimit;
+    private final int mDesiredStripeSize;
+
+    /**
+     * Creates a pool with one stripe per processor, up to 8, each holding up to
+     * {@link RoomSQLiteQuery#POOL_LIMIT} queries.
+     */
+    public RoomSQLiteQueryPool() {
+        this(Math.min(Runtime.getRuntime().availableProcessors(), MAX_DEFAULT_STRIPE_COUNT),
+                RoomSQLiteQuery.POOL_LIMIT, RoomSQLiteQuery.DESIRED_POOL_SIZE);
+    }
+
+    /**
+     * @param stripeCount       The number of stripes, usually the number of threads expected to
+     *                          run queries in parallel.
+     * @param stripeLimit       The number of queries a stripe may hold before it is pruned.
+     * @param desiredStripeSize The number of queries left in a stripe after it is pruned.
+     */
+    public RoomSQLiteQueryPool(int stripeCount, int stripeLimit, int desiredStripeSize) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount must be >= 1");
+        }
+        if (desiredStripeSize < 0 || desiredStripeSize > stripeLimit) {
+            throw new IllegalArgumentException(
+                    "desiredStripeSize must be >= 0 and <= stripeLimit");
+        }
+        mStripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            mStripes[i] = new Stripe();
+        }
+        mStripeLimit = stripeLimit;
+        mDesiredStripeSize = desiredStripeSize;
+    }
+
+    /**
+     * Returns a released query from the calling thread's stripe which can hold the given number
+     * of arguments, or a new one.
+     */
+    @NonNull
+    RoomSQLiteQuery acquire(String query, int argumentCount) {
+        final int stripeIndex = getStripeIndexForCurrentThread();
+        final Stripe stripe = mStripes[stripeIndex];
+        synchronized (stripe) {
+            final Map.Entry<Integer, RoomSQLiteQuery> entry =
+                    stripe.mQueries.ceilingEntry(argumentCount);
+            if (entry != null) {
+                stripe.mQueries.remove(entry.getKey());
+                stripe.mHitCount++;
+                final RoomSQLiteQuery sqliteQuery = entry.getValue();
+                sqliteQuery.init(query, argumentCount);
+                sqliteQuery.mStripeIndex = stripeIndex;
+                return sqliteQuery;
+            }
+            stripe.mMissCount++;
+        }
+        RoomSQLiteQuery sqLiteQuery = new RoomSQLiteQuery(this, argumentCount);
+        sqLiteQuery.init(query, argumentCount);
+        sqLiteQuery.mStripeIndex = stripeIndex;
+        return sqLiteQuery;
+    }
+
+    /**
+     * Returns the query to the stripe it was acquired from.
+     */
+    void release(@NonNull RoomSQLiteQuery query) {
+        final Stripe stripe = mStripes[query.mStripeIndex];
+        synchronized (stripe) {
+            stripe.mQueries.put(query.mCapacity, query);
+            if (stripe.mQueries.size() > mStripeLimit) {
+                int toBeRemoved = stripe.mQueries.size() - mDesiredStripeSize;
+                final Iterator<Integer> iterator = stripe.mQueries.descendingKeySet().iterator();
+                while (toBeRemoved-- > 0) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of queries acquired from this pool.
+     */
+    public long getAcquireCount() {
+        return getHitCount() + getMissCount();
+    }
+
+    /**
+     * Returns the number of acquired queries which were reused from the pool.
+     */
+    public long getHitCount() {
+        long count = 0;
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                count += stripe.mHitCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of acquired queries which had to be allocated.
+     */
+    public long getMissCount() {
+        long count = 0;
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                count += stripe.mMissCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Resets the hit and miss counters to zero.
+     */
+    public void resetStats() {
+        for (Stripe stripe : mStripes) {
+            synchronized (stripe) {
+                stripe.mHitCount = 0;
+                stripe.mMissCount = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the pooled queries of the calling thread's stripe, by capacity. Only for tests
+     * which run on a single thread, since the map is read without its lock.
+     */
+    @VisibleForTesting
+    TreeMap<Integer, RoomSQLiteQuery> getQueriesForCurrentThread() {
+        return mStripes[getStripeIndexForCurrentThread()].mQueries;
+    }
+
+    private int getStripeIndexForCurrentThread() {
+        final long id = Thread.currentThread().getId();
+        return (int) ((id & Long.MAX_VALUE) % mStripes.length);
+    }
+
+    private static final class Stripe {
+        // Guarded by this
+        final TreeMap<Integer, RoomSQLiteQuery> mQueries = new TreeMap<>();
+        // Guarded by this
+        long mHitCount;
+        // Guarded by this
+        long mMissCount;
+    }
+}
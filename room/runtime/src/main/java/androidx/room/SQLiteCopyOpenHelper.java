@@ -35,7 +35,6 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.util.concurrent.Callable;
@@ -44,7 +43,7 @@ import java.util.concurrent.Callable;
  * An open helper that will copy & open a pre-populated database if it doesn't exists in internal
  * storage.
  */
-class SQLiteCopyOpenHelper implements SupportSQLiteOpenHelper {
+class SQLiteCopyOpenHelper implements SupportSQLiteOpenHelper, DelegatingOpenHelper {
 
     @NonNull
     private final Context mContext;
@@ -112,6 +111,12 @@ class SQLiteCopyOpenHelper implements SupportSQLiteOpenHelper {
         mVerified = false;
     }
 
+    @Override
+    @NonNull
+    public SupportSQLiteOpenHelper getDelegate() {
+        return mDelegate;
+    }
+
     // Can't be constructor param because the factory is needed by the database builder which in
     // turn is the one that actually builds the configuration.
     void setDatabaseConfiguration(@Nullable DatabaseConfiguration databaseConfiguration) {
@@ -180,23 +185,24 @@ class SQLiteCopyOpenHelper implements SupportSQLiteOpenHelper {
     }
 
     private void copyDatabaseFile(File destinationFile, boolean writable) throws IOException {
-        ReadableByteChannel input;
+        InputStream inputStream;
         if (mCopyFromAssetPath != null) {
-            input = Channels.newChannel(mContext.getAssets().open(mCopyFromAssetPath));
+            inputStream = mContext.getAssets().open(mCopyFromAssetPath);
         } else if (mCopyFromFile != null) {
-            input = new FileInputStream(mCopyFromFile).getChannel();
+            inputStream = new FileInputStream(mCopyFromFile);
         } else if (mCopyFromInputStream != null) {
-            final InputStream inputStream;
             try {
                 inputStream = mCopyFromInputStream.call();
             } catch (Exception e) {
                 throw new IOException("inputStreamCallable exception on call", e);
             }
-            input = Channels.newChannel(inputStream);
         } else {
             throw new IllegalStateException("copyFromAssetPath, copyFromFile and "
                     + "copyFromInputStream are all null!");
         }
+        // A gzip compressed database is decompressed as it is copied, otherwise the data is
+        // transferred between channels.
+        ReadableByteChannel input = FileUtil.decompressToChannel(inputStream);
 
         // An intermediate file is used so that we never end up with a half-copied database file
         // in the internal directory.
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.util.FileUtil;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link RoomDatabase.Callback} which seeds a newly created database by running a SQL script
+ * from an asset or an {@link InputStream}, which may be gzip compressed.
+ * <p>
+ * The script runs in the transaction in which the database is created, after Room created its
+ * tables, so transaction statements in the script are ignored. A destructive migration leaves
+ * the tables empty, so the script runs again after it, in the migration's transaction. The script
+ * is not run when the database is migrated with a {@link androidx.room.migration.Migration} or
+ * merely opened, since the existing rows are kept then.
+ */
+class SqlScriptCallback extends RoomDatabase.Callback {
+    private static final Pattern TRANSACTION_STATEMENT = Pattern.compile(
+            "^(BEGIN|COMMIT|END|ROLLBACK)(\\s+(DEFERRED|IMMEDIATE|EXCLUSIVE))?"
+                    + "(\\s+TRANSACTION)?$");
+
+    @NonNull
+    private final Context mContext;
+    @Nullable
+    private final String mAssetPath;
+    @Nullable
+    private final Callable<InputStream> mInputStreamCallable;
+
+    SqlScriptCallback(@NonNull Context context, @Nullable String assetPath,
+            @Nullable Callable<InputStream> inputStreamCallable) {
+        mContext = context;
+        mAssetPath = assetPath;
+        mInputStreamCallable = inputStreamCallable;
+    }
+
+    @Override
+    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+        seed(db);
+    }
+
+    @Override
+    public void onDestructiveMigration(@NonNull SupportSQLiteDatabase db) {
+        seed(db);
+    }
+
+    private void seed(@NonNull SupportSQLiteDatabase db) {
+        try {
+            InputStream input;
+            if (mAssetPath != null) {
+                input = mContext.getAssets().open(mAssetPath);
+            } else if (mInputStreamCallable != null) {
+                try {
+                    input = mInputStreamCallable.call();
+                } catch (Exception e) {
+                    throw new IOException("inputStreamCallable exception on call", e);
+                }
+            } else {
+                throw new IllegalStateException("assetPath and inputStreamCallable are both null!");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    FileUtil.decompress(input), Charset.forName("UTF-8")));
+            try {
+                execScript(db, new SqlScriptReader(reader));
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read the SQL script to seed the database.", e);
+        }
+    }
+
+    private static void execScript(SupportSQLiteDatabase db, SqlScriptReader script)
+            throws IOException {
+        String statement;
+        while ((statement = script.readStatement()) != null) {
+            if (!TRANSACTION_STATEMENT.matcher(statement.toUpperCase(Locale.US)).matches()) {
+                db.execSQL(statement);
+            }
+        }
+    }
+}
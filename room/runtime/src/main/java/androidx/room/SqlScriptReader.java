@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a SQL script, such as the output of the sqlite3 {@code .dump} command, into statements
+ * one at a time, so that a large script never has to be held in memory.
+ * <p>
+ * Statements are separated by semicolons outside of quotes and comments. Comments are replaced
+ * by a space. The body of a {@code CREATE TRIGGER} statement may contain semicolons, so such a
+ * statement only ends at a semicolon following the {@code END} which matches its {@code BEGIN}.
+ */
+final class SqlScriptReader {
+    private static final Pattern CREATE_TRIGGER = Pattern.compile(
+            "^CREATE\\s+(TEMP\\s+|TEMPORARY\\s+)?TRIGGER\\b.*", Pattern.DOTALL);
+
+    private final Reader mReader;
+    private final StringBuilder mStatement = new StringBuilder();
+    private int mPeeked = -2;
+
+    SqlScriptReader(@NonNull Reader reader) {
+        mReader = reader;
+    }
+
+    /**
+     * Returns the next statement of the script, without its terminating semicolon, or null once
+     * the end of the script is reached.
+     *
+     * @throws IOException if there is an I/O error.
+     */
+    @Nullable
+    String readStatement() throws IOException {
+        mStatement.setLength(0);
+        int c;
+        while ((c = read()) != -1) {
+            switch (c) {
+                case '\'':
+                case '"':
+                case '`':
+                    readQuoted(c, c);
+                    break;
+                case '[':
+                    readQuoted(c, ']');
+                    break;
+                case '-':
+                    if (peek() == '-') {
+                        skipLineComment();
+                    } else {
+                        mStatement.append((char) c);
+                    }
+                    break;
+                case '/':
+                    if (peek() == '*') {
+                        read();
+                        skipBlockComment();
+                    } else {
+                        mStatement.append((char) c);
+                    }
+                    break;
+                case ';':
+                    String statement = mStatement.toString().trim();
+                    if (statement.isEmpty()) {
+                        mStatement.setLength(0);
+                    } else if (isIncompleteTrigger(statement)) {
+                        mStatement.append(';');
+                    } else {
+                        return statement;
+                    }
+                    break;
+                default:
+                    mStatement.append((char) c);
+            }
+        }
+        String statement = mStatement.toString().trim();
+        return statement.isEmpty() ? null : statement;
+    }
+
+    private void readQuoted(int open, int close) throws IOException {
+        mStatement.append((char) open);
+        int c;
+        while ((c = read()) != -1) {
+            mStatement.append((char) c);
+            if (c == close) {
+                // A doubled quote is an escaped quote, except for brackets which cannot be
+                // escaped.
+                if (open != '[' && peek() == close) {
+                    mStatement.append((char) read());
+                } else {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void skipLineComment() throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            // Skip to the end of the line.
+        }
+        mStatement.append(' ');
+    }
+
+    private void skipBlockComment() throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '*' && peek() == '/') {
+                read();
+                break;
+            }
+        }
+        mStatement.append(' ');
+    }
+
+    private static boolean isIncompleteTrigger(String statement) {
+        String upperCase = statement.toUpperCase(Locale.US);
+        if (!CREATE_TRIGGER.matcher(upperCase).matches()) {
+            return false;
+        }
+        // CASE expressions in the trigger body also end with END, so they are counted along with
+        // BEGIN to find the END of the body. Comments are already gone, but quotes are skipped.
+        int depth = 0;
+        int i = 0;
+        final int length = upperCase.length();
+        while (i < length) {
+            char c = upperCase.charAt(i);
+            if (c == '\'' || c == '"' || c == '`' || c == '[') {
+                int close = upperCase.indexOf(c == '[' ? ']' : c, i + 1);
+                i = close < 0 ? length : close + 1;
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < length && isWordPart(upperCase.charAt(i))) {
+                    i++;
+                }
+                String word = upperCase.substring(start, i);
+                if (word.equals("BEGIN") || word.equals("CASE")) {
+                    depth++;
+                } else if (word.equals("END")) {
+                    depth--;
+                }
+            } else if (Character.isDigit(c)) {
+                // Skips numbers such as 1E5 as a whole.
+                while (i < length && isWordPart(upperCase.charAt(i))) {
+                    i++;
+                }
+            } else {
+                i++;
+            }
+        }
+        return depth > 0;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private int read() throws IOException {
+        if (mPeeked != -2) {
+            int c = mPeeked;
+            mPeeked = -2;
+            return c;
+        }
+        return mReader.read();
+    }
+
+    private int peek() throws IOException {
+        if (mPeeked == -2) {
+            mPeeked = mReader.read();
+        }
+        return mPeeked;
+    }
+}
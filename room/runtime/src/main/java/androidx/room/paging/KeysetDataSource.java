@@ -0,0 +1,326 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.paging;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+import androidx.room.RoomSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A data source implementation that pages the query by seeking to the key of the last loaded
+ * item, rather than skipping rows with an offset.
+ * <p>
+ * Pages are loaded with {@code WHERE key > ? ORDER BY key LIMIT ?}, which an index on the key
+ * column answers without visiting the rows before the page, so loading a page takes the same
+ * time no matter how deep it is. This is the
+ * <a href="http://www.sqlite.org/cvstrac/wiki?p=ScrollingCursor">recommended</a> way to scroll
+ * through a large query on SQLite, see {@link LimitOffsetDataSource} for the simpler
+ * alternative.
+ * <p>
+ * The key column must be a column of the query's result with unique, non-null values, for
+ * example the primary key, and should be indexed. Pages are ordered by the key, so the query
+ * should either not have an ORDER BY clause or order by the key, otherwise SQLite sorts the
+ * whole query for every page. Keys are bound as longs, doubles, strings or blobs depending on
+ * their type.
+ * <p>
+ * Counting the rows for placeholders still scans the whole query on every initial load, so it
+ * can be turned off, in which case the data source does not provide placeholders.
+ * <p>
+ * Room does not generate it for DAO methods returning a {@code DataSource.Factory}, which keep
+ * paging by offset. Instead, create it from a {@code DataSource.Factory} of your own, reading
+ * the rows of the {@link Cursor} in {@link #convertRows(Cursor)}:
+ * <pre>
+ * new DataSource.Factory&lt;Long, User&gt;() {
+ *     public DataSource&lt;Long, User&gt; create() {
+ *         SimpleSQLiteQuery query = new SimpleSQLiteQuery("SELECT * FROM User");
+ *         return new KeysetDataSource&lt;Long, User&gt;(db, query, "id", false, true, false,
+ *                 "User") {
+ *             protected List&lt;User&gt; convertRows(Cursor cursor) {
+ *                 List&lt;User&gt; users = new ArrayList&lt;&gt;();
+ *                 while (cursor.moveToNext()) {
+ *                     users.add(new User(cursor.getLong(0), cursor.getString(1)));
+ *                 }
+ *                 return users;
+ *             }
+ *
+ *             public Long getKey(User user) {
+ *                 return user.id;
+ *             }
+ *         };
+ *     }
+ * };
+ * </pre>
+ *
+ * @param <K> Type of the key column.
+ * @param <T> Data type returned by the data source.
+ */
+@SuppressWarnings("deprecation")
+public abstract class KeysetDataSource<K, T> extends androidx.paging.ItemKeyedDataSource<K, T> {
+    private final RoomSQLiteQuery mSourceQuery;
+    private final String mCountQuery;
+    private final String mCountBeforeQuery;
+    private final String mFirstPageQuery;
+    private final String mAfterQuery;
+    private final String mAtOrAfterQuery;
+    private final String mBeforeQuery;
+    private final RoomDatabase mDb;
+    @SuppressWarnings("FieldCanBeLocal")
+    private final InvalidationTracker.Observer mObserver;
+    private final boolean mCountItems;
+    private final boolean mInTransaction;
+
+    /**
+     * @param db            The database.
+     * @param query         The query to page. Its arguments are bound to every page query.
+     * @param keyColumn     The name of the result column to order and seek by.
+     * @param descending    True to page from the largest key to the smallest.
+     * @param countItems    True to count the rows of the query, to provide placeholders.
+     * @param inTransaction True to load every page in a transaction, for queries with
+     *                      relations.
+     * @param tables        The tables the query reads from, to invalidate the data source when
+     *                      they change.
+     */
+    protected KeysetDataSource(@NonNull RoomDatabase db, @NonNull SupportSQLiteQuery query,
+            @NonNull String keyColumn, boolean descending, boolean countItems,
+            boolean inTransaction, @NonNull String... tables) {
+        this(db, RoomSQLiteQuery.copyFrom(query), keyColumn, descending, countItems,
+                inTransaction, tables);
+    }
+
+    /**
+     * @param db            The database.
+     * @param query         The query to page.
+     * @param keyColumn     The name of the result column to order and seek by.
+     * @param descending    True to page from the largest key to the smallest.
+     * @param countItems    True to count the rows of the query, to provide placeholders.
+     * @param inTransaction True to load every page in a transaction, for queries with
+     *                      relations.
+     * @param tables        The tables the query reads from.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    protected KeysetDataSource(@NonNull RoomDatabase db, @NonNull RoomSQLiteQuery query,
+            @NonNull String keyColumn, boolean descending, boolean countItems,
+            boolean inTransaction, @NonNull String... tables) {
+        mDb = db;
+        mSourceQuery = query;
+        mCountItems = countItems;
+        mInTransaction = inTransaction;
+        final String source = "SELECT * FROM ( " + mSourceQuery.getSql() + " )";
+        final String key = "`" + keyColumn + "`";
+        final String order = descending ? " DESC" : " ASC";
+        final String reverseOrder = descending ? " ASC" : " DESC";
+        final String after = descending ? " < ?" : " > ?";
+        final String atOrAfter = descending ? " <= ?" : " >= ?";
+        final String before = descending ? " > ?" : " < ?";
+        mCountQuery = "SELECT COUNT(*) FROM ( " + mSourceQuery.getSql() + " )";
+        mCountBeforeQuery = mCountQuery + " WHERE " + key + before;
+        mFirstPageQuery = source + " ORDER BY " + key + order + " LIMIT ?";
+        mAfterQuery = source + " WHERE " + key + after + " ORDER BY " + key + order + " LIMIT ?";
+        mAtOrAfterQuery = source + " WHERE " + key + atOrAfter + " ORDER BY " + key + order
+                + " LIMIT ?";
+        // Seek backwards from the key, then restore the page order.
+        mBeforeQuery = "SELECT * FROM ( " + source + " WHERE " + key + before + " ORDER BY "
+                + key + reverseOrder + " LIMIT ? ) ORDER BY " + key + order;
+        mObserver = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        db.getInvalidationTracker().addWeakObserver(mObserver);
+    }
+
+    /**
+     * Count number of rows query can return
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    @SuppressWarnings("WeakerAccess")
+    public int countItems() {
+        return count(mCountQuery, null);
+    }
+
+    @Override
+    public boolean isInvalid() {
+        mDb.getInvalidationTracker().refreshVersionsSync();
+        return super.isInvalid();
+    }
+
+    /**
+     * Converts the rows of a page to items. The cursor is closed by the data source.
+     *
+     * @param cursor The rows of the page, in the order of the key.
+     * @return The items of the page.
+     */
+    @SuppressWarnings("WeakerAccess")
+    @NonNull
+    protected abstract List<T> convertRows(@NonNull Cursor cursor);
+
+    @Override
+    public void loadInitial(@NonNull LoadInitialParams<K> params,
+            @NonNull LoadInitialCallback<T> callback) {
+        final K initialKey = params.requestedInitialKey;
+        final boolean countItems = mCountItems && params.placeholdersEnabled;
+        List<T> list;
+        int position = 0;
+        int totalCount = 0;
+        mDb.beginTransaction();
+        try {
+            if (initialKey == null) {
+                list = query(mFirstPageQuery, null, params.requestedLoadSize);
+            } else {
+                // Load around the key, so that the item at the key stays in view.
+                List<T> before = query(mBeforeQuery, initialKey, params.requestedLoadSize / 2);
+                List<T> after = query(mAtOrAfterQuery, initialKey,
+                        params.requestedLoadSize - before.size());
+                list = new ArrayList<>(before.size() + after.size());
+                list.addAll(before);
+                list.addAll(after);
+                if (countItems) {
+                    position = count(mCountBeforeQuery, initialKey) - before.size();
+                }
+            }
+            if (countItems) {
+                totalCount = countItems();
+            }
+            mDb.setTransactionSuccessful();
+        } finally {
+            mDb.endTransaction();
+        }
+
+        if (countItems) {
+            callback.onResult(list, position, totalCount);
+        } else {
+            callback.onResult(list);
+        }
+    }
+
+    @Override
+    public void loadAfter(@NonNull LoadParams<K> params, @NonNull LoadCallback<T> callback) {
+        callback.onResult(loadAfter(params.key, params.requestedLoadSize));
+    }
+
+    @Override
+    public void loadBefore(@NonNull LoadParams<K> params, @NonNull LoadCallback<T> callback) {
+        callback.onResult(loadBefore(params.key, params.requestedLoadSize));
+    }
+
+    /**
+     * Return up to loadCount rows which come after the given key
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    @NonNull
+    public List<T> loadAfter(@NonNull K key, int loadCount) {
+        return loadPage(mAfterQuery, key, loadCount);
+    }
+
+    /**
+     * Return up to loadCount rows which come right before the given key
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    @NonNull
+    public List<T> loadBefore(@NonNull K key, int loadCount) {
+        return loadPage(mBeforeQuery, key, loadCount);
+    }
+
+    private List<T> loadPage(String sql, K key, int loadCount) {
+        if (!mInTransaction) {
+            return query(sql, key, loadCount);
+        }
+        mDb.beginTransaction();
+        try {
+            List<T> rows = query(sql, key, loadCount);
+            mDb.setTransactionSuccessful();
+            return rows;
+        } finally {
+            mDb.endTransaction();
+        }
+    }
+
+    private List<T> query(String sql, @Nullable K key, int loadCount) {
+        final int argCount = mSourceQuery.getArgCount();
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(sql,
+                argCount + (key == null ? 1 : 2));
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        if (key != null) {
+            bindKey(sqLiteQuery, argCount + 1, key);
+        }
+        sqLiteQuery.bindLong(sqLiteQuery.getArgCount(), loadCount);
+        Cursor cursor = mDb.query(sqLiteQuery);
+        //noinspection TryFinallyCanBeTryWithResources
+        try {
+            return convertRows(cursor);
+        } finally {
+            cursor.close();
+            sqLiteQuery.release();
+        }
+    }
+
+    private int count(String sql, @Nullable K key) {
+        final int argCount = mSourceQuery.getArgCount();
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(sql,
+                argCount + (key == null ? 0 : 1));
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        if (key != null) {
+            bindKey(sqLiteQuery, argCount + 1, key);
+        }
+        Cursor cursor = mDb.query(sqLiteQuery);
+        try {
+            if (cursor.moveToFirst()) {
+                return cursor.getInt(0);
+            }
+            return 0;
+        } finally {
+            cursor.close();
+            sqLiteQuery.release();
+        }
+    }
+
+    private static void bindKey(RoomSQLiteQuery query, int index, Object key) {
+        if (key instanceof Long || key instanceof Integer || key instanceof Short
+                || key instanceof Byte) {
+            query.bindLong(index, ((Number) key).longValue());
+        } else if (key instanceof Double || key instanceof Float) {
+            query.bindDouble(index, ((Number) key).doubleValue());
+        } else if (key instanceof String) {
+            query.bindString(index, (String) key);
+        } else if (key instanceof byte[]) {
+            query.bindBlob(index, (byte[]) key);
+        } else {
+            throw new IllegalArgumentException("Cannot bind " + key + " as a key. Supported"
+                    + " key types are Long, Integer, Short, Byte, Double, Float, String and"
+                    + " byte[].");
+        }
+    }
+}
@@ -34,7 +34,11 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Database utilities for Room
@@ -44,6 +48,13 @@ import java.util.List;
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public class DBUtil {
 
+    private static final Set<String> STATEMENT_KEYWORDS = new HashSet<>(Arrays.asList(
+            "select", "values", "insert", "replace", "update", "delete"));
+
+    // Functions whose result depends on the connection, or which change its state.
+    private static final Set<String> CONNECTION_SCOPED_FUNCTIONS = new HashSet<>(Arrays.asList(
+            "last_insert_rowid", "changes", "total_changes", "load_extension"));
+
     /**
      * Performs the SQLiteQuery on the given database.
      * <p>
@@ -170,6 +181,124 @@ public class DBUtil {
         return null;
     }
 
+    /**
+     * Returns whether a query only reads the database, and returns the same result on any
+     * connection, so that it can run on a read-only connection in write-ahead logging mode.
+     * <p>
+     * That's the case of {@code SELECT} and {@code VALUES} statements, including ones preceded by
+     * a {@code WITH} clause, unless they call a function which reports on the connection it runs
+     * on, such as {@code last_insert_rowid()} or {@code changes()}.
+     *
+     * @param sql The SQL of the query.
+     * @return True if the query can run on a read-only connection.
+     */
+    public static boolean isReadOnlyQuery(@NonNull String sql) {
+        final SqlScanner scanner = new SqlScanner(sql);
+        String word = scanner.nextWord();
+        if ("with".equals(word)) {
+            // Skip the common table expressions, down to the statement which uses them.
+            do {
+                word = scanner.nextWord();
+            } while (word != null
+                    && (scanner.getDepth() > 0 || !STATEMENT_KEYWORDS.contains(word)));
+        }
+        if (!"select".equals(word) && !"values".equals(word)) {
+            return false;
+        }
+        // Look for functions from the start, including within the common table expressions.
+        final SqlScanner functionScanner = new SqlScanner(sql);
+        while ((word = functionScanner.nextWord()) != null) {
+            if (CONNECTION_SCOPED_FUNCTIONS.contains(word) && functionScanner.isFunctionCall()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the unquoted words of a SQL statement, skipping comments and quoted strings and
+     * identifiers, and keeps track of the parentheses they are in.
+     */
+    private static class SqlScanner {
+        private final String mSql;
+        private int mPosition;
+        private int mDepth;
+
+        SqlScanner(@NonNull String sql) {
+            mSql = sql;
+        }
+
+        int getDepth() {
+            return mDepth;
+        }
+
+        /**
+         * @return The next word in lower case, or null at the end of the statement.
+         */
+        @Nullable
+        String nextWord() {
+            final int length = mSql.length();
+            while (mPosition < length) {
+                final char c = mSql.charAt(mPosition);
+                final char next = mPosition + 1 < length ? mSql.charAt(mPosition + 1) : 0;
+                if (c == '-' && next == '-') {
+                    final int end = mSql.indexOf('\n', mPosition);
+                    mPosition = end == -1 ? length : end + 1;
+                } else if (c == '/' && next == '*') {
+                    final int end = mSql.indexOf("*/", mPosition + 2);
+                    mPosition = end == -1 ? length : end + 2;
+                } else if (c == '\'' || c == '"' || c == '`') {
+                    skipQuoted(c);
+                } else if (c == '[') {
+                    final int end = mSql.indexOf(']', mPosition);
+                    mPosition = end == -1 ? length : end + 1;
+                } else if (c == ';') {
+                    mPosition = length;
+                } else if (Character.isLetterOrDigit(c) || c == '_') {
+                    final int start = mPosition;
+                    while (mPosition < length && (Character.isLetterOrDigit(mSql.charAt(mPosition))
+                            || mSql.charAt(mPosition) == '_' || mSql.charAt(mPosition) == '$')) {
+                        mPosition++;
+                    }
+                    return mSql.substring(start, mPosition).toLowerCase(Locale.US);
+                } else {
+                    if (c == '(') {
+                        mDepth++;
+                    } else if (c == ')') {
+                        mDepth--;
+                    }
+                    mPosition++;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return True if the word which was just read is followed by an opening parenthesis.
+         */
+        boolean isFunctionCall() {
+            int position = mPosition;
+            while (position < mSql.length() && Character.isWhitespace(mSql.charAt(position))) {
+                position++;
+            }
+            return position < mSql.length() && mSql.charAt(position) == '(';
+        }
+
+        private void skipQuoted(char quote) {
+            mPosition++;
+            while (mPosition < mSql.length()) {
+                if (mSql.charAt(mPosition++) == quote) {
+                    // A doubled quote is an escaped quote.
+                    if (mPosition < mSql.length() && mSql.charAt(mPosition) == quote) {
+                        mPosition++;
+                    } else {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
     private DBUtil() {
     }
 }
@@ -22,12 +22,15 @@ import android.os.Build;
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.util.zip.GZIPInputStream;
 
 /**
  * File utilities for Room
@@ -37,6 +40,12 @@ import java.nio.channels.ReadableByteChannel;
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public class FileUtil {
 
+    // Large enough to keep the number of reads and writes low when copying a database of many
+    // megabytes, small enough to allocate once per copy without a second thought.
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAGIC_LENGTH = 4;
+
     /**
      * Copies data from the input channel to the output file channel.
      *
@@ -51,12 +60,13 @@ public class FileUtil {
             if (Build.VERSION.SDK_INT > Build.VERSION_CODES.M) {
                 output.transferFrom(input, 0, Long.MAX_VALUE);
             } else {
-                InputStream inputStream = Channels.newInputStream(input);
-                OutputStream outputStream = Channels.newOutputStream(output);
-                int length;
-                byte[] buffer = new byte[1024 * 4];
-                while ((length = inputStream.read(buffer)) > 0) {
-                    outputStream.write(buffer, 0, length);
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (input.read(buffer) >= 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        output.write(buffer);
+                    }
+                    buffer.clear();
                 }
             }
             output.force(false);
@@ -66,6 +76,85 @@ public class FileUtil {
         }
     }
 
+    /**
+     * Returns a stream of the decompressed data if the given stream is gzip compressed, or a
+     * stream of the same data otherwise. A stream is recognized as compressed by its first bytes,
+     * which a SQLite database or a SQL script never starts with.
+     * <p>
+     * Zstandard compressed streams are recognized but not supported, since decompressing them
+     * requires a native library. They can be decompressed by the caller instead.
+     *
+     * @param input the stream which may be compressed.
+     * @return a stream of the uncompressed data.
+     * @throws IOException if there is an I/O error, or the stream is Zstandard compressed.
+     */
+    @NonNull
+    public static InputStream decompress(@NonNull InputStream input) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(input, MAGIC_LENGTH);
+        try {
+            if (isGzipCompressed(pushback)) {
+                return new GZIPInputStream(pushback, BUFFER_SIZE);
+            }
+            return pushback;
+        } catch (IOException e) {
+            pushback.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a channel of the decompressed data if the given stream is gzip compressed, or a
+     * channel of the same data otherwise, to be copied with
+     * {@link #copy(ReadableByteChannel, FileChannel)}.
+     * <p>
+     * An uncompressed {@link FileInputStream} is read through its own {@link FileChannel}, so that
+     * it can be copied without going through the Java heap.
+     *
+     * @param input the stream which may be compressed.
+     * @return a channel of the uncompressed data.
+     * @throws IOException if there is an I/O error, or the stream is Zstandard compressed.
+     * @see #decompress(InputStream)
+     */
+    @NonNull
+    public static ReadableByteChannel decompressToChannel(@NonNull InputStream input)
+            throws IOException {
+        if (!(input instanceof FileInputStream)) {
+            return Channels.newChannel(decompress(input));
+        }
+        FileChannel channel = ((FileInputStream) input).getChannel();
+        long position = channel.position();
+        PushbackInputStream pushback = new PushbackInputStream(input, MAGIC_LENGTH);
+        try {
+            if (isGzipCompressed(pushback)) {
+                return Channels.newChannel(new GZIPInputStream(pushback, BUFFER_SIZE));
+            }
+            // Rewind over the bytes that were read to recognize the stream.
+            channel.position(position);
+            return channel;
+        } catch (IOException e) {
+            pushback.close();
+            throw e;
+        }
+    }
+
+    private static boolean isGzipCompressed(@NonNull PushbackInputStream input)
+            throws IOException {
+        byte[] magic = new byte[MAGIC_LENGTH];
+        int length = 0;
+        int read;
+        while (length < MAGIC_LENGTH
+                && (read = input.read(magic, length, MAGIC_LENGTH - length)) >= 0) {
+            length += read;
+        }
+        input.unread(magic, 0, length);
+        if (length == MAGIC_LENGTH && (magic[0] & 0xFF) == 0x28 && (magic[1] & 0xFF) == 0xB5
+                && (magic[2] & 0xFF) == 0x2F && (magic[3] & 0xFF) == 0xFD) {
+            throw new IOException("Zstandard compressed input is not supported, decompress "
+                    + "it before passing it to Room.");
+        }
+        return length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B;
+    }
+
     private FileUtil() {
     }
 }
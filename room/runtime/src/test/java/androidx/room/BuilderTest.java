@@ -43,6 +43,7 @@ import org.junit.runners.JUnit4;
 import java.io.File;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings("ArraysAsListWithZeroOrOneArgument")
 @RunWith(JUnit4.class)
@@ -479,6 +480,91 @@ public class BuilderTest {
                 containsString("Cannot create from asset or file for an in-memory"));
     }
 
+    @Test
+    public void createInMemoryFromSqlAsset() {
+        Context context = mock(Context.class);
+        TestDatabase db = Room.inMemoryDatabaseBuilder(context, TestDatabase.class)
+                .createFromSqlAsset("seed.sql")
+                .build();
+        DatabaseConfiguration config = ((BuilderTest_TestDatabase_Impl) db).mConfig;
+        assertThat(config.callbacks.size(), is(1));
+        assertThat(config.callbacks.get(0), instanceOf(SqlScriptCallback.class));
+    }
+
+    @Test
+    public void createFromAssetAndFromSqlAsset() {
+        Exception exception = null;
+        try {
+            Room.databaseBuilder(mock(Context.class), TestDatabase.class, "foo")
+                    .createFromAsset("assets-path")
+                    .createFromSqlAsset("seed.sql")
+                    .build();
+            fail("Build should have thrown");
+        } catch (Exception e) {
+            exception = e;
+        }
+        assertThat(exception, instanceOf(IllegalArgumentException.class));
+        assertThat(exception.getMessage(),
+                containsString("A SQL script to seed the database cannot be combined"));
+    }
+
+    @Test
+    public void createWithAutoCloseTimeout() {
+        Context context = mock(Context.class);
+        TestDatabase db = Room.databaseBuilder(context, TestDatabase.class, "foo")
+                .setAutoCloseTimeout(10, TimeUnit.SECONDS)
+                .build();
+        DatabaseConfiguration config = ((BuilderTest_TestDatabase_Impl) db).mConfig;
+        assertThat(config.sqliteOpenHelperFactory,
+                instanceOf(AutoClosingRoomOpenHelperFactory.class));
+    }
+
+    @Test
+    public void createInMemoryWithAutoCloseTimeout() {
+        Exception exception = null;
+        try {
+            Room.inMemoryDatabaseBuilder(mock(Context.class), TestDatabase.class)
+                    .setAutoCloseTimeout(10, TimeUnit.SECONDS)
+                    .build();
+            fail("Build should have thrown");
+        } catch (Exception e) {
+            exception = e;
+        }
+        assertThat(exception, instanceOf(IllegalArgumentException.class));
+        assertThat(exception.getMessage(),
+                containsString("Cannot create auto-closing database for an in-memory database"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeAutoCloseTimeout() {
+        Room.databaseBuilder(mock(Context.class), TestDatabase.class, "foo")
+                .setAutoCloseTimeout(-1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void createWithQueryCallback() {
+        Context context = mock(Context.class);
+        TestDatabase db = Room.databaseBuilder(context, TestDatabase.class, "foo")
+                .setQueryCallback(mock(RoomDatabase.QueryCallback.class), mock(Executor.class))
+                .build();
+        DatabaseConfiguration config = ((BuilderTest_TestDatabase_Impl) db).mConfig;
+        assertThat(config.sqliteOpenHelperFactory,
+                instanceOf(QueryInterceptorOpenHelperFactory.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeSlowQueryThreshold() {
+        Room.databaseBuilder(mock(Context.class), TestDatabase.class, "foo")
+                .setQueryCallback(mock(RoomDatabase.QueryCallback.class), mock(Executor.class),
+                        -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeInvalidationWindow() {
+        Room.databaseBuilder(mock(Context.class), TestDatabase.class, "foo")
+                .setInvalidationWindow(-1, TimeUnit.MILLISECONDS);
+    }
+
     abstract static class TestDatabase extends RoomDatabase {
 
         DatabaseConfiguration mDatabaseConfiguration;
@@ -17,6 +17,7 @@
 package androidx.room;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsCollectionContaining.hasItem;
 import static org.hamcrest.core.IsCollectionContaining.hasItems;
@@ -68,12 +69,14 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 @RunWith(JUnit4.class)
@@ -94,6 +97,8 @@ public class InvalidationTrackerTest {
         final SupportSQLiteStatement statement = mock(SupportSQLiteStatement.class);
         doReturn(statement).when(mSqliteDb)
                 .compileStatement(eq(InvalidationTracker.RESET_UPDATED_TABLES_SQL));
+        doReturn(statement).when(mSqliteDb)
+                .compileStatement(eq(InvalidationTracker.RESET_CHANGED_ROWS_SQL));
         doReturn(mSqliteDb).when(mOpenHelper).getWritableDatabase();
         doReturn(true).when(mRoomDatabase).isOpen();
         doReturn(ArchTaskExecutor.getIOThreadExecutor()).when(mRoomDatabase).getQueryExecutor();
@@ -257,6 +262,35 @@ public class InvalidationTrackerTest {
         assertThat(observer.await(), is(false));
     }
 
+    @Test
+    public void countRefreshesAndNotifications() throws Exception {
+        LatchObserver observerA = new LatchObserver(1, "a");
+        LatchObserver observerB = new LatchObserver(1, "B");
+        mTracker.addObserver(observerA);
+        mTracker.addObserver(observerB);
+        setInvalidatedTables(0);
+        // Hold the refresh back so that both requests are merged into it.
+        Lock closeLock = mRoomDatabase.getCloseLock();
+        closeLock.lock();
+        try {
+            mTracker.refreshVersionsAsync();
+            mTracker.refreshVersionsAsync();
+        } finally {
+            closeLock.unlock();
+        }
+        drainTasks();
+        assertThat(observerA.await(), is(true));
+        assertThat(mTracker.getRefreshRequestCount(), is(2L));
+        assertThat(mTracker.getRefreshCount(), is(1L));
+        assertThat(mTracker.getObserverNotificationCount(), is(1L));
+
+        setInvalidatedTables(0, 1);
+        refreshSync();
+        assertThat(mTracker.getRefreshRequestCount(), is(3L));
+        assertThat(mTracker.getRefreshCount(), is(2L));
+        assertThat(mTracker.getObserverNotificationCount(), is(3L));
+    }
+
     @Test
     public void locale() {
         LatchObserver observer = new LatchObserver(1, "I");
@@ -307,6 +341,92 @@ public class InvalidationTrackerTest {
         }
     }
 
+    @Test
+    public void createRowTriggers() {
+        LatchRowObserver observer = new LatchRowObserver("a");
+        ArgumentCaptor<String> sqlArgCaptor;
+        List<String> sqlCaptorValues;
+
+        mTracker.addObserver(observer);
+        sqlArgCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mSqliteDb, times(8)).execSQL(sqlArgCaptor.capture());
+        sqlCaptorValues = sqlArgCaptor.getAllValues();
+        assertThat(sqlCaptorValues.get(4),
+                is("INSERT INTO room_row_modification_log SELECT table_id, NULL FROM "
+                        + "room_table_modification_log WHERE table_id = 0 AND invalidated = 1"));
+        assertThat(sqlCaptorValues.get(5),
+                is("CREATE TEMP TRIGGER IF NOT EXISTS `room_row_modification_trigger_a_UPDATE` "
+                        + "AFTER UPDATE ON `a` BEGIN "
+                        + "INSERT OR IGNORE INTO room_row_modification_log VALUES(0, OLD.rowid); "
+                        + "INSERT OR IGNORE INTO room_row_modification_log VALUES(0, NEW.rowid); "
+                        + "END"));
+        assertThat(sqlCaptorValues.get(6),
+                is("CREATE TEMP TRIGGER IF NOT EXISTS `room_row_modification_trigger_a_DELETE` "
+                        + "AFTER DELETE ON `a` BEGIN "
+                        + "INSERT OR IGNORE INTO room_row_modification_log VALUES(0, OLD.rowid); "
+                        + "END"));
+        assertThat(sqlCaptorValues.get(7),
+                is("CREATE TEMP TRIGGER IF NOT EXISTS `room_row_modification_trigger_a_INSERT` "
+                        + "AFTER INSERT ON `a` BEGIN "
+                        + "INSERT OR IGNORE INTO room_row_modification_log VALUES(0, NEW.rowid); "
+                        + "END"));
+
+        reset(mSqliteDb);
+
+        mTracker.removeObserver(observer);
+        sqlArgCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mSqliteDb, times(7)).execSQL(sqlArgCaptor.capture());
+        sqlCaptorValues = sqlArgCaptor.getAllValues();
+        assertThat(sqlCaptorValues.get(3),
+                is("DROP TRIGGER IF EXISTS `room_row_modification_trigger_a_UPDATE`"));
+        assertThat(sqlCaptorValues.get(6),
+                is("DELETE FROM room_row_modification_log WHERE table_id = 0"));
+    }
+
+    @Test
+    public void rowTriggersOnlyForRowObservers() {
+        mTracker.addObserver(new LatchObserver(1, "a"));
+        verify(mSqliteDb, times(4)).execSQL(any(String.class));
+        reset(mSqliteDb);
+
+        // Only the row triggers are missing.
+        mTracker.addObserver(new LatchRowObserver("a"));
+        verify(mSqliteDb, times(4)).execSQL(any(String.class));
+    }
+
+    @Test
+    public void observeRows() throws Exception {
+        LatchRowObserver observer = new LatchRowObserver("a", "B", "i");
+        mTracker.addObserver(observer);
+        setInvalidatedTables(0, 1, 2);
+        // Rows 1 and 2 of a changed, the changes of i predate its row triggers and there are no
+        // rows recorded for B.
+        setChangedRows(new int[]{0, 0, 2, 2}, new Long[]{1L, 2L, null, 3L});
+        refreshSync();
+        assertThat(observer.await(), is(true));
+        assertThat(observer.getChangedRows().size(), is(1));
+        assertThat(observer.getChangedRows().get("a"), hasItems(1L, 2L));
+        assertThat(observer.getChangedRows().get("a").size(), is(2));
+        assertThat(observer.getInvalidatedTables().size(), is(2));
+        assertThat(observer.getInvalidatedTables(), hasItems("B", "i"));
+    }
+
+    @Test
+    public void rowObserverAndTableObserver() throws Exception {
+        LatchRowObserver rowObserver = new LatchRowObserver("a");
+        LatchObserver observer = new LatchObserver(1, "a");
+        mTracker.addObserver(rowObserver);
+        mTracker.addObserver(observer);
+        setInvalidatedTables(0);
+        setChangedRows(new int[]{0}, new Long[]{5L});
+        refreshSync();
+        assertThat(rowObserver.await(), is(true));
+        assertThat(rowObserver.getChangedRows().get("a"), hasItem(5L));
+        assertThat(rowObserver.getInvalidatedTables(), nullValue());
+        assertThat(observer.await(), is(true));
+        assertThat(observer.getInvalidatedTables(), hasItem("a"));
+    }
+
     @Test
     public void observeFtsTable() throws InterruptedException {
         LatchObserver observer = new LatchObserver(1, "C");
@@ -475,6 +595,50 @@ public class InvalidationTrackerTest {
         );
     }
 
+    /**
+     * Setup Cursor result to return the given changed rows, where a null rowId marks the changed
+     * rows of the table as unknown.
+     */
+    private void setChangedRows(final int[] tableIds, final Long[] rowIds)
+            throws InterruptedException {
+        drainTasks();
+        Cursor cursor = mock(Cursor.class);
+        final AtomicInteger index = new AtomicInteger(-1);
+        when(cursor.moveToNext()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                return index.addAndGet(1) < tableIds.length;
+            }
+        });
+        when(cursor.getInt(0)).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                return tableIds[index.intValue()];
+            }
+        });
+        when(cursor.isNull(1)).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                return rowIds[index.intValue()] == null;
+            }
+        });
+        when(cursor.getLong(1)).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return rowIds[index.intValue()];
+            }
+        });
+        doReturn(cursor).when(mRoomDatabase).query(
+                argThat(new ArgumentMatcher<SimpleSQLiteQuery>() {
+                    @Override
+                    public boolean matches(SimpleSQLiteQuery argument) {
+                        return argument != null && argument.getSql().equals(
+                                InvalidationTracker.SELECT_CHANGED_ROWS_SQL);
+                    }
+                })
+        );
+    }
+
     private Cursor createCursorWithValues(final int... tableIds) {
         Cursor cursor = mock(Cursor.class);
         final AtomicInteger index = new AtomicInteger(-1);
@@ -525,6 +689,39 @@ public class InvalidationTrackerTest {
         }
     }
 
+    static class LatchRowObserver extends InvalidationTracker.RowObserver {
+        private final CountDownLatch mLatch = new CountDownLatch(1);
+        private Map<String, Set<Long>> mChangedRows;
+        private Set<String> mInvalidatedTables;
+
+        LatchRowObserver(String... tableNames) {
+            super(tableNames);
+        }
+
+        boolean await() throws InterruptedException {
+            return mLatch.await(3, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void onRowsChanged(@NonNull Map<String, Set<Long>> rowIds) {
+            mChangedRows = rowIds;
+            mLatch.countDown();
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            mInvalidatedTables = tables;
+        }
+
+        Map<String, Set<Long>> getChangedRows() {
+            return mChangedRows;
+        }
+
+        Set<String> getInvalidatedTables() {
+            return mInvalidatedTables;
+        }
+    }
+
     /**
      * Tries to trigger garbage collection until an element is available in the given queue.
      */
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import static java.util.Arrays.asList;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class QueryInterceptorTest {
+    private final List<Report> mReports = new ArrayList<>();
+    private final RoomDatabase.QueryCallback mCallback = new RoomDatabase.QueryCallback() {
+        @Override
+        public void onQuery(@NonNull String sqlQuery, @NonNull List<Object> bindArgs,
+                long executionTimeNanos, int rowCount) {
+            mReports.add(new Report(sqlQuery, bindArgs, executionTimeNanos, rowCount));
+        }
+    };
+    private final Executor mDirectExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private SupportSQLiteDatabase mDelegate;
+    private Cursor mCursor;
+
+    @Before
+    public void setup() {
+        mDelegate = mock(SupportSQLiteDatabase.class);
+        mCursor = mock(Cursor.class);
+        when(mCursor.getCount()).thenReturn(3);
+        when(mDelegate.query(anyString())).thenReturn(mCursor);
+        when(mDelegate.query(anyString(), any(Object[].class))).thenReturn(mCursor);
+        when(mDelegate.query(any(SimpleSQLiteQuery.class))).thenReturn(mCursor);
+    }
+
+    @Test
+    public void reportsQueryWithRowCount() {
+        SupportSQLiteDatabase db = createDatabase(0);
+        Cursor cursor = db.query("SELECT * FROM foo WHERE id > ?", new Object[]{1L});
+
+        assertThat(cursor, is(mCursor));
+        assertThat(mReports.size(), is(1));
+        Report report = mReports.get(0);
+        assertThat(report.mSql, is("SELECT * FROM foo WHERE id > ?"));
+        assertThat(report.mBindArgs, is(Collections.<Object>singletonList(1L)));
+        assertThat(report.mRowCount, is(3));
+        assertThat(report.mExecutionTimeNanos >= 0, is(true));
+    }
+
+    @Test
+    public void reportsSupportQueryBindArgs() {
+        SupportSQLiteDatabase db = createDatabase(0);
+        db.query(new SimpleSQLiteQuery("SELECT * FROM foo WHERE name = ? AND id = ?",
+                new Object[]{"bar", 2L}));
+
+        assertThat(mReports.size(), is(1));
+        assertThat(mReports.get(0).mBindArgs, is(asList((Object) "bar", 2L)));
+        assertThat(mReports.get(0).mRowCount, is(3));
+    }
+
+    @Test
+    public void reportsEachStatementExecutionWithItsArgs() {
+        SupportSQLiteStatement delegateStatement = mock(SupportSQLiteStatement.class);
+        when(delegateStatement.executeUpdateDelete()).thenReturn(2, 5);
+        when(mDelegate.compileStatement(anyString())).thenReturn(delegateStatement);
+        SupportSQLiteDatabase db = createDatabase(0);
+
+        SupportSQLiteStatement statement = db.compileStatement("DELETE FROM foo WHERE id = ?");
+        statement.bindLong(1, 1);
+        statement.executeUpdateDelete();
+        statement.bindLong(1, 7);
+        statement.executeUpdateDelete();
+
+        assertThat(mReports.size(), is(2));
+        assertThat(mReports.get(0).mBindArgs, is(Collections.<Object>singletonList(1L)));
+        assertThat(mReports.get(0).mRowCount, is(2));
+        assertThat(mReports.get(1).mBindArgs, is(Collections.<Object>singletonList(7L)));
+        assertThat(mReports.get(1).mRowCount, is(5));
+    }
+
+    @Test
+    public void reportsTransactions() {
+        SupportSQLiteDatabase db = createDatabase(0);
+        db.beginTransaction();
+        db.execSQL("DELETE FROM foo");
+        db.setTransactionSuccessful();
+        db.endTransaction();
+
+        assertThat(mReports.size(), is(3));
+        assertThat(mReports.get(0).mSql, is("BEGIN EXCLUSIVE TRANSACTION"));
+        assertThat(mReports.get(1).mSql, is("DELETE FROM foo"));
+        assertThat(mReports.get(1).mRowCount, is(-1));
+        assertThat(mReports.get(2).mSql, is("END TRANSACTION"));
+    }
+
+    @Test
+    public void skipsQueriesFasterThanThreshold() {
+        SupportSQLiteDatabase db = createDatabase(TimeUnit.HOURS.toNanos(1));
+        db.query("SELECT * FROM foo");
+        db.execSQL("DELETE FROM foo");
+
+        assertThat(mReports.isEmpty(), is(true));
+    }
+
+    private SupportSQLiteDatabase createDatabase(long slowQueryThresholdNanos) {
+        return new QueryInterceptorDatabase(mDelegate,
+                new QueryInterceptor(mCallback, mDirectExecutor, slowQueryThresholdNanos));
+    }
+
+    private static class Report {
+        final String mSql;
+        final List<Object> mBindArgs;
+        final long mExecutionTimeNanos;
+        final int mRowCount;
+
+        Report(String sql, List<Object> bindArgs, long executionTimeNanos, int rowCount) {
+            mSql = sql;
+            mBindArgs = bindArgs;
+            mExecutionTimeNanos = executionTimeNanos;
+            mRowCount = rowCount;
+        }
+    }
+}
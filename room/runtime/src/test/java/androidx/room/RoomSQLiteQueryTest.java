@@ -25,6 +25,7 @@ import static org.mockito.Mockito.verify;
 
 import androidx.sqlite.db.SupportSQLiteProgram;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -33,12 +34,22 @@ import org.junit.runners.JUnit4;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RunWith(JUnit4.class)
 public class RoomSQLiteQueryTest {
+    private RoomSQLiteQueryPool mPool;
+
     @Before
     public void clear() {
-        RoomSQLiteQuery.sQueryPool.clear();
+        mPool = new RoomSQLiteQueryPool(1, RoomSQLiteQuery.POOL_LIMIT,
+                RoomSQLiteQuery.DESIRED_POOL_SIZE);
+        RoomSQLiteQuery.setPool(mPool);
+    }
+
+    @After
+    public void restorePool() {
+        RoomSQLiteQuery.setPool(new RoomSQLiteQueryPool());
     }
 
     @Test
@@ -97,10 +108,10 @@ public class RoomSQLiteQueryTest {
 
         query1.release();
         query2.release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(1));
+        assertThat(mPool.getQueriesForCurrentThread().size(), is(1));
 
         query3.release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(2));
+        assertThat(mPool.getQueriesForCurrentThread().size(), is(2));
     }
 
     @Test
@@ -138,12 +149,94 @@ public class RoomSQLiteQueryTest {
     }
 
     private void pruneCacheTest() {
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(RoomSQLiteQuery.POOL_LIMIT));
+        assertThat(mPool.getQueriesForCurrentThread().size(), is(RoomSQLiteQuery.POOL_LIMIT));
         RoomSQLiteQuery.acquire("dsadsa", RoomSQLiteQuery.POOL_LIMIT + 1).release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(RoomSQLiteQuery.DESIRED_POOL_SIZE));
-        Iterator<RoomSQLiteQuery> itr = RoomSQLiteQuery.sQueryPool.values().iterator();
+        assertThat(mPool.getQueriesForCurrentThread().size(),
+                is(RoomSQLiteQuery.DESIRED_POOL_SIZE));
+        Iterator<RoomSQLiteQuery> itr = mPool.getQueriesForCurrentThread().values().iterator();
         for (int i = 0; i < RoomSQLiteQuery.DESIRED_POOL_SIZE; i++) {
             assertThat(itr.next().mCapacity, is(i));
         }
     }
+
+    @Test
+    public void countHitsAndMisses() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+        query.release();
+        RoomSQLiteQuery.acquire("abc", 2).release();
+        RoomSQLiteQuery.acquire("abc", 4);
+        assertThat(mPool.getHitCount(), is(1L));
+        assertThat(mPool.getMissCount(), is(2L));
+        assertThat(mPool.getAcquireCount(), is(3L));
+
+        mPool.resetStats();
+        assertThat(mPool.getAcquireCount(), is(0L));
+    }
+
+    @Test
+    public void releaseToOwnPool() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+        RoomSQLiteQueryPool other = new RoomSQLiteQueryPool(1, RoomSQLiteQuery.POOL_LIMIT,
+                RoomSQLiteQuery.DESIRED_POOL_SIZE);
+        RoomSQLiteQuery.setPool(other);
+        query.release();
+        assertThat(mPool.getQueriesForCurrentThread().size(), is(1));
+        assertThat(other.getQueriesForCurrentThread().size(), is(0));
+    }
+
+    @Test
+    public void stripesAreSeparate() throws InterruptedException {
+        final RoomSQLiteQueryPool pool = new RoomSQLiteQueryPool(2, RoomSQLiteQuery.POOL_LIMIT,
+                RoomSQLiteQuery.DESIRED_POOL_SIZE);
+        RoomSQLiteQuery.setPool(pool);
+        final long id = Thread.currentThread().getId();
+        final RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+        query.release();
+        final AtomicReference<RoomSQLiteQuery> otherQuery = new AtomicReference<>();
+        Thread other;
+        // Create threads until one is assigned to the other stripe.
+        do {
+            other = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    otherQuery.set(RoomSQLiteQuery.acquire("abc", 3));
+                }
+            });
+        } while (other.getId() % 2 == id % 2);
+        other.start();
+        other.join();
+        assertThat(otherQuery.get(), not(sameInstance(query)));
+        assertThat(RoomSQLiteQuery.acquire("abc", 3), sameInstance(query));
+        assertThat(pool.getHitCount(), is(1L));
+        assertThat(pool.getMissCount(), is(2L));
+    }
+
+    @Test
+    public void releaseOnAnotherThreadReturnsToAcquiringStripe()
+            throws InterruptedException {
+        final RoomSQLiteQueryPool pool = new RoomSQLiteQueryPool(2, RoomSQLiteQuery.POOL_LIMIT,
+                RoomSQLiteQuery.DESIRED_POOL_SIZE);
+        RoomSQLiteQuery.setPool(pool);
+        final long id = Thread.currentThread().getId();
+        final RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+        Thread other;
+        // Create threads until one is assigned to the other stripe.
+        do {
+            other = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    query.release();
+                }
+            });
+        } while (other.getId() % 2 == id % 2);
+        other.start();
+        other.join();
+        assertThat(RoomSQLiteQuery.acquire("abc", 3), sameInstance(query));
+        assertThat(pool.getHitCount(), is(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void desiredSizeAboveLimit() {
+        new RoomSQLiteQueryPool(1, 2, 3);
+    }
 }
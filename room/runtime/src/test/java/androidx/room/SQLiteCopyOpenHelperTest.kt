@@ -19,7 +19,9 @@ package androidx.room
 import android.content.Context
 import android.content.res.AssetManager
 import androidx.sqlite.db.SupportSQLiteOpenHelper
+import org.junit.Assert.assertArrayEquals
 import org.junit.Assert.assertEquals
+import org.junit.Assert.fail
 import org.junit.Ignore
 import org.junit.Rule
 import org.junit.Test
@@ -33,6 +35,7 @@ import org.mockito.Mockito.verify
 import org.mockito.Mockito.verifyNoMoreInteractions
 import java.io.File
 import java.io.FileInputStream
+import java.io.FileOutputStream
 import java.io.IOException
 import java.io.InputStream
 import java.io.RandomAccessFile
@@ -40,6 +43,7 @@ import java.nio.ByteBuffer
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.TimeoutException
 import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPOutputStream
 import kotlin.concurrent.thread
 
 @RunWith(JUnit4::class)
@@ -184,6 +188,45 @@ class SQLiteCopyOpenHelperTest {
         assertEquals(1, exceptions.size)
     }
 
+    @Test
+    fun gzipCompressedCopy() {
+        val copyFile = tempDirectory.newFile("toCopy.db")
+        writeDatabaseVersion(copyFile)
+        val compressedFile = tempDirectory.newFile("toCopy.db.gz")
+        GZIPOutputStream(FileOutputStream(compressedFile)).use { output ->
+            FileInputStream(copyFile).use { it.copyTo(output) }
+        }
+        setupMocks(tempDirectory.root, copyFile)
+        `when`(assetManager.open(compressedFile.name)).thenAnswer {
+            FileInputStream(compressedFile)
+        }
+
+        createOpenHelper(compressedFile).writableDatabase
+
+        assertArrayEquals(
+            copyFile.readBytes(),
+            File(tempDirectory.root, DB_NAME).readBytes()
+        )
+    }
+
+    @Test
+    fun zstdCompressedCopy_unsupported() {
+        val compressedFile = tempDirectory.newFile("toCopy.db.zst")
+        compressedFile.writeBytes(byteArrayOf(0x28, 0xB5.toByte(), 0x2F, 0xFD.toByte(), 0, 0))
+        setupMocks(tempDirectory.root, compressedFile)
+        `when`(assetManager.open(compressedFile.name)).thenAnswer {
+            FileInputStream(compressedFile)
+        }
+
+        try {
+            createOpenHelper(compressedFile).writableDatabase
+            fail("copying a Zstandard compressed database should have failed")
+        } catch (e: RuntimeException) {
+            assertEquals(IOException::class.java, e.cause?.javaClass)
+        }
+        assertEquals(false, File(tempDirectory.root, DB_NAME).exists())
+    }
+
     internal fun setupMocks(tmpDir: File, copyFromFile: File, onAssetOpen: () -> Unit = {}) {
         `when`(delegate.databaseName).thenReturn(DB_NAME)
         `when`(context.getDatabasePath(DB_NAME)).thenReturn(File(tmpDir, DB_NAME))
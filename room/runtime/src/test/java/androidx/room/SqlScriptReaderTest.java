@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class SqlScriptReaderTest {
+    @Test
+    public void splitStatements() throws IOException {
+        assertThat(read("INSERT INTO a VALUES(1);\nINSERT INTO a VALUES(2);\n"),
+                is(Arrays.asList("INSERT INTO a VALUES(1)", "INSERT INTO a VALUES(2)")));
+    }
+
+    @Test
+    public void lastStatementWithoutSemicolon() throws IOException {
+        assertThat(read("DELETE FROM a; DELETE FROM b"),
+                is(Arrays.asList("DELETE FROM a", "DELETE FROM b")));
+    }
+
+    @Test
+    public void skipEmptyStatements() throws IOException {
+        assertThat(read(";\n ; DELETE FROM a;;\n"), is(Arrays.asList("DELETE FROM a")));
+        assertThat(read(""), is(Arrays.<String>asList()));
+    }
+
+    @Test
+    public void semicolonInQuotes() throws IOException {
+        assertThat(read("INSERT INTO \"a;b\" VALUES('x;''y', `c;`, [d;]);"),
+                is(Arrays.asList("INSERT INTO \"a;b\" VALUES('x;''y', `c;`, [d;])")));
+    }
+
+    @Test
+    public void comments() throws IOException {
+        assertThat(read("-- a; comment\nDELETE /* b; */FROM a; -- trailing"),
+                is(Arrays.asList("DELETE  FROM a")));
+    }
+
+    @Test
+    public void commentMarkersInQuotes() throws IOException {
+        assertThat(read("INSERT INTO a VALUES('--', '/*');"),
+                is(Arrays.asList("INSERT INTO a VALUES('--', '/*')")));
+    }
+
+    @Test
+    public void trigger() throws IOException {
+        String trigger = "CREATE TEMP TRIGGER t AFTER INSERT ON a BEGIN "
+                + "INSERT INTO b VALUES(1); DELETE FROM c; END";
+        assertThat(read(trigger + ";\nDELETE FROM a;"),
+                is(Arrays.asList(trigger, "DELETE FROM a")));
+    }
+
+    @Test
+    public void triggerWithCase() throws IOException {
+        String trigger = "CREATE TRIGGER t AFTER UPDATE ON a BEGIN "
+                + "UPDATE b SET x = CASE WHEN new.y > 0 THEN 'end;' ELSE 0 END; "
+                + "INSERT INTO c VALUES(CASE new.y WHEN 1 THEN 1 END, [end]); END";
+        assertThat(read(trigger + ";\nDELETE FROM a;"),
+                is(Arrays.asList(trigger, "DELETE FROM a")));
+    }
+
+    private static List<String> read(String script) throws IOException {
+        SqlScriptReader reader = new SqlScriptReader(new StringReader(script));
+        List<String> statements = new ArrayList<>();
+        String statement;
+        while ((statement = reader.readStatement()) != null) {
+            statements.add(statement);
+        }
+        return statements;
+    }
+}
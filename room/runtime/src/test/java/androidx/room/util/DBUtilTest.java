@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DBUtilTest {
+    @Test
+    public void readOnlyQuery_select() {
+        assertThat(DBUtil.isReadOnlyQuery("SELECT * FROM User"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("  select name FROM User WHERE id = ?"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("-- comment\nSELECT 1"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("/* UPDATE */ SELECT 1"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("VALUES (1), (2)"), is(true));
+    }
+
+    @Test
+    public void readOnlyQuery_writes() {
+        assertThat(DBUtil.isReadOnlyQuery("INSERT INTO User VALUES (1)"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("UPDATE User SET name = 'SELECT'"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("DELETE FROM User"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("PRAGMA user_version"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("/* SELECT */ DELETE FROM User"), is(false));
+    }
+
+    @Test
+    public void readOnlyQuery_with() {
+        assertThat(DBUtil.isReadOnlyQuery(
+                "WITH adults AS (SELECT * FROM User WHERE age >= 18) SELECT * FROM adults"),
+                is(true));
+        assertThat(DBUtil.isReadOnlyQuery(
+                "WITH RECURSIVE cnt(x) AS (VALUES(1) UNION ALL SELECT x + 1 FROM cnt "
+                        + "WHERE x < 10) SELECT x FROM cnt"),
+                is(true));
+        assertThat(DBUtil.isReadOnlyQuery(
+                "WITH old AS (SELECT id FROM User WHERE age > 99) "
+                        + "DELETE FROM User WHERE id IN old"),
+                is(false));
+        assertThat(DBUtil.isReadOnlyQuery(
+                "WITH copy AS MATERIALIZED (SELECT * FROM User) "
+                        + "INSERT INTO Archive SELECT * FROM copy"),
+                is(false));
+    }
+
+    @Test
+    public void readOnlyQuery_connectionScopedFunctions() {
+        assertThat(DBUtil.isReadOnlyQuery("SELECT last_insert_rowid()"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("SELECT changes ()"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("select TOTAL_CHANGES()"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery(
+                "WITH x AS (SELECT changes()) SELECT * FROM x"), is(false));
+        // Not function calls.
+        assertThat(DBUtil.isReadOnlyQuery("SELECT 'last_insert_rowid()'"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("SELECT changes FROM Stats"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("SELECT `changes` FROM Stats"), is(true));
+    }
+}
@@ -33,11 +33,14 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
     private final String mName;
     private final Callback mCallback;
     private final boolean mUseNoBackupDirectory;
+    private final int mReadConnectionCount;
     private final Object mLock;
 
     // Delegate is created lazily
     private OpenHelper mDelegate;
     private boolean mWriteAheadLoggingEnabled;
+    // Created lazily once the writer is open, only if WAL is enabled and mReadConnectionCount > 0
+    private FrameworkSQLiteReadConnectionPool mReadConnectionPool;
 
     FrameworkSQLiteOpenHelper(
             Context context,
@@ -51,10 +54,20 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
             String name,
             Callback callback,
             boolean useNoBackupDirectory) {
+        this(context, name, callback, useNoBackupDirectory, 0);
+    }
+
+    FrameworkSQLiteOpenHelper(
+            Context context,
+            String name,
+            Callback callback,
+            boolean useNoBackupDirectory,
+            int readConnectionCount) {
         mContext = context;
         mName = name;
         mCallback = callback;
         mUseNoBackupDirectory = useNoBackupDirectory;
+        mReadConnectionCount = readConnectionCount;
         mLock = new Object();
     }
 
@@ -98,6 +111,9 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
                 mDelegate.setWriteAheadLoggingEnabled(enabled);
             }
             mWriteAheadLoggingEnabled = enabled;
+            if (!enabled) {
+                closeReadConnectionPool();
+            }
         }
     }
 
@@ -106,16 +122,61 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
         return getDelegate().getWritableSupportDatabase();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If this helper was created with read connections and write-ahead logging is enabled, this
+     * returns one of the read-only connections, so that reads from different threads can run in
+     * parallel. Use {@link #getWritableDatabase()} for reads within a transaction.
+     */
     @Override
     public SupportSQLiteDatabase getReadableDatabase() {
+        FrameworkSQLiteReadConnectionPool pool = getReadConnectionPool();
+        if (pool != null) {
+            return pool.get();
+        }
         return getDelegate().getReadableSupportDatabase();
     }
 
     @Override
     public void close() {
+        synchronized (mLock) {
+            closeReadConnectionPool();
+        }
         getDelegate().close();
     }
 
+    private FrameworkSQLiteReadConnectionPool getReadConnectionPool() {
+        if (mReadConnectionCount == 0 || mName == null) {
+            return null;
+        }
+        synchronized (mLock) {
+            if (!mWriteAheadLoggingEnabled) {
+                return null;
+            }
+            if (mReadConnectionPool != null) {
+                return mReadConnectionPool;
+            }
+        }
+        // Open the writer first so that the database is created, migrated and configured for
+        // write-ahead logging before any reader sees it.
+        final String path = getWritableDatabase().getPath();
+        synchronized (mLock) {
+            if (mReadConnectionPool == null && mWriteAheadLoggingEnabled) {
+                mReadConnectionPool = new FrameworkSQLiteReadConnectionPool(path,
+                        mReadConnectionCount, mCallback);
+            }
+            return mReadConnectionPool;
+        }
+    }
+
+    private void closeReadConnectionPool() {
+        if (mReadConnectionPool != null) {
+            mReadConnectionPool.close();
+            mReadConnectionPool = null;
+        }
+    }
+
     static class OpenHelper extends SQLiteOpenHelper {
         /**
          * This is used as an Object reference so that we can access the wrapped database inside
@@ -16,6 +16,7 @@
 
 package androidx.sqlite.db.framework;
 
+import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.sqlite.db.SupportSQLiteOpenHelper;
 
@@ -25,6 +26,40 @@ import androidx.sqlite.db.SupportSQLiteOpenHelper;
  */
 @SuppressWarnings("unused")
 public final class FrameworkSQLiteOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+    private final int mReadConnectionCount;
+
+    /**
+     * Creates a factory whose open helpers use a single connection for reads and writes.
+     */
+    public FrameworkSQLiteOpenHelperFactory() {
+        this(0);
+    }
+
+    /**
+     * Creates a factory whose open helpers keep, in addition to the read-write connection, up to
+     * {@code readConnectionCount} read-only connections to the database file.
+     * <p>
+     * The read-only connections are only used when write-ahead logging is enabled with
+     * {@link SupportSQLiteOpenHelper#setWriteAheadLoggingEnabled(boolean)} and the database is
+     * not in memory. {@link SupportSQLiteOpenHelper#getReadableDatabase()} then returns one of
+     * them, so that reads from different threads run in parallel instead of sharing one
+     * connection. Each thread keeps using the connection it was first given.
+     * <p>
+     * Read-only connections do not run the {@link SupportSQLiteOpenHelper.Callback} open
+     * callbacks, do not see TEMP tables or triggers created on the read-write connection, and do
+     * not see changes made by a transaction that is still in progress. Use
+     * {@link SupportSQLiteOpenHelper#getWritableDatabase()} for those reads.
+     *
+     * @param readConnectionCount The number of read-only connections, or 0 to only use the
+     *                            read-write connection.
+     */
+    public FrameworkSQLiteOpenHelperFactory(@IntRange(from = 0) int readConnectionCount) {
+        if (readConnectionCount < 0) {
+            throw new IllegalArgumentException("readConnectionCount must be >= 0");
+        }
+        mReadConnectionCount = readConnectionCount;
+    }
+
     @NonNull
     @Override
     public SupportSQLiteOpenHelper create(
@@ -33,6 +68,7 @@ public final class FrameworkSQLiteOpenHelperFactory implements SupportSQLiteOpen
                 configuration.context,
                 configuration.name,
                 configuration.callback,
-                configuration.useNoBackupDirectory);
+                configuration.useNoBackupDirectory,
+                mReadConnectionCount);
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.db.framework;
+
+import android.database.DatabaseErrorHandler;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed number of read-only connections to a database file in write-ahead logging mode.
+ * <p>
+ * In write-ahead logging mode, readers on separate connections neither block each other nor the
+ * writer, so spreading reads over several connections lets them run in parallel. Each thread is
+ * assigned one of the connections, round robin, the first time it reads, and keeps using it.
+ * <p>
+ * Connections are opened lazily and do not run the open helper callbacks, other than
+ * {@link SupportSQLiteOpenHelper.Callback#onCorruption}, since those may write. They must only
+ * be used outside of transactions on the writer; reads within a transaction have to use the
+ * writer to see its uncommitted changes.
+ */
+final class FrameworkSQLiteReadConnectionPool {
+    private final String mPath;
+    private final SupportSQLiteOpenHelper.Callback mCallback;
+    private final AtomicReferenceArray<FrameworkSQLiteDatabase> mConnections;
+    private final AtomicInteger mNextConnection = new AtomicInteger();
+    private final ThreadLocal<Integer> mThreadConnection = new ThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            return (mNextConnection.getAndIncrement() & Integer.MAX_VALUE)
+                    % mConnections.length();
+        }
+    };
+    private boolean mClosed;
+
+    FrameworkSQLiteReadConnectionPool(String path, int size,
+            SupportSQLiteOpenHelper.Callback callback) {
+        mPath = path;
+        mCallback = callback;
+        mConnections = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Returns the read-only connection assigned to the calling thread, opening it if needed.
+     */
+    FrameworkSQLiteDatabase get() {
+        final int index = mThreadConnection.get();
+        FrameworkSQLiteDatabase connection = mConnections.get(index);
+        if (connection != null && connection.isOpen()) {
+            return connection;
+        }
+        synchronized (this) {
+            if (mClosed) {
+                throw new IllegalStateException("Cannot read from a closed database.");
+            }
+            connection = mConnections.get(index);
+            if (connection == null || !connection.isOpen()) {
+                connection = new FrameworkSQLiteDatabase(SQLiteDatabase.openDatabase(mPath, null,
+                        SQLiteDatabase.OPEN_READONLY, new DatabaseErrorHandler() {
+                            @Override
+                            public void onCorruption(SQLiteDatabase dbObj) {
+                                mCallback.onCorruption(new FrameworkSQLiteDatabase(dbObj));
+                            }
+                        }));
+                mConnections.set(index, connection);
+            }
+            return connection;
+        }
+    }
+
+    /**
+     * Closes every connection. The pool cannot be used afterwards.
+     */
+    synchronized void close() {
+        mClosed = true;
+        for (int i = 0; i < mConnections.length(); i++) {
+            FrameworkSQLiteDatabase connection = mConnections.getAndSet(i, null);
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (IOException e) {
+                    // SQLiteDatabase#close does not throw.
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.filters.LargeTest
+import androidx.work.Data
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.io.ByteArrayOutputStream
+import java.io.ObjectOutputStream
+
+/**
+ * Measures the round trip of [Data] through the type converters which store the input and output
+ * of a `WorkSpec`, for a typical small input and for a large output close to
+ * [Data.MAX_DATA_BYTES].
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class DataSerializationBenchmark(private val size: String) {
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val data = when (size) {
+        "small" -> Data.Builder()
+            .putString("url", "https://example.com/uploads/1234")
+            .putLong("id", 1234L)
+            .putBoolean("retry", true)
+            .build()
+        else -> Data.Builder()
+            .putStringArray("names", Array(100) { "name$it" })
+            .putLongArray("ids", LongArray(200) { it * 1_000_003L })
+            .putDoubleArray("scores", DoubleArray(100) { it / 3.0 })
+            .putString("payload", "x".repeat(1_000))
+            .build()
+    }
+
+    @Test
+    fun roundTrip() {
+        benchmarkRule.measureRepeated {
+            Data.fromByteArray(Data.toByteArrayInternal(data))
+        }
+    }
+
+    @Test
+    fun readLegacyFormat() {
+        val bytes = toLegacyByteArray(data)
+        benchmarkRule.measureRepeated {
+            Data.fromByteArray(bytes)
+        }
+    }
+
+    @Test
+    fun roundTripLegacyFormat() {
+        benchmarkRule.measureRepeated {
+            Data.fromByteArray(toLegacyByteArray(data))
+        }
+    }
+
+    // The format Data was written in before the compact format.
+    private fun toLegacyByteArray(data: Data): ByteArray {
+        val outputStream = ByteArrayOutputStream()
+        ObjectOutputStream(outputStream).use { objectOutputStream ->
+            objectOutputStream.writeInt(data.keyValueMap.size)
+            for ((key, value) in data.keyValueMap) {
+                objectOutputStream.writeUTF(key)
+                objectOutputStream.writeObject(value)
+            }
+        }
+        return outputStream.toByteArray()
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "size={0}")
+        fun data() = listOf("small", "large")
+    }
+}
@@ -29,6 +29,7 @@ import androidx.work.WorkInfo
 import androidx.work.impl.WorkDatabasePathHelper
 import androidx.work.impl.WorkDatabase
 import androidx.work.impl.WorkManagerImpl
+import androidx.work.impl.utils.PruneWorkRunnable
 import androidx.work.impl.utils.SerialExecutor
 import androidx.work.impl.utils.taskexecutor.TaskExecutor
 import org.junit.Before
@@ -113,14 +114,13 @@ class InitializeBenchmark {
                 }
             }
             // Runs ForceStopRunnable
-            WorkManagerImpl(context, configuration, taskExecutor, database)
+            val workManager = WorkManagerImpl(context, configuration, taskExecutor, database)
             // Prune records for the next run.
             runWithTimingDisabled {
                 executor.runAllCommands()
-                with(database) {
-                    workSpecDao().pruneFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast()
-                    close()
-                }
+                // Fewer than a batch of work, so it is pruned without rescheduling the runnable.
+                PruneWorkRunnable(workManager).run()
+                database.close()
                 context.deleteDatabase(databasePath)
             }
         }
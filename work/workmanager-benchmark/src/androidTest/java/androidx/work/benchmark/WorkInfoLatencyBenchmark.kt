@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.Operation
+import androidx.work.impl.Processor
+import androidx.work.impl.Scheduler
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.WorkManagerImpl
+import androidx.work.impl.utils.taskexecutor.WorkManagerTaskExecutor
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures the latency of [WorkManagerImpl.getWorkInfoById] while other parts of the app keep
+ * enqueueing unrelated work. The background executor only serializes commands touching the same
+ * work, so the query doesn't wait for the enqueues submitted before it.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class WorkInfoLatencyBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+    private lateinit var context: Context
+    private lateinit var database: WorkDatabase
+    private lateinit var workManager: WorkManagerImpl
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        val configuration = Configuration.Builder().build()
+        val taskExecutor = WorkManagerTaskExecutor(configuration.taskExecutor)
+        database = WorkDatabase.create(context, configuration.taskExecutor, true)
+        // No schedulers, so that the enqueued work doesn't run while measuring.
+        val schedulers = emptyList<Scheduler>()
+        val processor = Processor(context, configuration, taskExecutor, database, schedulers)
+        workManager = WorkManagerImpl(
+            context, configuration, taskExecutor, database, schedulers, processor
+        )
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun getWorkInfoById() {
+        val request = OneTimeWorkRequestBuilder<NoOpWorker>().build()
+        workManager.enqueue(request).result.get()
+        benchmarkRule.measureRepeated {
+            lateinit var operations: List<Operation>
+            runWithTimingDisabled {
+                operations = List(ENQUEUE_COUNT) {
+                    workManager.enqueue(
+                        List(REQUEST_COUNT) { OneTimeWorkRequestBuilder<NoOpWorker>().build() }
+                    )
+                }
+            }
+            workManager.getWorkInfoById(request.id).get()
+            runWithTimingDisabled {
+                operations.forEach { it.result.get() }
+            }
+        }
+    }
+
+    companion object {
+        private const val ENQUEUE_COUNT = 10
+        private const val REQUEST_COUNT = 100
+    }
+}
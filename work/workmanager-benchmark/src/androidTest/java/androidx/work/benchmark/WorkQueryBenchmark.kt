@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.WorkInfo
+import androidx.work.WorkQuery
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.model.WorkName
+import androidx.work.impl.model.WorkSpec
+import androidx.work.impl.model.WorkTag
+import androidx.work.impl.utils.RawQueries
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.UUID
+
+/**
+ * Measures running a [WorkQuery] against a [WorkDatabase] which keeps [WORK_COUNT] finished
+ * WorkSpecs around, and only a few unfinished ones.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class WorkQueryBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+    private lateinit var context: Context
+    private lateinit var database: WorkDatabase
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        val configuration = Configuration.Builder().build()
+        database = WorkDatabase.create(context, configuration.taskExecutor, true)
+        database.runInTransaction {
+            for (start in 0 until WORK_COUNT step BATCH_SIZE) {
+                val workSpecs = List(BATCH_SIZE) { offset ->
+                    val index = start + offset
+                    WorkSpec(UUID.randomUUID().toString(), NoOpWorker::class.java.name).apply {
+                        state = if (index % UNFINISHED_EVERY == 0) {
+                            WorkInfo.State.ENQUEUED
+                        } else {
+                            WorkInfo.State.SUCCEEDED
+                        }
+                    }
+                }
+                database.workSpecDao().insertWorkSpecs(workSpecs)
+                val reports = workSpecs.filterIndexed { offset, _ ->
+                    (start + offset) % REPORT_EVERY == 0
+                }
+                database.workTagDao().insertAll(
+                    workSpecs.map { WorkTag(SHARED_TAG, it.id) } +
+                        reports.map { WorkTag(REPORT_TAG, it.id) }
+                )
+                database.workNameDao().insertAll(
+                    workSpecs.mapIndexed { offset, workSpec ->
+                        WorkName("name-${start + offset}", workSpec.id)
+                    }
+                )
+            }
+        }
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun uniqueWorkNameAndFinishedStates() {
+        measure(
+            WorkQuery.Builder.fromUniqueWorkNames(listOf("name-${WORK_COUNT / 2 + 1}"))
+                .addStates(listOf(WorkInfo.State.SUCCEEDED, WorkInfo.State.FAILED))
+                .build()
+        )
+    }
+
+    @Test
+    fun tagAndAllStates() {
+        measure(
+            WorkQuery.Builder.fromTags(listOf(REPORT_TAG))
+                .addStates(WorkInfo.State.values().toList())
+                .build()
+        )
+    }
+
+    @Test
+    fun unfinishedStatesAndSharedTag() {
+        measure(
+            WorkQuery.Builder.fromStates(
+                listOf(WorkInfo.State.ENQUEUED, WorkInfo.State.RUNNING, WorkInfo.State.BLOCKED)
+            )
+                .addTags(listOf(SHARED_TAG))
+                .build()
+        )
+    }
+
+    private fun measure(query: WorkQuery) {
+        val rawQuery = RawQueries.workQueryToRawQuery(query)
+        benchmarkRule.measureRepeated {
+            database.rawWorkInfoDao().getWorkInfoPojos(rawQuery)
+        }
+    }
+
+    companion object {
+        private const val WORK_COUNT = 200_000
+        private const val BATCH_SIZE = 1_000
+        private const val UNFINISHED_EVERY = 200
+        private const val REPORT_EVERY = 100
+        private const val SHARED_TAG = "sync"
+        private const val REPORT_TAG = "report"
+    }
+}
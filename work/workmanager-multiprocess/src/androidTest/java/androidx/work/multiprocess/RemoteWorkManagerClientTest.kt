@@ -21,27 +21,47 @@ import android.content.Intent
 import android.content.ServiceConnection
 import android.os.Build
 import android.os.IBinder
+import androidx.test.core.app.ApplicationProvider
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import androidx.test.filters.MediumTest
+import androidx.work.Configuration
+import androidx.work.Data
+import androidx.work.OneTimeWorkRequest
+import androidx.work.RunnableScheduler
 import androidx.work.impl.WorkManagerImpl
 import androidx.work.impl.utils.SerialExecutor
 import androidx.work.impl.utils.futures.SettableFuture
 import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import androidx.work.multiprocess.parcelable.ParcelConverters
+import androidx.work.multiprocess.parcelable.ParcelableWorkRequests
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
 import org.junit.Assert.assertNotNull
 import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
+import org.mockito.ArgumentCaptor
 import org.mockito.ArgumentMatchers.any
 import org.mockito.ArgumentMatchers.anyString
+import org.mockito.ArgumentMatchers.eq
 import org.mockito.Mockito.`when`
 import org.mockito.Mockito.anyInt
+import org.mockito.Mockito.doAnswer
+import org.mockito.Mockito.doReturn
+import org.mockito.Mockito.inOrder
 import org.mockito.Mockito.mock
 import org.mockito.Mockito.never
 import org.mockito.Mockito.spy
+import org.mockito.Mockito.times
 import org.mockito.Mockito.verify
+import java.util.UUID
+import java.util.concurrent.CountDownLatch
 import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
 
 @RunWith(AndroidJUnit4::class)
 public class RemoteWorkManagerClientTest {
@@ -50,6 +70,7 @@ public class RemoteWorkManagerClientTest {
     private lateinit var mWorkManager: WorkManagerImpl
     private lateinit var mExecutor: Executor
     private lateinit var mClient: RemoteWorkManagerClient
+    private lateinit var mRunnableScheduler: RunnableScheduler
 
     @Before
     public fun setUp() {
@@ -155,4 +176,192 @@ public class RemoteWorkManagerClientTest {
         verify(callback).onSuccess(any())
         verify(mClient, never()).cleanUp()
     }
+
+    @Test
+    @MediumTest
+    public fun enqueueBatchesRequestsWithinFlushWindow() {
+        val runnableScheduler = mock(RunnableScheduler::class.java)
+        val configuration = Configuration.Builder()
+            .setRunnableScheduler(runnableScheduler)
+            .setRemoteFlushWindow(1, TimeUnit.SECONDS)
+            .build()
+        `when`(mWorkManager.configuration).thenReturn(configuration)
+        val remoteStub = mockRemoteStub()
+
+        val request1 = OneTimeWorkRequest.Builder(TestWorker::class.java).build()
+        val request2 = OneTimeWorkRequest.Builder(TestWorker::class.java).build()
+        val future1 = mClient.enqueue(request1)
+        val future2 = mClient.enqueue(request2)
+        verify(remoteStub, never()).enqueueWorkRequests(any(), any())
+
+        val flush = ArgumentCaptor.forClass(Runnable::class.java)
+        verify(runnableScheduler).scheduleWithDelay(eq(1000L), flush.capture())
+        flush.value.run()
+        val request = ArgumentCaptor.forClass(ByteArray::class.java)
+        val callback = ArgumentCaptor.forClass(IWorkManagerImplCallback::class.java)
+        verify(remoteStub).enqueueWorkRequests(request.capture(), callback.capture())
+        val requests = ParcelConverters.unmarshall(request.value, ParcelableWorkRequests.CREATOR)
+        assertEquals(listOf(request1.id, request2.id), requests.requests.map { it.id })
+
+        assertFalse(future1.isDone)
+        callback.value.onSuccess(ByteArray(0))
+        assertNull(future1.get())
+        assertNull(future2.get())
+    }
+
+    @Test
+    @MediumTest
+    public fun cancelSendsPendingBatchFirst() {
+        val runnableScheduler = mock(RunnableScheduler::class.java)
+        val configuration = Configuration.Builder()
+            .setRunnableScheduler(runnableScheduler)
+            .setRemoteFlushWindow(1, TimeUnit.SECONDS)
+            .build()
+        `when`(mWorkManager.configuration).thenReturn(configuration)
+        val remoteStub = mockRemoteStub()
+
+        val request = OneTimeWorkRequest.Builder(TestWorker::class.java).build()
+        mClient.enqueue(request)
+        mClient.cancelWorkById(request.id)
+        val inOrder = inOrder(remoteStub)
+        inOrder.verify(remoteStub).enqueueWorkRequests(any(), any())
+        inOrder.verify(remoteStub).cancelWorkById(eq(request.stringId), any())
+    }
+
+    @Test
+    @MediumTest
+    public fun cancelWaitsForBatchBeingSent() {
+        useFlushWindow()
+        val remoteStub = mockRemoteStub()
+        val session = mClient.session
+        val sending = CountDownLatch(1)
+        val first = AtomicBoolean(true)
+        doAnswer {
+            if (first.getAndSet(false)) {
+                // Give the cancellation a chance to overtake the batch.
+                sending.countDown()
+                Thread.sleep(200)
+            }
+            session
+        }.`when`(mClient).session
+
+        val request = OneTimeWorkRequest.Builder(TestWorker::class.java).build()
+        mClient.enqueue(request)
+        val flush = ArgumentCaptor.forClass(Runnable::class.java)
+        verify(mRunnableScheduler).scheduleWithDelay(eq(1000L), flush.capture())
+        val sender = Thread(flush.value)
+        sender.start()
+        assertTrue(sending.await(1, TimeUnit.SECONDS))
+        mClient.cancelWorkById(request.id)
+        sender.join()
+
+        val inOrder = inOrder(remoteStub)
+        inOrder.verify(remoteStub).enqueueWorkRequests(any(), any())
+        inOrder.verify(remoteStub).cancelWorkById(eq(request.stringId), any())
+    }
+
+    @Test
+    @MediumTest
+    public fun largeBatchIsSplitBySize() {
+        useFlushWindow()
+        val remoteStub = mockRemoteStub()
+        val sizes = mutableListOf<Int>()
+        val ids = mutableListOf<UUID>()
+        doAnswer { invocation ->
+            val request = invocation.getArgument<ByteArray>(0)
+            sizes += request.size
+            ids += ParcelConverters.unmarshall(request, ParcelableWorkRequests.CREATOR)
+                .requests.map { it.id }
+            invocation.getArgument<IWorkManagerImplCallback>(1).onSuccess(ByteArray(0))
+            null
+        }.`when`(remoteStub).enqueueWorkRequests(any(), any())
+
+        // Close to the maximum size of Data, so that the batch can't fit a single transaction.
+        val input = Data.Builder().putString("key", "a".repeat(8 * 1024)).build()
+        val requests = List(30) {
+            OneTimeWorkRequest.Builder(TestWorker::class.java).setInputData(input).build()
+        }
+        val futures = requests.map { mClient.enqueue(it) }
+        flushPendingBatch()
+
+        assertTrue(sizes.size > 1)
+        assertTrue(sizes.all { it <= RemoteWorkManagerClient.MAX_BATCH_BYTES })
+        assertEquals(requests.map { it.id }, ids)
+        futures.forEach { assertNull(it.get()) }
+    }
+
+    @Test
+    @MediumTest
+    public fun failedBatchIsRetriedOneCallAtATime() {
+        useFlushWindow()
+        val remoteStub = mockRemoteStub()
+        val bad = OneTimeWorkRequest.Builder(TestWorker::class.java).build()
+        val good1 = OneTimeWorkRequest.Builder(TestWorker::class.java).build()
+        val good2 = OneTimeWorkRequest.Builder(TestWorker::class.java).build()
+        doAnswer { invocation ->
+            val requests = ParcelConverters.unmarshall(
+                invocation.getArgument<ByteArray>(0),
+                ParcelableWorkRequests.CREATOR
+            ).requests
+            val callback = invocation.getArgument<IWorkManagerImplCallback>(1)
+            if (requests.any { it.id == bad.id }) {
+                callback.onFailure("Bad request")
+            } else {
+                callback.onSuccess(ByteArray(0))
+            }
+            null
+        }.`when`(remoteStub).enqueueWorkRequests(any(), any())
+
+        val goodFuture1 = mClient.enqueue(good1)
+        val badFuture = mClient.enqueue(bad)
+        val goodFuture2 = mClient.enqueue(good2)
+        flushPendingBatch()
+
+        // The batch, followed by each of the calls on its own.
+        verify(remoteStub, times(4)).enqueueWorkRequests(any(), any())
+        assertNull(goodFuture1.get())
+        assertNull(goodFuture2.get())
+        var exception: Throwable? = null
+        try {
+            badFuture.get()
+        } catch (throwable: Throwable) {
+            exception = throwable
+        }
+        assertNotNull(exception)
+    }
+
+    @Test
+    @MediumTest
+    public fun readsStreamedResponse() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        val response = ByteArray(ResponseStreams.STREAMING_THRESHOLD_BYTES * 2) { it.toByte() }
+        assertTrue(ResponseStreams.shouldStream(response))
+        val callback = RemoteCallback()
+        callback.onSuccessStream(ResponseStreams.write(context.cacheDir, response))
+        assertArrayEquals(response, callback.future.get())
+    }
+
+    private fun useFlushWindow() {
+        mRunnableScheduler = mock(RunnableScheduler::class.java)
+        val configuration = Configuration.Builder()
+            .setRunnableScheduler(mRunnableScheduler)
+            .setRemoteFlushWindow(1, TimeUnit.SECONDS)
+            .build()
+        `when`(mWorkManager.configuration).thenReturn(configuration)
+    }
+
+    private fun flushPendingBatch() {
+        val flush = ArgumentCaptor.forClass(Runnable::class.java)
+        verify(mRunnableScheduler).scheduleWithDelay(eq(1000L), flush.capture())
+        flush.value.run()
+    }
+
+    private fun mockRemoteStub(): IWorkManagerImpl {
+        val remoteStub = mock(IWorkManagerImpl::class.java)
+        `when`(remoteStub.asBinder()).thenReturn(mock(IBinder::class.java))
+        val session = SettableFuture.create<IWorkManagerImpl>()
+        session.set(remoteStub)
+        doReturn(session).`when`(mClient).session
+        return remoteStub
+    }
 }
@@ -16,6 +16,7 @@
 
 package androidx.work.multiprocess;
 
+import android.os.ParcelFileDescriptor;
 import android.os.RemoteException;
 
 import androidx.annotation.NonNull;
@@ -24,6 +25,8 @@ import androidx.work.Logger;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.Executor;
 
 /**
@@ -64,6 +67,15 @@ public abstract class ListenableCallback<I> {
         mFuture.addListener(new ListenableCallbackRunnable<I>(this), mExecutor);
     }
 
+    /**
+     * Dispatches a successful response. Responses which can be too large for a single
+     * transaction should be sent with
+     * {@link ListenableCallbackRunnable#successCallback(IWorkManagerImplCallback, byte[], File)}.
+     */
+    public void dispatchSuccess(@NonNull byte[] response) {
+        ListenableCallbackRunnable.successCallback(mCallback, response);
+    }
+
     /**
      * @param <I> represents the result returned by the {@link ListenableFuture}
      * @hide
@@ -81,7 +93,7 @@ public abstract class ListenableCallback<I> {
         public void run() {
             try {
                 I result = mCallback.mFuture.get();
-                successCallback(mCallback.mCallback, mCallback.toByteArray(result));
+                mCallback.dispatchSuccess(mCallback.toByteArray(result));
             } catch (Throwable throwable) {
                 failureCallback(mCallback.mCallback, throwable);
             }
@@ -100,6 +112,42 @@ public abstract class ListenableCallback<I> {
             }
         }
 
+        /**
+         * Dispatches successful callbacks safely, and streams the response through a
+         * {@link ParcelFileDescriptor} when it's too large for a single transaction.
+         *
+         * @param directory The directory in which the streamed response is written
+         */
+        public static void successCallback(
+                @NonNull IWorkManagerImplCallback callback,
+                @NonNull byte[] response,
+                @NonNull File directory) {
+            if (!ResponseStreams.shouldStream(response)) {
+                successCallback(callback, response);
+                return;
+            }
+            ParcelFileDescriptor descriptor;
+            try {
+                descriptor = ResponseStreams.write(directory, response);
+            } catch (IOException exception) {
+                Logger.get().error(TAG, "Unable to stream response", exception);
+                failureCallback(callback, exception);
+                return;
+            }
+            try {
+                callback.onSuccessStream(descriptor);
+            } catch (RemoteException exception) {
+                Logger.get().error(TAG, "Unable to notify successful operation", exception);
+            } finally {
+                try {
+                    // The remote process holds its own descriptor.
+                    descriptor.close();
+                } catch (IOException exception) {
+                    Logger.get().warning(TAG, "Unable to close response stream", exception);
+                }
+            }
+        }
+
         /**
          * Dispatches failures callbacks safely.
          **/
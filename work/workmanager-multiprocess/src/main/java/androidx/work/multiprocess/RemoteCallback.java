@@ -17,6 +17,7 @@
 package androidx.work.multiprocess;
 
 import android.os.IBinder;
+import android.os.ParcelFileDescriptor;
 import android.os.RemoteException;
 
 import androidx.annotation.NonNull;
@@ -25,6 +26,8 @@ import androidx.work.impl.utils.futures.SettableFuture;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
+
 /**
  * Manages callbacks from {@link IWorkManagerImpl}.
  *
@@ -69,6 +72,19 @@ public class RemoteCallback extends IWorkManagerImplCallback.Stub {
         unlinkToDeath();
     }
 
+    @Override
+    public void onSuccessStream(@NonNull ParcelFileDescriptor response) {
+        byte[] result;
+        try {
+            result = ResponseStreams.read(response);
+        } catch (IOException exception) {
+            onFailure(exception);
+            return;
+        }
+        mFuture.set(result);
+        unlinkToDeath();
+    }
+
     @Override
     public void onFailure(@NonNull String error) {
         onFailure(new RuntimeException(error));
@@ -53,6 +53,7 @@ import androidx.work.multiprocess.parcelable.ParcelableWorkRequests;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
@@ -70,12 +71,28 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
 
     static final String TAG = Logger.tagWithPrefix("RemoteWorkManagerClient");
 
+    /**
+     * The number of {@link WorkRequest}s after which a batch is sent right away.
+     */
+    static final int MAX_BATCH_SIZE = 100;
+
+    /**
+     * The maximum size of the marshalled {@link WorkRequest}s sent in a single transaction, to
+     * stay well under the size of the Binder transaction buffer. A single call to
+     * {@link #enqueue(List)} larger than this is still sent on its own.
+     */
+    static final int MAX_BATCH_BYTES = ResponseStreams.STREAMING_THRESHOLD_BYTES;
+
     final Context mContext;
     final WorkManagerImpl mWorkManager;
     final Executor mExecutor;
     final Object mLock;
+    // Held while transactions are issued, so that they reach the remote process in call order.
+    final Object mSendLock;
 
     private Session mSession;
+    // The WorkRequests which are waiting to be sent to the remote process together.
+    private EnqueueBatch mPendingBatch;
 
     @Keep
     public RemoteWorkManagerClient(@NonNull Context context, @NonNull WorkManagerImpl workManager) {
@@ -83,7 +100,9 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
         mWorkManager = workManager;
         mExecutor = mWorkManager.getWorkTaskExecutor().getBackgroundExecutor();
         mLock = new Object();
+        mSendLock = new Object();
         mSession = null;
+        mPendingBatch = null;
     }
 
     @NonNull
@@ -95,16 +114,39 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
     @NonNull
     @Override
     public ListenableFuture<Void> enqueue(@NonNull final List<WorkRequest> requests) {
-        ListenableFuture<byte[]> result = execute(new RemoteDispatcher() {
-            @Override
-            public void execute(
-                    @NonNull IWorkManagerImpl iWorkManagerImpl,
-                    @NonNull IWorkManagerImplCallback callback) throws RemoteException {
-                byte[] request = ParcelConverters.marshall(new ParcelableWorkRequests(requests));
-                iWorkManagerImpl.enqueueWorkRequests(request, callback);
+        PendingEnqueue pendingEnqueue = new PendingEnqueue(requests);
+        final EnqueueBatch batch;
+        boolean isNewBatch = false;
+        boolean isFull;
+        synchronized (mLock) {
+            if (mPendingBatch == null) {
+                mPendingBatch = new EnqueueBatch(this);
+                isNewBatch = true;
             }
-        });
-        return map(result, sVoidMapper, mExecutor);
+            batch = mPendingBatch;
+            batch.mPendingEnqueues.add(pendingEnqueue);
+            batch.mRequestCount += requests.size();
+            isFull = batch.mRequestCount >= MAX_BATCH_SIZE;
+        }
+        if (isFull) {
+            flush(batch);
+        } else if (isNewBatch) {
+            long flushWindow = mWorkManager.getConfiguration().getRemoteFlushWindowMillis();
+            if (flushWindow > 0) {
+                mWorkManager.getConfiguration().getRunnableScheduler()
+                        .scheduleWithDelay(flushWindow, new Runnable() {
+                            @Override
+                            public void run() {
+                                // Marshall the batch off the thread of the RunnableScheduler.
+                                mExecutor.execute(batch);
+                            }
+                        });
+            } else {
+                // Picks up the requests enqueued until the background executor gets to it.
+                mExecutor.execute(batch);
+            }
+        }
+        return map(pendingEnqueue.mFuture, sVoidMapper, mExecutor);
     }
 
     @NonNull
@@ -245,7 +287,118 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
      */
     @NonNull
     public ListenableFuture<byte[]> execute(@NonNull final RemoteDispatcher dispatcher) {
-        return execute(getSession(), dispatcher, new RemoteCallback());
+        // Keep the requests in order, by sending the pending batch first. A batch which another
+        // thread is sending holds the send lock until all its transactions are issued.
+        synchronized (mSendLock) {
+            EnqueueBatch batch;
+            synchronized (mLock) {
+                batch = mPendingBatch;
+            }
+            if (batch != null) {
+                flush(batch);
+            }
+            return execute(getSession(), dispatcher, new RemoteCallback());
+        }
+    }
+
+    /**
+     * Sends the {@link WorkRequest}s of an {@link EnqueueBatch} to the remote process, unless it
+     * has already been sent. The batch is split in as few transactions as possible, each of them
+     * at most {@link #MAX_BATCH_BYTES} large. The transactions are issued with the send lock
+     * held, so that a call to {@link #execute(RemoteDispatcher)} made meanwhile follows them.
+     *
+     * @param batch The {@link EnqueueBatch}
+     */
+    void flush(@NonNull EnqueueBatch batch) {
+        synchronized (mSendLock) {
+            List<PendingEnqueue> pendingEnqueues;
+            synchronized (mLock) {
+                if (mPendingBatch != batch) {
+                    return;
+                }
+                mPendingBatch = null;
+                pendingEnqueues = batch.mPendingEnqueues;
+            }
+            List<PendingEnqueue> group = new ArrayList<>();
+            int groupBytes = 0;
+            for (PendingEnqueue pendingEnqueue : pendingEnqueues) {
+                try {
+                    pendingEnqueue.mMarshalled = ParcelConverters.marshall(
+                            new ParcelableWorkRequests(pendingEnqueue.mRequests));
+                } catch (Throwable throwable) {
+                    pendingEnqueue.mFuture.setException(throwable);
+                    continue;
+                }
+                int size = pendingEnqueue.mMarshalled.length;
+                if (!group.isEmpty() && groupBytes + size > MAX_BATCH_BYTES) {
+                    send(group);
+                    group = new ArrayList<>();
+                    groupBytes = 0;
+                }
+                group.add(pendingEnqueue);
+                groupBytes += size;
+            }
+            if (!group.isEmpty()) {
+                send(group);
+            }
+        }
+    }
+
+    /**
+     * Enqueues a group of {@link PendingEnqueue}s in a single transaction. When that fails, each
+     * of them is enqueued on its own, so that only the futures of the failing ones fail.
+     */
+    private void send(@NonNull final List<PendingEnqueue> group) {
+        if (group.size() == 1) {
+            sendAlone(group.get(0));
+            return;
+        }
+        List<WorkRequest> requests = new ArrayList<>();
+        for (PendingEnqueue pendingEnqueue : group) {
+            requests.addAll(pendingEnqueue.mRequests);
+        }
+        Logger.get().debug(TAG, String.format("Enqueuing a batch of %s work", requests.size()));
+        final ListenableFuture<byte[]> result = enqueueRemotely(
+                ParcelConverters.marshall(new ParcelableWorkRequests(requests)));
+        result.addListener(new Runnable() {
+            @Override
+            public void run() {
+                byte[] response;
+                try {
+                    response = result.get();
+                } catch (Throwable throwable) {
+                    Logger.get().warning(TAG,
+                            "Unable to enqueue a batch of work, enqueuing it one call at a time",
+                            throwable);
+                    for (PendingEnqueue pendingEnqueue : group) {
+                        sendAlone(pendingEnqueue);
+                    }
+                    return;
+                }
+                for (PendingEnqueue pendingEnqueue : group) {
+                    pendingEnqueue.mFuture.set(response);
+                }
+            }
+        }, mExecutor);
+    }
+
+    // Synthetic access
+    void sendAlone(@NonNull PendingEnqueue pendingEnqueue) {
+        synchronized (mSendLock) {
+            pendingEnqueue.mFuture.setFuture(enqueueRemotely(pendingEnqueue.mMarshalled));
+        }
+    }
+
+    @NonNull
+    private ListenableFuture<byte[]> enqueueRemotely(@NonNull final byte[] request) {
+        return execute(getSession(), new RemoteDispatcher() {
+            @Override
+            public void execute(
+                    @NonNull IWorkManagerImpl iWorkManagerImpl,
+                    @NonNull IWorkManagerImplCallback callback) throws RemoteException {
+                iWorkManagerImpl.enqueueWorkRequests(request, callback);
+            }
+        }, new RemoteCallback());
     }
 
     /**
@@ -367,6 +520,42 @@ public class RemoteWorkManagerClient extends RemoteWorkManager {
         return output;
     }
 
+    /**
+     * The {@link WorkRequest}s enqueued within the same flush window, which are sent to the remote
+     * process in as few transactions as possible.
+     */
+    static class EnqueueBatch implements Runnable {
+        final RemoteWorkManagerClient mClient;
+        final List<PendingEnqueue> mPendingEnqueues;
+        int mRequestCount;
+
+        EnqueueBatch(@NonNull RemoteWorkManagerClient client) {
+            mClient = client;
+            mPendingEnqueues = new ArrayList<>();
+            mRequestCount = 0;
+        }
+
+        @Override
+        public void run() {
+            mClient.flush(this);
+        }
+    }
+
+    /**
+     * The {@link WorkRequest}s of a single call to {@link #enqueue(List)}, which succeed or fail
+     * together.
+     */
+    static class PendingEnqueue {
+        final List<WorkRequest> mRequests;
+        final SettableFuture<byte[]> mFuture;
+        byte[] mMarshalled;
+
+        PendingEnqueue(@NonNull List<WorkRequest> requests) {
+            mRequests = requests;
+            mFuture = SettableFuture.create();
+        }
+    }
+
     /**
      * @hide
      */
@@ -18,6 +18,7 @@ package androidx.work.multiprocess;
 
 
 import static androidx.work.multiprocess.ListenableCallback.ListenableCallbackRunnable.failureCallback;
+import static androidx.work.multiprocess.ListenableCallback.ListenableCallbackRunnable.successCallback;
 
 import android.content.Context;
 
@@ -53,9 +54,12 @@ public class RemoteWorkManagerImpl extends IWorkManagerImpl.Stub {
     // Synthetic access
     static byte[] sEMPTY = new byte[0];
 
+    // Synthetic access
+    final Context mContext;
     private final WorkManagerImpl mWorkManager;
 
     RemoteWorkManagerImpl(@NonNull Context context) {
+        mContext = context.getApplicationContext();
         mWorkManager = WorkManagerImpl.getInstance(context);
     }
 
@@ -196,7 +200,9 @@ public class RemoteWorkManagerImpl extends IWorkManagerImpl.Stub {
     }
 
     @Override
-    public void queryWorkInfo(@NonNull byte[] request, @NonNull IWorkManagerImplCallback callback) {
+    public void queryWorkInfo(
+            @NonNull byte[] request,
+            final @NonNull IWorkManagerImplCallback callback) {
         try {
             ParcelableWorkQuery parcelled =
                     ParcelConverters.unmarshall(request, ParcelableWorkQuery.CREATOR);
@@ -211,6 +217,12 @@ public class RemoteWorkManagerImpl extends IWorkManagerImpl.Stub {
                             ParcelableWorkInfos parcelables = new ParcelableWorkInfos(result);
                             return ParcelConverters.marshall(parcelables);
                         }
+
+                        @Override
+                        public void dispatchSuccess(@NonNull byte[] response) {
+                            // Queries can match an unbounded amount of work.
+                            successCallback(callback, response, mContext.getCacheDir());
+                        }
                     };
             listenableCallback.dispatchCallbackSafely();
         } catch (Throwable throwable) {
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.multiprocess;
+
+import android.os.ParcelFileDescriptor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Sends responses which are too large for a single Binder transaction through a
+ * {@link ParcelFileDescriptor}, and reads them back in chunks.
+ * <p>
+ * The response is written to a file which is unlinked as soon as it's opened, so that it goes
+ * away once both processes have closed their descriptor.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public final class ResponseStreams {
+
+    /**
+     * Responses larger than this are streamed. The Binder transaction buffer is 1MB, and it's
+     * shared by all the transactions in progress in the process.
+     */
+    public static final int STREAMING_THRESHOLD_BYTES = 128 * 1024;
+
+    private static final int CHUNK_SIZE_BYTES = 16 * 1024;
+    private static final String PREFIX = "androidx.work.response";
+
+    private ResponseStreams() {
+        // Does nothing
+    }
+
+    /**
+     * @return {@code true} if the response should be sent with {@link #write(File, byte[])}
+     */
+    public static boolean shouldStream(@NonNull byte[] response) {
+        return response.length > STREAMING_THRESHOLD_BYTES;
+    }
+
+    /**
+     * Writes a response to an unlinked file in the given directory.
+     *
+     * @param directory The directory the file is created in
+     * @param response  The response
+     * @return A read-only {@link ParcelFileDescriptor} for the response, which the caller needs to
+     * close once it has been sent
+     */
+    @NonNull
+    public static ParcelFileDescriptor write(
+            @NonNull File directory,
+            @NonNull byte[] response) throws IOException {
+        File file = File.createTempFile(PREFIX, null, directory);
+        try {
+            OutputStream outputStream = new FileOutputStream(file);
+            try {
+                for (int offset = 0; offset < response.length; offset += CHUNK_SIZE_BYTES) {
+                    int length = Math.min(CHUNK_SIZE_BYTES, response.length - offset);
+                    outputStream.write(response, offset, length);
+                }
+            } finally {
+                outputStream.close();
+            }
+            return ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+        } finally {
+            // The open descriptor keeps the contents around.
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Reads a response written by {@link #write(File, byte[])}, and closes the
+     * {@link ParcelFileDescriptor}.
+     *
+     * @param descriptor The {@link ParcelFileDescriptor}
+     * @return The response
+     */
+    @NonNull
+    public static byte[] read(@NonNull ParcelFileDescriptor descriptor) throws IOException {
+        InputStream inputStream = new ParcelFileDescriptor.AutoCloseInputStream(descriptor);
+        try {
+            long size = descriptor.getStatSize();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(
+                    size > 0 && size <= Integer.MAX_VALUE ? (int) size : CHUNK_SIZE_BYTES);
+            byte[] chunk = new byte[CHUNK_SIZE_BYTES];
+            int read;
+            while ((read = inputStream.read(chunk)) != -1) {
+                outputStream.write(chunk, 0, read);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
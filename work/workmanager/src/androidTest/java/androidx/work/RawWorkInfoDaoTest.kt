@@ -433,6 +433,43 @@ class RawWorkInfoDaoTest : DatabaseTest() {
         assertThat(pojos[0].id, `is`(test1.stringId))
     }
 
+    @Test
+    @SmallTest
+    fun finishedStatesAndTags() {
+        val test1 = OneTimeWorkRequest.Builder(TestWorker::class.java)
+            .setInitialState(WorkInfo.State.SUCCEEDED)
+            .build()
+
+        val test2 = OneTimeWorkRequest.Builder(TestWorker::class.java)
+            .setInitialState(WorkInfo.State.RUNNING)
+            .build()
+
+        val retry = OneTimeWorkRequest.Builder(RetryWorker::class.java)
+            .setInitialState(WorkInfo.State.SUCCEEDED)
+            .build()
+
+        insertWork(test1)
+        insertTags(test1)
+
+        insertWork(test2)
+        insertTags(test2)
+
+        insertWork(retry)
+        insertTags(retry)
+
+        val querySpec = WorkQuery.Builder
+            .fromStates(listOf(WorkInfo.State.SUCCEEDED, WorkInfo.State.FAILED))
+            .addTags(listOf(TestWorker::class.java.name))
+            .build()
+
+        val pojos = mDatabase.rawWorkInfoDao().getWorkInfoPojos(
+            RawQueries
+                .workQueryToRawQuery(querySpec)
+        )
+        assertThat(pojos.size, `is`(1))
+        assertThat(pojos[0].id, `is`(test1.stringId))
+    }
+
     @Test(expected = IllegalArgumentException::class)
     @SmallTest
     fun invalidWorkQuery() {
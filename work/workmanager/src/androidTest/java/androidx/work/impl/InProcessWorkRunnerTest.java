@@ -0,0 +1,305 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl;
+
+import static androidx.work.WorkInfo.State.CANCELLED;
+import static androidx.work.WorkInfo.State.ENQUEUED;
+import static androidx.work.WorkInfo.State.FAILED;
+import static androidx.work.WorkInfo.State.RUNNING;
+import static androidx.work.WorkInfo.State.SUCCEEDED;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.arch.core.executor.TaskExecutor;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.testing.TestLifecycleOwner;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.work.Configuration;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.impl.utils.SynchronousExecutor;
+import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor;
+import androidx.work.worker.EchoingWorker;
+import androidx.work.worker.FailureWorker;
+import androidx.work.worker.TestWorker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+@RunWith(AndroidJUnit4.class)
+public class InProcessWorkRunnerTest {
+
+    private Context mContext;
+    private QueueingExecutor mExecutor;
+    private InProcessWorkRunner mRunner;
+
+    @Before
+    public void setUp() {
+        ArchTaskExecutor.getInstance().setDelegate(new TaskExecutor() {
+            @Override
+            public void executeOnDiskIO(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public void postToMainThread(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return true;
+            }
+        });
+        mContext = ApplicationProvider.getApplicationContext();
+        mExecutor = new QueueingExecutor();
+        Configuration configuration = new Configuration.Builder()
+                .setExecutor(mExecutor)
+                .setInProcessExecutionEnabled(true)
+                .build();
+        mRunner = new InProcessWorkRunner(mContext, configuration, new InstantWorkTaskExecutor());
+    }
+
+    @After
+    public void tearDown() {
+        ArchTaskExecutor.getInstance().setDelegate(null);
+    }
+
+    @Test
+    @SmallTest
+    public void testCanRunInProcess() {
+        OneTimeWorkRequest inProcess = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setRunInProcess(true)
+                .build();
+        OneTimeWorkRequest persisted = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        assertThat(InProcessWorkRunner.canRunInProcess(Collections.singletonList(inProcess)),
+                is(true));
+        assertThat(InProcessWorkRunner.canRunInProcess(Collections.singletonList(persisted)),
+                is(false));
+        assertThat(InProcessWorkRunner.canRunInProcess(
+                Arrays.asList(inProcess, persisted)), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SmallTest
+    public void testBuild_withConstraints_throwsException() {
+        new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setRunInProcess(true)
+                .build();
+    }
+
+    @Test
+    @SmallTest
+    public void testEnqueue_succeedsWithOutputData() {
+        Data input = new Data.Builder().putString("key", "value").build();
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(EchoingWorker.class)
+                .setInputData(input)
+                .setRunInProcess(true)
+                .build();
+        mRunner.enqueue(Collections.singletonList(work));
+        assertThat(mRunner.getWorkInfo(work.getStringId()).getState(), is(ENQUEUED));
+
+        mExecutor.drain();
+        WorkInfo workInfo = mRunner.getWorkInfo(work.getStringId());
+        assertThat(workInfo.getState(), is(SUCCEEDED));
+        assertThat(workInfo.getOutputData(), is(input));
+        assertThat(workInfo.getRunAttemptCount(), is(1));
+    }
+
+    @Test
+    @SmallTest
+    public void testEnqueue_fails() {
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(FailureWorker.class)
+                .setRunInProcess(true)
+                .build();
+        mRunner.enqueue(Collections.singletonList(work));
+        mExecutor.drain();
+        assertThat(mRunner.getWorkInfo(work.getStringId()).getState(), is(FAILED));
+    }
+
+    @Test
+    @SmallTest
+    @SuppressWarnings("unchecked")
+    public void testGetWorkInfoLiveData_observesStateChanges() {
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setRunInProcess(true)
+                .build();
+        mRunner.enqueue(Collections.singletonList(work));
+
+        Observer<WorkInfo> mockObserver = mock(Observer.class);
+        TestLifecycleOwner testLifecycleOwner = new TestLifecycleOwner();
+        LiveData<WorkInfo> liveData = mRunner.getWorkInfoLiveData(work.getStringId());
+        assertThat(liveData, is(notNullValue()));
+        liveData.observe(testLifecycleOwner, mockObserver);
+
+        mExecutor.drain();
+        ArgumentCaptor<WorkInfo> captor = ArgumentCaptor.forClass(WorkInfo.class);
+        verify(mockObserver, times(3)).onChanged(captor.capture());
+        List<WorkInfo> workInfos = captor.getAllValues();
+        assertThat(workInfos.get(0).getState(), is(ENQUEUED));
+        assertThat(workInfos.get(1).getState(), is(RUNNING));
+        assertThat(workInfos.get(2).getState(), is(SUCCEEDED));
+    }
+
+    @Test
+    @SmallTest
+    public void testCancel_beforeWorkRuns() {
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setRunInProcess(true)
+                .build();
+        mRunner.enqueue(Collections.singletonList(work));
+        assertThat(mRunner.cancel(work.getStringId()), is(true));
+        mExecutor.drain();
+        WorkInfo workInfo = mRunner.getWorkInfo(work.getStringId());
+        assertThat(workInfo.getState(), is(CANCELLED));
+        assertThat(workInfo.getRunAttemptCount(), is(0));
+    }
+
+    @Test
+    @SmallTest
+    public void testCancelAllWorkByTag_whileWorkIsRunning() {
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .addTag("tag")
+                .setRunInProcess(true)
+                .build();
+        mRunner.enqueue(Collections.singletonList(work));
+        // Creates the Worker, which then submits doWork() to the same executor.
+        mExecutor.runNext();
+        assertThat(mRunner.getWorkInfo(work.getStringId()).getState(), is(RUNNING));
+
+        mRunner.cancelAllWorkByTag("tag");
+        mExecutor.drain();
+        assertThat(mRunner.getWorkInfo(work.getStringId()).getState(), is(CANCELLED));
+    }
+
+    @Test
+    @SmallTest
+    public void testCancel_beforeWorkerStarts() {
+        final QueueingExecutor mainThreadExecutor = new QueueingExecutor();
+        Configuration configuration = new Configuration.Builder()
+                .setExecutor(mExecutor)
+                .setInProcessExecutionEnabled(true)
+                .build();
+        InProcessWorkRunner runner = new InProcessWorkRunner(mContext, configuration,
+                new InstantWorkTaskExecutor() {
+                    @Override
+                    public Executor getMainThreadExecutor() {
+                        return mainThreadExecutor;
+                    }
+                });
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setRunInProcess(true)
+                .build();
+        runner.enqueue(Collections.singletonList(work));
+        // Creates the Worker, and posts startWork() to the main thread.
+        mExecutor.runNext();
+        assertThat(runner.getWorkInfo(work.getStringId()).getState(), is(RUNNING));
+
+        assertThat(runner.cancel(work.getStringId()), is(true));
+        mainThreadExecutor.drain();
+        // startWork() would have submitted doWork() to the executor.
+        assertThat(mExecutor.isEmpty(), is(true));
+        assertThat(runner.getWorkInfo(work.getStringId()).getState(), is(CANCELLED));
+    }
+
+    @Test
+    @SmallTest
+    public void testCancel_unknownWork() {
+        String id = UUID.randomUUID().toString();
+        assertThat(mRunner.cancel(id), is(false));
+        assertThat(mRunner.getWorkInfo(id), is(nullValue()));
+        assertThat(mRunner.getWorkInfoLiveData(id), is(nullValue()));
+    }
+
+    @Test
+    @SmallTest
+    public void testFinishedWorkIsForgotten() {
+        Configuration configuration = new Configuration.Builder()
+                .setExecutor(new SynchronousExecutor())
+                .setInProcessExecutionEnabled(true)
+                .build();
+        InProcessWorkRunner runner =
+                new InProcessWorkRunner(mContext, configuration, new InstantWorkTaskExecutor());
+        OneTimeWorkRequest first = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setRunInProcess(true)
+                .build();
+        runner.enqueue(Collections.singletonList(first));
+        for (int i = 0; i < InProcessWorkRunner.MAX_FINISHED_WORK; i++) {
+            runner.enqueue(Collections.singletonList(
+                    new OneTimeWorkRequest.Builder(TestWorker.class)
+                            .setRunInProcess(true)
+                            .build()));
+        }
+        assertThat(runner.getWorkInfo(first.getStringId()), is(nullValue()));
+    }
+
+    /**
+     * An {@link Executor} which only runs its commands when asked to.
+     */
+    private static class QueueingExecutor implements Executor {
+        private final Queue<Runnable> mCommands = new ArrayDeque<>();
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mCommands.add(command);
+        }
+
+        void runNext() {
+            mCommands.remove().run();
+        }
+
+        boolean isEmpty() {
+            return mCommands.isEmpty();
+        }
+
+        void drain() {
+            while (!mCommands.isEmpty()) {
+                runNext();
+            }
+        }
+    }
+}
@@ -40,6 +40,7 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.emptyCollectionOf;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.isIn;
 import static org.hamcrest.Matchers.isOneOf;
 import static org.mockito.ArgumentMatchers.any;
@@ -69,8 +70,6 @@ import androidx.arch.core.executor.TaskExecutor;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.testing.TestLifecycleOwner;
-import androidx.sqlite.db.SupportSQLiteDatabase;
-import androidx.sqlite.db.SupportSQLiteOpenHelper;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.LargeTest;
@@ -86,6 +85,7 @@ import androidx.work.Data;
 import androidx.work.ExistingPeriodicWorkPolicy;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.PeriodicWorkRequest;
+import androidx.work.PruningPolicy;
 import androidx.work.WorkContinuation;
 import androidx.work.WorkInfo;
 import androidx.work.WorkRequest;
@@ -101,6 +101,7 @@ import androidx.work.impl.model.WorkTagDao;
 import androidx.work.impl.utils.CancelWorkRunnable;
 import androidx.work.impl.utils.ForceStopRunnable;
 import androidx.work.impl.utils.PreferenceUtils;
+import androidx.work.impl.utils.PruneWorkRunnable;
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor;
 import androidx.work.impl.workers.ConstraintTrackingWorker;
 import androidx.work.worker.InfiniteTestWorker;
@@ -114,6 +115,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -230,6 +232,36 @@ public class WorkManagerImplTest {
         assertThat(workSpecDao.getWorkSpec(work3.getStringId()), is(notNullValue()));
     }
 
+    @Test
+    @MediumTest
+    public void testEnqueue_insertManyWork_withTagsAndName()
+            throws ExecutionException, InterruptedException {
+        final int workCount = 100;
+        List<OneTimeWorkRequest> workList = new ArrayList<>(workCount);
+        List<String> ids = new ArrayList<>(workCount);
+        for (int i = 0; i < workCount; i++) {
+            OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                    .addTag("tag")
+                    .build();
+            workList.add(work);
+            ids.add(work.getStringId());
+        }
+        OneTimeWorkRequest dependent = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+
+        mWorkManagerImpl.beginUniqueWork("name", REPLACE, workList)
+                .then(dependent)
+                .enqueue()
+                .getResult()
+                .get();
+
+        assertThat(mDatabase.workTagDao().getWorkSpecIdsWithTag("tag"),
+                containsInAnyOrder(ids.toArray()));
+        assertThat(mDatabase.workNameDao().getWorkSpecIdsWithName("name"),
+                hasSize(workCount + 1));
+        assertThat(mDatabase.dependencyDao().getPrerequisites(dependent.getStringId()),
+                containsInAnyOrder(ids.toArray()));
+    }
+
     @Test
     @MediumTest
     public void testEnqueue_insertMultipleWork_continuationBlocking()
@@ -1610,10 +1642,10 @@ public class WorkManagerImplTest {
 
     @Test
     @MediumTest
-    public void testGenerateCleanupCallback_deletesOldFinishedWork() {
+    public void testPruneWorkRunnable_deletesOldFinishedWork() {
         OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setInitialState(SUCCEEDED)
-                .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .setPeriodStartTime(getPruneDate() - 1L, TimeUnit.MILLISECONDS)
                 .build();
         OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setPeriodStartTime(Long.MAX_VALUE, TimeUnit.MILLISECONDS)
@@ -1622,9 +1654,7 @@ public class WorkManagerImplTest {
         insertWorkSpecAndTags(work1);
         insertWorkSpecAndTags(work2);
 
-        SupportSQLiteOpenHelper openHelper = mDatabase.getOpenHelper();
-        SupportSQLiteDatabase db = openHelper.getWritableDatabase();
-        WorkDatabase.generateCleanupCallback().onOpen(db);
+        new PruneWorkRunnable(mWorkManagerImpl, true).run();
 
         WorkSpecDao workSpecDao = mDatabase.workSpecDao();
         assertThat(workSpecDao.getWorkSpec(work1.getStringId()), is(nullValue()));
@@ -1633,18 +1663,18 @@ public class WorkManagerImplTest {
 
     @Test
     @MediumTest
-    public void testGenerateCleanupCallback_doesNotDeleteOldFinishedWorkWithActiveDependents() {
+    public void testPruneWorkRunnable_doesNotDeleteOldFinishedWorkWithActiveDependents() {
         OneTimeWorkRequest work0 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setInitialState(SUCCEEDED)
-                .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .setPeriodStartTime(getPruneDate() - 1L, TimeUnit.MILLISECONDS)
                 .build();
         OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setInitialState(SUCCEEDED)
-                .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .setPeriodStartTime(getPruneDate() - 1L, TimeUnit.MILLISECONDS)
                 .build();
         OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class)
                 .setInitialState(ENQUEUED)
-                .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .setPeriodStartTime(getPruneDate() - 1L, TimeUnit.MILLISECONDS)
                 .build();
 
         insertWorkSpecAndTags(work0);
@@ -1655,9 +1685,7 @@ public class WorkManagerImplTest {
         insertDependency(work1, work0);
         insertDependency(work2, work1);
 
-        SupportSQLiteOpenHelper openHelper = mDatabase.getOpenHelper();
-        SupportSQLiteDatabase db = openHelper.getWritableDatabase();
-        WorkDatabase.generateCleanupCallback().onOpen(db);
+        new PruneWorkRunnable(mWorkManagerImpl, true).run();
 
         WorkSpecDao workSpecDao = mDatabase.workSpecDao();
         assertThat(workSpecDao.getWorkSpec(work0.getStringId()), is(nullValue()));
@@ -1665,6 +1693,114 @@ public class WorkManagerImplTest {
         assertThat(workSpecDao.getWorkSpec(work2.getStringId()), is(not(nullValue())));
     }
 
+    @Test
+    @MediumTest
+    public void testPruneWorkRunnable_deletesInBatches()
+            throws ExecutionException, InterruptedException {
+        final int[] prunedWorkCount = new int[1];
+        PruningPolicy pruningPolicy = new PruningPolicy.Builder()
+                .setBatchSize(2)
+                .setPruneListener(new PruningPolicy.PruneListener() {
+                    @Override
+                    public void onWorkPruned(int count, long durationMillis) {
+                        prunedWorkCount[0] = count;
+                    }
+                })
+                .build();
+        Configuration configuration = new Configuration.Builder(mConfiguration)
+                .setPruningPolicy(pruningPolicy)
+                .build();
+        when(mWorkManagerImpl.getConfiguration()).thenReturn(configuration);
+
+        List<OneTimeWorkRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                    .setInitialState(SUCCEEDED)
+                    .setPeriodStartTime(getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                    .build();
+            insertWorkSpecAndTags(work);
+            requests.add(work);
+        }
+
+        PruneWorkRunnable runnable = new PruneWorkRunnable(mWorkManagerImpl, true);
+        runnable.run();
+        runnable.getOperation().getResult().get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        for (OneTimeWorkRequest work : requests) {
+            assertThat(workSpecDao.getWorkSpec(work.getStringId()), is(nullValue()));
+        }
+        assertThat(prunedWorkCount[0], is(5));
+    }
+
+    @Test
+    @MediumTest
+    public void testPruneWorkRunnable_keepsMaxFinishedWorkCount() {
+        PruningPolicy pruningPolicy = new PruningPolicy.Builder()
+                .setMaxFinishedWorkCount(1)
+                .build();
+        Configuration configuration = new Configuration.Builder(mConfiguration)
+                .setPruningPolicy(pruningPolicy)
+                .build();
+        when(mWorkManagerImpl.getConfiguration()).thenReturn(configuration);
+
+        long now = System.currentTimeMillis();
+        OneTimeWorkRequest oldest = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(SUCCEEDED)
+                .setPeriodStartTime(now - 3L, TimeUnit.MILLISECONDS)
+                .build();
+        OneTimeWorkRequest keptForAtLeast = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(SUCCEEDED)
+                .setPeriodStartTime(now - 2L, TimeUnit.MILLISECONDS)
+                .keepResultsForAtLeast(999, TimeUnit.DAYS)
+                .build();
+        OneTimeWorkRequest newest = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(SUCCEEDED)
+                .setPeriodStartTime(now - 1L, TimeUnit.MILLISECONDS)
+                .build();
+
+        insertWorkSpecAndTags(oldest);
+        insertWorkSpecAndTags(keptForAtLeast);
+        insertWorkSpecAndTags(newest);
+
+        new PruneWorkRunnable(mWorkManagerImpl, true).run();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getWorkSpec(oldest.getStringId()), is(nullValue()));
+        assertThat(workSpecDao.getWorkSpec(keptForAtLeast.getStringId()), is(not(nullValue())));
+        assertThat(workSpecDao.getWorkSpec(newest.getStringId()), is(nullValue()));
+    }
+
+    @Test
+    @MediumTest
+    public void testPruneWorkRunnable_onlyDeletesPrunedStates() {
+        PruningPolicy pruningPolicy = new PruningPolicy.Builder()
+                .setPrunedStates(Collections.singleton(SUCCEEDED))
+                .build();
+        Configuration configuration = new Configuration.Builder(mConfiguration)
+                .setPruningPolicy(pruningPolicy)
+                .build();
+        when(mWorkManagerImpl.getConfiguration()).thenReturn(configuration);
+
+        OneTimeWorkRequest succeeded = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(SUCCEEDED)
+                .setPeriodStartTime(getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .build();
+        OneTimeWorkRequest failed = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(FAILED)
+                .setPeriodStartTime(getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .build();
+
+        insertWorkSpecAndTags(succeeded);
+        insertWorkSpecAndTags(failed);
+
+        new PruneWorkRunnable(mWorkManagerImpl, true).run();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getWorkSpec(succeeded.getStringId()), is(nullValue()));
+        assertThat(workSpecDao.getWorkSpec(failed.getStringId()), is(not(nullValue())));
+    }
+
     @Test
     @LargeTest
     public void testEnableDisableRescheduleReceiver()
@@ -1886,4 +2022,8 @@ public class WorkManagerImplTest {
         mDatabase.dependencyDao().insertDependency(
                 new Dependency(work.getStringId(), prerequisiteWork.getStringId()));
     }
+
+    private static long getPruneDate() {
+        return System.currentTimeMillis() - PruningPolicy.DEFAULT_RETENTION_DURATION_MILLIS;
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class ConflictAwareExecutorTest {
+
+    private lateinit var delegate: ExecutorService
+    private lateinit var executor: ConflictAwareExecutor
+    private lateinit var release: CountDownLatch
+
+    @Before
+    fun setUp() {
+        delegate = Executors.newCachedThreadPool()
+        executor = ConflictAwareExecutor(delegate, 2)
+        release = CountDownLatch(1)
+    }
+
+    @After
+    fun tearDown() {
+        release.countDown()
+        delegate.shutdown()
+    }
+
+    @Test
+    fun testNonConflictingTasksRunInParallel() {
+        val blocking = BlockingRunnable(release)
+        val other = BlockingRunnable(CountDownLatch(0))
+        executor.execute(listOf("a"), blocking)
+        executor.execute(listOf("b"), other)
+        assertThat(other.finished.await(1, TimeUnit.SECONDS), `is`(true))
+        assertThat(blocking.finished.count, `is`(1L))
+    }
+
+    @Test
+    fun testConflictingTasksRunInOrder() {
+        val blocking = BlockingRunnable(release)
+        val conflicting = BlockingRunnable(CountDownLatch(0))
+        executor.execute(listOf("a", "b"), blocking)
+        executor.execute(listOf("b", "c"), conflicting)
+        assertThat(conflicting.started.await(100, TimeUnit.MILLISECONDS), `is`(false))
+        assertThat(executor.hasPendingTasks(), `is`(true))
+        release.countDown()
+        assertThat(conflicting.finished.await(1, TimeUnit.SECONDS), `is`(true))
+        // Tasks are only done once they told the executor that they finished.
+        delegate.shutdown()
+        assertThat(delegate.awaitTermination(1, TimeUnit.SECONDS), `is`(true))
+        assertThat(executor.hasPendingTasks(), `is`(false))
+    }
+
+    @Test
+    fun testRunningTasksArePending() {
+        val blocking = BlockingRunnable(release)
+        executor.execute(listOf("a"), blocking)
+        assertThat(blocking.started.await(1, TimeUnit.SECONDS), `is`(true))
+        assertThat(executor.hasPendingTasks(), `is`(true))
+        release.countDown()
+        delegate.shutdown()
+        assertThat(delegate.awaitTermination(1, TimeUnit.SECONDS), `is`(true))
+        assertThat(executor.hasPendingTasks(), `is`(false))
+    }
+
+    @Test
+    fun testUnkeyedTaskConflictsWithEverything() {
+        val blocking = BlockingRunnable(release)
+        val unkeyed = BlockingRunnable(CountDownLatch(0))
+        val later = BlockingRunnable(CountDownLatch(0))
+        executor.execute(listOf("a"), blocking)
+        executor.execute(unkeyed)
+        // Tasks submitted after an unkeyed task can't overtake it.
+        executor.execute(listOf("b"), later)
+        assertThat(unkeyed.started.await(100, TimeUnit.MILLISECONDS), `is`(false))
+        assertThat(later.started.count, `is`(1L))
+        release.countDown()
+        assertThat(later.finished.await(1, TimeUnit.SECONDS), `is`(true))
+        assertThat(unkeyed.finished.count, `is`(0L))
+    }
+
+    @Test
+    fun testTaskWaitsOnEarlierPendingConflictingTask() {
+        val blocking = BlockingRunnable(release)
+        val pending = BlockingRunnable(CountDownLatch(0))
+        val later = BlockingRunnable(CountDownLatch(0))
+        executor.execute(listOf("a"), blocking)
+        executor.execute(listOf("a", "b"), pending)
+        // Doesn't conflict with the running task, but with the pending one.
+        executor.execute(listOf("b"), later)
+        assertThat(later.started.await(100, TimeUnit.MILLISECONDS), `is`(false))
+        release.countDown()
+        assertThat(later.finished.await(1, TimeUnit.SECONDS), `is`(true))
+        assertThat(pending.finished.count, `is`(0L))
+    }
+
+    @Test
+    fun testMaxParallelism() {
+        val first = BlockingRunnable(release)
+        val second = BlockingRunnable(release)
+        val third = BlockingRunnable(CountDownLatch(0))
+        executor.execute(listOf("a"), first)
+        executor.execute(listOf("b"), second)
+        executor.execute(listOf("c"), third)
+        assertThat(third.started.await(100, TimeUnit.MILLISECONDS), `is`(false))
+        release.countDown()
+        assertThat(third.finished.await(1, TimeUnit.SECONDS), `is`(true))
+    }
+
+    @Test
+    fun testSynchronousExecutor() {
+        val synchronous = ConflictAwareExecutor(SynchronousExecutor(), 2)
+        val first = BlockingRunnable(CountDownLatch(0))
+        val second = BlockingRunnable(CountDownLatch(0))
+        synchronous.execute(listOf("a"), first)
+        synchronous.execute(second)
+        assertThat(first.finished.count, `is`(0L))
+        assertThat(second.finished.count, `is`(0L))
+        assertThat(synchronous.hasPendingTasks(), `is`(false))
+    }
+
+    companion object {
+        class BlockingRunnable(private val release: CountDownLatch) : Runnable {
+            val started = CountDownLatch(1)
+            val finished = CountDownLatch(1)
+            override fun run() {
+                started.countDown()
+                try {
+                    release.await(5, TimeUnit.SECONDS)
+                } catch (exception: InterruptedException) {
+                    throw RuntimeException(exception)
+                } finally {
+                    finished.countDown()
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import androidx.lifecycle.MutableLiveData
+import androidx.lifecycle.Observer
+import androidx.lifecycle.testing.TestLifecycleOwner
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import androidx.work.Data
+import androidx.work.WorkInfo
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.UUID
+
+@RunWith(AndroidJUnit4::class)
+class WorkProgressTrackerTest {
+
+    @get:Rule
+    val instantTaskExecutorRule = InstantTaskExecutorRule()
+
+    private val mTracker = WorkProgressTracker()
+
+    @Test
+    @SmallTest
+    fun setProgress_ignoredUnlessTracked() {
+        val id = UUID.randomUUID().toString()
+        assertThat(mTracker.setProgress(id, progress(1)), `is`(false))
+        assertThat(mTracker.getProgress(id), `is`(nullValue()))
+
+        mTracker.track(id)
+        assertThat(mTracker.setProgress(id, progress(2)), `is`(true))
+        assertThat(mTracker.getProgress(id), `is`(progress(2)))
+    }
+
+    @Test
+    @SmallTest
+    fun setProgress_afterClear_isIgnored() {
+        val id = UUID.randomUUID().toString()
+        mTracker.track(id)
+        mTracker.setProgress(id, progress(1))
+        mTracker.clear(id)
+        // A late update from a finished worker doesn't bring the progress back.
+        assertThat(mTracker.setProgress(id, progress(2)), `is`(false))
+        assertThat(mTracker.getProgress(id), `is`(nullValue()))
+    }
+
+    @Test
+    @SmallTest
+    fun latestProgressLiveData_replacesProgressOfRunningWork() {
+        val id = UUID.randomUUID()
+        val stored = MutableLiveData<WorkInfo>()
+        val progress = MutableLiveData<Data>()
+        val liveData = WorkProgressTracker.LatestProgressLiveData(stored, progress)
+        val observer = CountingObserver<WorkInfo>()
+        val owner = TestLifecycleOwner()
+        liveData.observe(owner, observer)
+
+        stored.value = workInfo(id, WorkInfo.State.RUNNING, progress(1))
+        progress.value = progress(2)
+        assertThat(liveData.value, `is`(workInfo(id, WorkInfo.State.RUNNING, progress(2))))
+        assertThat(observer.timesUpdated, `is`(2))
+
+        // The same progress written to the database doesn't trigger the observers again.
+        stored.value = workInfo(id, WorkInfo.State.RUNNING, progress(2))
+        assertThat(observer.timesUpdated, `is`(2))
+
+        // The progress of finished work is never replaced.
+        stored.value = workInfo(id, WorkInfo.State.SUCCEEDED, Data.EMPTY)
+        assertThat(liveData.value, `is`(workInfo(id, WorkInfo.State.SUCCEEDED, Data.EMPTY)))
+        assertThat(observer.timesUpdated, `is`(3))
+        liveData.removeObservers(owner)
+    }
+
+    @Test
+    @SmallTest
+    fun withLatestProgress_deliversTrackedProgress() {
+        val id = UUID.randomUUID()
+        val stored = MutableLiveData<WorkInfo>()
+        val liveData = mTracker.withLatestProgress(id.toString(), stored)
+        val owner = TestLifecycleOwner()
+        liveData.observe(owner, CountingObserver())
+
+        stored.value = workInfo(id, WorkInfo.State.RUNNING, Data.EMPTY)
+        mTracker.track(id.toString())
+        mTracker.setProgress(id.toString(), progress(1))
+        assertThat(liveData.value, `is`(workInfo(id, WorkInfo.State.RUNNING, progress(1))))
+
+        mTracker.clear(id.toString())
+        assertThat(liveData.value, `is`(workInfo(id, WorkInfo.State.RUNNING, Data.EMPTY)))
+        liveData.removeObservers(owner)
+    }
+
+    @Test
+    @SmallTest
+    fun withLatestProgress_list_deliversTrackedProgress() {
+        val running = UUID.randomUUID()
+        val enqueued = UUID.randomUUID()
+        val stored = MutableLiveData<List<WorkInfo>>()
+        val liveData = mTracker.withLatestProgress(stored)
+        val observer = CountingObserver<List<WorkInfo>>()
+        val owner = TestLifecycleOwner()
+        liveData.observe(owner, observer)
+
+        stored.value = listOf(
+            workInfo(running, WorkInfo.State.RUNNING, Data.EMPTY),
+            workInfo(enqueued, WorkInfo.State.ENQUEUED, Data.EMPTY)
+        )
+        assertThat(observer.timesUpdated, `is`(1))
+
+        mTracker.track(running.toString())
+        mTracker.setProgress(running.toString(), progress(1))
+        assertThat(
+            liveData.value,
+            `is`(
+                listOf(
+                    workInfo(running, WorkInfo.State.RUNNING, progress(1)),
+                    workInfo(enqueued, WorkInfo.State.ENQUEUED, Data.EMPTY)
+                )
+            )
+        )
+        assertThat(observer.timesUpdated, `is`(2))
+
+        // Progress of work which isn't in the list doesn't trigger the observers.
+        val other = UUID.randomUUID().toString()
+        mTracker.track(other)
+        mTracker.setProgress(other, progress(1))
+        assertThat(observer.timesUpdated, `is`(2))
+        liveData.removeObservers(owner)
+    }
+
+    private fun progress(value: Int): Data {
+        return Data.Builder().putInt("progress", value).build()
+    }
+
+    private fun workInfo(id: UUID, state: WorkInfo.State, progress: Data): WorkInfo {
+        return WorkInfo(id, state, Data.EMPTY, listOf("tag"), progress, 0)
+    }
+
+    class CountingObserver<T> : Observer<T> {
+        var timesUpdated = 0
+
+        override fun onChanged(t: T) {
+            timesUpdated++
+        }
+    }
+}
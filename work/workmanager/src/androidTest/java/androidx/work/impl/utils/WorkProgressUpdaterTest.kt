@@ -21,17 +21,27 @@ import androidx.test.ext.junit.runners.AndroidJUnit4
 import androidx.test.filters.MediumTest
 import androidx.test.filters.SdkSuppress
 import androidx.work.Data
+import androidx.work.RunnableScheduler
 import androidx.work.WorkInfo
 import androidx.work.impl.WorkDatabase
+import androidx.work.impl.model.WorkProgress
+import androidx.work.impl.model.WorkProgressDao
+import androidx.work.impl.model.WorkSpec
 import androidx.work.impl.model.WorkSpecDao
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor
 import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
+import org.mockito.ArgumentCaptor
 import org.mockito.ArgumentMatchers.anyString
 import org.mockito.Mockito
 import org.mockito.Mockito.`when`
+import org.mockito.Mockito.times
+import org.mockito.Mockito.verify
 import java.util.UUID
 
 @RunWith(AndroidJUnit4::class)
@@ -41,6 +51,7 @@ class WorkProgressUpdaterTest {
     private lateinit var mContext: Context
     private lateinit var mDatabase: WorkDatabase
     private lateinit var mWorkSpecDao: WorkSpecDao
+    private lateinit var mWorkProgressDao: WorkProgressDao
     private lateinit var mTaskExecutor: TaskExecutor
     private lateinit var mProgressUpdater: WorkProgressUpdater
 
@@ -49,7 +60,9 @@ class WorkProgressUpdaterTest {
         mContext = Mockito.mock(Context::class.java)
         mDatabase = Mockito.mock(WorkDatabase::class.java)
         mWorkSpecDao = Mockito.mock(WorkSpecDao::class.java)
+        mWorkProgressDao = Mockito.mock(WorkProgressDao::class.java)
         `when`(mDatabase.workSpecDao()).thenReturn(mWorkSpecDao)
+        `when`(mDatabase.workProgressDao()).thenReturn(mWorkProgressDao)
         mTaskExecutor = InstantWorkTaskExecutor()
         mProgressUpdater = WorkProgressUpdater(mDatabase, mTaskExecutor)
     }
@@ -66,4 +79,77 @@ class WorkProgressUpdaterTest {
             throw exception.cause ?: exception
         }
     }
+
+    @Test
+    @MediumTest
+    fun updateProgress_coalescesUpdates() {
+        val uuid = UUID.randomUUID()
+        val workSpec = WorkSpec(uuid.toString(), "Worker")
+        workSpec.state = WorkInfo.State.RUNNING
+        `when`(mWorkSpecDao.getWorkSpec(uuid.toString())).thenReturn(workSpec)
+        val scheduler = CapturingRunnableScheduler()
+        val tracker = WorkProgressTracker()
+        tracker.track(uuid.toString())
+        val progressUpdater = WorkProgressUpdater(mDatabase, mTaskExecutor, scheduler, tracker)
+        for (i in 1..10) {
+            val data = Data.Builder().putInt("progress", i).build()
+            // Every update resolves without waiting for the delayed write.
+            progressUpdater.updateProgress(mContext, uuid, data).get()
+            assertThat(tracker.getProgress(uuid.toString()), `is`(data))
+        }
+        // Only the first update is written right away.
+        assertThat(scheduler.runnables.size, `is`(1))
+        scheduler.runnables.single().run()
+        val captor = ArgumentCaptor.forClass(WorkProgress::class.java)
+        verify(mWorkProgressDao, times(2)).insert(captor.capture())
+        assertThat(captor.allValues.map { it.mProgress.getInt("progress", 0) }, `is`(listOf(1, 10)))
+    }
+
+    @Test
+    @MediumTest
+    fun updateProgress_delayedWriteAfterWorkDeleted_isDropped() {
+        val uuid = UUID.randomUUID()
+        val workSpec = WorkSpec(uuid.toString(), "Worker")
+        workSpec.state = WorkInfo.State.RUNNING
+        // The work is pruned between the first write and the delayed one.
+        `when`(mWorkSpecDao.getWorkSpec(uuid.toString())).thenReturn(workSpec, null)
+        val scheduler = CapturingRunnableScheduler()
+        val progressUpdater = WorkProgressUpdater(mDatabase, mTaskExecutor, scheduler, null)
+        for (i in 1..2) {
+            val data = Data.Builder().putInt("progress", i).build()
+            progressUpdater.updateProgress(mContext, uuid, data).get()
+        }
+        scheduler.runnables.single().run()
+        verify(mWorkProgressDao, times(1)).insert(Mockito.any(WorkProgress::class.java))
+        // The delayed write doesn't fail.
+        verify(mDatabase, times(2)).setTransactionSuccessful()
+    }
+
+    @Test
+    @MediumTest
+    fun updateProgress_afterWorkFinished_isNotTracked() {
+        val uuid = UUID.randomUUID()
+        val workSpec = WorkSpec(uuid.toString(), "Worker")
+        workSpec.state = WorkInfo.State.SUCCEEDED
+        `when`(mWorkSpecDao.getWorkSpec(uuid.toString())).thenReturn(workSpec)
+        val tracker = WorkProgressTracker()
+        tracker.track(uuid.toString())
+        tracker.clear(uuid.toString())
+        val progressUpdater = WorkProgressUpdater(mDatabase, mTaskExecutor, null, tracker)
+        val data = Data.Builder().putInt("progress", 1).build()
+        progressUpdater.updateProgress(mContext, uuid, data).get()
+        assertThat(tracker.getProgress(uuid.toString()), `is`(nullValue()))
+    }
+
+    class CapturingRunnableScheduler : RunnableScheduler {
+        val runnables = mutableListOf<Runnable>()
+
+        override fun scheduleWithDelay(delayInMillis: Long, runnable: Runnable) {
+            runnables += runnable
+        }
+
+        override fun cancel(runnable: Runnable) {
+            runnables -= runnable
+        }
+    }
 }
@@ -33,6 +33,7 @@ import androidx.work.impl.utils.IdGenerator;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Configuration object used to customize {@link WorkManager} upon initialization.
@@ -64,10 +65,14 @@ public final class Configuration {
     @SuppressWarnings("WeakerAccess")
     final @NonNull RunnableScheduler mRunnableScheduler;
     @SuppressWarnings("WeakerAccess")
+    final @NonNull PruningPolicy mPruningPolicy;
+    @SuppressWarnings("WeakerAccess")
     final @Nullable InitializationExceptionHandler mExceptionHandler;
     @SuppressWarnings("WeakerAccess")
     final @Nullable String mDefaultProcessName;
     @SuppressWarnings("WeakerAccess")
+    final long mRemoteFlushWindowMillis;
+    @SuppressWarnings("WeakerAccess")
     final int mLoggingLevel;
     @SuppressWarnings("WeakerAccess")
     final int mMinJobSchedulerId;
@@ -75,6 +80,8 @@ public final class Configuration {
     final int mMaxJobSchedulerId;
     @SuppressWarnings("WeakerAccess")
     final int mMaxSchedulerLimit;
+    @SuppressWarnings("WeakerAccess")
+    final boolean mInProcessExecutionEnabled;
     private final boolean mIsUsingDefaultTaskExecutor;
 
     Configuration(@NonNull Configuration.Builder builder) {
@@ -113,12 +120,20 @@ public final class Configuration {
             mRunnableScheduler = builder.mRunnableScheduler;
         }
 
+        if (builder.mPruningPolicy == null) {
+            mPruningPolicy = new PruningPolicy.Builder().build();
+        } else {
+            mPruningPolicy = builder.mPruningPolicy;
+        }
+
         mLoggingLevel = builder.mLoggingLevel;
         mMinJobSchedulerId = builder.mMinJobSchedulerId;
         mMaxJobSchedulerId = builder.mMaxJobSchedulerId;
         mMaxSchedulerLimit = builder.mMaxSchedulerLimit;
+        mInProcessExecutionEnabled = builder.mInProcessExecutionEnabled;
         mExceptionHandler = builder.mExceptionHandler;
         mDefaultProcessName = builder.mDefaultProcessName;
+        mRemoteFlushWindowMillis = builder.mRemoteFlushWindowMillis;
     }
 
     /**
@@ -168,6 +183,14 @@ public final class Configuration {
         return mRunnableScheduler;
     }
 
+    /**
+     * @return The {@link PruningPolicy} used to prune finished work from the database.
+     */
+    @NonNull
+    public PruningPolicy getPruningPolicy() {
+        return mPruningPolicy;
+    }
+
     /**
      * Gets the minimum logging level for {@link WorkManager}.
      *
@@ -216,6 +239,15 @@ public final class Configuration {
         return mDefaultProcessName;
     }
 
+    /**
+     * @return The duration {@link androidx.work.multiprocess.RemoteWorkManager} waits for, in
+     * milliseconds, to send the work enqueued in the meantime to the designated process together
+     * @see Builder#setRemoteFlushWindow(long, TimeUnit)
+     */
+    public long getRemoteFlushWindowMillis() {
+        return mRemoteFlushWindowMillis;
+    }
+
     /**
      * Gets the maximum number of system requests that can be made by {@link WorkManager} when using
      * {@link android.app.job.JobScheduler} or {@link android.app.AlarmManager}.
@@ -235,6 +267,15 @@ public final class Configuration {
         }
     }
 
+    /**
+     * @return {@code true} if {@link OneTimeWorkRequest}s which don't need to survive process
+     * death run in process, without being persisted
+     * @see OneTimeWorkRequest.Builder#setRunInProcess(boolean)
+     */
+    public boolean isInProcessExecutionEnabled() {
+        return mInProcessExecutionEnabled;
+    }
+
     /**
      * @return {@code true} If the default task {@link Executor} is being used
      * @hide
@@ -271,13 +312,16 @@ public final class Configuration {
         InputMergerFactory mInputMergerFactory;
         Executor mTaskExecutor;
         RunnableScheduler mRunnableScheduler;
+        PruningPolicy mPruningPolicy;
         @Nullable InitializationExceptionHandler mExceptionHandler;
         @Nullable String mDefaultProcessName;
+        long mRemoteFlushWindowMillis;
 
         int mLoggingLevel;
         int mMinJobSchedulerId;
         int mMaxJobSchedulerId;
         int mMaxSchedulerLimit;
+        boolean mInProcessExecutionEnabled;
 
         /**
          * Creates a new {@link Configuration.Builder}.
@@ -308,9 +352,12 @@ public final class Configuration {
             mMinJobSchedulerId = configuration.mMinJobSchedulerId;
             mMaxJobSchedulerId = configuration.mMaxJobSchedulerId;
             mMaxSchedulerLimit = configuration.mMaxSchedulerLimit;
+            mInProcessExecutionEnabled = configuration.mInProcessExecutionEnabled;
             mRunnableScheduler = configuration.mRunnableScheduler;
+            mPruningPolicy = configuration.mPruningPolicy;
             mExceptionHandler = configuration.mExceptionHandler;
             mDefaultProcessName = configuration.mDefaultProcessName;
+            mRemoteFlushWindowMillis = configuration.mRemoteFlushWindowMillis;
         }
 
         /**
@@ -455,6 +502,35 @@ public final class Configuration {
             return this;
         }
 
+        /**
+         * Specifies whether {@link OneTimeWorkRequest}s which don't need to survive process death
+         * run in process. Such work isn't written to the database, and starts right away on the
+         * {@link Executor} used for {@link Worker}s instead of going through the schedulers. The
+         * default value is {@code false}.
+         *
+         * @param enabled {@code true} to run eligible work in process
+         * @return This {@link Builder} instance
+         * @see OneTimeWorkRequest.Builder#setRunInProcess(boolean)
+         */
+        @NonNull
+        public Builder setInProcessExecutionEnabled(boolean enabled) {
+            mInProcessExecutionEnabled = enabled;
+            return this;
+        }
+
+        /**
+         * Specifies the {@link PruningPolicy} used by {@link WorkManager} to prune finished work
+         * from its internal database.
+         *
+         * @param pruningPolicy The {@link PruningPolicy} to be used
+         * @return This {@link Builder} instance
+         */
+        @NonNull
+        public Builder setPruningPolicy(@NonNull PruningPolicy pruningPolicy) {
+            mPruningPolicy = pruningPolicy;
+            return this;
+        }
+
         /**
          * Specifies the {@link InitializationExceptionHandler} that can be used to intercept
          * exceptions caused when trying to initialize  {@link WorkManager}.
@@ -483,6 +559,30 @@ public final class Configuration {
             return this;
         }
 
+        /**
+         * Specifies how long {@link androidx.work.multiprocess.RemoteWorkManager} waits before
+         * sending enqueued work to the designated process. The work enqueued within that window
+         * is sent in as few transactions as possible. Work passed to separate calls to
+         * {@link androidx.work.multiprocess.RemoteWorkManager#enqueue(java.util.List)} still
+         * succeeds or fails independently. By default, the work is sent as soon as possible,
+         * together with the work enqueued while the previous transaction was being prepared.
+         *
+         * @param duration The duration of the window
+         * @param timeUnit The {@link TimeUnit} of {@code duration}
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code duration} is negative
+         */
+        @NonNull
+        public Builder setRemoteFlushWindow(
+                @IntRange(from = 0) long duration,
+                @NonNull TimeUnit timeUnit) {
+            if (duration < 0) {
+                throw new IllegalArgumentException("The flush window can't be negative.");
+            }
+            mRemoteFlushWindowMillis = timeUnit.toMillis(duration);
+            return this;
+        }
+
         /**
          * Builds a {@link Configuration} object.
          *
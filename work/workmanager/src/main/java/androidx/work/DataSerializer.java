@@ -0,0 +1,461 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the compact binary format of {@link Data}.
+ * <p>
+ * The format starts with two magic bytes and a version. A stream written by
+ * {@link java.io.ObjectOutputStream} never starts with those bytes, so {@link Data} written in
+ * the legacy format can still be told apart and read. The header is followed by a table of the
+ * distinct strings, keys and values alike, and by the entries: the index of the key in the
+ * table, a type tag and the value. Integers are written as zigzag encoded varints, and strings
+ * as their number of characters followed by the characters in modified UTF-8.
+ */
+final class DataSerializer {
+    private static final byte MAGIC_0 = (byte) 0x57;
+    private static final byte MAGIC_1 = (byte) 0x44;
+    private static final byte VERSION = 1;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_FALSE = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_BYTE = 3;
+    private static final int TAG_INT = 4;
+    private static final int TAG_LONG = 5;
+    private static final int TAG_FLOAT = 6;
+    private static final int TAG_DOUBLE = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_BOOLEAN_ARRAY = 9;
+    private static final int TAG_BYTE_ARRAY = 10;
+    private static final int TAG_INT_ARRAY = 11;
+    private static final int TAG_LONG_ARRAY = 12;
+    private static final int TAG_FLOAT_ARRAY = 13;
+    private static final int TAG_DOUBLE_ARRAY = 14;
+    private static final int TAG_STRING_ARRAY = 15;
+
+    private DataSerializer() {
+    }
+
+    /**
+     * @param bytes The serialized {@link Data}
+     * @return {@code true} if the bytes are in the compact format, {@code false} if they are in
+     * the legacy {@link java.io.ObjectOutputStream} format
+     */
+    static boolean isCompact(@NonNull byte[] bytes) {
+        return bytes.length >= 3 && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    /**
+     * Serializes the values of a {@link Data} in the compact format.
+     *
+     * @param values The values of the {@link Data}
+     * @return The serialized values, or {@code null} if an array of boxed primitives contains a
+     * {@code null} element, which only the legacy format can represent
+     */
+    @Nullable
+    static byte[] serialize(@NonNull Map<String, Object> values) {
+        Map<String, Integer> stringIndices = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            addString(entry.getKey(), stringIndices, strings);
+            Object value = entry.getValue();
+            if (value instanceof String) {
+                addString((String) value, stringIndices, strings);
+            } else if (value instanceof String[]) {
+                for (String element : (String[]) value) {
+                    if (element != null) {
+                        addString(element, stringIndices, strings);
+                    }
+                }
+            } else if (value instanceof Object[]) {
+                for (Object element : (Object[]) value) {
+                    if (element == null) {
+                        return null;
+                    }
+                }
+            }
+        }
+
+        Writer writer = new Writer();
+        writer.writeByte(MAGIC_0);
+        writer.writeByte(MAGIC_1);
+        writer.writeByte(VERSION);
+        writer.writeVarint(strings.size());
+        for (String string : strings) {
+            writer.writeString(string);
+        }
+        writer.writeVarint(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            writer.writeVarint(stringIndices.get(entry.getKey()));
+            writeValue(writer, entry.getValue(), stringIndices);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Deserializes values written by {@link #serialize(Map)}.
+     *
+     * @param bytes  The serialized values
+     * @param values The map to add the values to. If the bytes are malformed, it contains the
+     *               values read before the error.
+     * @throws IOException if the bytes are malformed or of an unknown version
+     */
+    static void deserialize(@NonNull byte[] bytes, @NonNull Map<String, Object> values)
+            throws IOException {
+        Reader reader = new Reader(bytes);
+        if (reader.readByte() != MAGIC_0 || reader.readByte() != MAGIC_1) {
+            throw new IOException("Not a compact Data payload");
+        }
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported Data version " + version);
+        }
+        String[] strings = new String[reader.readLength()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = reader.readString();
+        }
+        for (int i = reader.readLength(); i > 0; i--) {
+            String key = strings[reader.readIndex(strings.length)];
+            values.put(key, readValue(reader, strings));
+        }
+    }
+
+    private static void addString(String string, Map<String, Integer> stringIndices,
+            List<String> strings) {
+        if (!stringIndices.containsKey(string)) {
+            stringIndices.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    private static void writeValue(Writer writer, Object value,
+            Map<String, Integer> stringIndices) {
+        if (value == null) {
+            writer.writeByte(TAG_NULL);
+        } else if (value instanceof Boolean) {
+            writer.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Byte) {
+            writer.writeByte(TAG_BYTE);
+            writer.writeByte((Byte) value);
+        } else if (value instanceof Integer) {
+            writer.writeByte(TAG_INT);
+            writer.writeSignedVarint((Integer) value);
+        } else if (value instanceof Long) {
+            writer.writeByte(TAG_LONG);
+            writer.writeSignedVarint((Long) value);
+        } else if (value instanceof Float) {
+            writer.writeByte(TAG_FLOAT);
+            writer.writeFixed(Float.floatToIntBits((Float) value), 4);
+        } else if (value instanceof Double) {
+            writer.writeByte(TAG_DOUBLE);
+            writer.writeFixed(Double.doubleToLongBits((Double) value), 8);
+        } else if (value instanceof String) {
+            writer.writeByte(TAG_STRING);
+            writer.writeVarint(stringIndices.get(value));
+        } else if (value instanceof Boolean[]) {
+            Boolean[] array = (Boolean[]) value;
+            writer.writeByte(TAG_BOOLEAN_ARRAY);
+            writer.writeVarint(array.length);
+            // Eight booleans to a byte.
+            for (int i = 0; i < array.length; i += 8) {
+                int bits = 0;
+                for (int j = 0; j < 8 && i + j < array.length; j++) {
+                    if (array[i + j]) {
+                        bits |= 1 << j;
+                    }
+                }
+                writer.writeByte(bits);
+            }
+        } else if (value instanceof Byte[]) {
+            Byte[] array = (Byte[]) value;
+            writer.writeByte(TAG_BYTE_ARRAY);
+            writer.writeVarint(array.length);
+            for (Byte element : array) {
+                writer.writeByte(element);
+            }
+        } else if (value instanceof Integer[]) {
+            Integer[] array = (Integer[]) value;
+            writer.writeByte(TAG_INT_ARRAY);
+            writer.writeVarint(array.length);
+            for (Integer element : array) {
+                writer.writeSignedVarint(element);
+            }
+        } else if (value instanceof Long[]) {
+            Long[] array = (Long[]) value;
+            writer.writeByte(TAG_LONG_ARRAY);
+            writer.writeVarint(array.length);
+            for (Long element : array) {
+                writer.writeSignedVarint(element);
+            }
+        } else if (value instanceof Float[]) {
+            Float[] array = (Float[]) value;
+            writer.writeByte(TAG_FLOAT_ARRAY);
+            writer.writeVarint(array.length);
+            for (Float element : array) {
+                writer.writeFixed(Float.floatToIntBits(element), 4);
+            }
+        } else if (value instanceof Double[]) {
+            Double[] array = (Double[]) value;
+            writer.writeByte(TAG_DOUBLE_ARRAY);
+            writer.writeVarint(array.length);
+            for (Double element : array) {
+                writer.writeFixed(Double.doubleToLongBits(element), 8);
+            }
+        } else if (value instanceof String[]) {
+            String[] array = (String[]) value;
+            writer.writeByte(TAG_STRING_ARRAY);
+            writer.writeVarint(array.length);
+            for (String element : array) {
+                // 0 stands for null, so that the indices of the strings are off by one.
+                writer.writeVarint(element == null ? 0 : stringIndices.get(element) + 1);
+            }
+        } else {
+            throw new IllegalArgumentException(
+                    "Unsupported value type " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(Reader reader, String[] strings) throws IOException {
+        int tag = reader.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_FALSE:
+                return false;
+            case TAG_TRUE:
+                return true;
+            case TAG_BYTE:
+                return reader.readByte();
+            case TAG_INT:
+                return (int) reader.readSignedVarint();
+            case TAG_LONG:
+                return reader.readSignedVarint();
+            case TAG_FLOAT:
+                return Float.intBitsToFloat((int) reader.readFixed(4));
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(reader.readFixed(8));
+            case TAG_STRING:
+                return strings[reader.readIndex(strings.length)];
+            case TAG_BOOLEAN_ARRAY: {
+                Boolean[] array = new Boolean[reader.readLength()];
+                int bits = 0;
+                for (int i = 0; i < array.length; i++) {
+                    if (i % 8 == 0) {
+                        bits = reader.readByte();
+                    }
+                    array[i] = (bits & (1 << (i % 8))) != 0;
+                }
+                return array;
+            }
+            case TAG_BYTE_ARRAY: {
+                Byte[] array = new Byte[reader.readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = reader.readByte();
+                }
+                return array;
+            }
+            case TAG_INT_ARRAY: {
+                Integer[] array = new Integer[reader.readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = (int) reader.readSignedVarint();
+                }
+                return array;
+            }
+            case TAG_LONG_ARRAY: {
+                Long[] array = new Long[reader.readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = reader.readSignedVarint();
+                }
+                return array;
+            }
+            case TAG_FLOAT_ARRAY: {
+                Float[] array = new Float[reader.readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = Float.intBitsToFloat((int) reader.readFixed(4));
+                }
+                return array;
+            }
+            case TAG_DOUBLE_ARRAY: {
+                Double[] array = new Double[reader.readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = Double.longBitsToDouble(reader.readFixed(8));
+                }
+                return array;
+            }
+            case TAG_STRING_ARRAY: {
+                String[] array = new String[reader.readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    int index = reader.readIndex(strings.length + 1);
+                    array[i] = index == 0 ? null : strings[index - 1];
+                }
+                return array;
+            }
+            default:
+                throw new IOException("Unknown type tag " + tag);
+        }
+    }
+
+    private static final class Writer {
+        private byte[] mBuffer = new byte[128];
+        private int mCount;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            mBuffer[mCount++] = (byte) value;
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                mBuffer[mCount++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            mBuffer[mCount++] = (byte) value;
+        }
+
+        void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeFixed(long value, int bytes) {
+            ensureCapacity(bytes);
+            for (int i = 0; i < bytes; i++) {
+                mBuffer[mCount++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        void writeString(String value) {
+            int length = value.length();
+            writeVarint(length);
+            ensureCapacity(3 * length);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c != 0 && c < 0x80) {
+                    mBuffer[mCount++] = (byte) c;
+                } else if (c < 0x800) {
+                    mBuffer[mCount++] = (byte) (0xC0 | (c >> 6));
+                    mBuffer[mCount++] = (byte) (0x80 | (c & 0x3F));
+                } else {
+                    mBuffer[mCount++] = (byte) (0xE0 | (c >> 12));
+                    mBuffer[mCount++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    mBuffer[mCount++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            byte[] bytes = new byte[mCount];
+            System.arraycopy(mBuffer, 0, bytes, 0, mCount);
+            return bytes;
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (mCount + bytes > mBuffer.length) {
+                byte[] buffer = new byte[Math.max(2 * mBuffer.length, mCount + bytes)];
+                System.arraycopy(mBuffer, 0, buffer, 0, mCount);
+                mBuffer = buffer;
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] mBytes;
+        private int mPosition;
+
+        Reader(byte[] bytes) {
+            mBytes = bytes;
+        }
+
+        byte readByte() throws IOException {
+            if (mPosition >= mBytes.length) {
+                throw new EOFException();
+            }
+            return mBytes[mPosition++];
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        long readSignedVarint() throws IOException {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readFixed(int bytes) throws IOException {
+            long value = 0;
+            for (int i = 0; i < bytes; i++) {
+                value |= (readByte() & 0xFFL) << (8 * i);
+            }
+            return value;
+        }
+
+        int readLength() throws IOException {
+            long length = readVarint();
+            // Every element takes at least a bit, so a longer length can only be malformed.
+            if (length < 0 || length > 8L * (mBytes.length - mPosition)) {
+                throw new IOException("Malformed length " + length);
+            }
+            return (int) length;
+        }
+
+        int readIndex(int size) throws IOException {
+            long index = readVarint();
+            if (index < 0 || index >= size) {
+                throw new IOException("Malformed string index " + index);
+            }
+            return (int) index;
+        }
+
+        String readString() throws IOException {
+            char[] chars = new char[readLength()];
+            for (int i = 0; i < chars.length; i++) {
+                int b = readByte() & 0xFF;
+                if (b < 0x80) {
+                    chars[i] = (char) b;
+                } else if ((b & 0xE0) == 0xC0) {
+                    chars[i] = (char) (((b & 0x1F) << 6) | (readByte() & 0x3F));
+                } else if ((b & 0xF0) == 0xE0) {
+                    int b2 = readByte() & 0x3F;
+                    chars[i] = (char) (((b & 0x0F) << 12) | (b2 << 6) | (readByte() & 0x3F));
+                } else {
+                    throw new IOException("Malformed string");
+                }
+            }
+            return new String(chars);
+        }
+    }
+}
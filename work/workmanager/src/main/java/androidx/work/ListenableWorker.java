@@ -196,6 +196,8 @@ public abstract class ListenableWorker {
      *
      * @param data The progress {@link Data}
      * @return A {@link ListenableFuture} which resolves after progress is persisted.
+     * When progress is updated again shortly after it was persisted, the update is persisted
+     * after a short delay together with any later updates, and the future resolves right away.
      * Cancelling this future is a no-op.
      */
     @NonNull
@@ -99,6 +99,31 @@ public final class OneTimeWorkRequest extends WorkRequest {
             return this;
         }
 
+        /**
+         * Specifies that this {@link OneTimeWorkRequest} doesn't need to survive process death.
+         * <p>
+         * When in-process execution is enabled with
+         * {@link Configuration.Builder#setInProcessExecutionEnabled(boolean)}, such work isn't
+         * written to the database and runs right away on the {@link Configuration#getExecutor()}.
+         * Its {@link WorkInfo} can be observed by id with
+         * {@link WorkManager#getWorkInfoById(java.util.UUID)} and
+         * {@link WorkManager#getWorkInfoByIdLiveData(java.util.UUID)}, and it can be cancelled with
+         * {@link WorkManager#cancelWorkById(java.util.UUID)},
+         * {@link WorkManager#cancelAllWorkByTag(String)} and {@link WorkManager#cancelAllWork()}.
+         * It is lost if the process dies.
+         * <p>
+         * Work which runs in process can't have constraints or an initial delay, and it only runs
+         * in process when it's enqueued directly with {@link WorkManager#enqueue(List)}, together
+         * with other work which runs in process. Otherwise, it's persisted as usual.
+         *
+         * @param runInProcess {@code true} if this work doesn't need to survive process death
+         * @return The current {@link Builder}
+         */
+        public @NonNull Builder setRunInProcess(boolean runInProcess) {
+            mWorkSpec.runInProcess = runInProcess;
+            return this;
+        }
+
         @Override
         @NonNull OneTimeWorkRequest buildInternal() {
             if (mBackoffCriteriaSet
@@ -113,6 +138,11 @@ public final class OneTimeWorkRequest extends WorkRequest {
                 throw new IllegalArgumentException(
                         "Cannot run in foreground with an idle mode constraint");
             }
+            if (mWorkSpec.runInProcess
+                    && (mWorkSpec.hasConstraints() || mWorkSpec.initialDelay > 0)) {
+                throw new IllegalArgumentException(
+                        "Cannot run in process with constraints or an initial delay");
+            }
             return new OneTimeWorkRequest(this);
         }
 
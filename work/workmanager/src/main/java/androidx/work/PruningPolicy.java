@@ -0,0 +1,258 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Specifies how {@link WorkManager} prunes finished work from its internal database.
+ * <p>
+ * Finished work is pruned once it has been kept for the retention duration, in addition to the
+ * duration specified with {@link WorkRequest.Builder#keepResultsForAtLeast(long, TimeUnit)}.
+ * When a maximum number of finished work is specified, the oldest finished work is pruned early
+ * to stay under it, but never before its
+ * {@link WorkRequest.Builder#keepResultsForAtLeast(long, TimeUnit)} duration has elapsed. Work
+ * with unfinished dependents is never pruned.
+ * <p>
+ * Work is deleted in batches, each in its own short transaction, so that pruning a large
+ * database doesn't keep other work from being enqueued or updated in the meantime.
+ * <p>
+ * To set a custom PruningPolicy, see {@link Configuration.Builder#setPruningPolicy}.
+ */
+public final class PruningPolicy {
+
+    /**
+     * The default duration finished work is kept for, in milliseconds.
+     */
+    public static final long DEFAULT_RETENTION_DURATION_MILLIS = 24 * 60 * 60 * 1000L; // 1 day.
+
+    /**
+     * The default number of {@link WorkRequest}s deleted in a single transaction.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final long mRetentionDurationMillis;
+    private final int mMaxFinishedWorkCount;
+    private final Set<WorkInfo.State> mPrunedStates;
+    private final int mBatchSize;
+    private final @Nullable PruneListener mPruneListener;
+
+    // Synthetic access
+    @SuppressWarnings("WeakerAccess")
+    PruningPolicy(@NonNull Builder builder) {
+        mRetentionDurationMillis = builder.mRetentionDurationMillis;
+        mMaxFinishedWorkCount = builder.mMaxFinishedWorkCount;
+        mPrunedStates = Collections.unmodifiableSet(EnumSet.copyOf(builder.mPrunedStates));
+        mBatchSize = builder.mBatchSize;
+        mPruneListener = builder.mPruneListener;
+    }
+
+    /**
+     * @return The duration finished work is kept for before it's pruned, in milliseconds
+     */
+    public long getRetentionDurationMillis() {
+        return mRetentionDurationMillis;
+    }
+
+    /**
+     * @return The maximum number of finished work kept in the database, or
+     * {@link Integer#MAX_VALUE} if it's unbounded
+     */
+    public int getMaxFinishedWorkCount() {
+        return mMaxFinishedWorkCount;
+    }
+
+    /**
+     * @return The {@link Set} of finished {@link WorkInfo.State}s which are pruned automatically
+     */
+    @NonNull
+    public Set<WorkInfo.State> getPrunedStates() {
+        return mPrunedStates;
+    }
+
+    /**
+     * @return The maximum number of {@link WorkRequest}s deleted in a single transaction
+     */
+    public int getBatchSize() {
+        return mBatchSize;
+    }
+
+    /**
+     * @return The {@link PruneListener} which is told about pruned work, or {@code null}
+     */
+    @Nullable
+    public PruneListener getPruneListener() {
+        return mPruneListener;
+    }
+
+    /**
+     * A listener which is told how much work was pruned, and how long it took.
+     */
+    public interface PruneListener {
+        /**
+         * Called on a background thread once {@link WorkManager} is done pruning work, either
+         * automatically or after a call to {@link WorkManager#pruneWork()}.
+         *
+         * @param prunedWorkCount The number of {@link WorkRequest}s which were pruned
+         * @param durationMillis  The time spent in the transactions deleting the work, in
+         *                        milliseconds
+         */
+        void onWorkPruned(int prunedWorkCount, long durationMillis);
+    }
+
+    /**
+     * A Builder for {@link PruningPolicy}s.
+     */
+    public static final class Builder {
+        // Synthetic access
+        long mRetentionDurationMillis;
+        // Synthetic access
+        int mMaxFinishedWorkCount;
+        // Synthetic access
+        Set<WorkInfo.State> mPrunedStates;
+        // Synthetic access
+        int mBatchSize;
+        // Synthetic access
+        @Nullable PruneListener mPruneListener;
+
+        /**
+         * Creates a new {@link PruningPolicy.Builder}.
+         */
+        public Builder() {
+            mRetentionDurationMillis = DEFAULT_RETENTION_DURATION_MILLIS;
+            mMaxFinishedWorkCount = Integer.MAX_VALUE;
+            mPrunedStates = EnumSet.of(
+                    WorkInfo.State.SUCCEEDED,
+                    WorkInfo.State.FAILED,
+                    WorkInfo.State.CANCELLED);
+            mBatchSize = DEFAULT_BATCH_SIZE;
+        }
+
+        /**
+         * Specifies how long finished work is kept for before it's pruned. This is in addition
+         * to the duration specified with
+         * {@link WorkRequest.Builder#keepResultsForAtLeast(long, TimeUnit)}. The default value
+         * is one day.
+         *
+         * @param duration The duration
+         * @param timeUnit The {@link TimeUnit} of {@code duration}
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code duration} is negative
+         */
+        @NonNull
+        public Builder setRetentionDuration(
+                @IntRange(from = 0) long duration,
+                @NonNull TimeUnit timeUnit) {
+            if (duration < 0) {
+                throw new IllegalArgumentException("The retention duration can't be negative.");
+            }
+            mRetentionDurationMillis = timeUnit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Specifies the maximum number of finished work kept in the database. When there is more
+         * finished work, the oldest one is pruned even if its retention duration hasn't elapsed.
+         * By default, the number of finished work is unbounded.
+         *
+         * @param maxFinishedWorkCount The maximum number of finished work
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code maxFinishedWorkCount} is negative
+         */
+        @NonNull
+        public Builder setMaxFinishedWorkCount(@IntRange(from = 0) int maxFinishedWorkCount) {
+            if (maxFinishedWorkCount < 0) {
+                throw new IllegalArgumentException(
+                        "The maximum number of finished work can't be negative.");
+            }
+            mMaxFinishedWorkCount = maxFinishedWorkCount;
+            return this;
+        }
+
+        /**
+         * Specifies which finished {@link WorkInfo.State}s are pruned automatically. Work in any
+         * other state is kept until {@link WorkManager#pruneWork()} is called. By default, all the
+         * finished states are pruned.
+         *
+         * @param prunedStates The {@link Set} of finished {@link WorkInfo.State}s
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code prunedStates} contains a state which isn't
+         *                                  finished
+         */
+        @NonNull
+        public Builder setPrunedStates(@NonNull Set<WorkInfo.State> prunedStates) {
+            for (WorkInfo.State state : prunedStates) {
+                if (!state.isFinished()) {
+                    throw new IllegalArgumentException(
+                            "Only finished work can be pruned, but " + state + " was specified.");
+                }
+            }
+            mPrunedStates = EnumSet.noneOf(WorkInfo.State.class);
+            mPrunedStates.addAll(prunedStates);
+            return this;
+        }
+
+        /**
+         * Specifies the maximum number of {@link WorkRequest}s deleted in a single transaction.
+         * Smaller batches hold the database lock for a shorter time, while larger batches prune
+         * faster. The default value is {@link #DEFAULT_BATCH_SIZE}.
+         *
+         * @param batchSize The maximum number of {@link WorkRequest}s deleted in a single
+         *                  transaction
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code batchSize} is less than {@code 1}
+         */
+        @NonNull
+        public Builder setBatchSize(@IntRange(from = 1) int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("The batch size must be at least 1.");
+            }
+            mBatchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Specifies a {@link PruneListener} which is told how much work was pruned, and how long
+         * it took.
+         *
+         * @param pruneListener The {@link PruneListener}
+         * @return This {@link Builder} instance
+         */
+        @NonNull
+        public Builder setPruneListener(@NonNull PruneListener pruneListener) {
+            mPruneListener = pruneListener;
+            return this;
+        }
+
+        /**
+         * Builds a {@link PruningPolicy}.
+         *
+         * @return A {@link PruningPolicy} with this {@link Builder}'s parameters
+         */
+        @NonNull
+        public PruningPolicy build() {
+            return new PruningPolicy(this);
+        }
+    }
+}
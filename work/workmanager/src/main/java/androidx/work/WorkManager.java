@@ -464,7 +464,8 @@ public abstract class WorkManager {
      * <b>Use this method with caution</b>; by invoking it, you (and any modules and libraries in
      * your codebase) will no longer be able to observe the {@link WorkInfo} of the pruned work.
      * You do not normally need to call this method - WorkManager takes care to auto-prune its work
-     * after a sane period of time.  This method also ignores the
+     * after a sane period of time (see {@link Configuration.Builder#setPruningPolicy}).  This
+     * method also ignores the
      * {@link OneTimeWorkRequest.Builder#keepResultsForAtLeast(long, TimeUnit)} policy.
      *
      * @return An {@link Operation} that can be used to determine when the pruneWork has
@@ -0,0 +1,520 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl;
+
+import static androidx.work.WorkInfo.State.CANCELLED;
+import static androidx.work.WorkInfo.State.ENQUEUED;
+import static androidx.work.WorkInfo.State.FAILED;
+import static androidx.work.WorkInfo.State.RUNNING;
+import static androidx.work.WorkInfo.State.SUCCEEDED;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.work.Configuration;
+import androidx.work.Data;
+import androidx.work.ForegroundInfo;
+import androidx.work.ForegroundUpdater;
+import androidx.work.ListenableWorker;
+import androidx.work.Logger;
+import androidx.work.Operation;
+import androidx.work.ProgressUpdater;
+import androidx.work.WorkInfo;
+import androidx.work.WorkRequest;
+import androidx.work.WorkerParameters;
+import androidx.work.impl.model.WorkSpec;
+import androidx.work.impl.utils.SynchronousExecutor;
+import androidx.work.impl.utils.futures.SettableFuture;
+import androidx.work.impl.utils.taskexecutor.TaskExecutor;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Runs {@link androidx.work.OneTimeWorkRequest}s which don't need to survive process death
+ * without going through the {@link WorkDatabase} and the {@link Scheduler}s.
+ * <p>
+ * The state of the work is only kept in memory, and is exposed through
+ * {@link #getWorkInfo(String)} and {@link #getWorkInfoLiveData(String)}. Finished work is
+ * forgotten once {@link #MAX_FINISHED_WORK} more recent work has finished.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class InProcessWorkRunner {
+
+    private static final String TAG = Logger.tagWithPrefix("InProcessWorkRunner");
+
+    /**
+     * The maximum number of finished work kept in memory.
+     */
+    public static final int MAX_FINISHED_WORK = 100;
+
+    private final Context mAppContext;
+    private final Configuration mConfiguration;
+    private final TaskExecutor mWorkTaskExecutor;
+    private final Object mLock;
+    private final Map<String, InProcessWork> mWork;
+    private final ArrayDeque<String> mFinishedWorkIds;
+
+    public InProcessWorkRunner(
+            @NonNull Context context,
+            @NonNull Configuration configuration,
+            @NonNull TaskExecutor workTaskExecutor) {
+        mAppContext = context.getApplicationContext();
+        mConfiguration = configuration;
+        mWorkTaskExecutor = workTaskExecutor;
+        mLock = new Object();
+        mWork = new HashMap<>();
+        mFinishedWorkIds = new ArrayDeque<>();
+    }
+
+    /**
+     * @param workRequests The {@link WorkRequest}s to enqueue
+     * @return {@code true} if all the {@link WorkRequest}s asked to run in process, and are
+     * eligible to do so: they're one-time work without constraints or an initial delay
+     */
+    public static boolean canRunInProcess(@NonNull List<? extends WorkRequest> workRequests) {
+        for (WorkRequest workRequest : workRequests) {
+            WorkSpec workSpec = workRequest.getWorkSpec();
+            if (!workSpec.runInProcess
+                    || workSpec.state != ENQUEUED
+                    || workSpec.isPeriodic()
+                    || workSpec.hasConstraints()
+                    || workSpec.initialDelay > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts running the given {@link WorkRequest}s right away.
+     *
+     * @param workRequests The {@link WorkRequest}s, which must be eligible to
+     *                     {@link #canRunInProcess(List)}
+     * @return An {@link Operation} which has already succeeded
+     */
+    @NonNull
+    public Operation enqueue(@NonNull List<? extends WorkRequest> workRequests) {
+        List<InProcessWork> enqueued = new ArrayList<>(workRequests.size());
+        synchronized (mLock) {
+            for (WorkRequest workRequest : workRequests) {
+                InProcessWork work = new InProcessWork(
+                        new WorkSpec(workRequest.getWorkSpec()),
+                        new ArrayList<>(workRequest.getTags()));
+                mWork.put(work.mWorkSpec.id, work);
+                enqueued.add(work);
+            }
+        }
+        for (InProcessWork work : enqueued) {
+            startWork(work);
+        }
+        OperationImpl operation = new OperationImpl();
+        operation.setState(Operation.SUCCESS);
+        return operation;
+    }
+
+    /**
+     * @param workSpecId The {@link WorkSpec} id
+     * @return The {@link WorkInfo} of the in-process work, or {@code null} if it isn't known
+     */
+    @Nullable
+    public WorkInfo getWorkInfo(@NonNull String workSpecId) {
+        synchronized (mLock) {
+            InProcessWork work = mWork.get(workSpecId);
+            return work == null ? null : work.toWorkInfo();
+        }
+    }
+
+    /**
+     * @param workSpecId The {@link WorkSpec} id
+     * @return A {@link LiveData} of the {@link WorkInfo} of the in-process work, or {@code null}
+     * if it isn't known
+     */
+    @Nullable
+    public LiveData<WorkInfo> getWorkInfoLiveData(@NonNull String workSpecId) {
+        synchronized (mLock) {
+            InProcessWork work = mWork.get(workSpecId);
+            if (work == null) {
+                return null;
+            }
+            if (work.mLiveData == null) {
+                work.mLiveData = new MutableLiveData<>();
+                work.mLiveData.postValue(work.toWorkInfo());
+            }
+            return work.mLiveData;
+        }
+    }
+
+    /**
+     * Cancels in-process work.
+     *
+     * @param workSpecId The {@link WorkSpec} id
+     * @return {@code true} if the work is in-process work
+     */
+    public boolean cancel(@NonNull String workSpecId) {
+        InProcessWork work;
+        synchronized (mLock) {
+            work = mWork.get(workSpecId);
+            if (work == null) {
+                return false;
+            }
+        }
+        cancel(work);
+        return true;
+    }
+
+    /**
+     * Cancels all the unfinished in-process work with the given tag.
+     *
+     * @param tag The tag
+     */
+    public void cancelAllWorkByTag(@NonNull String tag) {
+        List<InProcessWork> unfinished = new ArrayList<>();
+        synchronized (mLock) {
+            for (InProcessWork work : mWork.values()) {
+                if (!work.mWorkSpec.state.isFinished() && work.mTags.contains(tag)) {
+                    unfinished.add(work);
+                }
+            }
+        }
+        for (InProcessWork work : unfinished) {
+            cancel(work);
+        }
+    }
+
+    /**
+     * Cancels all the unfinished in-process work.
+     */
+    public void cancelAllWork() {
+        List<InProcessWork> unfinished = new ArrayList<>();
+        synchronized (mLock) {
+            for (InProcessWork work : mWork.values()) {
+                if (!work.mWorkSpec.state.isFinished()) {
+                    unfinished.add(work);
+                }
+            }
+        }
+        for (InProcessWork work : unfinished) {
+            cancel(work);
+        }
+    }
+
+    // Synthetic access
+    void startWork(@NonNull final InProcessWork work) {
+        synchronized (mLock) {
+            if (work.mWorkSpec.state != ENQUEUED) {
+                return;
+            }
+            work.mScheduledRun = null;
+        }
+        // Create the worker on the worker executor, and call startWork() on the main thread.
+        mConfiguration.getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                createAndStartWorker(work);
+            }
+        });
+    }
+
+    // Synthetic access
+    void createAndStartWorker(@NonNull final InProcessWork work) {
+        WorkSpec workSpec = work.mWorkSpec;
+        WorkerParameters params;
+        synchronized (mLock) {
+            if (workSpec.state != ENQUEUED) {
+                return;
+            }
+            params = new WorkerParameters(
+                    UUID.fromString(workSpec.id),
+                    workSpec.input,
+                    work.mTags,
+                    new WorkerParameters.RuntimeExtras(),
+                    workSpec.runAttemptCount,
+                    mConfiguration.getExecutor(),
+                    mWorkTaskExecutor,
+                    mConfiguration.getWorkerFactory(),
+                    new InProcessProgressUpdater(this),
+                    new InProcessForegroundUpdater());
+        }
+
+        final ListenableWorker worker =
+                mConfiguration.getWorkerFactory().createWorkerWithDefaultFallback(
+                        mAppContext,
+                        workSpec.workerClassName,
+                        params);
+        if (worker == null || worker.isUsed()) {
+            Logger.get().error(TAG,
+                    String.format("Could not create Worker %s", workSpec.workerClassName));
+            onWorkFinished(work, ListenableWorker.Result.failure());
+            return;
+        }
+        worker.setUsed();
+
+        synchronized (mLock) {
+            if (workSpec.state != ENQUEUED) {
+                return;
+            }
+            workSpec.state = RUNNING;
+            workSpec.runAttemptCount++;
+            work.mWorker = worker;
+        }
+        publish(work);
+
+        final SettableFuture<ListenableWorker.Result> future = SettableFuture.create();
+        mWorkTaskExecutor.getMainThreadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (mLock) {
+                    // The work was cancelled, and the worker stopped, before it could start.
+                    if (work.mWorker != worker) {
+                        future.cancel(true);
+                        return;
+                    }
+                }
+                try {
+                    ListenableFuture<ListenableWorker.Result> innerFuture = worker.startWork();
+                    boolean isCancelled = false;
+                    synchronized (mLock) {
+                        if (work.mWorker == worker) {
+                            work.mInnerFuture = innerFuture;
+                        } else {
+                            // The work was cancelled while startWork() ran, so nothing else
+                            // will cancel the future it returned.
+                            isCancelled = true;
+                        }
+                    }
+                    if (isCancelled) {
+                        innerFuture.cancel(true);
+                    }
+                    future.setFuture(innerFuture);
+                } catch (Throwable throwable) {
+                    future.setException(throwable);
+                }
+            }
+        });
+        future.addListener(new Runnable() {
+            @Override
+            @SuppressLint("SyntheticAccessor")
+            public void run() {
+                ListenableWorker.Result result = null;
+                try {
+                    result = future.get();
+                } catch (CancellationException exception) {
+                    Logger.get().info(TAG, String.format("%s was cancelled", work.mWorkSpec.id),
+                            exception);
+                } catch (InterruptedException | ExecutionException exception) {
+                    Logger.get().error(TAG,
+                            String.format("%s failed because it threw an exception/error",
+                                    work.mWorkSpec.id), exception);
+                }
+                onWorkFinished(work, result);
+            }
+        }, new SynchronousExecutor());
+    }
+
+    // Synthetic access
+    void onWorkFinished(
+            @NonNull final InProcessWork work,
+            @Nullable ListenableWorker.Result result) {
+        WorkSpec workSpec = work.mWorkSpec;
+        Runnable retry = null;
+        long delay = 0L;
+        synchronized (mLock) {
+            work.mWorker = null;
+            work.mInnerFuture = null;
+            // The work was cancelled in the meantime.
+            if (workSpec.state.isFinished()) {
+                return;
+            }
+            work.mProgress = Data.EMPTY;
+            if (result instanceof ListenableWorker.Result.Success) {
+                workSpec.state = SUCCEEDED;
+                workSpec.output = ((ListenableWorker.Result.Success) result).getOutputData();
+                onFinishedLocked(workSpec.id);
+            } else if (result instanceof ListenableWorker.Result.Retry) {
+                long now = System.currentTimeMillis();
+                workSpec.state = ENQUEUED;
+                workSpec.periodStartTime = now;
+                delay = Math.max(0L, workSpec.calculateNextRunTime() - now);
+                retry = new Runnable() {
+                    @Override
+                    public void run() {
+                        startWork(work);
+                    }
+                };
+                work.mScheduledRun = retry;
+            } else {
+                workSpec.state = FAILED;
+                if (result instanceof ListenableWorker.Result.Failure) {
+                    workSpec.output = ((ListenableWorker.Result.Failure) result).getOutputData();
+                }
+                onFinishedLocked(workSpec.id);
+            }
+        }
+        Logger.get().info(TAG, String.format("In-process work %s is %s", workSpec.id,
+                workSpec.state));
+        publish(work);
+        if (retry != null) {
+            mConfiguration.getRunnableScheduler().scheduleWithDelay(delay, retry);
+        }
+    }
+
+    // Synthetic access
+    void onProgress(@NonNull String workSpecId, @NonNull Data progress) {
+        InProcessWork work;
+        synchronized (mLock) {
+            work = mWork.get(workSpecId);
+            if (work == null || work.mWorkSpec.state != RUNNING) {
+                return;
+            }
+            work.mProgress = progress;
+        }
+        publish(work);
+    }
+
+    private void cancel(@NonNull InProcessWork work) {
+        ListenableWorker worker;
+        ListenableFuture<ListenableWorker.Result> innerFuture;
+        Runnable scheduledRun;
+        synchronized (mLock) {
+            if (work.mWorkSpec.state.isFinished()) {
+                return;
+            }
+            work.mWorkSpec.state = CANCELLED;
+            work.mProgress = Data.EMPTY;
+            worker = work.mWorker;
+            innerFuture = work.mInnerFuture;
+            scheduledRun = work.mScheduledRun;
+            work.mWorker = null;
+            work.mInnerFuture = null;
+            work.mScheduledRun = null;
+            onFinishedLocked(work.mWorkSpec.id);
+        }
+        if (scheduledRun != null) {
+            mConfiguration.getRunnableScheduler().cancel(scheduledRun);
+        }
+        boolean isDone = false;
+        if (innerFuture != null) {
+            isDone = innerFuture.isDone();
+            innerFuture.cancel(true);
+        }
+        if (worker != null && !isDone) {
+            worker.stop();
+        }
+        publish(work);
+    }
+
+    private void onFinishedLocked(@NonNull String workSpecId) {
+        mFinishedWorkIds.add(workSpecId);
+        while (mFinishedWorkIds.size() > MAX_FINISHED_WORK) {
+            mWork.remove(mFinishedWorkIds.poll());
+        }
+    }
+
+    private void publish(@NonNull InProcessWork work) {
+        synchronized (mLock) {
+            if (work.mLiveData != null) {
+                work.mLiveData.postValue(work.toWorkInfo());
+            }
+        }
+    }
+
+    /**
+     * The in-memory state of a {@link WorkRequest} which runs in process.
+     */
+    static class InProcessWork {
+        final WorkSpec mWorkSpec;
+        final List<String> mTags;
+        @NonNull Data mProgress;
+        @Nullable ListenableWorker mWorker;
+        @Nullable ListenableFuture<ListenableWorker.Result> mInnerFuture;
+        @Nullable Runnable mScheduledRun;
+        @Nullable MutableLiveData<WorkInfo> mLiveData;
+
+        InProcessWork(@NonNull WorkSpec workSpec, @NonNull List<String> tags) {
+            mWorkSpec = workSpec;
+            mTags = tags;
+            mProgress = Data.EMPTY;
+        }
+
+        @NonNull
+        WorkInfo toWorkInfo() {
+            return new WorkInfo(
+                    UUID.fromString(mWorkSpec.id),
+                    mWorkSpec.state,
+                    mWorkSpec.output,
+                    new ArrayList<>(mTags),
+                    mProgress,
+                    mWorkSpec.runAttemptCount);
+        }
+    }
+
+    /**
+     * Keeps the progress of in-process work in memory.
+     */
+    static class InProcessProgressUpdater implements ProgressUpdater {
+        private final InProcessWorkRunner mRunner;
+
+        InProcessProgressUpdater(@NonNull InProcessWorkRunner runner) {
+            mRunner = runner;
+        }
+
+        @NonNull
+        @Override
+        public ListenableFuture<Void> updateProgress(
+                @NonNull Context context,
+                @NonNull UUID id,
+                @NonNull Data data) {
+            mRunner.onProgress(id.toString(), data);
+            SettableFuture<Void> future = SettableFuture.create();
+            future.set(null);
+            return future;
+        }
+    }
+
+    /**
+     * In-process work isn't hosted by a foreground service.
+     */
+    static class InProcessForegroundUpdater implements ForegroundUpdater {
+        @NonNull
+        @Override
+        public ListenableFuture<Void> setForegroundAsync(
+                @NonNull Context context,
+                @NonNull UUID id,
+                @NonNull ForegroundInfo foregroundInfo) {
+            SettableFuture<Void> future = SettableFuture.create();
+            future.setException(new IllegalStateException(
+                    "Work running in process can't run in the foreground"));
+            return future;
+        }
+    }
+}
@@ -32,6 +32,7 @@ import androidx.work.Logger;
 import androidx.work.WorkerParameters;
 import androidx.work.impl.foreground.ForegroundProcessor;
 import androidx.work.impl.utils.WakeLocks;
+import androidx.work.impl.utils.WorkProgressTracker;
 import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 
 import com.google.common.util.concurrent.ListenableFuture;
@@ -66,6 +67,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
     private List<Scheduler> mSchedulers;
 
     private Set<String> mCancelledIds;
+    private final WorkProgressTracker mProgressTracker;
 
     private final List<ExecutionListener> mOuterListeners;
     private final Object mLock;
@@ -85,10 +87,20 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
         mSchedulers = schedulers;
         mCancelledIds = new HashSet<>();
         mOuterListeners = new ArrayList<>();
+        mProgressTracker = new WorkProgressTracker();
         mForegroundLock = null;
         mLock = new Object();
     }
 
+    /**
+     * @return The {@link WorkProgressTracker} keeping the progress of the work running in this
+     * process.
+     */
+    @NonNull
+    public WorkProgressTracker getProgressTracker() {
+        return mProgressTracker;
+    }
+
     /**
      * Starts a given unit of work in the background.
      *
@@ -131,12 +143,14 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
                             id)
                             .withSchedulers(mSchedulers)
                             .withRuntimeExtras(runtimeExtras)
+                            .withProgressTracker(mProgressTracker)
                             .build();
             ListenableFuture<Boolean> future = workWrapper.getFuture();
             future.addListener(
                     new FutureListener(this, id, future),
                     mWorkTaskExecutor.getMainThreadExecutor());
             mEnqueuedWorkMap.put(id, workWrapper);
+            mProgressTracker.track(id);
         }
         mWorkTaskExecutor.getBackgroundExecutor().execute(workWrapper);
         Logger.get().debug(TAG, String.format("%s: processing %s", getClass().getSimpleName(), id));
@@ -293,6 +307,8 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
             @NonNull final String workSpecId,
             boolean needsReschedule) {
 
+        // The progress of finished work is removed from the database as well.
+        mProgressTracker.clear(workSpecId);
         synchronized (mLock) {
             mEnqueuedWorkMap.remove(workSpecId);
             Logger.get().debug(TAG, String.format("%s %s executed; reschedule = %s",
@@ -30,6 +30,7 @@ import androidx.work.Operation;
 import androidx.work.WorkContinuation;
 import androidx.work.WorkInfo;
 import androidx.work.WorkRequest;
+import androidx.work.impl.utils.ConflictAwareExecutor;
 import androidx.work.impl.utils.EnqueueRunnable;
 import androidx.work.impl.utils.StatusRunnable;
 import androidx.work.impl.workers.CombineContinuationsWorker;
@@ -173,7 +174,8 @@ public class WorkContinuationImpl extends WorkContinuation {
         StatusRunnable<List<WorkInfo>> runnable =
                 StatusRunnable.forStringIds(mWorkManagerImpl, mAllIds);
 
-        mWorkManagerImpl.getWorkTaskExecutor().executeOnBackgroundThread(runnable);
+        mWorkManagerImpl.getWorkTaskExecutor().getBackgroundExecutor()
+                .execute(mAllIds, runnable);
         return runnable.getFuture();
     }
 
@@ -184,7 +186,8 @@ public class WorkContinuationImpl extends WorkContinuation {
             // The runnable walks the hierarchy of the continuations
             // and marks them enqueued using the markEnqueued() method, parent first.
             EnqueueRunnable runnable = new EnqueueRunnable(this);
-            mWorkManagerImpl.getWorkTaskExecutor().executeOnBackgroundThread(runnable);
+            mWorkManagerImpl.getWorkTaskExecutor().getBackgroundExecutor()
+                    .execute(getConflictKeys(), runnable);
             mOperation = runnable.getOperation();
         } else {
             Logger.get().warning(TAG,
@@ -262,10 +265,51 @@ public class WorkContinuationImpl extends WorkContinuation {
         // This is because we don't want to change the state of visited ids for subsequent parents
         // This is being done to avoid allocations. Ideally we would check for a
         // hasCycles(parent, new HashSet<>(visited)) instead.
-        visited.removeAll(continuation.getIds());
+        // Ids are removed one at a time, because Set#removeAll calls List#contains for every
+        // element of the set when it is not larger than the list, which is quadratic.
+        for (String id : continuation.getIds()) {
+            visited.remove(id);
+        }
         return false;
     }
 
+    /**
+     * @return The keys of the state enqueueing this {@link WorkContinuationImpl} touches, or
+     * {@code null} if enqueueing it may touch the state of work outside of the hierarchy.
+     *
+     * @hide
+     */
+    @Nullable
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public Set<String> getConflictKeys() {
+        Set<String> keys = new HashSet<>();
+        return collectConflictKeys(this, keys) ? keys : null;
+    }
+
+    private static boolean collectConflictKeys(
+            @NonNull WorkContinuationImpl continuation,
+            @NonNull Set<String> keys) {
+        if (continuation.getName() != null) {
+            // The existing work policy may replace or append to work enqueued before.
+            return false;
+        }
+        keys.addAll(continuation.getIds());
+        for (WorkRequest work : continuation.getWork()) {
+            for (String tag : work.getTags()) {
+                keys.add(ConflictAwareExecutor.keyForTag(tag));
+            }
+        }
+        List<WorkContinuationImpl> parents = continuation.getParents();
+        if (parents != null) {
+            for (WorkContinuationImpl parent : parents) {
+                if (!collectConflictKeys(parent, keys)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * @return the {@link Set} of pre-requisites for a given {@link WorkContinuationImpl}.
      *
@@ -16,6 +16,7 @@
 
 package androidx.work.impl;
 
+import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_11_12;
 import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_3_4;
 import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_4_5;
 import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_6_7;
@@ -27,7 +28,6 @@ import static androidx.work.impl.WorkDatabaseMigrations.VERSION_2;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_3;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_5;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_6;
-import static androidx.work.impl.model.WorkTypeConverters.StateIds.COMPLETED_STATES;
 
 import android.content.Context;
 
@@ -37,7 +37,6 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
-import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteOpenHelper;
 import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
 import androidx.work.Data;
@@ -59,7 +58,6 @@ import androidx.work.impl.model.WorkTagDao;
 import androidx.work.impl.model.WorkTypeConverters;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * A Room database for keeping track of work states.
@@ -75,24 +73,9 @@ import java.util.concurrent.TimeUnit;
         WorkName.class,
         WorkProgress.class,
         Preference.class},
-        version = 11)
+        version = 12)
 @TypeConverters(value = {Data.class, WorkTypeConverters.class})
 public abstract class WorkDatabase extends RoomDatabase {
-    // Delete rows in the workspec table that...
-    private static final String PRUNE_SQL_FORMAT_PREFIX = "DELETE FROM workspec WHERE "
-            // are completed...
-            + "state IN " + COMPLETED_STATES + " AND "
-            // and the minimum retention time has expired...
-            + "(period_start_time + minimum_retention_duration) < ";
-    // and all dependents are completed.
-    private static final String PRUNE_SQL_FORMAT_SUFFIX = " AND "
-            + "(SELECT COUNT(*)=0 FROM dependency WHERE "
-            + "    prerequisite_id=id AND "
-            + "    work_spec_id NOT IN "
-            + "        (SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES + "))";
-
-    private static final long PRUNE_THRESHOLD_MILLIS = TimeUnit.DAYS.toMillis(1);
-
     /**
      * Creates an instance of the WorkDatabase.
      *
@@ -133,7 +116,6 @@ public abstract class WorkDatabase extends RoomDatabase {
         }
 
         return builder.setQueryExecutor(queryExecutor)
-                .addCallback(generateCleanupCallback())
                 .addMigrations(WorkDatabaseMigrations.MIGRATION_1_2)
                 .addMigrations(
                         new WorkDatabaseMigrations.RescheduleMigration(context, VERSION_2,
@@ -150,38 +132,11 @@ public abstract class WorkDatabase extends RoomDatabase {
                 .addMigrations(
                         new WorkDatabaseMigrations.RescheduleMigration(context, VERSION_10,
                                 VERSION_11))
+                .addMigrations(MIGRATION_11_12)
                 .fallbackToDestructiveMigration()
                 .build();
     }
 
-    static Callback generateCleanupCallback() {
-        return new Callback() {
-            @Override
-            public void onOpen(@NonNull SupportSQLiteDatabase db) {
-                super.onOpen(db);
-                db.beginTransaction();
-                try {
-                    // Prune everything that is completed, has an expired retention time, and has no
-                    // active dependents:
-                    db.execSQL(getPruneSQL());
-                    db.setTransactionSuccessful();
-                } finally {
-                    db.endTransaction();
-                }
-            }
-        };
-    }
-
-    @SuppressWarnings("WeakerAccess") /* synthetic access */
-    @NonNull
-    static String getPruneSQL() {
-        return PRUNE_SQL_FORMAT_PREFIX + getPruneDate() + PRUNE_SQL_FORMAT_SUFFIX;
-    }
-
-    static long getPruneDate() {
-        return System.currentTimeMillis() - PRUNE_THRESHOLD_MILLIS;
-    }
-
     /**
      * @return The Data Access Object for {@link WorkSpec}s.
      */
@@ -52,6 +52,7 @@ import androidx.work.impl.model.RawWorkInfoDao;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
 import androidx.work.impl.utils.CancelWorkRunnable;
+import androidx.work.impl.utils.ConflictAwareExecutor;
 import androidx.work.impl.utils.ForceStopRunnable;
 import androidx.work.impl.utils.LiveDataUtils;
 import androidx.work.impl.utils.PreferenceUtils;
@@ -94,6 +95,7 @@ public class WorkManagerImpl extends WorkManager {
     private Processor mProcessor;
     private PreferenceUtils mPreferenceUtils;
     private boolean mForceStopRunnableCompleted;
+    private InProcessWorkRunner mInProcessWorkRunner;
     private BroadcastReceiver.PendingResult mRescheduleReceiverResult;
     private volatile RemoteWorkManager mRemoteWorkManager;
 
@@ -355,6 +357,15 @@ public class WorkManagerImpl extends WorkManager {
         return mWorkTaskExecutor;
     }
 
+    /**
+     * @return the {@link InProcessWorkRunner} running work which isn't persisted.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public @NonNull InProcessWorkRunner getInProcessWorkRunner() {
+        return mInProcessWorkRunner;
+    }
+
     /**
      * @return the {@link PreferenceUtils} used by the instance of {@link WorkManager}.
      * @hide
@@ -375,6 +386,10 @@ public class WorkManagerImpl extends WorkManager {
             throw new IllegalArgumentException(
                     "enqueue needs at least one WorkRequest.");
         }
+        if (mConfiguration.isInProcessExecutionEnabled()
+                && InProcessWorkRunner.canRunInProcess(workRequests)) {
+            return mInProcessWorkRunner.enqueue(workRequests);
+        }
         return new WorkContinuationImpl(this, workRequests).enqueue();
     }
 
@@ -444,6 +459,11 @@ public class WorkManagerImpl extends WorkManager {
 
     @Override
     public @NonNull Operation cancelWorkById(@NonNull UUID id) {
+        if (mInProcessWorkRunner.cancel(id.toString())) {
+            OperationImpl operation = new OperationImpl();
+            operation.setState(Operation.SUCCESS);
+            return operation;
+        }
         CancelWorkRunnable runnable = CancelWorkRunnable.forId(id, this);
         mWorkTaskExecutor.executeOnBackgroundThread(runnable);
         return runnable.getOperation();
@@ -451,6 +471,7 @@ public class WorkManagerImpl extends WorkManager {
 
     @Override
     public @NonNull Operation cancelAllWorkByTag(@NonNull final String tag) {
+        mInProcessWorkRunner.cancelAllWorkByTag(tag);
         CancelWorkRunnable runnable = CancelWorkRunnable.forTag(tag, this);
         mWorkTaskExecutor.executeOnBackgroundThread(runnable);
         return runnable.getOperation();
@@ -466,6 +487,7 @@ public class WorkManagerImpl extends WorkManager {
 
     @Override
     public @NonNull Operation cancelAllWork() {
+        mInProcessWorkRunner.cancelAllWork();
         CancelWorkRunnable runnable = CancelWorkRunnable.forAll(this);
         mWorkTaskExecutor.executeOnBackgroundThread(runnable);
         return runnable.getOperation();
@@ -510,10 +532,16 @@ public class WorkManagerImpl extends WorkManager {
 
     @Override
     public @NonNull LiveData<WorkInfo> getWorkInfoByIdLiveData(@NonNull UUID id) {
+        LiveData<WorkInfo> inProcessLiveData =
+                mInProcessWorkRunner.getWorkInfoLiveData(id.toString());
+        if (inProcessLiveData != null) {
+            return inProcessLiveData;
+        }
         WorkSpecDao dao = mWorkDatabase.workSpecDao();
         LiveData<List<WorkSpec.WorkInfoPojo>> inputLiveData =
                 dao.getWorkStatusPojoLiveDataForIds(Collections.singletonList(id.toString()));
-        return LiveDataUtils.dedupedMappedLiveDataFor(inputLiveData,
+        LiveData<WorkInfo> workInfoLiveData = LiveDataUtils.dedupedMappedLiveDataFor(
+                inputLiveData,
                 new Function<List<WorkSpec.WorkInfoPojo>, WorkInfo>() {
                     @Override
                     public WorkInfo apply(List<WorkSpec.WorkInfoPojo> input) {
@@ -525,12 +553,21 @@ public class WorkManagerImpl extends WorkManager {
                     }
                 },
                 mWorkTaskExecutor);
+        // Progress reported in this process is delivered before it's written to the database.
+        return mProcessor.getProgressTracker().withLatestProgress(id.toString(), workInfoLiveData);
     }
 
     @Override
     public @NonNull ListenableFuture<WorkInfo> getWorkInfoById(@NonNull UUID id) {
+        WorkInfo inProcessWorkInfo = mInProcessWorkRunner.getWorkInfo(id.toString());
+        if (inProcessWorkInfo != null) {
+            SettableFuture<WorkInfo> future = SettableFuture.create();
+            future.set(inProcessWorkInfo);
+            return future;
+        }
         StatusRunnable<WorkInfo> runnable = StatusRunnable.forUUID(this, id);
-        mWorkTaskExecutor.getBackgroundExecutor().execute(runnable);
+        mWorkTaskExecutor.getBackgroundExecutor().execute(
+                Collections.singletonList(id.toString()), runnable);
         return runnable.getFuture();
     }
 
@@ -539,16 +576,18 @@ public class WorkManagerImpl extends WorkManager {
         WorkSpecDao workSpecDao = mWorkDatabase.workSpecDao();
         LiveData<List<WorkSpec.WorkInfoPojo>> inputLiveData =
                 workSpecDao.getWorkStatusPojoLiveDataForTag(tag);
-        return LiveDataUtils.dedupedMappedLiveDataFor(
+        LiveData<List<WorkInfo>> workInfosLiveData = LiveDataUtils.dedupedMappedLiveDataFor(
                 inputLiveData,
                 WorkSpec.WORK_INFO_MAPPER,
                 mWorkTaskExecutor);
+        return mProcessor.getProgressTracker().withLatestProgress(workInfosLiveData);
     }
 
     @Override
     public @NonNull ListenableFuture<List<WorkInfo>> getWorkInfosByTag(@NonNull String tag) {
         StatusRunnable<List<WorkInfo>> runnable = StatusRunnable.forTag(this, tag);
-        mWorkTaskExecutor.getBackgroundExecutor().execute(runnable);
+        mWorkTaskExecutor.getBackgroundExecutor().execute(
+                Collections.singletonList(ConflictAwareExecutor.keyForTag(tag)), runnable);
         return runnable.getFuture();
     }
 
@@ -558,10 +597,11 @@ public class WorkManagerImpl extends WorkManager {
         WorkSpecDao workSpecDao = mWorkDatabase.workSpecDao();
         LiveData<List<WorkSpec.WorkInfoPojo>> inputLiveData =
                 workSpecDao.getWorkStatusPojoLiveDataForName(name);
-        return LiveDataUtils.dedupedMappedLiveDataFor(
+        LiveData<List<WorkInfo>> workInfosLiveData = LiveDataUtils.dedupedMappedLiveDataFor(
                 inputLiveData,
                 WorkSpec.WORK_INFO_MAPPER,
                 mWorkTaskExecutor);
+        return mProcessor.getProgressTracker().withLatestProgress(workInfosLiveData);
     }
 
     @Override
@@ -569,7 +609,8 @@ public class WorkManagerImpl extends WorkManager {
     public ListenableFuture<List<WorkInfo>> getWorkInfosForUniqueWork(@NonNull String name) {
         StatusRunnable<List<WorkInfo>> runnable =
                 StatusRunnable.forUniqueWork(this, name);
-        mWorkTaskExecutor.getBackgroundExecutor().execute(runnable);
+        mWorkTaskExecutor.getBackgroundExecutor().execute(
+                Collections.singletonList(ConflictAwareExecutor.keyForName(name)), runnable);
         return runnable.getFuture();
     }
 
@@ -581,10 +622,11 @@ public class WorkManagerImpl extends WorkManager {
         LiveData<List<WorkSpec.WorkInfoPojo>> inputLiveData =
                 rawWorkInfoDao.getWorkInfoPojosLiveData(
                         RawQueries.workQueryToRawQuery(workQuery));
-        return LiveDataUtils.dedupedMappedLiveDataFor(
+        LiveData<List<WorkInfo>> workInfosLiveData = LiveDataUtils.dedupedMappedLiveDataFor(
                 inputLiveData,
                 WorkSpec.WORK_INFO_MAPPER,
                 mWorkTaskExecutor);
+        return mProcessor.getProgressTracker().withLatestProgress(workInfosLiveData);
     }
 
     @NonNull
@@ -648,9 +690,9 @@ public class WorkManagerImpl extends WorkManager {
     public void startWork(
             @NonNull String workSpecId,
             @Nullable WorkerParameters.RuntimeExtras runtimeExtras) {
-        mWorkTaskExecutor
-                .executeOnBackgroundThread(
-                        new StartWorkRunnable(this, workSpecId, runtimeExtras));
+        mWorkTaskExecutor.getBackgroundExecutor().execute(
+                Collections.singletonList(workSpecId),
+                new StartWorkRunnable(this, workSpecId, runtimeExtras));
     }
 
     /**
@@ -659,7 +701,9 @@ public class WorkManagerImpl extends WorkManager {
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     public void stopWork(@NonNull String workSpecId) {
-        mWorkTaskExecutor.executeOnBackgroundThread(new StopWorkRunnable(this, workSpecId, false));
+        mWorkTaskExecutor.getBackgroundExecutor().execute(
+                Collections.singletonList(workSpecId),
+                new StopWorkRunnable(this, workSpecId, false));
     }
 
     /**
@@ -669,7 +713,9 @@ public class WorkManagerImpl extends WorkManager {
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     public void stopForegroundWork(@NonNull String workSpecId) {
-        mWorkTaskExecutor.executeOnBackgroundThread(new StopWorkRunnable(this, workSpecId, true));
+        mWorkTaskExecutor.getBackgroundExecutor().execute(
+                Collections.singletonList(workSpecId),
+                new StopWorkRunnable(this, workSpecId, true));
     }
 
     /**
@@ -754,6 +800,7 @@ public class WorkManagerImpl extends WorkManager {
         mProcessor = processor;
         mPreferenceUtils = new PreferenceUtils(workDatabase);
         mForceStopRunnableCompleted = false;
+        mInProcessWorkRunner = new InProcessWorkRunner(context, configuration, workTaskExecutor);
 
         // Check for direct boot mode
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && context.isDeviceProtectedStorage()) {
@@ -762,6 +809,8 @@ public class WorkManagerImpl extends WorkManager {
 
         // Checks for app force stops.
         mWorkTaskExecutor.executeOnBackgroundThread(new ForceStopRunnable(context, this));
+        // Prunes the finished work which is no longer retained.
+        mWorkTaskExecutor.executeOnBackgroundThread(new PruneWorkRunnable(this, true));
     }
 
     /**
@@ -49,6 +49,7 @@ import androidx.work.impl.model.WorkSpecDao;
 import androidx.work.impl.model.WorkTagDao;
 import androidx.work.impl.utils.PackageManagerHelper;
 import androidx.work.impl.utils.WorkForegroundUpdater;
+import androidx.work.impl.utils.WorkProgressTracker;
 import androidx.work.impl.utils.WorkProgressUpdater;
 import androidx.work.impl.utils.futures.SettableFuture;
 import androidx.work.impl.utils.taskexecutor.TaskExecutor;
@@ -79,6 +80,7 @@ public class WorkerWrapper implements Runnable {
     private String mWorkSpecId;
     private List<Scheduler> mSchedulers;
     private WorkerParameters.RuntimeExtras mRuntimeExtras;
+    private WorkProgressTracker mProgressTracker;
     // Avoid Synthetic accessor
     WorkSpec mWorkSpec;
     ListenableWorker mWorker;
@@ -115,6 +117,7 @@ public class WorkerWrapper implements Runnable {
         mWorkSpecId = builder.mWorkSpecId;
         mSchedulers = builder.mSchedulers;
         mRuntimeExtras = builder.mRuntimeExtras;
+        mProgressTracker = builder.mProgressTracker;
         mWorker = builder.mWorker;
 
         mConfiguration = builder.mConfiguration;
@@ -233,7 +236,11 @@ public class WorkerWrapper implements Runnable {
                 mConfiguration.getExecutor(),
                 mWorkTaskExecutor,
                 mConfiguration.getWorkerFactory(),
-                new WorkProgressUpdater(mWorkDatabase, mWorkTaskExecutor),
+                new WorkProgressUpdater(
+                        mWorkDatabase,
+                        mWorkTaskExecutor,
+                        mConfiguration.getRunnableScheduler(),
+                        mProgressTracker),
                 new WorkForegroundUpdater(mWorkDatabase, mForegroundProcessor, mWorkTaskExecutor));
 
         // Not always creating a worker here, as the WorkerWrapper.Builder can set a worker override
@@ -626,6 +633,7 @@ public class WorkerWrapper implements Runnable {
         List<Scheduler> mSchedulers;
         @NonNull
         WorkerParameters.RuntimeExtras mRuntimeExtras = new WorkerParameters.RuntimeExtras();
+        @Nullable WorkProgressTracker mProgressTracker;
 
         public Builder(@NonNull Context context,
                 @NonNull Configuration configuration,
@@ -665,6 +673,17 @@ public class WorkerWrapper implements Runnable {
             return this;
         }
 
+        /**
+         * @param progressTracker The {@link WorkProgressTracker} which keeps the progress of the
+         *                        {@link Worker} in memory.
+         * @return The instance of {@link Builder} for chaining.
+         */
+        @NonNull
+        public Builder withProgressTracker(@NonNull WorkProgressTracker progressTracker) {
+            mProgressTracker = progressTracker;
+            return this;
+        }
+
         /**
          * @param worker The instance of {@link ListenableWorker} to be executed by
          * {@link WorkerWrapper}. Useful in the context of testing.
@@ -55,6 +55,8 @@ public class SystemAlarmDispatcher implements ExecutionListener {
     private static final String PROCESS_COMMAND_TAG = "ProcessCommand";
     private static final String KEY_START_ID = "KEY_START_ID";
     private static final int DEFAULT_START_ID = 0;
+    // How long to wait before checking for completion again, while background tasks still run.
+    private static final long CHECK_FOR_COMPLETION_DELAY_MILLIS = 100L;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     final Context mContext;
@@ -65,6 +67,7 @@ public class SystemAlarmDispatcher implements ExecutionListener {
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     final CommandHandler mCommandHandler;
     private final Handler mMainHandler;
+    private final Runnable mCheckForCompletion;
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     final List<Intent> mIntents;
     Intent mCurrentIntent;
@@ -94,6 +97,7 @@ public class SystemAlarmDispatcher implements ExecutionListener {
         // the current intent (command) being processed.
         mCurrentIntent = null;
         mMainHandler = new Handler(Looper.getMainLooper());
+        mCheckForCompletion = new CheckForCompletion(this);
     }
 
     /**
@@ -104,6 +108,7 @@ public class SystemAlarmDispatcher implements ExecutionListener {
         Logger.get().debug(TAG, "Destroying SystemAlarmDispatcher");
         mProcessor.removeExecutionListener(this);
         mWorkTimer.onDestroy();
+        mMainHandler.removeCallbacks(mCheckForCompletion);
         mCompletedListener = null;
     }
 
@@ -223,20 +228,38 @@ public class SystemAlarmDispatcher implements ExecutionListener {
                 }
                 mCurrentIntent = null;
             }
-            SerialExecutor serialExecutor = mTaskExecutor.getBackgroundExecutor();
-            if (!mCommandHandler.hasPendingCommands()
-                    && mIntents.isEmpty()
-                    && !serialExecutor.hasPendingTasks()) {
-
-                // If there are no more intents to process, and the command handler
-                // has no more pending commands, stop the service.
-                Logger.get().debug(TAG, "No more commands & intents.");
-                if (mCompletedListener != null) {
-                    mCompletedListener.onAllCommandsCompleted();
-                }
-            } else if (!mIntents.isEmpty()) {
+            if (!mIntents.isEmpty()) {
                 // Only process the next command if we have more commands.
                 processCommand();
+            } else {
+                checkForCompletion();
+            }
+        }
+    }
+
+    @MainThread
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void checkForCompletion() {
+        assertMainThread();
+        synchronized (mIntents) {
+            if (!mIntents.isEmpty() || mCommandHandler.hasPendingCommands()) {
+                // Checked again once the commands are processed.
+                return;
+            }
+            SerialExecutor serialExecutor = mTaskExecutor.getBackgroundExecutor();
+            if (serialExecutor.hasPendingTasks()) {
+                // Background tasks can run in parallel, and the command which posted this
+                // check might not have returned yet either. Check again once they had time to
+                // finish, rather than waiting for the next command.
+                mMainHandler.removeCallbacks(mCheckForCompletion);
+                mMainHandler.postDelayed(mCheckForCompletion, CHECK_FOR_COMPLETION_DELAY_MILLIS);
+                return;
+            }
+            // If there are no more intents to process, and the command handler
+            // has no more pending commands, stop the service.
+            Logger.get().debug(TAG, "No more commands & intents.");
+            if (mCompletedListener != null) {
+                mCompletedListener.onAllCommandsCompleted();
             }
         }
     }
@@ -336,6 +359,22 @@ public class SystemAlarmDispatcher implements ExecutionListener {
         }
     }
 
+    /**
+     * Checks if we are done executing all commands and background tasks.
+     */
+    static class CheckForCompletion implements Runnable {
+        private final SystemAlarmDispatcher mDispatcher;
+
+        CheckForCompletion(@NonNull SystemAlarmDispatcher dispatcher) {
+            mDispatcher = dispatcher;
+        }
+
+        @Override
+        public void run() {
+            mDispatcher.checkForCompletion();
+        }
+    }
+
     /**
      * Adds a new intent to the SystemAlarmDispatcher.
      */
@@ -29,6 +29,7 @@ import androidx.arch.core.util.Function;
 import androidx.room.ColumnInfo;
 import androidx.room.Embedded;
 import androidx.room.Entity;
+import androidx.room.Ignore;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.Relation;
@@ -52,7 +53,8 @@ import java.util.UUID;
 @Entity(
         indices = {
                 @Index(value = {"schedule_requested_at"}),
-                @Index(value = {"period_start_time"})
+                @Index(value = {"period_start_time"}),
+                @Index(value = {"state"})
         }
 )
 public final class WorkSpec {
@@ -134,6 +136,13 @@ public final class WorkSpec {
     @ColumnInfo(name = "run_in_foreground")
     public boolean runInForeground;
 
+    /**
+     * This is {@code true} when the WorkSpec doesn't need to survive process death, and may run
+     * in process without being persisted. It's never stored in the database.
+     */
+    @Ignore
+    public boolean runInProcess;
+
     public WorkSpec(@NonNull String id, @NonNull String workerClassName) {
         this.id = id;
         this.workerClassName = workerClassName;
@@ -157,6 +166,7 @@ public final class WorkSpec {
         minimumRetentionDuration = other.minimumRetentionDuration;
         scheduleRequestedAt = other.scheduleRequestedAt;
         runInForeground = other.runInForeground;
+        runInProcess = other.runInProcess;
     }
 
     /**
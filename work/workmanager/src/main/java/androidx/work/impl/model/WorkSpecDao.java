@@ -46,6 +46,15 @@ public interface WorkSpecDao {
     @Insert(onConflict = IGNORE)
     void insertWorkSpec(WorkSpec workSpec);
 
+    /**
+     * Attempts to insert {@link WorkSpec}s into the database, reusing a single compiled
+     * statement.
+     *
+     * @param workSpecs The WorkSpecs to insert.
+     */
+    @Insert(onConflict = IGNORE)
+    void insertWorkSpecs(List<WorkSpec> workSpecs);
+
     /**
      * Deletes {@link WorkSpec}s from the database.
      *
@@ -346,17 +355,4 @@ public interface WorkSpecDao {
             + " ORDER BY period_start_time DESC"
     )
     List<WorkSpec> getRecentlyCompletedWork(long startingAt);
-
-    /**
-     * Immediately prunes eligible work from the database meeting the following criteria:
-     * - Is finished (succeeded, failed, or cancelled)
-     * - Has zero unfinished dependents
-     */
-    @Query("DELETE FROM workspec WHERE "
-            + "state IN " + COMPLETED_STATES
-            + " AND (SELECT COUNT(*)=0 FROM dependency WHERE "
-            + "    prerequisite_id=id AND "
-            + "    work_spec_id NOT IN "
-            + "        (SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES + "))")
-    void pruneFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast();
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link SerialExecutor} which only serializes commands that conflict with each other.
+ * <p>
+ * Commands submitted with {@link #execute(Collection, Runnable)} declare the keys of the state
+ * they touch. A command starts once every conflicting command submitted before it has finished,
+ * so it observes the same state it would have observed on a {@link SerialExecutor}. Commands
+ * whose keys don't overlap run in parallel, up to a maximum number of commands at a time.
+ * Commands submitted with {@link #execute(Runnable)} conflict with every other command.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class ConflictAwareExecutor extends SerialExecutor {
+
+    private static final String TAG_PREFIX = "tag:";
+    private static final String NAME_PREFIX = "name:";
+
+    private final Executor mExecutor;
+    private final int mMaxParallelism;
+    private final Object mLock;
+    private final LinkedList<Task> mPendingTasks;
+    private final List<Task> mActiveTasks;
+
+    /**
+     * @param executor       The {@link Executor} the commands are run on
+     * @param maxParallelism The maximum number of commands to run at a time
+     */
+    public ConflictAwareExecutor(@NonNull Executor executor, int maxParallelism) {
+        super(executor);
+        if (maxParallelism < 1) {
+            throw new IllegalArgumentException("maxParallelism must be at least 1");
+        }
+        mExecutor = executor;
+        mMaxParallelism = maxParallelism;
+        mLock = new Object();
+        mPendingTasks = new LinkedList<>();
+        mActiveTasks = new ArrayList<>(maxParallelism);
+    }
+
+    /**
+     * @param tag The tag
+     * @return The key for the state of the work tagged with the given tag
+     */
+    @NonNull
+    public static String keyForTag(@NonNull String tag) {
+        return TAG_PREFIX + tag;
+    }
+
+    /**
+     * @param name The unique work name
+     * @return The key for the state of the unique work with the given name
+     */
+    @NonNull
+    public static String keyForName(@NonNull String name) {
+        return NAME_PREFIX + name;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        execute(null, command);
+    }
+
+    @Override
+    public void execute(@Nullable Collection<String> keys, @NonNull Runnable command) {
+        Set<String> keySet = keys == null ? null : new HashSet<>(keys);
+        List<Task> runnableTasks;
+        synchronized (mLock) {
+            mPendingTasks.add(new Task(this, keySet, command));
+            runnableTasks = pollRunnableTasks();
+        }
+        dispatch(runnableTasks);
+    }
+
+    /**
+     * Unlike {@link SerialExecutor#hasPendingTasks()}, this also counts the commands which are
+     * running, since several of them can run at a time.
+     *
+     * @return {@code true} if there are commands waiting to run or running.
+     */
+    @Override
+    public boolean hasPendingTasks() {
+        synchronized (mLock) {
+            return !mPendingTasks.isEmpty() || !mActiveTasks.isEmpty();
+        }
+    }
+
+    // Synthetic access
+    void onTaskFinished(@NonNull Task task) {
+        List<Task> runnableTasks;
+        synchronized (mLock) {
+            mActiveTasks.remove(task);
+            runnableTasks = pollRunnableTasks();
+        }
+        dispatch(runnableTasks);
+    }
+
+    /**
+     * Moves the pending tasks which no longer wait on a conflicting task to the active tasks.
+     */
+    private List<Task> pollRunnableTasks() {
+        List<Task> runnableTasks = null;
+        // The keys of the tasks which are still pending. Tasks submitted after them must not
+        // overtake them.
+        Set<String> blockedKeys = null;
+        Iterator<Task> iterator = mPendingTasks.iterator();
+        while (iterator.hasNext() && mActiveTasks.size() < mMaxParallelism) {
+            Task task = iterator.next();
+            boolean blocked;
+            if (task.mKeys == null) {
+                blocked = blockedKeys != null || !mActiveTasks.isEmpty();
+            } else {
+                blocked = (blockedKeys != null && overlaps(blockedKeys, task.mKeys))
+                        || conflictsWithActiveTasks(task);
+            }
+            if (blocked) {
+                if (task.mKeys == null) {
+                    // Nothing can overtake a task which conflicts with everything.
+                    break;
+                }
+                if (blockedKeys == null) {
+                    blockedKeys = new HashSet<>();
+                }
+                blockedKeys.addAll(task.mKeys);
+            } else {
+                iterator.remove();
+                mActiveTasks.add(task);
+                if (runnableTasks == null) {
+                    runnableTasks = new ArrayList<>();
+                }
+                runnableTasks.add(task);
+            }
+        }
+        return runnableTasks;
+    }
+
+    private boolean conflictsWithActiveTasks(@NonNull Task task) {
+        for (int i = 0; i < mActiveTasks.size(); i++) {
+            Set<String> activeKeys = mActiveTasks.get(i).mKeys;
+            if (activeKeys == null || overlaps(activeKeys, task.mKeys)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void dispatch(@Nullable List<Task> tasks) {
+        // Dispatch outside of the lock, the delegated executor may run the task synchronously.
+        if (tasks != null) {
+            for (int i = 0; i < tasks.size(); i++) {
+                mExecutor.execute(tasks.get(i));
+            }
+        }
+    }
+
+    private static boolean overlaps(@NonNull Set<String> first, @NonNull Set<String> second) {
+        Set<String> smaller = first.size() <= second.size() ? first : second;
+        Set<String> larger = smaller == first ? second : first;
+        for (String key : smaller) {
+            if (larger.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A {@link Runnable} which tells the {@link ConflictAwareExecutor} to start the tasks waiting
+     * on it after completion.
+     */
+    static class Task implements Runnable {
+        final ConflictAwareExecutor mExecutor;
+        final Set<String> mKeys;
+        final Runnable mRunnable;
+
+        Task(@NonNull ConflictAwareExecutor executor,
+                @Nullable Set<String> keys,
+                @NonNull Runnable runnable) {
+            mExecutor = executor;
+            mKeys = keys;
+            mRunnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            try {
+                mRunnable.run();
+            } finally {
+                mExecutor.onTaskFinished(this);
+            }
+        }
+    }
+}
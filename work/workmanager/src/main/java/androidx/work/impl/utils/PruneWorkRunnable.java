@@ -16,29 +16,72 @@
 
 package androidx.work.impl.utils;
 
+import static androidx.work.impl.model.WorkTypeConverters.StateIds.COMPLETED_STATES;
+
+import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.work.Logger;
 import androidx.work.Operation;
+import androidx.work.PruningPolicy;
+import androidx.work.WorkInfo;
 import androidx.work.impl.OperationImpl;
 import androidx.work.impl.WorkDatabase;
 import androidx.work.impl.WorkManagerImpl;
-import androidx.work.impl.model.WorkSpecDao;
+import androidx.work.impl.model.WorkTypeConverters;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A Runnable that prunes work in the background.  Pruned work meets the following criteria:
  * - Is finished (succeeded, failed, or cancelled)
  * - Has zero unfinished dependents
+ * <p>
+ * Work is deleted in batches of {@link PruningPolicy#getBatchSize()}, each in its own
+ * transaction. The runnable submits itself to the background executor again after each batch,
+ * so that the commands submitted in the meantime don't wait for the whole database to be pruned.
  *
  * @hide
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public class PruneWorkRunnable implements Runnable {
 
+    private static final String TAG = Logger.tagWithPrefix("PruneWorkRunnable");
+
+    // Selects the rows in the workspec table whose dependents are all completed.
+    private static final String NO_UNFINISHED_DEPENDENTS = " AND "
+            + "(SELECT COUNT(*)=0 FROM dependency WHERE "
+            + "    prerequisite_id=id AND "
+            + "    work_spec_id NOT IN "
+            + "        (SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES + "))";
+
     private final WorkManagerImpl mWorkManagerImpl;
     private final OperationImpl mOperation;
+    private final boolean mApplyPruningPolicy;
+
+    private boolean mExpiredWorkPruned;
+    private int mPrunedWorkCount;
+    private long mDurationNanos;
 
     public PruneWorkRunnable(WorkManagerImpl workManagerImpl) {
+        this(workManagerImpl, false);
+    }
+
+    /**
+     * @param workManagerImpl    The {@link WorkManagerImpl} instance
+     * @param applyPruningPolicy {@code true} to only prune the work eligible under the
+     *                           {@link PruningPolicy} of the {@link androidx.work.Configuration},
+     *                           or {@code false} to prune all the finished work, ignoring how
+     *                           long it should be kept for
+     */
+    public PruneWorkRunnable(
+            @NonNull WorkManagerImpl workManagerImpl,
+            boolean applyPruningPolicy) {
         mWorkManagerImpl = workManagerImpl;
         mOperation = new OperationImpl();
+        mApplyPruningPolicy = applyPruningPolicy;
     }
 
     /**
@@ -48,16 +91,140 @@ public class PruneWorkRunnable implements Runnable {
         return mOperation;
     }
 
-
     @Override
     public void run() {
+        PruningPolicy policy = mWorkManagerImpl.getConfiguration().getPruningPolicy();
+        boolean done;
         try {
             WorkDatabase workDatabase = mWorkManagerImpl.getWorkDatabase();
-            WorkSpecDao workSpecDao = workDatabase.workSpecDao();
-            workSpecDao.pruneFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast();
-            mOperation.setState(Operation.SUCCESS);
+            long startNanos = System.nanoTime();
+            workDatabase.beginTransaction();
+            try {
+                done = pruneBatch(workDatabase, policy);
+                workDatabase.setTransactionSuccessful();
+            } finally {
+                workDatabase.endTransaction();
+                mDurationNanos += System.nanoTime() - startNanos;
+            }
         } catch (Throwable exception) {
             mOperation.setState(new Operation.State.FAILURE(exception));
+            return;
+        }
+
+        if (!done) {
+            mWorkManagerImpl.getWorkTaskExecutor().executeOnBackgroundThread(this);
+            return;
+        }
+
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(mDurationNanos);
+        Logger.get().debug(TAG, String.format("Pruned %s work in %s ms", mPrunedWorkCount,
+                durationMillis));
+        PruningPolicy.PruneListener listener = policy.getPruneListener();
+        if (listener != null) {
+            listener.onWorkPruned(mPrunedWorkCount, durationMillis);
+        }
+        mOperation.setState(Operation.SUCCESS);
+    }
+
+    /**
+     * Deletes a single batch of work.
+     *
+     * @return {@code true} if there is no more work to prune
+     */
+    private boolean pruneBatch(@NonNull WorkDatabase workDatabase, @NonNull PruningPolicy policy) {
+        int batchSize = policy.getBatchSize();
+        if (!mApplyPruningPolicy) {
+            int deleted = delete(workDatabase, COMPLETED_STATES + NO_UNFINISHED_DEPENDENTS,
+                    batchSize);
+            return deleted < batchSize;
+        }
+
+        Set<WorkInfo.State> states = policy.getPrunedStates();
+        if (states.isEmpty()) {
+            return true;
+        }
+        String prunedStates = inClause(states);
+        long now = System.currentTimeMillis();
+        if (!mExpiredWorkPruned) {
+            // Work whose retention time has expired.
+            long pruneDate = now - policy.getRetentionDurationMillis();
+            int deleted = delete(workDatabase, prunedStates
+                            + " AND (period_start_time + minimum_retention_duration) < "
+                            + pruneDate
+                            + NO_UNFINISHED_DEPENDENTS,
+                    batchSize);
+            if (deleted == batchSize) {
+                return false;
+            }
+            mExpiredWorkPruned = true;
+            if (deleted > 0 && policy.getMaxFinishedWorkCount() != Integer.MAX_VALUE) {
+                // Count the finished work in the next transaction.
+                return false;
+            }
+        }
+
+        if (policy.getMaxFinishedWorkCount() == Integer.MAX_VALUE) {
+            return true;
+        }
+        SupportSQLiteStatement count = workDatabase.compileStatement(
+                "SELECT COUNT(*) FROM workspec WHERE state IN " + prunedStates);
+        long finishedWorkCount;
+        try {
+            finishedWorkCount = count.simpleQueryForLong();
+        } finally {
+            close(count);
+        }
+        long excess = finishedWorkCount - policy.getMaxFinishedWorkCount();
+        if (excess <= 0) {
+            return true;
+        }
+        // The oldest work, as long as its minimum retention time has expired.
+        int limit = (int) Math.min(excess, batchSize);
+        int deleted = delete(workDatabase, prunedStates
+                        + " AND (period_start_time + minimum_retention_duration) < " + now
+                        + NO_UNFINISHED_DEPENDENTS
+                        + " ORDER BY period_start_time",
+                limit);
+        return deleted < limit || excess == limit;
+    }
+
+    /**
+     * Deletes up to {@code limit} rows in the workspec table whose state is in the given
+     * selection, followed by the rest of its {@code WHERE} clause.
+     */
+    private int delete(@NonNull WorkDatabase workDatabase, @NonNull String selection, int limit) {
+        SupportSQLiteStatement statement = workDatabase.compileStatement(
+                "DELETE FROM workspec WHERE id IN (SELECT id FROM workspec WHERE state IN "
+                        + selection + " LIMIT " + limit + ")");
+        int deleted;
+        try {
+            deleted = statement.executeUpdateDelete();
+        } finally {
+            close(statement);
+        }
+        mPrunedWorkCount += deleted;
+        return deleted;
+    }
+
+    private static void close(@NonNull SupportSQLiteStatement statement) {
+        try {
+            statement.close();
+        } catch (IOException e) {
+            // SQLiteStatement#close does not throw.
+        }
+    }
+
+    @NonNull
+    private static String inClause(@NonNull Set<WorkInfo.State> states) {
+        StringBuilder builder = new StringBuilder("(");
+        boolean first = true;
+        for (WorkInfo.State state : states) {
+            if (!first) {
+                builder.append(", ");
+            }
+            builder.append(WorkTypeConverters.stateToInt(state));
+            first = false;
         }
+        return builder.append(")").toString();
     }
 }
@@ -31,12 +31,26 @@ import java.util.UUID;
  * A helper to build raw SQLite Queries.
  */
 public final class RawQueries {
+    // The predicates of a WorkQuery, from the most selective to the least selective.
+    private static final int PREDICATE_IDS = 0;
+    private static final int PREDICATE_UNIQUE_WORK_NAMES = 1;
+    private static final int PREDICATE_UNFINISHED_STATES = 2;
+    private static final int PREDICATE_TAGS = 3;
+    private static final int PREDICATE_STATES = 4;
+    private static final int PREDICATE_NONE = 5;
+
     private RawQueries() {
         // Does nothing
     }
 
     /**
      * Converts a {@link WorkQuery} to a raw {@link SupportSQLiteQuery}.
+     * <p>
+     * SQLite has no statistics about the tables of the {@link androidx.work.impl.WorkDatabase},
+     * so it can't tell which index lookup returns the fewest rows. It may for example scan the
+     * state index for all the finished work instead of looking up a unique work name. Only the
+     * most selective predicate of the {@link WorkQuery} is written so that it can use an index,
+     * and the other predicates only filter the rows found that way.
      *
      * @param querySpec The instance of {@link WorkQuery}
      * @return a {@link SupportSQLiteQuery} instance
@@ -46,6 +60,7 @@ public final class RawQueries {
         List<Object> arguments = new ArrayList<>();
         StringBuilder builder = new StringBuilder("SELECT * FROM workspec");
         String conjunction = " WHERE";
+        int drivingPredicate = mostSelectivePredicate(querySpec);
 
         List<WorkInfo.State> states = querySpec.getStates();
         if (!states.isEmpty()) {
@@ -53,8 +68,11 @@ public final class RawQueries {
             for (WorkInfo.State state : states) {
                 stateIds.add(WorkTypeConverters.stateToInt(state));
             }
+            // The unary + operator prevents SQLite from using the index on the column.
+            boolean driving = drivingPredicate == PREDICATE_UNFINISHED_STATES
+                    || drivingPredicate == PREDICATE_STATES;
             builder.append(conjunction)
-                    .append(" state IN (");
+                    .append(driving ? " state IN (" : " +state IN (");
             bindings(builder, stateIds.size());
             builder.append(")");
             arguments.addAll(stateIds);
@@ -77,20 +95,17 @@ public final class RawQueries {
 
         List<String> tags = querySpec.getTags();
         if (!tags.isEmpty()) {
-            builder.append(conjunction)
-                    .append(" id IN (SELECT work_spec_id FROM worktag WHERE tag IN (");
-            bindings(builder, tags.size());
-            builder.append("))");
+            builder.append(conjunction);
+            lookup(builder, "worktag", "tag", tags.size(), drivingPredicate == PREDICATE_TAGS);
             arguments.addAll(tags);
             conjunction = " AND";
         }
 
         List<String> uniqueWorkNames = querySpec.getUniqueWorkNames();
         if (!uniqueWorkNames.isEmpty()) {
-            builder.append(conjunction)
-                    .append(" id IN (SELECT work_spec_id FROM workname WHERE name IN (");
-            bindings(builder, uniqueWorkNames.size());
-            builder.append("))");
+            builder.append(conjunction);
+            lookup(builder, "workname", "name", uniqueWorkNames.size(),
+                    drivingPredicate == PREDICATE_UNIQUE_WORK_NAMES);
             arguments.addAll(uniqueWorkNames);
             conjunction = " AND";
         }
@@ -98,6 +113,74 @@ public final class RawQueries {
         return new SimpleSQLiteQuery(builder.toString(), arguments.toArray());
     }
 
+    /**
+     * Picks the predicate of a {@link WorkQuery} which is expected to match the fewest rows.
+     * <p>
+     * Finished work is kept in the database until it's pruned, so a query for unfinished states
+     * only is expected to match fewer rows than a tag, which is shared by all the work of a
+     * Worker class.
+     */
+    private static int mostSelectivePredicate(@NonNull WorkQuery querySpec) {
+        if (!querySpec.getIds().isEmpty()) {
+            return PREDICATE_IDS;
+        }
+        if (!querySpec.getUniqueWorkNames().isEmpty()) {
+            return PREDICATE_UNIQUE_WORK_NAMES;
+        }
+        List<WorkInfo.State> states = querySpec.getStates();
+        if (!states.isEmpty()) {
+            boolean unfinished = true;
+            for (WorkInfo.State state : states) {
+                if (state.isFinished()) {
+                    unfinished = false;
+                    break;
+                }
+            }
+            if (unfinished) {
+                return PREDICATE_UNFINISHED_STATES;
+            }
+        }
+        if (!querySpec.getTags().isEmpty()) {
+            return PREDICATE_TAGS;
+        }
+        if (!states.isEmpty()) {
+            return PREDICATE_STATES;
+        }
+        return PREDICATE_NONE;
+    }
+
+    /**
+     * Appends a predicate matching the {@link androidx.work.impl.model.WorkSpec}s which have one
+     * of the given values in a lookup table.
+     * <p>
+     * When the predicate drives the query, the matching ids are looked up first. Otherwise each
+     * candidate row is checked against the lookup table, using its index on work_spec_id.
+     */
+    private static void lookup(
+            @NonNull StringBuilder builder,
+            @NonNull String table,
+            @NonNull String column,
+            int count,
+            boolean driving) {
+        if (driving) {
+            builder.append(" id IN (SELECT work_spec_id FROM ")
+                    .append(table)
+                    .append(" WHERE ")
+                    .append(column)
+                    .append(" IN (");
+        } else {
+            builder.append(" EXISTS (SELECT 1 FROM ")
+                    .append(table)
+                    .append(" WHERE ")
+                    .append(table)
+                    .append(".work_spec_id=workspec.id AND ")
+                    .append(column)
+                    .append(" IN (");
+        }
+        bindings(builder, count);
+        builder.append("))");
+    }
+
     private static void bindings(@NonNull StringBuilder builder, int count) {
         if (count <= 0) {
             return;
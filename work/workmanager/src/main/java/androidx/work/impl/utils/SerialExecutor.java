@@ -17,9 +17,11 @@
 package androidx.work.impl.utils;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.concurrent.Executor;
 
 /**
@@ -48,6 +50,19 @@ public class SerialExecutor implements Executor {
         }
     }
 
+    /**
+     * Executes a command which only reads and writes the state identified by the given keys, like
+     * WorkSpec ids or unique work names. This executor runs it in order like any other command,
+     * but subclasses may run it in parallel with commands whose keys don't overlap.
+     *
+     * @param keys    The keys identifying the state the command touches, or {@code null} if the
+     *                command may touch any state
+     * @param command The command to execute
+     */
+    public void execute(@Nullable Collection<String> keys, @NonNull Runnable command) {
+        execute(command);
+    }
+
     // Synthetic access
     void scheduleNext() {
         synchronized (mLock) {
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.Observer;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the latest progress of the work running in this process in memory, so that observers in
+ * this process see it before it's written to the {@link androidx.work.impl.WorkDatabase}.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class WorkProgressTracker {
+
+    private final Object mLock;
+    private final Set<String> mRunning;
+    private final Map<String, Data> mProgress;
+    private final Map<String, Set<ProgressListener>> mListeners;
+    private final Set<ProgressListener> mAllListeners;
+
+    public WorkProgressTracker() {
+        mLock = new Object();
+        mRunning = new HashSet<>();
+        mProgress = new HashMap<>();
+        mListeners = new HashMap<>();
+        mAllListeners = new HashSet<>();
+    }
+
+    /**
+     * Starts tracking the progress of a {@link androidx.work.impl.model.WorkSpec} which is about
+     * to run in this process.
+     *
+     * @param workSpecId The {@link androidx.work.impl.model.WorkSpec} id
+     */
+    public void track(@NonNull String workSpecId) {
+        synchronized (mLock) {
+            mRunning.add(workSpecId);
+        }
+    }
+
+    /**
+     * Updates the progress of a running {@link androidx.work.impl.model.WorkSpec}. Progress
+     * reported for a {@link androidx.work.impl.model.WorkSpec} which isn't tracked, for instance
+     * because it has already finished, is ignored.
+     *
+     * @param workSpecId The {@link androidx.work.impl.model.WorkSpec} id
+     * @param progress   The progress {@link Data}
+     * @return {@code true} if the progress was recorded
+     */
+    public boolean setProgress(@NonNull String workSpecId, @NonNull Data progress) {
+        synchronized (mLock) {
+            if (!mRunning.contains(workSpecId)) {
+                return false;
+            }
+            mProgress.put(workSpecId, progress);
+        }
+        notifyListeners(workSpecId, progress);
+        return true;
+    }
+
+    /**
+     * Stops tracking and forgets the progress of a {@link androidx.work.impl.model.WorkSpec}
+     * which is no longer running.
+     *
+     * @param workSpecId The {@link androidx.work.impl.model.WorkSpec} id
+     */
+    public void clear(@NonNull String workSpecId) {
+        boolean removed;
+        synchronized (mLock) {
+            mRunning.remove(workSpecId);
+            removed = mProgress.remove(workSpecId) != null;
+        }
+        if (removed) {
+            notifyListeners(workSpecId, null);
+        }
+    }
+
+    /**
+     * @param workSpecId The {@link androidx.work.impl.model.WorkSpec} id
+     * @return The latest progress of the {@link androidx.work.impl.model.WorkSpec}, or
+     * {@code null} if it isn't running in this process or hasn't reported any progress
+     */
+    @Nullable
+    public Data getProgress(@NonNull String workSpecId) {
+        synchronized (mLock) {
+            return mProgress.get(workSpecId);
+        }
+    }
+
+    /**
+     * Creates a {@link LiveData} which replaces the progress of a running {@link WorkInfo} with
+     * the latest progress reported in this process, and which is updated as soon as new
+     * progress is reported.
+     *
+     * @param workSpecId       The {@link androidx.work.impl.model.WorkSpec} id
+     * @param workInfoLiveData The {@link LiveData} of the {@link WorkInfo} as stored in the
+     *                         database
+     * @return A new {@link LiveData} of the {@link WorkInfo}
+     */
+    @NonNull
+    public LiveData<WorkInfo> withLatestProgress(
+            @NonNull String workSpecId,
+            @NonNull LiveData<WorkInfo> workInfoLiveData) {
+        return new LatestProgressLiveData(
+                workInfoLiveData,
+                new ProgressLiveData(this, workSpecId));
+    }
+
+    /**
+     * Creates a {@link LiveData} which replaces the progress of every running {@link WorkInfo} in
+     * a list with the latest progress reported in this process, and which is updated as soon as
+     * new progress is reported.
+     *
+     * @param workInfosLiveData The {@link LiveData} of the {@link WorkInfo}s as stored in the
+     *                          database
+     * @return A new {@link LiveData} of the {@link WorkInfo}s
+     */
+    @NonNull
+    public LiveData<List<WorkInfo>> withLatestProgress(
+            @NonNull LiveData<List<WorkInfo>> workInfosLiveData) {
+        return new LatestProgressListLiveData(
+                workInfosLiveData,
+                new AllProgressLiveData(this));
+    }
+
+    // Synthetic access
+    @Nullable
+    Data addListener(@NonNull String workSpecId, @NonNull ProgressListener listener) {
+        synchronized (mLock) {
+            Set<ProgressListener> listeners = mListeners.get(workSpecId);
+            if (listeners == null) {
+                listeners = new HashSet<>();
+                mListeners.put(workSpecId, listeners);
+            }
+            listeners.add(listener);
+            return mProgress.get(workSpecId);
+        }
+    }
+
+    // Synthetic access
+    void removeListener(@NonNull String workSpecId, @NonNull ProgressListener listener) {
+        synchronized (mLock) {
+            Set<ProgressListener> listeners = mListeners.get(workSpecId);
+            if (listeners != null) {
+                listeners.remove(listener);
+                if (listeners.isEmpty()) {
+                    mListeners.remove(workSpecId);
+                }
+            }
+        }
+    }
+
+    // Synthetic access
+    @NonNull
+    Map<String, Data> addListener(@NonNull ProgressListener listener) {
+        synchronized (mLock) {
+            mAllListeners.add(listener);
+            return new HashMap<>(mProgress);
+        }
+    }
+
+    // Synthetic access
+    void removeListener(@NonNull ProgressListener listener) {
+        synchronized (mLock) {
+            mAllListeners.remove(listener);
+        }
+    }
+
+    // Synthetic access
+    @NonNull
+    Map<String, Data> getAllProgress() {
+        synchronized (mLock) {
+            return new HashMap<>(mProgress);
+        }
+    }
+
+    private void notifyListeners(@NonNull String workSpecId, @Nullable Data progress) {
+        List<ProgressListener> listeners;
+        synchronized (mLock) {
+            Set<ProgressListener> registered = mListeners.get(workSpecId);
+            if (registered == null && mAllListeners.isEmpty()) {
+                return;
+            }
+            listeners = new ArrayList<>(mAllListeners);
+            if (registered != null) {
+                listeners.addAll(registered);
+            }
+        }
+        for (ProgressListener listener : listeners) {
+            listener.onProgress(workSpecId, progress);
+        }
+    }
+
+    // Synthetic access
+    @Nullable
+    static WorkInfo withProgress(@Nullable WorkInfo workInfo, @Nullable Data progress) {
+        if (workInfo == null
+                || progress == null
+                || workInfo.getState() != WorkInfo.State.RUNNING
+                || progress.equals(workInfo.getProgress())) {
+            return workInfo;
+        }
+        return new WorkInfo(
+                workInfo.getId(),
+                workInfo.getState(),
+                workInfo.getOutputData(),
+                new ArrayList<>(workInfo.getTags()),
+                progress,
+                workInfo.getRunAttemptCount());
+    }
+
+    /**
+     * Listens to the progress reported for a {@link androidx.work.impl.model.WorkSpec}.
+     */
+    interface ProgressListener {
+        /**
+         * @param workSpecId The {@link androidx.work.impl.model.WorkSpec} id
+         * @param progress   The latest progress, or {@code null} once the work stopped running
+         */
+        void onProgress(@NonNull String workSpecId, @Nullable Data progress);
+    }
+
+    /**
+     * A {@link MediatorLiveData} of a {@link WorkInfo} with the latest progress reported in this
+     * process, which only triggers its observers when the {@link WorkInfo} actually changes.
+     */
+    static class LatestProgressLiveData extends MediatorLiveData<WorkInfo> {
+        @Nullable WorkInfo mStoredWorkInfo;
+        @Nullable Data mProgress;
+
+        LatestProgressLiveData(
+                @NonNull LiveData<WorkInfo> workInfoLiveData,
+                @NonNull LiveData<Data> progressLiveData) {
+            addSource(workInfoLiveData, new Observer<WorkInfo>() {
+                @Override
+                public void onChanged(@Nullable WorkInfo workInfo) {
+                    mStoredWorkInfo = workInfo;
+                    update();
+                }
+            });
+            addSource(progressLiveData, new Observer<Data>() {
+                @Override
+                public void onChanged(@Nullable Data progress) {
+                    mProgress = progress;
+                    update();
+                }
+            });
+        }
+
+        // Synthetic access
+        void update() {
+            WorkInfo workInfo = withProgress(mStoredWorkInfo, mProgress);
+            WorkInfo current = getValue();
+            if (current == null ? workInfo != null : !current.equals(workInfo)) {
+                setValue(workInfo);
+            }
+        }
+    }
+
+    /**
+     * A {@link LiveData} of the progress reported for a {@link androidx.work.impl.model.WorkSpec},
+     * which only listens to the {@link WorkProgressTracker} while it's active.
+     */
+    static class ProgressLiveData extends LiveData<Data> implements ProgressListener {
+        private final WorkProgressTracker mTracker;
+        private final String mWorkSpecId;
+
+        ProgressLiveData(@NonNull WorkProgressTracker tracker, @NonNull String workSpecId) {
+            mTracker = tracker;
+            mWorkSpecId = workSpecId;
+        }
+
+        @Override
+        protected void onActive() {
+            setValue(mTracker.addListener(mWorkSpecId, this));
+        }
+
+        @Override
+        protected void onInactive() {
+            mTracker.removeListener(mWorkSpecId, this);
+        }
+
+        @Override
+        public void onProgress(@NonNull String workSpecId, @Nullable Data progress) {
+            postValue(progress);
+        }
+    }
+
+    /**
+     * A {@link MediatorLiveData} of a list of {@link WorkInfo}s with the latest progress reported
+     * in this process, which only triggers its observers when the list actually changes.
+     */
+    static class LatestProgressListLiveData extends MediatorLiveData<List<WorkInfo>> {
+        @Nullable List<WorkInfo> mStoredWorkInfos;
+        @Nullable Map<String, Data> mProgress;
+
+        LatestProgressListLiveData(
+                @NonNull LiveData<List<WorkInfo>> workInfosLiveData,
+                @NonNull LiveData<Map<String, Data>> progressLiveData) {
+            addSource(workInfosLiveData, new Observer<List<WorkInfo>>() {
+                @Override
+                public void onChanged(@Nullable List<WorkInfo> workInfos) {
+                    mStoredWorkInfos = workInfos;
+                    update();
+                }
+            });
+            addSource(progressLiveData, new Observer<Map<String, Data>>() {
+                @Override
+                public void onChanged(@Nullable Map<String, Data> progress) {
+                    mProgress = progress;
+                    update();
+                }
+            });
+        }
+
+        // Synthetic access
+        void update() {
+            List<WorkInfo> workInfos = mStoredWorkInfos;
+            if (workInfos != null && mProgress != null && !mProgress.isEmpty()) {
+                workInfos = new ArrayList<>(workInfos.size());
+                for (WorkInfo workInfo : mStoredWorkInfos) {
+                    Data progress = mProgress.get(workInfo.getId().toString());
+                    workInfos.add(withProgress(workInfo, progress));
+                }
+            }
+            List<WorkInfo> current = getValue();
+            if (current == null ? workInfos != null : !current.equals(workInfos)) {
+                setValue(workInfos);
+            }
+        }
+    }
+
+    /**
+     * A {@link LiveData} of the progress of all the work running in this process, keyed by
+     * {@link androidx.work.impl.model.WorkSpec} id, which only listens to the
+     * {@link WorkProgressTracker} while it's active.
+     */
+    static class AllProgressLiveData extends LiveData<Map<String, Data>>
+            implements ProgressListener {
+        private final WorkProgressTracker mTracker;
+
+        AllProgressLiveData(@NonNull WorkProgressTracker tracker) {
+            mTracker = tracker;
+        }
+
+        @Override
+        protected void onActive() {
+            setValue(mTracker.addListener(this));
+        }
+
+        @Override
+        protected void onInactive() {
+            mTracker.removeListener(this);
+        }
+
+        @Override
+        public void onProgress(@NonNull String workSpecId, @Nullable Data progress) {
+            postValue(mTracker.getAllProgress());
+        }
+    }
+}
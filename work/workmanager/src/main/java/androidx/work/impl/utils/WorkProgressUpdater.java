@@ -19,10 +19,12 @@ package androidx.work.impl.utils;
 import android.content.Context;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.work.Data;
 import androidx.work.Logger;
 import androidx.work.ProgressUpdater;
+import androidx.work.RunnableScheduler;
 import androidx.work.WorkInfo.State;
 import androidx.work.impl.WorkDatabase;
 import androidx.work.impl.model.WorkProgress;
@@ -33,10 +35,20 @@ import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Persists {@link androidx.work.ListenableWorker} progress in a {@link WorkDatabase}.
+ * <p>
+ * Progress is written at most once per {@link #MIN_WRITE_INTERVAL_MILLIS} for each
+ * {@link WorkSpec} when a {@link RunnableScheduler} is given. Updates arriving faster are
+ * coalesced, and only the latest one is written once the interval elapses. Their futures resolve
+ * right away, and observers in this process see them through the {@link WorkProgressTracker}.
  *
  * @hide
  */
@@ -47,6 +59,11 @@ public class WorkProgressUpdater implements ProgressUpdater {
     @SuppressWarnings("WeakerAccess")
     static final String TAG = Logger.tagWithPrefix("WorkProgressUpdater");
 
+    /**
+     * The minimum interval between two progress writes for the same {@link WorkSpec}.
+     */
+    static final long MIN_WRITE_INTERVAL_MILLIS = 250L;
+
     // Synthetic access
     @SuppressWarnings("WeakerAccess")
     final WorkDatabase mWorkDatabase;
@@ -55,11 +72,35 @@ public class WorkProgressUpdater implements ProgressUpdater {
     @SuppressWarnings("WeakerAccess")
     final TaskExecutor mTaskExecutor;
 
+    private final RunnableScheduler mRunnableScheduler;
+    private final WorkProgressTracker mProgressTracker;
+    private final Object mLock;
+    private final Map<String, PendingProgress> mPendingProgress;
+
     public WorkProgressUpdater(
             @NonNull WorkDatabase workDatabase,
             @NonNull TaskExecutor taskExecutor) {
+        this(workDatabase, taskExecutor, null, null);
+    }
+
+    /**
+     * @param workDatabase      The {@link WorkDatabase}
+     * @param taskExecutor      The {@link TaskExecutor}
+     * @param runnableScheduler The {@link RunnableScheduler} used to delay writes, or
+     *                          {@code null} to write every update as soon as possible
+     * @param progressTracker   The {@link WorkProgressTracker} of the process, if any
+     */
+    public WorkProgressUpdater(
+            @NonNull WorkDatabase workDatabase,
+            @NonNull TaskExecutor taskExecutor,
+            @Nullable RunnableScheduler runnableScheduler,
+            @Nullable WorkProgressTracker progressTracker) {
         mWorkDatabase = workDatabase;
         mTaskExecutor = taskExecutor;
+        mRunnableScheduler = runnableScheduler;
+        mProgressTracker = progressTracker;
+        mLock = new Object();
+        mPendingProgress = new HashMap<>();
     }
 
     @NonNull
@@ -68,46 +109,137 @@ public class WorkProgressUpdater implements ProgressUpdater {
             @NonNull final Context context,
             @NonNull final UUID id,
             @NonNull final Data data) {
+        final String workSpecId = id.toString();
         final SettableFuture<Void> future = SettableFuture.create();
-        mTaskExecutor.executeOnBackgroundThread(new Runnable() {
+        if (mProgressTracker != null) {
+            // Ignored once the work finished, so that late progress doesn't outlive the work.
+            mProgressTracker.setProgress(workSpecId, data);
+        }
+        long delay = 0L;
+        boolean schedule = false;
+        boolean resolved = false;
+        synchronized (mLock) {
+            PendingProgress pending = mPendingProgress.get(workSpecId);
+            if (pending == null) {
+                pending = new PendingProgress();
+                mPendingProgress.put(workSpecId, pending);
+            }
+            // A write which is already scheduled writes the latest update when it runs.
+            pending.mData = data;
+            if (!pending.mWriteScheduled) {
+                if (mRunnableScheduler != null) {
+                    long nextWrite = pending.mLastWriteMillis + MIN_WRITE_INTERVAL_MILLIS;
+                    delay = Math.max(0L, nextWrite - System.currentTimeMillis());
+                }
+                pending.mWriteScheduled = true;
+                pending.mWriteDelayed = delay > 0L;
+                schedule = true;
+            }
+            if (pending.mWriteDelayed) {
+                resolved = true;
+            } else {
+                pending.mFutures.add(future);
+            }
+        }
+        if (resolved) {
+            // Don't hold up workers awaiting each update until the delayed write. The update is
+            // already visible in this process.
+            future.set(null);
+        }
+        if (schedule) {
+            scheduleWrite(workSpecId, delay);
+        }
+        return future;
+    }
+
+    private void scheduleWrite(@NonNull final String workSpecId, long delay) {
+        final Runnable write = new Runnable() {
             @Override
             public void run() {
-                String workSpecId = id.toString();
-                Logger.get().debug(TAG, String.format("Updating progress for %s (%s)", id, data));
-                mWorkDatabase.beginTransaction();
-                try {
-                    WorkSpecDao workSpecDao = mWorkDatabase.workSpecDao();
-                    WorkSpec workSpec = workSpecDao.getWorkSpec(workSpecId);
-                    if (workSpec != null) {
-                        State state = workSpec.state;
-                        // Update Progress
-                        if (state == State.RUNNING) {
-                            WorkProgress progress = new WorkProgress(workSpecId, data);
-                            mWorkDatabase.workProgressDao().insert(progress);
-                        } else {
-                            Logger.get().warning(TAG,
-                                    String.format(
-                                            "Ignoring setProgressAsync(...). WorkSpec (%s) is not"
-                                                    + " in a RUNNING state.",
-                                            workSpecId));
-                        }
-                    } else {
-                        String message =
-                                "Calls to setProgressAsync() must complete before a "
-                                        + "ListenableWorker signals completion of work by "
-                                        + "returning an instance of Result.";
-                        throw new IllegalStateException(message);
-                    }
-                    future.set(null);
-                    mWorkDatabase.setTransactionSuccessful();
-                } catch (Throwable throwable) {
-                    Logger.get().error(TAG, "Error updating Worker progress", throwable);
-                    future.setException(throwable);
-                } finally {
-                    mWorkDatabase.endTransaction();
+                writeProgress(workSpecId);
+            }
+        };
+        if (delay <= 0L) {
+            mTaskExecutor.getBackgroundExecutor()
+                    .execute(Collections.singletonList(workSpecId), write);
+        } else {
+            mRunnableScheduler.scheduleWithDelay(delay, new Runnable() {
+                @Override
+                public void run() {
+                    mTaskExecutor.getBackgroundExecutor()
+                            .execute(Collections.singletonList(workSpecId), write);
+                }
+            });
+        }
+    }
+
+    // Synthetic access
+    void writeProgress(@NonNull String workSpecId) {
+        Data data;
+        List<SettableFuture<Void>> futures;
+        synchronized (mLock) {
+            PendingProgress pending = mPendingProgress.get(workSpecId);
+            data = pending.mData;
+            futures = pending.mFutures;
+            pending.mData = null;
+            pending.mFutures = new ArrayList<>();
+            pending.mWriteScheduled = false;
+            pending.mWriteDelayed = false;
+            pending.mLastWriteMillis = System.currentTimeMillis();
+        }
+        Logger.get().debug(TAG, String.format("Updating progress for %s (%s)", workSpecId, data));
+        mWorkDatabase.beginTransaction();
+        try {
+            WorkSpecDao workSpecDao = mWorkDatabase.workSpecDao();
+            WorkSpec workSpec = workSpecDao.getWorkSpec(workSpecId);
+            if (workSpec != null) {
+                State state = workSpec.state;
+                // Update Progress
+                if (state == State.RUNNING) {
+                    WorkProgress progress = new WorkProgress(workSpecId, data);
+                    mWorkDatabase.workProgressDao().insert(progress);
+                } else {
+                    Logger.get().warning(TAG,
+                            String.format(
+                                    "Ignoring setProgressAsync(...). WorkSpec (%s) is not"
+                                            + " in a RUNNING state.",
+                                    workSpecId));
                 }
+            } else if (futures.isEmpty()) {
+                // A delayed write, whose updates already resolved, which ran after the work
+                // finished and was deleted.
+                Logger.get().debug(TAG,
+                        String.format("Dropping progress for deleted WorkSpec (%s)", workSpecId));
+            } else {
+                String message =
+                        "Calls to setProgressAsync() must complete before a "
+                                + "ListenableWorker signals completion of work by "
+                                + "returning an instance of Result.";
+                throw new IllegalStateException(message);
             }
-        });
-        return future;
+            for (SettableFuture<Void> future : futures) {
+                future.set(null);
+            }
+            mWorkDatabase.setTransactionSuccessful();
+        } catch (Throwable throwable) {
+            Logger.get().error(TAG, "Error updating Worker progress", throwable);
+            for (SettableFuture<Void> future : futures) {
+                future.setException(throwable);
+            }
+        } finally {
+            mWorkDatabase.endTransaction();
+        }
+    }
+
+    /**
+     * The progress of a {@link WorkSpec} waiting to be written.
+     */
+    private static class PendingProgress {
+        @Nullable Data mData;
+        // The futures which resolve once the scheduled write completes.
+        @NonNull List<SettableFuture<Void>> mFutures = new ArrayList<>();
+        boolean mWriteScheduled;
+        boolean mWriteDelayed;
+        long mLastWriteMillis;
     }
 }
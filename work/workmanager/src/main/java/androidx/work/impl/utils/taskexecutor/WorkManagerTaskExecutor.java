@@ -21,6 +21,7 @@ import android.os.Looper;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
+import androidx.work.impl.utils.ConflictAwareExecutor;
 import androidx.work.impl.utils.SerialExecutor;
 
 import java.util.concurrent.Executor;
@@ -32,12 +33,17 @@ import java.util.concurrent.Executor;
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public class WorkManagerTaskExecutor implements TaskExecutor {
 
+    // The default background executor is shared with Room's query executor, so leave some of its
+    // threads free for queries.
+    private static final int MAX_BACKGROUND_PARALLELISM = 2;
+
     private final SerialExecutor mBackgroundExecutor;
 
     public WorkManagerTaskExecutor(@NonNull Executor backgroundExecutor) {
-        // Wrap it with a serial executor so we have ordering guarantees on commands
-        // being executed.
-        mBackgroundExecutor = new SerialExecutor(backgroundExecutor);
+        // Wrap it with an executor which keeps commands touching the same work in order, while
+        // letting commands touching unrelated work run in parallel.
+        mBackgroundExecutor =
+                new ConflictAwareExecutor(backgroundExecutor, MAX_BACKGROUND_PARALLELISM);
     }
 
     private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
@@ -27,6 +27,9 @@ import androidx.annotation.NonNull;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -89,6 +92,71 @@ public class DataTest {
         assertThat(restoredData.getIntArray(KEY2), is(equalTo(expectedValue2)));
     }
 
+    @Test
+    public void testSerializeAllTypes() {
+        Data data = new Data.Builder()
+                .putBoolean("boolean", true)
+                .putByte("byte", (byte) -1)
+                .putInt("int", Integer.MIN_VALUE)
+                .putLong("long", Long.MAX_VALUE)
+                .putFloat("float", 1.5f)
+                .putDouble("double", -2.25)
+                .putString("String", "h\u00e9llo \u4e16\ud83d\ude00")
+                .putString("null", null)
+                .putBooleanArray("boolean array",
+                        new boolean[]{true, false, true, true, false, false, false, true, true})
+                .putByteArray("byte array", new byte[]{1, -2, 3})
+                .putIntArray("int array", new int[]{-1, 0, Integer.MAX_VALUE})
+                .putLongArray("long array", new long[]{Long.MIN_VALUE, 0L})
+                .putFloatArray("float array", new float[]{Float.NaN, 0f})
+                .putDoubleArray("double array", new double[]{Double.MAX_VALUE})
+                .putStringArray("String array", new String[]{"String", null, ""})
+                .build();
+
+        byte[] byteArray = Data.toByteArrayInternal(data);
+        Data restoredData = Data.fromByteArray(byteArray);
+
+        assertThat(DataSerializer.isCompact(byteArray), is(true));
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testDeserializeLegacyFormat() throws IOException {
+        Map<String, Object> values = new HashMap<>();
+        values.put("int", 1);
+        values.put("String", "two");
+        values.put("long array", new Long[]{1L, 2L, 3L});
+        values.put("null", null);
+        byte[] legacyByteArray = toLegacyByteArray(values);
+
+        Data restoredData = Data.fromByteArray(legacyByteArray);
+
+        assertThat(DataSerializer.isCompact(legacyByteArray), is(false));
+        assertThat(restoredData, is(new Data.Builder().putAll(values).build()));
+    }
+
+    @Test
+    public void testSerializeSmallerThanLegacyFormat() throws IOException {
+        Data data = createData();
+
+        byte[] byteArray = Data.toByteArrayInternal(data);
+
+        assertThat(byteArray.length < toLegacyByteArray(data.mValues).length, is(true));
+    }
+
+    @Test
+    public void testSerializeNullArrayElement() {
+        Data data = new Data.Builder()
+                .put(KEY1, new Integer[]{1, null})
+                .build();
+
+        byte[] byteArray = Data.toByteArrayInternal(data);
+        Data restoredData = Data.fromByteArray(byteArray);
+
+        assertThat(DataSerializer.isCompact(byteArray), is(false));
+        assertThat(restoredData, is(data));
+    }
+
     @Test
     public void testSerializePastMaxSize() {
         int[] payload = new int[Data.MAX_DATA_BYTES + 1];
@@ -230,6 +298,20 @@ public class DataTest {
         assertThat(caughtIllegalArgumentException, is(true));
     }
 
+    @NonNull
+    private static byte[] toLegacyByteArray(@NonNull Map<String, Object> values)
+            throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeInt(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            objectOutputStream.writeUTF(entry.getKey());
+            objectOutputStream.writeObject(entry.getValue());
+        }
+        objectOutputStream.close();
+        return outputStream.toByteArray();
+    }
+
     @NonNull
     private Data createData() {
         Map<String, Object> map = new HashMap<>();